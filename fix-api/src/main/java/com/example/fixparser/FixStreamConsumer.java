@@ -1,26 +1,65 @@
 package com.example.fixparser;
 
-import com.example.fixparser.model.FixMessageEntity;
-import com.example.fixparser.repository.FixMessageRepository;
+import com.example.fixparser.consumer.AdaptiveRead;
+import com.example.fixparser.consumer.BatchListener;
+import com.example.fixparser.consumer.CheckpointStreamSource;
+import com.example.fixparser.consumer.ConsumerWorker;
+import com.example.fixparser.consumer.GroupStreamSource;
+import com.example.fixparser.consumer.PipelinedConsumer;
+import com.example.fixparser.consumer.StreamSource;
+import com.example.fixparser.consumer.StreamWorker;
+import com.example.fixparser.metrics.PipelineMetrics;
+import com.example.fixparser.model.FixDictionaries;
+import com.example.fixparser.publisher.FixStreamPublisher;
+import com.example.fixparser.repository.FixMessageStore;
+import com.example.fixparser.validation.MessageValidation;
+import com.example.fixreport.FixReportApp;
+import jakarta.annotation.PreDestroy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
 import org.springframework.stereotype.Component;
 import redis.clients.jedis.Jedis;
-import redis.clients.jedis.StreamEntryID;
-import redis.clients.jedis.params.XReadParams;
-import redis.clients.jedis.resps.StreamEntry;
-
-import java.io.IOException;
-import java.nio.file.*;
-import java.util.*;
-import java.util.regex.Pattern;
 
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * Starts the workers that move entries from the fix-messages stream into Postgres.
+ *
+ * In {@code group} mode (the default) every worker thread is a member of a
+ * Redis consumer group, so threads and application instances can be added
+ * freely and share the stream. {@code checkpoint} mode keeps the original
+ * single-reader XREAD with the last ID stored in last_stream_id.txt.
+ *
+ * With {@code fix.consumer.pipeline.enabled} each worker is a
+ * {@link PipelinedConsumer}: its reader fans messages out to parser threads
+ * and a separate writer thread batches them into Postgres.
+ */
 @Component
 public class FixStreamConsumer implements CommandLineRunner {
 
     @Autowired
-    private FixMessageRepository repository;
+    private FixMessageStore store;
+
+    @Autowired
+    private FixReportApp reportApp;
+
+    @Autowired
+    private PipelineMetrics metrics;
+
+    @Autowired
+    private FixDictionaries dictionaries;
+
+    @Autowired
+    private List<BatchListener> batchListeners;
+
+    @Autowired
+    private MessageValidation validation;
 
     @Value("${spring.redis.host:redis}")
     private String redisHost;
@@ -28,106 +67,126 @@ public class FixStreamConsumer implements CommandLineRunner {
     @Value("${spring.redis.port:6379}")
     private int redisPort;
 
-    private static final Pattern FIELD_PATTERN = Pattern.compile("\\|");
-    private static final String STREAM_KEY = "fix-messages";
-    private static final Path LAST_ID_FILE = Paths.get("last_stream_id.txt");
+    /** Messages per DB transaction. */
+    @Value("${fix.consumer.batch-size:500}")
+    private int batchSize;
+
+    /** Longest a partially filled batch may wait before it is written anyway. */
+    @Value("${fix.consumer.flush-interval-ms:200}")
+    private long flushIntervalMs;
+
+    /** Bounds of the adaptive read size: entries per XREAD(GROUP) when caught up and when far behind. */
+    @Value("${fix.consumer.read.min-count:1}")
+    private int readMinCount;
+
+    @Value("${fix.consumer.read.max-count:2000}")
+    private int readMaxCount;
+
+    /** How long a read blocks when nothing is buffered or in flight. */
+    @Value("${fix.consumer.read.idle-block-ms:5000}")
+    private int readIdleBlockMs;
+
+    /** group | checkpoint */
+    @Value("${fix.consumer.mode:group}")
+    private String mode;
+
+    @Value("${fix.consumer.group:fix-consumers}")
+    private String group;
+
+    /** Consumer name prefix; must be unique per instance (the container hostname by default). */
+    @Value("${fix.consumer.name:${HOSTNAME:fix-api}}")
+    private String consumerName;
+
+    /** Worker threads in this instance (group mode only). */
+    @Value("${fix.consumer.threads:1}")
+    private int threads;
+
+    /** Pending entries idle for longer than this are reclaimed from other consumers. */
+    @Value("${fix.consumer.claim-min-idle-ms:30000}")
+    private long claimMinIdleMs;
+
+    @Value("${fix.consumer.claim-interval-ms:10000}")
+    private long claimIntervalMs;
+
+    /** Split each worker into reader, parser and writer threads. */
+    @Value("${fix.consumer.pipeline.enabled:true}")
+    private boolean pipelineEnabled;
+
+    @Value("${fix.consumer.pipeline.parser-threads:2}")
+    private int parserThreads;
+
+    /** Capacity of each parser's input and output queue. */
+    @Value("${fix.consumer.pipeline.queue-capacity:4096}")
+    private int queueCapacity;
+
+    /** symbol | session: messages with the same key are parsed by the same thread, in order. */
+    @Value("${fix.consumer.pipeline.partition-by:symbol}")
+    private String partitionBy;
+
+    private static final String STREAM_KEY = FixStreamPublisher.STREAM_KEY;
+    private static final Path LAST_ID_FILE = CheckpointStreamSource.DEFAULT_CHECKPOINT_FILE;
+
+    private final List<StreamWorker> workers = new ArrayList<>();
+    private final List<Thread> workerThreads = new ArrayList<>();
 
     @Override
     public void run(String... args) {
-        System.out.println("Starting FixStreamConsumer (resuming from last ID if available)...");
+        boolean groupMode = !"checkpoint".equalsIgnoreCase(mode);
+        int workerCount = groupMode ? Math.max(1, threads) : 1;
+        System.out.println("Starting FixStreamConsumer: mode=" + (groupMode ? "group" : "checkpoint")
+                + ", workers=" + workerCount + ", pipeline=" + (pipelineEnabled ? parserThreads + " parsers" : "off")
+                + ", redis=" + redisHost + ":" + redisPort);
 
-        // Wait for Redis to finish initializing
+        // Seed the report totals before any worker can add to them.
         try {
-            System.out.println("Waiting 5 seconds before connecting to Redis...");
-            Thread.sleep(5_000);
-        } catch (InterruptedException ignored) {
-        }
-
-        StreamEntryID lastId = loadLastStreamId();
-
-        try (Jedis jedis = new Jedis(redisHost, redisPort)) {
-            System.out.println("Connected to Redis at " + redisHost + ":" + redisPort);
-
-            while (true) {
-                XReadParams params = new XReadParams().count(1).block(2000);
-                List<Map.Entry<String, List<StreamEntry>>> streams =
-                        jedis.xread(params, Map.of(STREAM_KEY, lastId));
-
-                if (streams != null && !streams.isEmpty()) {
-                    for (Map.Entry<String, List<StreamEntry>> stream : streams) {
-                        for (StreamEntry entry : stream.getValue()) {
-                            lastId = entry.getID();
-                            String fixMessage = entry.getFields().get("fixMessage");
-
-                            if (fixMessage != null) {
-                                Map<String, String> parsed = parseFixMessage(fixMessage);
-                                saveToDatabase(parsed, fixMessage);
-                                saveLastStreamId(lastId);
-                            }
-                        }
-                    }
-                } else {
-                    System.out.println("Waiting for new messages...");
-                }
-            }
-        } catch (Exception e) {
-            System.err.println("Error in FixStreamConsumer: " + e.getMessage());
-            e.printStackTrace();
+            reportApp.rebuildAggregates();
+        } catch (SQLException e) {
+            System.err.println("Could not load report totals, starting from zero: " + e.getMessage());
         }
-    }
-
-    /** Load the last processed stream ID from file (defaults to 0-0). */
-    private StreamEntryID loadLastStreamId() {
-        try {
-            if (Files.exists(LAST_ID_FILE)) {
-                String id = Files.readString(LAST_ID_FILE).trim();
-                System.out.println("Resuming from stream ID: " + id);
-                return new StreamEntryID(id);
-            }
-        } catch (IOException e) {
-            System.err.println(" Failed to read last stream ID: " + e.getMessage());
+        batchListeners.forEach(BatchListener::restore);
+
+        BatchListener onCommitted = BatchListener.all(batchListeners);
+        // Lets a later report rebuild hold commits off while it reads the table.
+        Lock commitLock = reportApp.aggregator().commitLock();
+        // Several workers split every session between them, so none sees a session in order.
+        boolean trackSequences = workerCount == 1;
+        if (!trackSequences) {
+            System.out.println("Sequence checks are off with " + workerCount + " workers per instance");
         }
-        System.out.println("No previous ID found, starting from 0-0.");
-        return new StreamEntryID("0-0");
-    }
-
-    /** Persist the last processed stream ID to disk. */
-    private void saveLastStreamId(StreamEntryID id) {
-        try {
-            Files.writeString(LAST_ID_FILE, id.toString(),
-                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
-        } catch (IOException e) {
-            System.err.println("Could not save last stream ID: " + e.getMessage());
+        for (int i = 0; i < workerCount; i++) {
+            String name = consumerName + "-" + i;
+            Supplier<StreamSource> source = groupMode
+                    ? () -> new GroupStreamSource(new Jedis(redisHost, redisPort), STREAM_KEY, group, name,
+                            claimMinIdleMs, claimIntervalMs)
+                    : () -> new CheckpointStreamSource(new Jedis(redisHost, redisPort), STREAM_KEY, LAST_ID_FILE);
+
+            // Without the pipeline a read becomes a DB batch, so it stays within batchSize.
+            AdaptiveRead read = new AdaptiveRead(readMinCount,
+                    pipelineEnabled ? readMaxCount : Math.min(readMaxCount, batchSize),
+                    (int) flushIntervalMs, readIdleBlockMs);
+            metrics.readControl("fix-consumer-" + i, read);
+            StreamWorker worker = pipelineEnabled
+                    ? new PipelinedConsumer("fix-consumer-" + i, source, store, dictionaries, onCommitted, commitLock,
+                            batchSize, flushIntervalMs, Math.max(1, parserThreads), queueCapacity,
+                            PipelinedConsumer.PartitionBy.valueOf(partitionBy.toUpperCase()), metrics,
+                            validation, trackSequences ? validation.newTracker() : null, read)
+                    : new ConsumerWorker(source, store, dictionaries, onCommitted, commitLock, batchSize,
+                            flushIntervalMs, metrics,
+                            validation, trackSequences ? validation.newTracker() : null, read);
+            Thread thread = new Thread(worker, "fix-consumer-" + i);
+            workers.add(worker);
+            workerThreads.add(thread);
+            thread.start();
         }
     }
 
-    private Map<String, String> parseFixMessage(String fixMessage) {
-        fixMessage = fixMessage.replace("\u0001", "|");
-        String[] fields = FIELD_PATTERN.split(fixMessage);
-        Map<String, String> map = new HashMap<>();
-        for (String field : fields) {
-            if (field.contains("=")) {
-                String[] kv = field.split("=", 2);
-                map.put(kv[0], kv[1]);
-            }
+    /** Lets each worker flush and commit its current batch before the context closes. */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        workers.forEach(StreamWorker::stop);
+        for (Thread thread : workerThreads) {
+            // A worker with nothing in hand may be in a read blocked for readIdleBlockMs.
+            thread.join(Math.max(flushIntervalMs, readIdleBlockMs) + 5_000);
         }
-        return map;
-    }
-
-    private void saveToDatabase(Map<String, String> map, String raw) {
-        FixMessageEntity entity = FixMessageEntity.builder()
-                .msgType(map.get("35"))
-                .symbol(map.get("55"))
-                .side(map.get("54"))
-                .orderQty(map.get("38"))
-                .price(map.get("44"))
-                .senderCompID(map.get("49"))
-                .targetCompID(map.get("56"))
-                .sendingTime(map.get("52"))
-                .rawMessage(raw)
-                .build();
-
-        repository.save(entity);
-        System.out.println("Saved FIX message: " + entity.getSymbol() + " " + entity.getSide());
     }
 }
@@ -0,0 +1,224 @@
+package com.example.fixparser.archive;
+
+import com.example.fixarchive.ArchiveWriter;
+import com.example.fixarchive.SegmentArchive;
+import com.example.fixparser.consumer.BatchListener;
+import com.example.fixparser.model.FixMessageRecord;
+import com.example.fixparser.metrics.PipelineMetrics;
+import com.example.fixparser.metrics.RateLimitedLog;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Copies every committed row into the columnar segment archive, so replays
+ * and reports can run over immutable files instead of Postgres.
+ *
+ * Workers only queue their committed batches, up to
+ * {@code fix.archive.queue-batches}; one archiver thread takes them into a
+ * single {@link ArchiveWriter}, which keeps an open segment per day of event
+ * time and writes it at {@code fix.archive.segment-rows} rows, every
+ * {@code fix.archive.flush-interval-ms} and at shutdown. Building,
+ * compressing and syncing a segment therefore never holds up a commit. The
+ * archive is a copy, not the system of record: a batch that finds the queue
+ * full, and the rows of a segment that cannot be written, are counted in
+ * {@code fix.archive.dropped} and left out, and the consumer carries on.
+ */
+@Component
+@ConditionalOnProperty(name = "fix.archive.enabled", havingValue = "true", matchIfMissing = true)
+public class SegmentArchiver implements BatchListener {
+
+    private static final long STOP_CHECK_NANOS = 200_000_000;
+
+    private final SegmentArchive archive;
+    private final int segmentRows;
+    private final long flushIntervalNanos;
+    private final BlockingQueue<List<FixMessageRecord>> queue;
+    private final Thread thread;
+    private final RateLimitedLog queueFullLog;
+    private final AtomicLong queuedRows = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong segments = new AtomicLong();
+    private final AtomicLong bytes = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean running = true;
+
+    // Archiver thread only.
+    private ArchiveWriter writer;
+    private long writerSegments;
+    private long writerBytes;
+    private boolean warned;
+
+    public SegmentArchiver(MeterRegistry registry, PipelineMetrics metrics,
+                           @Value("${fix.archive.dir:/archive}") String dir,
+                           @Value("${fix.archive.segment-rows:1000000}") int segmentRows,
+                           @Value("${fix.archive.flush-interval-ms:60000}") long flushIntervalMs,
+                           @Value("${fix.archive.queue-batches:1024}") int queueBatches) {
+        this.archive = new SegmentArchive(Paths.get(dir));
+        this.segmentRows = segmentRows;
+        this.flushIntervalNanos = flushIntervalMs * 1_000_000;
+        this.queue = new ArrayBlockingQueue<>(Math.max(1, queueBatches));
+        this.queueFullLog = metrics.summaryLog("Archive queue full, rows left out", "dropped");
+
+        Gauge.builder("fix.archive.queued", queuedRows, AtomicLong::get)
+                .description("Committed rows waiting for the archiver thread").register(registry);
+        Gauge.builder("fix.archive.pending", pending, AtomicLong::get)
+                .description("Committed rows not yet written to a segment").register(registry);
+        FunctionCounter.builder("fix.archive.segments", segments, AtomicLong::get)
+                .description("Segments written").register(registry);
+        FunctionCounter.builder("fix.archive.bytes", bytes, AtomicLong::get)
+                .description("Bytes of segments written").baseUnit("bytes").register(registry);
+        FunctionCounter.builder("fix.archive.dropped", dropped, AtomicLong::get)
+                .description("Rows left out of the archive: the queue was full or their segment could not be written")
+                .register(registry);
+
+        this.thread = new Thread(this::run, "fix-archiver");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    public SegmentArchive archive() {
+        return archive;
+    }
+
+    @Override
+    public void onCommitted(List<FixMessageRecord> batch) {
+        if (batch.isEmpty()) {
+            return;
+        }
+        queuedRows.addAndGet(batch.size());
+        // The worker reuses its list once this returns.
+        if (!running || !queue.offer(List.copyOf(batch))) {
+            queuedRows.addAndGet(-batch.size());
+            dropped.addAndGet(batch.size());
+            queueFullLog.record(batch.size(), dropped.get());
+        }
+    }
+
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        // Not interrupted: that would close the segment file under a write.
+        running = false;
+        thread.join(30_000);
+    }
+
+    /** Appends queued batches, writes the open segments every flush interval, and at stop what is left. */
+    private void run() {
+        long lastFlush = System.nanoTime();
+        while (running) {
+            try {
+                long wait = Math.min(STOP_CHECK_NANOS, flushIntervalNanos - (System.nanoTime() - lastFlush));
+                List<FixMessageRecord> batch = wait > 0 ? queue.poll(wait, TimeUnit.NANOSECONDS) : null;
+                if (batch != null) {
+                    append(batch);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+            if (System.nanoTime() - lastFlush >= flushIntervalNanos) {
+                flush();
+                lastFlush = System.nanoTime();
+            }
+        }
+        for (List<FixMessageRecord> batch; (batch = queue.poll()) != null; ) {
+            append(batch);
+        }
+        flush();
+    }
+
+    private void append(List<FixMessageRecord> batch) {
+        queuedRows.addAndGet(-batch.size());
+        ArchiveWriter writer;
+        try {
+            writer = writer();
+        } catch (IOException e) {
+            fail(e, batch.size());
+            return;
+        }
+        int appended = 0;
+        try {
+            for (FixMessageRecord record : batch) {
+                String raw = record.getRawMessage();
+                writer.append(record.getMsgType(), record.getSymbol(), record.getSide(), record.getOrderQty(),
+                        record.getPrice(), record.getSenderCompID(), record.getTargetCompID(),
+                        record.getSendingTime(), record.getReceivedAt(),
+                        raw == null ? null : raw.getBytes(StandardCharsets.ISO_8859_1));
+                appended++;
+            }
+            account();
+            warned = false;
+        } catch (IOException e) {
+            // The row was added; it was the full segment's write that failed.
+            fail(e, batch.size() - appended - 1);
+        } catch (RuntimeException e) {
+            fail(e, batch.size() - appended);
+        }
+    }
+
+    private void flush() {
+        if (writer == null || writer.pendingRows() == 0) {
+            return;
+        }
+        try {
+            writer.flush();
+            account();
+            warned = false;
+        } catch (IOException | RuntimeException e) {
+            fail(e, 0);
+        }
+    }
+
+    private ArchiveWriter writer() throws IOException {
+        if (writer == null) {
+            writer = new ArchiveWriter(archive, segmentRows);
+            writerSegments = 0;
+            writerBytes = 0;
+        }
+        return writer;
+    }
+
+    /** Moves what the writer has done since last time into the meters. */
+    private void account() {
+        pending.set(writer.pendingRows());
+        long newSegments = writer.segmentsWritten() - writerSegments;
+        if (newSegments > 0) {
+            long newBytes = writer.bytesWritten() - writerBytes;
+            segments.addAndGet(newSegments);
+            bytes.addAndGet(newBytes);
+            writerSegments = writer.segmentsWritten();
+            writerBytes = writer.bytesWritten();
+            System.out.printf("Archived %d segment(s), %,d KB, to %s%n", newSegments, newBytes / 1024, archive.dir());
+        }
+    }
+
+    /** Drops the open segments; the next batch starts new ones, numbered after what is on disk. */
+    private void fail(Exception e, int notAppended) {
+        long lost = notAppended;
+        if (writer != null) {
+            account();
+            lost += writer.pendingRows();
+            writer = null;
+        }
+        dropped.addAndGet(lost);
+        pending.set(0);
+        if (!warned) {
+            System.err.println("Could not archive to " + archive.dir() + ", " + lost + " rows left out: " + e.getMessage());
+            warned = true;
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.fixparser.bars;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/bars")
+@ConditionalOnProperty(name = "fix.bars.enabled", havingValue = "true", matchIfMissing = true)
+@Tag(name = "Bars API", description = "Per-symbol OHLC, VWAP and volume bars at 1s, 1m and 5m")
+public class BarController {
+
+    private static final int MAX_LIMIT = 10_000;
+
+    private final BarTracker tracker;
+
+    public BarController(BarTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    /**
+     * The latest bars come from memory; only the part of the range older
+     * than the in-memory window is read from fix_bars.
+     */
+    @GetMapping("/{symbol}")
+    @Operation(summary = "Up to `limit` most recent bars starting before `before` (ISO instant), oldest first")
+    public ResponseEntity<?> bars(@PathVariable("symbol") String symbol,
+                                  @RequestParam(name = "resolution", defaultValue = "1m") String resolutionParam,
+                                  @RequestParam(name = "limit", defaultValue = "100") int limit,
+                                  @RequestParam(name = "before", required = false) String beforeParam) {
+        BarResolution resolution = BarResolution.parse(resolutionParam);
+        if (resolution == null) {
+            return ResponseEntity.badRequest().body("Unknown resolution " + resolutionParam + ", use 1s, 1m or 5m");
+        }
+        long before;
+        try {
+            before = beforeParam == null ? Long.MAX_VALUE : micros(Instant.parse(beforeParam));
+        } catch (DateTimeParseException e) {
+            return ResponseEntity.badRequest().body("Bad before: " + e.getParsedString());
+        }
+        int symbolId = tracker.dictionaries().symbols().lookup(symbol);
+        if (symbolId == 0) {
+            return ResponseEntity.notFound().build();
+        }
+        limit = Math.max(0, Math.min(limit, MAX_LIMIT));
+
+        BarEngine engine = tracker.engine();
+        List<BarEngine.Bar> bars = new ArrayList<>(engine.latest(symbolId, resolution, limit, before));
+        BarTable table = tracker.table();
+        if (bars.size() < limit && table != null) {
+            long olderThan = Math.min(before, engine.windowStart(symbolId, resolution));
+            bars.addAll(table.history(symbolId, resolution, olderThan, limit - bars.size()));
+        }
+
+        String canonical = tracker.dictionaries().symbols().value(symbolId);
+        List<BarEngine.BarView> views = new ArrayList<>(bars.size());
+        for (BarEngine.Bar bar : bars) {
+            views.add(BarEngine.view(bar, canonical));
+        }
+        Collections.reverse(views);
+        return ResponseEntity.ok(views);
+    }
+
+    private static long micros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+}
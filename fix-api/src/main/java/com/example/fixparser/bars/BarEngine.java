@@ -0,0 +1,399 @@
+package com.example.fixparser.bars;
+
+import com.example.fixparser.model.FixMessageRecord;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Per-symbol OHLC / VWAP / volume bars at every {@link BarResolution},
+ * updated one print at a time.
+ *
+ * Each symbol (by dictionary id) has one fixed-size ring of bars per
+ * resolution: slot {@code bucket % capacity} holds the bar for that bucket,
+ * and a print for a newer bucket recycles the slot. Every print is folded
+ * into its bucket at every resolution, so a 5m bar is always the rollup of
+ * its 1m and 1s bars. Open and close are the prints with the earliest and
+ * latest event time, not the first and last to arrive, so the same prints
+ * in any order give the same bars. Volumes and the trade count are sums:
+ * a print added twice counts twice, so callers must hand each print over
+ * once. A print older than the bar now in its slot has fallen out of that
+ * resolution's window; it still counts at the coarser resolutions and in
+ * {@link #late()}.
+ *
+ * Bars changed since the last {@link #drainDirty} are flagged for
+ * persistence and drained as deltas (see {@link #drainDirty}); a dirty bar
+ * pushed out of its ring is kept until drained.
+ * Prices are fixed-point with {@code FixMessageRecord.PRICE_SCALE}
+ * decimals. Each symbol has its own lock.
+ */
+public final class BarEngine {
+
+    /** One bar, prices scaled; {@code notional} is the sum of scaled price times size. */
+    public record Bar(int symbolId, BarResolution resolution, long start, long open, long high, long low, long close,
+                      long firstAt, long lastAt, long volume, long buyVolume, long sellVolume, long trades,
+                      double notional) {
+
+        /** Size-weighted average price, still scaled; {@code FixMessageRecord.NULL} without volume. */
+        public long vwap() {
+            return volume == 0 ? FixMessageRecord.NULL : Math.round(notional / volume);
+        }
+    }
+
+    /** A bar as served by the API. */
+    public record BarView(String symbol, String resolution, Instant start, BigDecimal open, BigDecimal high,
+                          BigDecimal low, BigDecimal close, BigDecimal vwap, long volume, long buyVolume,
+                          long sellVolume, long trades) {
+    }
+
+    private static final long EMPTY = Long.MIN_VALUE;
+    private static final BarResolution[] RESOLUTIONS = BarResolution.values();
+
+    private final int[] capacities;
+    private final AtomicLong late = new AtomicLong();
+    private volatile SymbolBars[] symbols = new SymbolBars[64];
+
+    /** @param capacities bars kept per symbol for each resolution, in {@link BarResolution} order */
+    public BarEngine(int... capacities) {
+        if (capacities.length != RESOLUTIONS.length) {
+            throw new IllegalArgumentException("One capacity per resolution: " + Arrays.toString(RESOLUTIONS));
+        }
+        this.capacities = capacities.clone();
+    }
+
+    /**
+     * Folds one print into its bars. {@code side} is {@code '1'} (buy),
+     * {@code '2'} (sell) or anything else for neither. Returns false when
+     * the print is older than some resolution's window.
+     */
+    public boolean add(int symbolId, long timeMicros, long price, long size, char side) {
+        if (symbolId <= 0 || size <= 0 || price == FixMessageRecord.NULL || timeMicros == FixMessageRecord.NULL) {
+            return false;
+        }
+        SymbolBars bars = bars(symbolId);
+        boolean inWindow = true;
+        synchronized (bars) {
+            for (Series series : bars.series) {
+                inWindow &= series.add(timeMicros, price, size, side);
+            }
+        }
+        if (!inWindow) {
+            late.incrementAndGet();
+        }
+        return inWindow;
+    }
+
+    /**
+     * Up to {@code limit} of the symbol's most recent bars starting before
+     * {@code beforeMicros}, newest first.
+     */
+    public List<Bar> latest(int symbolId, BarResolution resolution, int limit, long beforeMicros) {
+        SymbolBars bars = existing(symbolId);
+        if (bars == null) {
+            return List.of();
+        }
+        synchronized (bars) {
+            return bars.series[resolution.ordinal()].latest(limit, beforeMicros);
+        }
+    }
+
+    /**
+     * Start of the oldest bucket the symbol's ring covers; every bar from
+     * there on is in memory. {@code Long.MAX_VALUE} if the symbol has none.
+     */
+    public long windowStart(int symbolId, BarResolution resolution) {
+        SymbolBars bars = existing(symbolId);
+        if (bars == null) {
+            return Long.MAX_VALUE;
+        }
+        synchronized (bars) {
+            return bars.series[resolution.ordinal()].windowStart();
+        }
+    }
+
+    /**
+     * Every bar changed since the last call, and clears their flags. The
+     * open, high, low, close and their times are the bar's current state;
+     * volume, side volumes, trades and notional are only what was added
+     * since the bar was last drained or loaded, so bars drained by several
+     * engines can be merged by adding those up.
+     */
+    public List<Bar> drainDirty() {
+        List<Bar> dirty = new ArrayList<>();
+        for (SymbolBars bars : symbols) {
+            if (bars != null) {
+                synchronized (bars) {
+                    for (Series series : bars.series) {
+                        series.drainDirty(dirty);
+                    }
+                }
+            }
+        }
+        return dirty;
+    }
+
+    /**
+     * Puts a persisted bar back, e.g. on restart; prints for its bucket then
+     * add to it. Not flagged dirty, and not part of the next delta.
+     */
+    public void load(Bar bar) {
+        SymbolBars bars = bars(bar.symbolId());
+        synchronized (bars) {
+            bars.series[bar.resolution().ordinal()].load(bar);
+        }
+    }
+
+    public long late() {
+        return late.get();
+    }
+
+    public int symbolCount() {
+        int count = 0;
+        for (SymbolBars bars : symbols) {
+            if (bars != null) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    public int capacity(BarResolution resolution) {
+        return capacities[resolution.ordinal()];
+    }
+
+    public static BarView view(Bar bar, String symbol) {
+        return new BarView(symbol, bar.resolution().label(), instant(bar.start()), decimal(bar.open()),
+                decimal(bar.high()), decimal(bar.low()), decimal(bar.close()), decimal(bar.vwap()),
+                bar.volume(), bar.buyVolume(), bar.sellVolume(), bar.trades());
+    }
+
+    private static BigDecimal decimal(long scaled) {
+        return scaled == FixMessageRecord.NULL ? null : BigDecimal.valueOf(scaled, FixMessageRecord.PRICE_SCALE);
+    }
+
+    private static Instant instant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000);
+    }
+
+    private SymbolBars existing(int symbolId) {
+        SymbolBars[] s = symbols;
+        return symbolId > 0 && symbolId < s.length ? s[symbolId] : null;
+    }
+
+    private SymbolBars bars(int symbolId) {
+        SymbolBars bars = existing(symbolId);
+        if (bars != null) {
+            return bars;
+        }
+        synchronized (this) {
+            SymbolBars[] s = symbols;
+            if (symbolId >= s.length) {
+                s = Arrays.copyOf(s, Math.max(s.length * 2, symbolId + 1));
+            }
+            if (s[symbolId] == null) {
+                s[symbolId] = new SymbolBars(symbolId, capacities);
+            }
+            symbols = s;
+            return s[symbolId];
+        }
+    }
+
+    private static final class SymbolBars {
+        final Series[] series = new Series[RESOLUTIONS.length];
+
+        SymbolBars(int symbolId, int[] capacities) {
+            for (BarResolution resolution : RESOLUTIONS) {
+                series[resolution.ordinal()] = new Series(symbolId, resolution, capacities[resolution.ordinal()]);
+            }
+        }
+    }
+
+    /** The ring of bars for one symbol at one resolution, as parallel primitive columns. */
+    private static final class Series {
+        final int symbolId;
+        final BarResolution resolution;
+        final long width;
+        final int capacity;
+        final long[] start;
+        final long[] open;
+        final long[] high;
+        final long[] low;
+        final long[] close;
+        final long[] firstAt;
+        final long[] lastAt;
+        final long[] volume;
+        final long[] buyVolume;
+        final long[] sellVolume;
+        final long[] trades;
+        final double[] notional;
+        // The sums as of the last drain or load; a drained bar carries the difference.
+        final long[] drainedVolume;
+        final long[] drainedBuyVolume;
+        final long[] drainedSellVolume;
+        final long[] drainedTrades;
+        final double[] drainedNotional;
+        final boolean[] dirty;
+        /** Dirty bars recycled before they were drained. */
+        final List<Bar> evicted = new ArrayList<>();
+        long newest = EMPTY;
+
+        Series(int symbolId, BarResolution resolution, int capacity) {
+            this.symbolId = symbolId;
+            this.resolution = resolution;
+            this.width = resolution.micros();
+            this.capacity = Math.max(1, capacity);
+            start = new long[this.capacity];
+            Arrays.fill(start, EMPTY);
+            open = new long[this.capacity];
+            high = new long[this.capacity];
+            low = new long[this.capacity];
+            close = new long[this.capacity];
+            firstAt = new long[this.capacity];
+            lastAt = new long[this.capacity];
+            volume = new long[this.capacity];
+            buyVolume = new long[this.capacity];
+            sellVolume = new long[this.capacity];
+            trades = new long[this.capacity];
+            notional = new double[this.capacity];
+            drainedVolume = new long[this.capacity];
+            drainedBuyVolume = new long[this.capacity];
+            drainedSellVolume = new long[this.capacity];
+            drainedTrades = new long[this.capacity];
+            drainedNotional = new double[this.capacity];
+            dirty = new boolean[this.capacity];
+        }
+
+        boolean add(long time, long price, long size, char side) {
+            long bucket = Math.floorDiv(time, width) * width;
+            int slot = slot(bucket);
+            if (start[slot] != bucket) {
+                if (start[slot] != EMPTY && start[slot] > bucket) {
+                    return false;
+                }
+                recycle(slot, bucket);
+            }
+            if (trades[slot] == 0 || time < firstAt[slot]) {
+                open[slot] = price;
+                firstAt[slot] = time;
+            }
+            if (trades[slot] == 0 || time >= lastAt[slot]) {
+                close[slot] = price;
+                lastAt[slot] = time;
+            }
+            if (trades[slot] == 0 || price > high[slot]) {
+                high[slot] = price;
+            }
+            if (trades[slot] == 0 || price < low[slot]) {
+                low[slot] = price;
+            }
+            volume[slot] += size;
+            notional[slot] += (double) price * size;
+            if (side == '1') {
+                buyVolume[slot] += size;
+            } else if (side == '2') {
+                sellVolume[slot] += size;
+            }
+            trades[slot]++;
+            dirty[slot] = true;
+            newest = Math.max(newest, bucket);
+            return true;
+        }
+
+        void load(Bar bar) {
+            int slot = slot(bar.start());
+            if (start[slot] != EMPTY && start[slot] >= bar.start()) {
+                return;
+            }
+            recycle(slot, bar.start());
+            open[slot] = bar.open();
+            high[slot] = bar.high();
+            low[slot] = bar.low();
+            close[slot] = bar.close();
+            firstAt[slot] = bar.firstAt();
+            lastAt[slot] = bar.lastAt();
+            volume[slot] = bar.volume();
+            buyVolume[slot] = bar.buyVolume();
+            sellVolume[slot] = bar.sellVolume();
+            trades[slot] = bar.trades();
+            notional[slot] = bar.notional();
+            markDrained(slot);
+            newest = Math.max(newest, bar.start());
+        }
+
+        List<Bar> latest(int limit, long before) {
+            List<Bar> bars = new ArrayList<>(Math.min(limit, capacity));
+            if (newest == EMPTY) {
+                return bars;
+            }
+            for (int i = 0; i < capacity && bars.size() < limit; i++) {
+                long bucket = newest - i * width;
+                int slot = slot(bucket);
+                if (bucket < before && start[slot] == bucket) {
+                    bars.add(bar(slot));
+                }
+            }
+            return bars;
+        }
+
+        long windowStart() {
+            return newest == EMPTY ? Long.MAX_VALUE : newest - (capacity - 1) * width;
+        }
+
+        void drainDirty(List<Bar> out) {
+            out.addAll(evicted);
+            evicted.clear();
+            for (int slot = 0; slot < capacity; slot++) {
+                if (dirty[slot]) {
+                    out.add(delta(slot));
+                    dirty[slot] = false;
+                }
+            }
+        }
+
+        private void recycle(int slot, long bucket) {
+            if (dirty[slot]) {
+                evicted.add(delta(slot));
+                dirty[slot] = false;
+            }
+            start[slot] = bucket;
+            volume[slot] = 0;
+            buyVolume[slot] = 0;
+            sellVolume[slot] = 0;
+            trades[slot] = 0;
+            notional[slot] = 0;
+            markDrained(slot);
+        }
+
+        /** The bar with its sums since the last drain, which then moves up to now. */
+        private Bar delta(int slot) {
+            Bar delta = new Bar(symbolId, resolution, start[slot], open[slot], high[slot], low[slot], close[slot],
+                    firstAt[slot], lastAt[slot], volume[slot] - drainedVolume[slot],
+                    buyVolume[slot] - drainedBuyVolume[slot], sellVolume[slot] - drainedSellVolume[slot],
+                    trades[slot] - drainedTrades[slot], notional[slot] - drainedNotional[slot]);
+            markDrained(slot);
+            return delta;
+        }
+
+        private void markDrained(int slot) {
+            drainedVolume[slot] = volume[slot];
+            drainedBuyVolume[slot] = buyVolume[slot];
+            drainedSellVolume[slot] = sellVolume[slot];
+            drainedTrades[slot] = trades[slot];
+            drainedNotional[slot] = notional[slot];
+        }
+
+        private int slot(long bucket) {
+            return (int) Math.floorMod(Math.floorDiv(bucket, width), (long) capacity);
+        }
+
+        private Bar bar(int slot) {
+            return new Bar(symbolId, resolution, start[slot], open[slot], high[slot], low[slot], close[slot],
+                    firstAt[slot], lastAt[slot], volume[slot], buyVolume[slot], sellVolume[slot], trades[slot],
+                    notional[slot]);
+        }
+    }
+}
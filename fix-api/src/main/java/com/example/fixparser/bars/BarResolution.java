@@ -0,0 +1,48 @@
+package com.example.fixparser.bars;
+
+/** The bar widths kept per symbol. */
+public enum BarResolution {
+
+    SECOND("1s", 1),
+    MINUTE("1m", 60),
+    FIVE_MINUTES("5m", 300);
+
+    private final String label;
+    private final int seconds;
+
+    BarResolution(String label, int seconds) {
+        this.label = label;
+        this.seconds = seconds;
+    }
+
+    public String label() {
+        return label;
+    }
+
+    public int seconds() {
+        return seconds;
+    }
+
+    public long micros() {
+        return seconds * 1_000_000L;
+    }
+
+    /** By label ({@code 1s}, {@code 1m}, {@code 5m}) or width in seconds; null if unknown. */
+    public static BarResolution parse(String value) {
+        for (BarResolution resolution : values()) {
+            if (resolution.label.equalsIgnoreCase(value) || String.valueOf(resolution.seconds).equals(value)) {
+                return resolution;
+            }
+        }
+        return null;
+    }
+
+    public static BarResolution ofSeconds(int seconds) {
+        for (BarResolution resolution : values()) {
+            if (resolution.seconds == seconds) {
+                return resolution;
+            }
+        }
+        return null;
+    }
+}
@@ -0,0 +1,166 @@
+package com.example.fixparser.bars;
+
+import com.example.fixparser.model.FixMessageRecord;
+import com.example.fixparser.repository.FixMessagePartitions;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import jakarta.annotation.PostConstruct;
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+
+/**
+ * The fix_bars table: one row per symbol, resolution and bucket. Bars are
+ * written as the deltas {@link BarEngine#drainDirty} returns and merged
+ * into the row: sums are added, the earliest open and latest close win,
+ * and high and low widen. So several consumer instances can write the same
+ * bar without one overwriting the other's prints. Serves the history that
+ * has fallen out of the in-memory rings. Typed schema only, since rows
+ * reference fix_symbols by id.
+ *
+ * Times are UTC; notional is the sum of price times size, so VWAP is
+ * notional / volume.
+ */
+@Component
+@ConditionalOnProperty(name = "fix.storage.schema", havingValue = "typed")
+public class BarTable {
+
+    public static final String TABLE = "fix_bars";
+
+    private static final double PRICE_FACTOR = 1e8;
+
+    private static final String COLUMNS = "symbol_id, resolution_s, bucket_start, open, high, low, close, " +
+            "first_at, last_at, volume, buy_volume, sell_volume, trades, notional";
+
+    private static final List<String> SCHEMA = List.of(
+            "CREATE TABLE IF NOT EXISTS " + TABLE + " (" +
+                    "symbol_id INT NOT NULL REFERENCES " + FixMessagePartitions.SYMBOLS_TABLE + " (id), " +
+                    "resolution_s INT NOT NULL, " +
+                    "bucket_start TIMESTAMP NOT NULL, " +
+                    "open NUMERIC(20,8) NOT NULL, " +
+                    "high NUMERIC(20,8) NOT NULL, " +
+                    "low NUMERIC(20,8) NOT NULL, " +
+                    "close NUMERIC(20,8) NOT NULL, " +
+                    "first_at TIMESTAMP NOT NULL, " +
+                    "last_at TIMESTAMP NOT NULL, " +
+                    "volume BIGINT NOT NULL, " +
+                    "buy_volume BIGINT NOT NULL, " +
+                    "sell_volume BIGINT NOT NULL, " +
+                    "trades BIGINT NOT NULL, " +
+                    "notional DOUBLE PRECISION NOT NULL, " +
+                    "PRIMARY KEY (symbol_id, resolution_s, bucket_start))",
+            // Bars with their symbol and VWAP, for ad-hoc queries.
+            "CREATE OR REPLACE VIEW " + TABLE + "_v AS SELECT s.symbol, b.resolution_s, b.bucket_start, " +
+                    "b.open, b.high, b.low, b.close, " +
+                    "CASE WHEN b.volume > 0 THEN b.notional / b.volume END AS vwap, " +
+                    "b.volume, b.buy_volume, b.sell_volume, b.trades " +
+                    "FROM " + TABLE + " b JOIN " + FixMessagePartitions.SYMBOLS_TABLE + " s ON s.id = b.symbol_id");
+
+    private static final String UPSERT_SQL =
+            "INSERT INTO " + TABLE + " AS b (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?) " +
+            "ON CONFLICT (symbol_id, resolution_s, bucket_start) DO UPDATE SET " +
+            "open = CASE WHEN EXCLUDED.first_at < b.first_at THEN EXCLUDED.open ELSE b.open END, " +
+            "close = CASE WHEN EXCLUDED.last_at >= b.last_at THEN EXCLUDED.close ELSE b.close END, " +
+            "first_at = LEAST(b.first_at, EXCLUDED.first_at), last_at = GREATEST(b.last_at, EXCLUDED.last_at), " +
+            "high = GREATEST(b.high, EXCLUDED.high), low = LEAST(b.low, EXCLUDED.low), " +
+            "volume = b.volume + EXCLUDED.volume, buy_volume = b.buy_volume + EXCLUDED.buy_volume, " +
+            "sell_volume = b.sell_volume + EXCLUDED.sell_volume, trades = b.trades + EXCLUDED.trades, " +
+            "notional = b.notional + EXCLUDED.notional";
+
+    private static final String HISTORY_SQL =
+            "SELECT " + COLUMNS + " FROM " + TABLE +
+            " WHERE symbol_id = ? AND resolution_s = ? AND bucket_start < ? ORDER BY bucket_start DESC LIMIT ?";
+
+    // The most recent `limit` buckets per symbol, to refill the rings on restart.
+    private static final String RECENT_SQL =
+            "SELECT " + COLUMNS + " FROM (" +
+            "SELECT *, ROW_NUMBER() OVER (PARTITION BY symbol_id ORDER BY bucket_start DESC) AS n " +
+            "FROM " + TABLE + " WHERE resolution_s = ?) b WHERE n <= ?";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+
+    // Depends on the partitions bean so fix_symbols exists first.
+    public BarTable(JdbcTemplate jdbc, PlatformTransactionManager transactionManager, FixMessagePartitions partitions) {
+        this.jdbc = jdbc;
+        this.transaction = new TransactionTemplate(transactionManager);
+    }
+
+    @PostConstruct
+    public void createSchema() {
+        SCHEMA.forEach(jdbc::execute);
+    }
+
+    /**
+     * Merges every bar delta in one transaction, so a failed write can be
+     * retried as a whole without adding any delta twice. At most one delta
+     * per bar: a batched upsert may not touch a row twice.
+     */
+    public void merge(List<BarEngine.Bar> deltas) {
+        transaction.executeWithoutResult(status ->
+                jdbc.batchUpdate(UPSERT_SQL, deltas, 1_000, (ps, bar) -> bind(ps, bar)));
+    }
+
+    /** Up to {@code limit} bars starting before {@code beforeMicros}, newest first. */
+    public List<BarEngine.Bar> history(int symbolId, BarResolution resolution, long beforeMicros, int limit) {
+        return jdbc.query(HISTORY_SQL, (rs, i) -> bar(rs),
+                symbolId, resolution.seconds(), timestamp(beforeMicros), limit);
+    }
+
+    /** The last {@code perSymbol} bars of every symbol at {@code resolution}. */
+    public List<BarEngine.Bar> recent(BarResolution resolution, int perSymbol) {
+        return jdbc.query(RECENT_SQL, (rs, i) -> bar(rs), resolution.seconds(), perSymbol);
+    }
+
+    private static void bind(PreparedStatement ps, BarEngine.Bar bar) throws SQLException {
+        ps.setInt(1, bar.symbolId());
+        ps.setInt(2, bar.resolution().seconds());
+        ps.setObject(3, timestamp(bar.start()), Types.TIMESTAMP);
+        ps.setBigDecimal(4, decimal(bar.open()));
+        ps.setBigDecimal(5, decimal(bar.high()));
+        ps.setBigDecimal(6, decimal(bar.low()));
+        ps.setBigDecimal(7, decimal(bar.close()));
+        ps.setObject(8, timestamp(bar.firstAt()), Types.TIMESTAMP);
+        ps.setObject(9, timestamp(bar.lastAt()), Types.TIMESTAMP);
+        ps.setLong(10, bar.volume());
+        ps.setLong(11, bar.buyVolume());
+        ps.setLong(12, bar.sellVolume());
+        ps.setLong(13, bar.trades());
+        ps.setDouble(14, bar.notional() / PRICE_FACTOR);
+    }
+
+    private static BarEngine.Bar bar(ResultSet rs) throws SQLException {
+        return new BarEngine.Bar(rs.getInt(1), BarResolution.ofSeconds(rs.getInt(2)), micros(rs.getTimestamp(3)),
+                scaled(rs.getBigDecimal(4)), scaled(rs.getBigDecimal(5)), scaled(rs.getBigDecimal(6)), scaled(rs.getBigDecimal(7)),
+                micros(rs.getTimestamp(8)), micros(rs.getTimestamp(9)),
+                rs.getLong(10), rs.getLong(11), rs.getLong(12), rs.getLong(13), rs.getDouble(14) * PRICE_FACTOR);
+    }
+
+    private static BigDecimal decimal(long scaled) {
+        return BigDecimal.valueOf(scaled, FixMessageRecord.PRICE_SCALE);
+    }
+
+    private static long scaled(BigDecimal price) {
+        return price.setScale(FixMessageRecord.PRICE_SCALE, RoundingMode.HALF_EVEN).unscaledValue().longValueExact();
+    }
+
+    private static LocalDateTime timestamp(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    private static long micros(Timestamp timestamp) {
+        return timestamp.toLocalDateTime().toEpochSecond(ZoneOffset.UTC) * 1_000_000L + timestamp.getNanos() / 1_000;
+    }
+}
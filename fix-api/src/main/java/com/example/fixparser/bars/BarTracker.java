@@ -0,0 +1,173 @@
+package com.example.fixparser.bars;
+
+import com.example.fixparser.consumer.BatchListener;
+import com.example.fixparser.marketdata.MarketDataUpdate;
+import com.example.fixparser.model.FixDictionaries;
+import com.example.fixparser.model.FixMessageRecord;
+import com.example.fixparser.orders.OrderEvent;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Feeds the {@link BarEngine} from the consumer and persists its bars.
+ *
+ * Prints are executions and reported trades only: an ExecutionReport (8)
+ * with LastQty (32) and LastPx (31), with Side (54) for the buy/sell
+ * split, and every MDEntryType=2 (trade) entry of a W/X, with MDEntryPx
+ * (270) and MDEntrySize (271) and no side. Orders, replaces and quotes are
+ * not trades. Bars are bucketed by SendingTime (52).
+ *
+ * The listener only sees the messages the store committed, less those it
+ * already had, so a redelivered message is not counted again; a message
+ * without the full duplicate key (see
+ * {@link com.example.fixparser.dedup.DuplicateFilter}) is.
+ *
+ * With the typed schema, bars changed since the last flush are merged into
+ * fix_bars every {@code fix.bars.flush-interval-ms} and at shutdown, as
+ * deltas, so instances sharing the stream add up rather than overwrite
+ * each other; on startup the rings are refilled from the table, so a bar
+ * still open across a restart keeps its earlier prints. The in-memory bars
+ * of one instance only hold its own prints since then. With the legacy
+ * schema bars are memory-only.
+ */
+@Component
+@ConditionalOnProperty(name = "fix.bars.enabled", havingValue = "true", matchIfMissing = true)
+public class BarTracker implements BatchListener {
+
+    private record Key(int symbolId, BarResolution resolution, long start) {
+    }
+
+    /** Bar deltas kept for a retry after a failed flush; beyond this the oldest are dropped. */
+    private static final int MAX_UNFLUSHED = 100_000;
+
+    private final BarEngine engine;
+    private final FixDictionaries dictionaries;
+    private final BarTable table;
+    private final List<BarEngine.Bar> unflushed = new ArrayList<>();
+
+    public BarTracker(MeterRegistry registry, FixDictionaries dictionaries, ObjectProvider<BarTable> table,
+                      @Value("${fix.bars.capacity-1s:3600}") int secondBars,
+                      @Value("${fix.bars.capacity-1m:1440}") int minuteBars,
+                      @Value("${fix.bars.capacity-5m:2016}") int fiveMinuteBars) {
+        this.engine = new BarEngine(secondBars, minuteBars, fiveMinuteBars);
+        this.dictionaries = dictionaries;
+        this.table = table.getIfAvailable();
+
+        Gauge.builder("fix.bars.symbols", engine, BarEngine::symbolCount)
+                .description("Symbols with in-memory bars").register(registry);
+        FunctionCounter.builder("fix.bars.late", engine, BarEngine::late)
+                .description("Prints older than the in-memory window of some resolution").register(registry);
+    }
+
+    public BarEngine engine() {
+        return engine;
+    }
+
+    /** The bar table, or null with the legacy schema. */
+    public BarTable table() {
+        return table;
+    }
+
+    public FixDictionaries dictionaries() {
+        return dictionaries;
+    }
+
+    @Override
+    public void onCommitted(List<FixMessageRecord> batch) {
+        for (FixMessageRecord record : batch) {
+            OrderEvent event = record.getOrderEvent();
+            if (event != null && event.msgType() == '8' && event.lastQty() != FixMessageRecord.NULL
+                    && event.lastPx() != FixMessageRecord.NULL) {
+                engine.add(record.getSymbolId(), record.eventTime(), event.lastPx(), event.lastQty(),
+                        record.getSide());
+            }
+            MarketDataUpdate update = record.getMarketData();
+            if (update != null) {
+                addTrades(update);
+            }
+        }
+    }
+
+    private void addTrades(MarketDataUpdate update) {
+        for (int i = 0; i < update.entries(); i++) {
+            String symbol = update.symbolAt(i);
+            if (update.entryType()[i] == '2' && symbol != null) {
+                engine.add(dictionaries.symbols().intern(symbol), update.eventTime(), update.price()[i],
+                        update.size()[i], '\0');
+            }
+        }
+    }
+
+    @Override
+    public void restore() {
+        if (table == null) {
+            return;
+        }
+        long start = System.currentTimeMillis();
+        int loaded = 0;
+        try {
+            for (BarResolution resolution : BarResolution.values()) {
+                for (BarEngine.Bar bar : table.recent(resolution, engine.capacity(resolution))) {
+                    engine.load(bar);
+                    loaded++;
+                }
+            }
+            System.out.println("Bars loaded from " + BarTable.TABLE + ": " + loaded + " in "
+                    + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            System.err.println("Could not load bars, starting empty: " + e.getMessage());
+        }
+    }
+
+    @Scheduled(initialDelayString = "${fix.bars.flush-interval-ms:1000}",
+            fixedDelayString = "${fix.bars.flush-interval-ms:1000}")
+    public synchronized void flush() {
+        List<BarEngine.Bar> dirty = engine.drainDirty();
+        if (table == null) {
+            return;
+        }
+        unflushed.addAll(dirty);
+        if (unflushed.isEmpty()) {
+            return;
+        }
+        // One delta per bar: a batched upsert may not touch a row twice.
+        Map<Key, BarEngine.Bar> merged = new LinkedHashMap<>();
+        for (BarEngine.Bar bar : unflushed) {
+            merged.merge(new Key(bar.symbolId(), bar.resolution(), bar.start()), bar, BarTracker::combine);
+        }
+        try {
+            table.merge(new ArrayList<>(merged.values()));
+            unflushed.clear();
+        } catch (RuntimeException e) {
+            System.err.println("Could not write " + unflushed.size() + " bars, retrying: " + e.getMessage());
+            if (unflushed.size() > MAX_UNFLUSHED) {
+                unflushed.subList(0, unflushed.size() - MAX_UNFLUSHED).clear();
+            }
+        }
+    }
+
+    /** Two deltas of one bar as one; the later holds the bar's current open, high, low and close. */
+    private static BarEngine.Bar combine(BarEngine.Bar earlier, BarEngine.Bar later) {
+        return new BarEngine.Bar(later.symbolId(), later.resolution(), later.start(), later.open(), later.high(),
+                later.low(), later.close(), later.firstAt(), later.lastAt(), earlier.volume() + later.volume(),
+                earlier.buyVolume() + later.buyVolume(), earlier.sellVolume() + later.sellVolume(),
+                earlier.trades() + later.trades(), earlier.notional() + later.notional());
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+}
@@ -0,0 +1,18 @@
+package com.example.fixparser.config;
+
+import com.example.fixparser.model.FixDictionaries;
+import com.example.fixparser.repository.DictionaryTables;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+public class DictionaryConfig {
+
+    /** Table-backed with the typed schema; process-local with the legacy one, which stores the strings. */
+    @Bean
+    public FixDictionaries fixDictionaries(ObjectProvider<DictionaryTables> tables) {
+        DictionaryTables persistent = tables.getIfAvailable();
+        return persistent != null ? persistent.load() : FixDictionaries.local();
+    }
+}
@@ -1,14 +1,92 @@
 package com.example.fixparser.config;
 
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
-import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.JedisPoolConfig;
 
+import java.time.Duration;
+
+/**
+ * Redis connections for the REST layer. A {@link redis.clients.jedis.Jedis}
+ * is a single socket and not thread-safe, so request threads borrow one from
+ * this pool for each command or pipeline and return it straight away.
+ *
+ * The stream consumer keeps its own dedicated connections: its blocking
+ * XREAD/XREADGROUP calls would otherwise hold pool slots for seconds.
+ */
 @Configuration
 public class JedisConfig {
 
+    @Value("${spring.redis.host:redis}")
+    private String host;
+
+    @Value("${spring.redis.port:6379}")
+    private int port;
+
+    /** Connect and socket timeout. */
+    @Value("${spring.redis.timeout:2000}")
+    private int timeoutMs;
+
+    @Value("${spring.redis.password:}")
+    private String password;
+
+    @Value("${spring.redis.database:0}")
+    private int database;
+
+    @Value("${spring.redis.jedis.pool.max-active:32}")
+    private int maxActive;
+
+    @Value("${spring.redis.jedis.pool.max-idle:32}")
+    private int maxIdle;
+
+    @Value("${spring.redis.jedis.pool.min-idle:4}")
+    private int minIdle;
+
+    /** Longest a request waits for a free connection before failing. */
+    @Value("${spring.redis.jedis.pool.max-wait:1000}")
+    private long maxWaitMs;
+
+    @Bean(destroyMethod = "close")
+    public JedisPool jedisPool() {
+        JedisPoolConfig config = new JedisPoolConfig();
+        config.setMaxTotal(maxActive);
+        config.setMaxIdle(maxIdle);
+        config.setMinIdle(minIdle);
+        config.setMaxWait(Duration.ofMillis(maxWaitMs));
+        config.setBlockWhenExhausted(true);
+        config.setJmxEnabled(false);
+        return new JedisPool(config, host, port, timeoutMs, password.isEmpty() ? null : password, database);
+    }
+
+    /** Pool size, utilization and borrow wait times under redis.pool.*. */
     @Bean
-    public Jedis jedis() {
-        return new Jedis("redis", 6379); // docker-compose service name
+    public MeterBinder jedisPoolMetrics(JedisPool pool) {
+        return registry -> {
+            Gauge.builder("redis.pool.active", pool, JedisPool::getNumActive)
+                    .description("Connections currently borrowed").register(registry);
+            Gauge.builder("redis.pool.idle", pool, JedisPool::getNumIdle)
+                    .description("Connections idle in the pool").register(registry);
+            Gauge.builder("redis.pool.max", pool, JedisPool::getMaxTotal)
+                    .description("Configured maximum connections").register(registry);
+            Gauge.builder("redis.pool.pending", pool, JedisPool::getNumWaiters)
+                    .description("Threads waiting for a connection").register(registry);
+            Gauge.builder("redis.pool.utilization", pool, p -> (double) p.getNumActive() / p.getMaxTotal())
+                    .description("Borrowed connections as a fraction of the maximum").register(registry);
+            Gauge.builder("redis.pool.wait.mean", pool, p -> p.getMeanBorrowWaitDuration().toNanos() / 1e6)
+                    .description("Mean wait for a connection over the last 100 borrows")
+                    .baseUnit("milliseconds").register(registry);
+            Gauge.builder("redis.pool.wait.max", pool, p -> p.getMaxBorrowWaitDuration().toNanos() / 1e6)
+                    .description("Longest wait for a connection since startup")
+                    .baseUnit("milliseconds").register(registry);
+            FunctionCounter.builder("redis.pool.borrowed", pool, JedisPool::getBorrowedCount)
+                    .description("Connections borrowed since startup").register(registry);
+            FunctionCounter.builder("redis.pool.created", pool, JedisPool::getCreatedCount)
+                    .description("Connections opened since startup").register(registry);
+        };
     }
 }
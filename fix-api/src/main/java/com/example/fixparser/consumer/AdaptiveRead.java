@@ -0,0 +1,65 @@
+package com.example.fixparser.consumer;
+
+/**
+ * Sizes a worker's stream reads to its backlog.
+ *
+ * A read that comes back full means at least that much more is waiting, so
+ * the next one asks for twice as many entries, up to {@code maxCount}; one
+ * that comes back less than half full halves the count, down to
+ * {@code minCount}. Behind, a worker reads in large batches and pays one
+ * round trip per batch; caught up, it reads entries one or a few at a time
+ * as they arrive.
+ *
+ * The block time follows whether the worker has work in hand: while entries
+ * are buffered or in flight it blocks at most {@code busyBlockMs}, so it
+ * gets back to flushing and committing them in time; with nothing
+ * outstanding it blocks for {@code idleBlockMs}. A blocking read returns as
+ * soon as an entry arrives, so the long block costs no latency, only fewer
+ * empty round trips.
+ */
+public final class AdaptiveRead {
+
+    private final int minCount;
+    private final int maxCount;
+    private final int busyBlockMs;
+    private final int idleBlockMs;
+
+    // Written by the worker, read by metric scrapes.
+    private volatile int count;
+    private volatile int blockMs;
+
+    public AdaptiveRead(int minCount, int maxCount, int busyBlockMs, int idleBlockMs) {
+        this.minCount = Math.max(1, minCount);
+        this.maxCount = Math.max(this.minCount, maxCount);
+        this.busyBlockMs = busyBlockMs;
+        this.idleBlockMs = Math.max(busyBlockMs, idleBlockMs);
+        this.count = this.minCount;
+        this.blockMs = this.idleBlockMs;
+    }
+
+    /** Entries to ask for next. */
+    public int count() {
+        return count;
+    }
+
+    /** How long the next read may block. */
+    public int blockMs(boolean busy) {
+        blockMs = busy ? busyBlockMs : idleBlockMs;
+        return blockMs;
+    }
+
+    /** The last block time handed out, for metrics. */
+    public int lastBlockMs() {
+        return blockMs;
+    }
+
+    /** Adjusts the count to how many entries the last read returned. */
+    public void onRead(int returned) {
+        int asked = count;
+        if (returned >= asked) {
+            count = Math.min(maxCount, asked * 2);
+        } else if (returned < asked / 2) {
+            count = Math.max(minCount, asked / 2);
+        }
+    }
+}
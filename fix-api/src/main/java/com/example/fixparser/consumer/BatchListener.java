@@ -0,0 +1,40 @@
+package com.example.fixparser.consumer;
+
+import com.example.fixparser.model.FixMessageRecord;
+
+import java.util.List;
+
+/**
+ * Derived in-memory state fed from the consumer, such as the report totals.
+ * Every bean of this type is called with each batch once it is committed, on
+ * that worker's writer thread and in commit order. The list is cleared for
+ * reuse once the call returns, so a listener that keeps rows copies it. A
+ * listener that throws is logged and skipped; the batch stays committed.
+ */
+@FunctionalInterface
+public interface BatchListener {
+
+    void onCommitted(List<FixMessageRecord> batch);
+
+    /**
+     * Rebuilds the state from disk or the database. Called once, before any
+     * worker starts, so no batch can arrive while it runs.
+     */
+    default void restore() {
+    }
+
+    /** Calls each listener in turn, isolating failures from the others and from the writer. */
+    static BatchListener all(List<BatchListener> listeners) {
+        List<BatchListener> copy = List.copyOf(listeners);
+        return batch -> {
+            for (BatchListener listener : copy) {
+                try {
+                    listener.onCommitted(batch);
+                } catch (RuntimeException e) {
+                    System.err.println("Batch listener failed, in-memory state may be incomplete: " + e.getMessage());
+                    e.printStackTrace();
+                }
+            }
+        };
+    }
+}
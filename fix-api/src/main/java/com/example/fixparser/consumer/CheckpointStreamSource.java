@@ -0,0 +1,100 @@
+package com.example.fixparser.consumer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.params.XReadParams;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Plain XREAD from the last committed ID, which is kept in a local file.
+ * Only one consumer can use this mode, since nothing coordinates the offset.
+ */
+public class CheckpointStreamSource implements StreamSource {
+
+    public static final Path DEFAULT_CHECKPOINT_FILE = Paths.get("last_stream_id.txt");
+
+    private final Jedis jedis;
+    private final String streamKey;
+    private final Path checkpointFile;
+    private StreamEntryID lastReadId;
+
+    public CheckpointStreamSource(Jedis jedis, String streamKey, Path checkpointFile) {
+        this.jedis = jedis;
+        this.streamKey = streamKey;
+        this.checkpointFile = checkpointFile;
+        this.lastReadId = loadLastStreamId();
+    }
+
+    @Override
+    public List<StreamEntry> read(int count, int blockMs) {
+        List<Map.Entry<String, List<StreamEntry>>> streams =
+                jedis.xread(new XReadParams().count(count).block(blockMs), Map.of(streamKey, lastReadId));
+        if (streams == null || streams.isEmpty()) {
+            return List.of();
+        }
+        List<StreamEntry> entries = streams.get(0).getValue();
+        if (!entries.isEmpty()) {
+            lastReadId = entries.get(entries.size() - 1).getID();
+        }
+        return entries;
+    }
+
+    @Override
+    public void commit(List<StreamEntryID> ids) {
+        if (!ids.isEmpty()) {
+            saveLastStreamId(ids.get(ids.size() - 1));
+        }
+    }
+
+    @Override
+    public String describe() {
+        return "XREAD " + streamKey + " from " + lastReadId + " (checkpoint " + checkpointFile + ")";
+    }
+
+    /** Load the last processed stream ID from file (defaults to 0-0). */
+    private StreamEntryID loadLastStreamId() {
+        try {
+            if (Files.exists(checkpointFile)) {
+                String id = Files.readString(checkpointFile).trim();
+                System.out.println("Resuming from stream ID: " + id);
+                return new StreamEntryID(id);
+            }
+        } catch (IOException e) {
+            System.err.println(" Failed to read last stream ID: " + e.getMessage());
+        }
+        System.out.println("No previous ID found, starting from 0-0.");
+        return new StreamEntryID("0-0");
+    }
+
+    /** The last committed ID in {@code checkpointFile}, or null if there is none yet. */
+    public static StreamEntryID committed(Path checkpointFile) {
+        try {
+            return Files.exists(checkpointFile) ? new StreamEntryID(Files.readString(checkpointFile).trim()) : null;
+        } catch (IOException | IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /** Persist the last processed stream ID to disk. */
+    private void saveLastStreamId(StreamEntryID id) {
+        try {
+            Files.writeString(checkpointFile, id.toString(),
+                    StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        } catch (IOException e) {
+            System.err.println("Could not save last stream ID: " + e.getMessage());
+        }
+    }
+
+    @Override
+    public void close() {
+        jedis.close();
+    }
+}
@@ -0,0 +1,228 @@
+package com.example.fixparser.consumer;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixValidator;
+import com.example.fixcodec.SequenceTracker;
+import com.example.fixparser.metrics.PipelineMetrics;
+import com.example.fixparser.metrics.RateLimitedLog;
+import com.example.fixparser.model.FixDictionaries;
+import com.example.fixparser.model.FixMessageRecord;
+import com.example.fixparser.repository.FixMessageStore;
+import com.example.fixparser.validation.MessageValidation;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * Read → parse → batch → commit loop for one {@link StreamSource}.
+ *
+ * Reads are sized by an {@link AdaptiveRead}. Entries are buffered until
+ * {@code batchSize} is reached or the oldest has
+ * waited {@code flushIntervalMs}, written in one transaction, and only then
+ * committed back to the source (checkpoint file or XACK). {@code commitLock}
+ * is held from each write attempt until {@code onCommitted} has the batch,
+ * but not while waiting to retry a failed one. Messages that fail
+ * {@link MessageValidation} are dead-lettered and committed without being
+ * stored; sequence numbers are checked here, in read order.
+ */
+public class ConsumerWorker implements StreamWorker {
+
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    private final Supplier<StreamSource> sourceFactory;
+    private final FixMessageStore store;
+    private final FixDictionaries dictionaries;
+    private final BatchListener onCommitted;
+    private final Lock commitLock;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final PipelineMetrics metrics;
+    private final MessageValidation validation;
+    private final SequenceTracker sequences;
+    private final AdaptiveRead read;
+    private final RateLimitedLog savedLog;
+
+    // Reused for every entry; a worker is confined to its own thread.
+    private final FixDecoder decoder = new FixDecoder();
+    private final FixValidator validator = new FixValidator();
+
+    private final List<FixMessageRecord> pending = new ArrayList<>();
+    private final List<StreamEntryID> pendingIds = new ArrayList<>();
+    private long pendingSinceMillis;
+
+    private boolean idle;
+    private volatile boolean running = true;
+
+    public ConsumerWorker(Supplier<StreamSource> sourceFactory, FixMessageStore store,
+                          FixDictionaries dictionaries, BatchListener onCommitted, Lock commitLock,
+                          int batchSize, long flushIntervalMs,
+                          PipelineMetrics metrics, MessageValidation validation, SequenceTracker sequences,
+                          AdaptiveRead read) {
+        this.sourceFactory = sourceFactory;
+        this.store = store;
+        this.dictionaries = dictionaries;
+        this.onCommitted = onCommitted;
+        this.commitLock = commitLock;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.metrics = metrics;
+        this.validation = validation;
+        this.sequences = sequences;
+        this.read = read;
+        this.savedLog = metrics.summaryLog("Saved FIX messages", "last_id");
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Consumes until stopped. Any failure, a lost connection, a database
+     * error or a bug, closes the source and starts over on a new one after a
+     * back-off, so the worker never quietly ends.
+     */
+    @Override
+    public void run() {
+        long retryDelayMs = 1_000;
+        while (running) {
+            long startedAt = System.currentTimeMillis();
+            try (StreamSource source = sourceFactory.get()) {
+                System.out.println(Thread.currentThread().getName() + " reading: " + source.describe());
+                consume(source);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (System.currentTimeMillis() - startedAt > MAX_RETRY_DELAY_MS) {
+                    // It ran fine for a while, so this is a new failure rather than the same one again.
+                    retryDelayMs = 1_000;
+                }
+                if (e instanceof JedisConnectionException) {
+                    System.err.println("Lost Redis connection, retrying in " + retryDelayMs + " ms: " + e.getMessage());
+                } else {
+                    System.err.println("Error in FixStreamConsumer, restarting in " + retryDelayMs + " ms: " + e);
+                    e.printStackTrace();
+                }
+                // Uncommitted entries are re-delivered (group) or re-read (checkpoint) after reconnecting.
+                pending.clear();
+                pendingIds.clear();
+                try {
+                    Thread.sleep(retryDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                retryDelayMs = Math.min(retryDelayMs * 2, MAX_RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    private void consume(StreamSource source) throws InterruptedException {
+        while (running) {
+            List<StreamEntry> entries = source.read(read.count(), read.blockMs(!pendingIds.isEmpty()));
+            read.onRead(entries.size());
+            long readAtMillis = System.currentTimeMillis();
+            long receivedAt = readAtMillis * 1_000;
+            metrics.count(PipelineMetrics.Stage.READ, entries.size());
+
+            for (StreamEntry entry : entries) {
+                metrics.delivered(entry.getID().getTime(), readAtMillis);
+                Map<String, String> fields = entry.getFields();
+                String fixMessage = fields == null ? null : fields.get("fixMessage");
+
+                if (pendingIds.isEmpty()) {
+                    pendingSinceMillis = System.currentTimeMillis();
+                }
+                if (fixMessage != null) {
+                    long start = System.nanoTime();
+                    decoder.wrap(fixMessage);
+                    if (validation.accept(validator, decoder, fixMessage, receivedAt)) {
+                        FixMessageRecord record = FixMessageMapper.toRecord(decoder, fixMessage, receivedAt, dictionaries);
+                        validation.checkSequence(sequences, record, MessageValidation.possDup(decoder),
+                                MessageValidation.resetTo(decoder, record));
+                        store.prepare(record);
+                        pending.add(record);
+                    }
+                    metrics.parsed(System.nanoTime() - start);
+                    metrics.count(PipelineMetrics.Stage.PARSED, 1);
+                }
+                // Entries without a message are still committed so they are not re-delivered forever.
+                pendingIds.add(entry.getID());
+            }
+
+            if (entries.isEmpty() && pendingIds.isEmpty()) {
+                if (!idle) {
+                    savedLog.flush();
+                    System.out.println("Waiting for new messages...");
+                    idle = true;
+                }
+            } else {
+                idle = false;
+            }
+
+            if (pending.size() >= batchSize
+                    || (!pendingIds.isEmpty() && System.currentTimeMillis() - pendingSinceMillis >= flushIntervalMs)) {
+                flush(source);
+            }
+        }
+        if (!pendingIds.isEmpty()) {
+            flush(source);
+        }
+    }
+
+    /**
+     * Commits the buffered batch and only then commits it to the source, so a
+     * crash can replay a batch but never skip one. A failed write is retried
+     * with backoff; nothing new is read until it succeeds.
+     */
+    private void flush(StreamSource source) throws InterruptedException {
+        long backoffMs = 500;
+        RuntimeException failure;
+        while ((failure = commit()) != null) {
+            System.err.println("Batch write failed, retrying in " + backoffMs + " ms: " + failure.getMessage());
+            Thread.sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, 30_000);
+        }
+        source.commit(pendingIds);
+        pending.clear();
+        pendingIds.clear();
+    }
+
+    /**
+     * One attempt: writes the batch and passes it to {@code onCommitted}
+     * under {@code commitLock}, which is released before any backoff so a
+     * rebuild is never held up by a database that is down.
+     *
+     * @return the write failure, or null once committed
+     */
+    private RuntimeException commit() {
+        List<FixMessageRecord> stored = pending;
+        commitLock.lock();
+        try {
+            if (!pending.isEmpty()) {
+                try {
+                    long start = System.nanoTime();
+                    stored = store.writeBatch(pending);
+                    metrics.committed(System.nanoTime() - start);
+                } catch (RuntimeException e) {
+                    return e;
+                }
+                metrics.count(PipelineMetrics.Stage.PERSISTED, stored.size());
+                savedLog.record(stored.size(), pendingIds.get(pendingIds.size() - 1));
+            }
+            if (!stored.isEmpty()) {
+                onCommitted.onCommitted(stored);
+            }
+            return null;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+}
@@ -0,0 +1,150 @@
+package com.example.fixparser.consumer;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixGroup;
+import com.example.fixcodec.FixTags;
+import com.example.fixparser.marketdata.MarketDataUpdate;
+import com.example.fixparser.model.FixDictionaries;
+import com.example.fixparser.model.FixMessageRecord;
+import com.example.fixparser.orders.OrderEvent;
+import com.example.fixreport.ReportAggregator;
+
+import java.util.List;
+
+/**
+ * Maps a decoded FIX message onto a {@link FixMessageRecord}, parsing the
+ * numeric and time fields once here rather than in every query.
+ */
+public final class FixMessageMapper {
+
+    private FixMessageMapper() {
+    }
+
+    /**
+     * Symbol and CompIDs are resolved through {@code dictionaries}: the record
+     * gets their ids and the dictionary's shared String, so a known value
+     * costs a hash lookup and no allocation.
+     */
+    public static FixMessageRecord toRecord(FixDecoder fix, String raw, long receivedAtMicros,
+                                            FixDictionaries dictionaries) {
+        int symbolId = dictionaries.symbols().intern(fix, FixTags.SYMBOL);
+        int senderId = dictionaries.compIds().intern(fix, FixTags.SENDER_COMP_ID);
+        int targetId = dictionaries.compIds().intern(fix, FixTags.TARGET_COMP_ID);
+        FixMessageRecord record = FixMessageRecord.builder()
+                .msgType(fix.getString(FixTags.MSG_TYPE))
+                .symbolId(symbolId)
+                .symbol(dictionaries.symbols().value(symbolId))
+                .side(charValue(fix, FixTags.SIDE))
+                .orderQty(longValue(fix, FixTags.ORDER_QTY))
+                .price(price(fix, FixTags.PRICE))
+                .senderId(senderId)
+                .senderCompID(dictionaries.compIds().value(senderId))
+                .targetId(targetId)
+                .targetCompID(dictionaries.compIds().value(targetId))
+                .msgSeqNum(longValue(fix, FixTags.MSG_SEQ_NUM))
+                .sendingTime(sendingTime(fix))
+                .receivedAt(receivedAtMicros)
+                .rawMessage(raw)
+                .build();
+        if (OrderEvent.isOrderFlow(record.getMsgType())) {
+            record.setOrderEvent(orderEvent(fix, record));
+        } else if (MarketDataUpdate.isMarketData(record.getMsgType())) {
+            record.setMarketData(marketData(fix, record, dictionaries));
+        }
+        return record;
+    }
+
+    /** The order-lifecycle fields of a D, F, G, 9 or 8, or {@code null} without a ClOrdID. */
+    public static OrderEvent orderEvent(FixDecoder fix, FixMessageRecord record) {
+        String clOrdId = fix.getString(FixTags.CL_ORD_ID);
+        if (clOrdId == null || clOrdId.isEmpty()) {
+            return null;
+        }
+        return new OrderEvent(record.getMsgType().charAt(0), clOrdId, fix.getString(FixTags.ORIG_CL_ORD_ID),
+                record.getSymbol(), record.getSide(), record.getOrderQty(), record.getPrice(),
+                charValue(fix, FixTags.ORD_STATUS),
+                longValue(fix, FixTags.CUM_QTY), longValue(fix, FixTags.LEAVES_QTY),
+                price(fix, FixTags.AVG_PX), longValue(fix, FixTags.LAST_QTY), price(fix, FixTags.LAST_PX),
+                record.eventTime(), record.getReceivedAt());
+    }
+
+    /**
+     * Every NoMDEntries entry of a W or X. The top-level columns of the row only
+     * hold the first Symbol; the book needs all of them.
+     */
+    public static MarketDataUpdate marketData(FixDecoder fix, FixMessageRecord record, FixDictionaries dictionaries) {
+        FixGroup group = new FixGroup().wrap(fix, FixTags.NO_MD_ENTRIES);
+        int capacity = Math.min(group.count(), fix.fieldCount());
+        byte[] type = new byte[capacity];
+        byte[] action = new byte[capacity];
+        long[] price = new long[capacity];
+        long[] size = new long[capacity];
+        String[] symbol = new String[capacity];
+        int n = 0;
+        while (group.next()) {
+            type[n] = (byte) charAt(fix, group.indexOf(FixTags.MD_ENTRY_TYPE));
+            action[n] = (byte) charAt(fix, group.indexOf(FixTags.MD_UPDATE_ACTION));
+            price[n] = scaledAt(fix, group.indexOf(FixTags.MD_ENTRY_PX), FixMessageRecord.PRICE_SCALE);
+            size[n] = scaledAt(fix, group.indexOf(FixTags.MD_ENTRY_SIZE), 0);
+            int symbolIndex = group.indexOf(FixTags.SYMBOL);
+            symbol[n] = symbolIndex < 0 ? null : dictionaries.symbols().value(dictionaries.symbols().intern(
+                    fix.buffer(), fix.valueOffsetAt(symbolIndex), fix.valueLengthAt(symbolIndex)));
+            n++;
+        }
+        // The message-level Symbol of a W precedes the group; in an X each entry carries its own.
+        int top = fix.indexOf(FixTags.SYMBOL);
+        String messageSymbol = top >= 0 && top < fix.indexOf(FixTags.NO_MD_ENTRIES) ? record.getSymbol() : null;
+        return new MarketDataUpdate(record.getMsgType().charAt(0), messageSymbol, n, type, action, price, size,
+                symbol, record.eventTime());
+    }
+
+    private static char charAt(FixDecoder fix, int index) {
+        return index < 0 || fix.valueLengthAt(index) != 1 ? 0 : (char) fix.buffer()[fix.valueOffsetAt(index)];
+    }
+
+    private static long scaledAt(FixDecoder fix, int index, int scale) {
+        try {
+            return index < 0 ? FixMessageRecord.NULL : fix.scaledAt(index, scale);
+        } catch (NumberFormatException e) {
+            return FixMessageRecord.NULL;
+        }
+    }
+
+    // A malformed value is stored as absent rather than failing the whole batch.
+
+    private static char charValue(FixDecoder fix, int tag) {
+        return charAt(fix, fix.indexOf(tag));
+    }
+
+    private static long longValue(FixDecoder fix, int tag) {
+        try {
+            return fix.getLong(tag, FixMessageRecord.NULL);
+        } catch (NumberFormatException e) {
+            return FixMessageRecord.NULL;
+        }
+    }
+
+    private static long price(FixDecoder fix, int tag) {
+        try {
+            return fix.getScaled(tag, FixMessageRecord.PRICE_SCALE, FixMessageRecord.NULL);
+        } catch (NumberFormatException e) {
+            return FixMessageRecord.NULL;
+        }
+    }
+
+    private static long sendingTime(FixDecoder fix) {
+        try {
+            return fix.getTimestampMicros(FixTags.SENDING_TIME, FixMessageRecord.NULL);
+        } catch (NumberFormatException e) {
+            return FixMessageRecord.NULL;
+        }
+    }
+
+    /** Adds a committed batch to the report's running totals. */
+    public static void aggregate(ReportAggregator aggregator, List<FixMessageRecord> batch) {
+        for (FixMessageRecord record : batch) {
+            aggregator.add(record.getMsgType(), record.getSymbol(), record.getSide(),
+                    record.hasOrderQty() && record.hasPrice(), record.getOrderQty(), record.priceAsDouble());
+        }
+    }
+}
@@ -0,0 +1,171 @@
+package com.example.fixparser.consumer;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.XAutoClaimParams;
+import redis.clients.jedis.params.XReadGroupParams;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Reads through a Redis consumer group, so any number of consumers (threads
+ * or instances) can share one stream. Each entry is delivered to one member
+ * and acknowledged with XACK once its batch is committed.
+ *
+ * On start the consumer first re-reads its own pending entries (delivered
+ * before a crash but never acknowledged). While running it periodically
+ * XAUTOCLAIMs entries that another member has left pending for longer than
+ * {@code claimMinIdleMs}, so the work of a dead consumer is picked up. A
+ * scan claims one page per read until it has covered the whole pending
+ * list, and the next scan starts {@code claimIntervalMs} later.
+ *
+ * If the group disappears (NOGROUP, e.g. after the stream was deleted) it is
+ * created again from the start of the stream and reading carries on.
+ */
+public class GroupStreamSource implements StreamSource {
+
+    private static final StreamEntryID OWN_PENDING = new StreamEntryID(0, 0);
+
+    private final Jedis jedis;
+    private final String streamKey;
+    private final String group;
+    private final String consumer;
+    private final long claimMinIdleMs;
+    private final long claimIntervalMs;
+
+    private boolean drainingOwnPending = true;
+    private StreamEntryID ownPendingCursor = OWN_PENDING;
+    private StreamEntryID claimCursor = OWN_PENDING;
+    private long nextClaimAt;
+
+    public GroupStreamSource(Jedis jedis, String streamKey, String group, String consumer,
+                             long claimMinIdleMs, long claimIntervalMs) {
+        this.jedis = jedis;
+        this.streamKey = streamKey;
+        this.group = group;
+        this.consumer = consumer;
+        this.claimMinIdleMs = claimMinIdleMs;
+        this.claimIntervalMs = claimIntervalMs;
+        createGroup();
+    }
+
+    private void createGroup() {
+        try {
+            // Start from the beginning so a new group picks up everything already queued.
+            jedis.xgroupCreate(streamKey, group, OWN_PENDING, true);
+            System.out.println("Created consumer group " + group + " on " + streamKey);
+        } catch (JedisDataException e) {
+            if (e.getMessage() == null || !e.getMessage().startsWith("BUSYGROUP")) {
+                throw e;
+            }
+        }
+    }
+
+    @Override
+    public List<StreamEntry> read(int count, int blockMs) {
+        try {
+            return readOrClaim(count, blockMs);
+        } catch (JedisDataException e) {
+            if (!isNoGroup(e)) {
+                throw e;
+            }
+            recreateGroup();
+            return List.of();
+        }
+    }
+
+    private List<StreamEntry> readOrClaim(int count, int blockMs) {
+        if (drainingOwnPending) {
+            List<StreamEntry> pending = readGroup(ownPendingCursor, new XReadGroupParams().count(count));
+            if (!pending.isEmpty()) {
+                ownPendingCursor = pending.get(pending.size() - 1).getID();
+                return pending;
+            }
+            drainingOwnPending = false;
+        }
+
+        long now = System.currentTimeMillis();
+        if (now >= nextClaimAt) {
+            List<StreamEntry> claimed = claimStalled(count);
+            // Mid-scan the next page is claimed on the next read; only a finished scan waits for the interval.
+            if (OWN_PENDING.equals(claimCursor)) {
+                nextClaimAt = now + claimIntervalMs;
+            }
+            if (!claimed.isEmpty()) {
+                return claimed;
+            }
+        }
+
+        return readGroup(StreamEntryID.UNRECEIVED_ENTRY, new XReadGroupParams().count(count).block(blockMs));
+    }
+
+    private List<StreamEntry> readGroup(StreamEntryID from, XReadGroupParams params) {
+        List<Map.Entry<String, List<StreamEntry>>> streams =
+                jedis.xreadGroup(group, consumer, params, Map.of(streamKey, from));
+        if (streams == null || streams.isEmpty()) {
+            return List.of();
+        }
+        return streams.get(0).getValue();
+    }
+
+    /** One XAUTOCLAIM step; the cursor wraps back to 0-0 once the whole PEL has been scanned. */
+    private List<StreamEntry> claimStalled(int count) {
+        Map.Entry<StreamEntryID, List<StreamEntry>> result = jedis.xautoclaim(
+                streamKey, group, consumer, claimMinIdleMs, claimCursor, new XAutoClaimParams().count(count));
+        claimCursor = result.getKey();
+
+        List<StreamEntry> claimed = new ArrayList<>(result.getValue().size());
+        for (StreamEntry entry : result.getValue()) {
+            if (entry != null) {
+                claimed.add(entry);
+            }
+        }
+        if (!claimed.isEmpty()) {
+            System.out.println(consumer + " claimed " + claimed.size() + " stalled entries from " + group);
+        }
+        return claimed;
+    }
+
+    @Override
+    public void commit(List<StreamEntryID> ids) {
+        if (ids.isEmpty()) {
+            return;
+        }
+        try {
+            jedis.xack(streamKey, group, ids.toArray(new StreamEntryID[0]));
+        } catch (JedisDataException e) {
+            if (!isNoGroup(e)) {
+                throw e;
+            }
+            // Nothing left to acknowledge: the new group delivers these entries again, if they still exist.
+            recreateGroup();
+        }
+    }
+
+    private static boolean isNoGroup(JedisDataException e) {
+        return e.getMessage() != null && e.getMessage().startsWith("NOGROUP");
+    }
+
+    private void recreateGroup() {
+        System.err.println("Consumer group " + group + " is missing from " + streamKey + ", creating it again");
+        createGroup();
+        drainingOwnPending = true;
+        ownPendingCursor = OWN_PENDING;
+        claimCursor = OWN_PENDING;
+        nextClaimAt = 0;
+    }
+
+    @Override
+    public String describe() {
+        return "XREADGROUP " + streamKey + " group=" + group + " consumer=" + consumer;
+    }
+
+    @Override
+    public void close() {
+        jedis.close();
+    }
+}
@@ -0,0 +1,531 @@
+package com.example.fixparser.consumer;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixTags;
+import com.example.fixcodec.FixValidator;
+import com.example.fixcodec.SequenceTracker;
+import com.example.fixparser.metrics.PipelineMetrics;
+import com.example.fixparser.metrics.RateLimitedLog;
+import com.example.fixparser.model.FixDictionaries;
+import com.example.fixparser.model.FixMessageRecord;
+import com.example.fixparser.repository.FixMessageStore;
+import com.example.fixparser.validation.MessageValidation;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.exceptions.JedisConnectionException;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.locks.Lock;
+import java.util.function.Supplier;
+
+/**
+ * Staged consumer: one reader, a pool of parser threads and one batch writer,
+ * connected by bounded {@link SpscRingBuffer}s.
+ *
+ * <pre>
+ *   reader ──hash(partition key)──▶ parser[i] ──▶ writer ──▶ Postgres
+ *      ▲                                              │
+ *      └──────── persisted watermark (commit/XACK) ───┘
+ * </pre>
+ *
+ * Messages are routed by Symbol (55) or by SenderCompID/TargetCompID, so all
+ * messages of one partition go through the same parser and reach the writer
+ * in stream order. Each entry gets a sequence number when read. The writer
+ * marks sequences persisted after each commit and advances a watermark to the
+ * lowest sequence not yet persisted; the reader, which owns the Redis
+ * connection, commits (checkpoint or XACK) only up to that watermark. Full
+ * queues and a full in-flight window stall the reader, so memory is bounded.
+ *
+ * The writer holds {@code commitLock} from each database write until the
+ * batch has been passed to {@code onCommitted}, so a listener rebuilding from
+ * the database can hold commits off while it reads. It does not hold it
+ * while backing off after a failed write.
+ *
+ * Parsers validate as they decode; rejected messages reach the writer with
+ * no record and are only committed. Sequence numbers are checked by the
+ * reader as it commits, the one place entries are seen in stream order again.
+ *
+ * If a stage fails or the reader loses its connection, the whole pipeline
+ * is torn down and started again on a new source after a back-off; entries
+ * not yet committed are delivered again. The reader never waits on a queue
+ * or the window without checking that the stages are still alive.
+ */
+public class PipelinedConsumer implements StreamWorker {
+
+    public enum PartitionBy { SYMBOL, SESSION }
+
+    private static final long MAX_RETRY_DELAY_MS = 30_000;
+
+    private static final class Item {
+        final long seq;
+        final String raw;
+        final long receivedAt;
+        final StreamEntryID id;
+        FixMessageRecord record;
+        boolean possDup;
+        long resetTo = FixMessageRecord.NULL;
+
+        Item(long seq, String raw, long receivedAt, StreamEntryID id) {
+            this.seq = seq;
+            this.raw = raw;
+            this.receivedAt = receivedAt;
+            this.id = id;
+        }
+    }
+
+    private final Supplier<StreamSource> sourceFactory;
+    private final FixMessageStore store;
+    private final FixDictionaries dictionaries;
+    private final BatchListener onCommitted;
+    private final Lock commitLock;
+    private final int batchSize;
+    private final long flushIntervalMs;
+    private final PartitionBy partitionBy;
+    private final String name;
+    private final PipelineMetrics metrics;
+    private final MessageValidation validation;
+    private final SequenceTracker sequences;
+    private final AdaptiveRead read;
+    private final RateLimitedLog savedLog;
+
+    private final SpscRingBuffer<Item>[] toParsers;
+    private final SpscRingBuffer<Item>[] toWriter;
+
+    // In-flight window, indexed by sequence. itemsBySeq belongs to the reader,
+    // persisted to the writer; they only meet through persistedUpTo.
+    private final int windowMask;
+    private final Item[] itemsBySeq;
+    private final boolean[] persisted;
+    private volatile long persistedUpTo;
+    private long nextSeq;
+    private long committedUpTo;
+
+    private volatile boolean running = true;
+    private volatile boolean stagesRunning = true;
+    private volatile boolean stagesAborted;
+    private volatile boolean stageFailed;
+
+    @SuppressWarnings("unchecked")
+    public PipelinedConsumer(String name, Supplier<StreamSource> sourceFactory, FixMessageStore store,
+                             FixDictionaries dictionaries, BatchListener onCommitted, Lock commitLock,
+                             int batchSize, long flushIntervalMs, int parserThreads, int queueCapacity, PartitionBy partitionBy,
+                             PipelineMetrics metrics, MessageValidation validation, SequenceTracker sequences,
+                             AdaptiveRead read) {
+        this.name = name;
+        this.metrics = metrics;
+        this.validation = validation;
+        this.sequences = sequences;
+        this.read = read;
+        this.savedLog = metrics.summaryLog("Saved FIX messages (" + name + ")", "last_seq");
+        this.sourceFactory = sourceFactory;
+        this.store = store;
+        this.dictionaries = dictionaries;
+        this.onCommitted = onCommitted;
+        this.commitLock = commitLock;
+        this.batchSize = batchSize;
+        this.flushIntervalMs = flushIntervalMs;
+        this.partitionBy = partitionBy;
+
+        this.toParsers = new SpscRingBuffer[parserThreads];
+        this.toWriter = new SpscRingBuffer[parserThreads];
+        for (int i = 0; i < parserThreads; i++) {
+            toParsers[i] = new SpscRingBuffer<>(queueCapacity);
+            toWriter[i] = new SpscRingBuffer<>(queueCapacity);
+            metrics.queueDepth(name, "parse-" + i, toParsers[i]);
+            metrics.queueDepth(name, "write-" + i, toWriter[i]);
+        }
+
+        int window = Integer.highestOneBit(2 * parserThreads * toParsers[0].capacity() + batchSize) << 1;
+        this.windowMask = window - 1;
+        this.itemsBySeq = new Item[window];
+        this.persisted = new boolean[window];
+    }
+
+    @Override
+    public void stop() {
+        running = false;
+    }
+
+    /**
+     * Runs the pipeline until stopped, starting it over after any failure
+     * with a back-off of 1 s doubling to 30 s.
+     */
+    @Override
+    public void run() {
+        long retryDelayMs = 1_000;
+        while (running) {
+            long startedAt = System.currentTimeMillis();
+            try {
+                runPipeline();
+                return;
+            } catch (CancellationException e) {
+                // Stopped while waiting for a stage; what was not committed is delivered again next time.
+                return;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return;
+            } catch (Exception e) {
+                if (System.currentTimeMillis() - startedAt > MAX_RETRY_DELAY_MS) {
+                    retryDelayMs = 1_000;
+                }
+                // Anything not yet committed is re-delivered after restarting.
+                if (e instanceof JedisConnectionException) {
+                    System.err.println("Lost Redis connection, retrying in " + retryDelayMs + " ms: " + e.getMessage());
+                } else {
+                    System.err.println("Error in " + name + ", restarting in " + retryDelayMs + " ms: " + e);
+                    if (!stageFailed) {
+                        // A failed stage has printed its own trace.
+                        e.printStackTrace();
+                    }
+                }
+                try {
+                    Thread.sleep(retryDelayMs);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                retryDelayMs = Math.min(retryDelayMs * 2, MAX_RETRY_DELAY_MS);
+            }
+        }
+    }
+
+    /** Starts the stages and reads from one source until stopped; throws if anything fails. */
+    private void runPipeline() throws InterruptedException {
+        reset();
+        List<Thread> stages = new ArrayList<>();
+        for (int i = 0; i < toParsers.length; i++) {
+            int partition = i;
+            stages.add(new Thread(() -> runStage(() -> parse(partition)), name + "-parser-" + i));
+        }
+        stages.add(new Thread(() -> runStage(this::write), name + "-writer"));
+        stages.forEach(Thread::start);
+
+        boolean drained = false;
+        try (StreamSource source = sourceFactory.get()) {
+            System.out.println(name + " reading: " + source.describe() + " (" + toParsers.length
+                    + " parsers, partitioned by " + partitionBy.name().toLowerCase() + ")");
+            readLoop(source);
+            drain(source);
+            drained = true;
+        } finally {
+            stopStages(stages, drained);
+        }
+    }
+
+    /**
+     * After a drain the stages finish what is queued, within a grace period.
+     * Otherwise they are aborted and waited for, since the queues and the
+     * window are reused by the next run.
+     */
+    private void stopStages(List<Thread> stages, boolean drained) {
+        stagesAborted = !drained;
+        stagesRunning = false;
+        boolean interrupted = false;
+        for (Thread stage : stages) {
+            try {
+                if (drained) {
+                    stage.join(flushIntervalMs + 5_000);
+                } else {
+                    stage.join();
+                }
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /** Empties the queues and the window for a new run. The stages must have ended. */
+    private void reset() {
+        for (int i = 0; i < toParsers.length; i++) {
+            while (toParsers[i].poll() != null) {
+                // dropped: not committed, so delivered again
+            }
+            while (toWriter[i].poll() != null) {
+                // as above
+            }
+        }
+        Arrays.fill(itemsBySeq, null);
+        Arrays.fill(persisted, false);
+        nextSeq = 0;
+        committedUpTo = 0;
+        persistedUpTo = 0;
+        stageFailed = false;
+        stagesAborted = false;
+        stagesRunning = true;
+    }
+
+    // -------------------------------------------------------
+    // READER (calling thread)
+    // -------------------------------------------------------
+
+    /** For the reader's waits: ends them once a stage has failed or the worker is stopping. */
+    private boolean readerMustStop() {
+        return stageFailed || !running;
+    }
+
+    private void checkReader() {
+        if (stageFailed) {
+            throw new IllegalStateException("A pipeline stage of " + name + " failed");
+        }
+        if (!running) {
+            throw new CancellationException(name + " stopped");
+        }
+    }
+
+    private void readLoop(StreamSource source) throws InterruptedException {
+        boolean idle = false;
+        while (running) {
+            if (stageFailed) {
+                checkReader();
+            }
+            commitPersisted(source);
+            // Busy while anything read is not yet committed: the watermark has to be checked again soon.
+            List<StreamEntry> entries = source.read(read.count(), read.blockMs(nextSeq != committedUpTo));
+            read.onRead(entries.size());
+
+            if (entries.isEmpty()) {
+                if (!idle && nextSeq == committedUpTo) {
+                    savedLog.flush();
+                    System.out.println("Waiting for new messages...");
+                    idle = true;
+                }
+                continue;
+            }
+            idle = false;
+
+            long readAtMillis = System.currentTimeMillis();
+            long receivedAt = readAtMillis * 1_000;
+            metrics.count(PipelineMetrics.Stage.READ, entries.size());
+            for (StreamEntry entry : entries) {
+                metrics.delivered(entry.getID().getTime(), readAtMillis);
+                int waits = 0;
+                while (nextSeq - committedUpTo > windowMask) {
+                    if (readerMustStop()) {
+                        checkReader();
+                    }
+                    commitPersisted(source);
+                    waits = SpscRingBuffer.idle(waits);
+                }
+
+                Map<String, String> fields = entry.getFields();
+                String raw = fields == null ? null : fields.get("fixMessage");
+                long seq = nextSeq++;
+                Item item = new Item(seq, raw, receivedAt, entry.getID());
+                itemsBySeq[(int) seq & windowMask] = item;
+                if (!toParsers[partitionOf(raw)].put(item, this::readerMustStop)) {
+                    checkReader();
+                }
+            }
+        }
+    }
+
+    private int partitionOf(String raw) {
+        if (raw == null || toParsers.length == 1) {
+            return 0;
+        }
+        int hash = partitionBy == PartitionBy.SYMBOL
+                ? FixDecoder.hashValue(raw, FixTags.SYMBOL)
+                : 31 * FixDecoder.hashValue(raw, FixTags.SENDER_COMP_ID) + FixDecoder.hashValue(raw, FixTags.TARGET_COMP_ID);
+        return Math.floorMod(hash ^ (hash >>> 16), toParsers.length);
+    }
+
+    /**
+     * Commits every entry below the writer's watermark back to the source,
+     * checking sequence numbers on the way. The parser's writes to an item
+     * are visible here through the queues and persistedUpTo.
+     */
+    private void commitPersisted(StreamSource source) {
+        long upTo = persistedUpTo;
+        if (upTo <= committedUpTo) {
+            return;
+        }
+        List<StreamEntryID> ids = new ArrayList<>((int) (upTo - committedUpTo));
+        for (long seq = committedUpTo; seq < upTo; seq++) {
+            int slot = (int) seq & windowMask;
+            Item item = itemsBySeq[slot];
+            ids.add(item.id);
+            if (item.record != null) {
+                validation.checkSequence(sequences, item.record, item.possDup, item.resetTo);
+            }
+            itemsBySeq[slot] = null;
+        }
+        source.commit(ids);
+        committedUpTo = upTo;
+    }
+
+    /** On stop: wait for everything read to be persisted, then commit it. */
+    private void drain(StreamSource source) throws InterruptedException {
+        int waits = 0;
+        while (persistedUpTo < nextSeq) {
+            if (stageFailed) {
+                checkReader();
+            }
+            waits = SpscRingBuffer.idle(waits);
+        }
+        commitPersisted(source);
+    }
+
+    // -------------------------------------------------------
+    // PARSERS
+    // -------------------------------------------------------
+
+    private void parse(int partition) throws InterruptedException {
+        SpscRingBuffer<Item> in = toParsers[partition];
+        SpscRingBuffer<Item> out = toWriter[partition];
+        FixDecoder decoder = new FixDecoder();
+        FixValidator validator = new FixValidator();
+
+        int idle = 0;
+        while (!stagesAborted && (stagesRunning || in.size() > 0)) {
+            Item item = in.poll();
+            if (item == null) {
+                idle = SpscRingBuffer.idle(idle);
+                continue;
+            }
+            idle = 0;
+            if (item.raw != null) {
+                long start = System.nanoTime();
+                FixDecoder fix = decoder.wrap(item.raw);
+                if (validation.accept(validator, fix, item.raw, item.receivedAt)) {
+                    item.record = FixMessageMapper.toRecord(fix, item.raw, item.receivedAt, dictionaries);
+                    item.possDup = MessageValidation.possDup(fix);
+                    item.resetTo = MessageValidation.resetTo(fix, item.record);
+                    store.prepare(item.record);
+                }
+                metrics.parsed(System.nanoTime() - start);
+                metrics.count(PipelineMetrics.Stage.PARSED, 1);
+            }
+            if (!out.put(item, () -> stagesAborted)) {
+                return;
+            }
+        }
+    }
+
+    // -------------------------------------------------------
+    // WRITER
+    // -------------------------------------------------------
+
+    private void write() throws InterruptedException {
+        List<FixMessageRecord> batch = new ArrayList<>(batchSize);
+        List<Item> items = new ArrayList<>(batchSize);
+        long batchStartedAt = 0;
+        int next = 0;
+        int idle = 0;
+
+        while (!stagesAborted && (stagesRunning || !items.isEmpty() || queuedForWriter() > 0)) {
+            Item item = null;
+            for (int k = 0; k < toWriter.length && item == null; k++) {
+                item = toWriter[next].poll();
+                next = next + 1 == toWriter.length ? 0 : next + 1;
+            }
+
+            if (item != null) {
+                idle = 0;
+                if (items.isEmpty()) {
+                    batchStartedAt = System.currentTimeMillis();
+                }
+                items.add(item);
+                if (item.record != null) {
+                    batch.add(item.record);
+                }
+            } else {
+                idle = SpscRingBuffer.idle(idle);
+            }
+
+            if (!items.isEmpty() && (items.size() >= batchSize
+                    || System.currentTimeMillis() - batchStartedAt >= flushIntervalMs
+                    || (item == null && !stagesRunning))) {
+                flush(batch, items);
+            }
+        }
+    }
+
+    private int queuedForWriter() {
+        int queued = 0;
+        for (SpscRingBuffer<Item> queue : toWriter) {
+            queued += queue.size();
+        }
+        return queued;
+    }
+
+    private void flush(List<FixMessageRecord> batch, List<Item> items) throws InterruptedException {
+        long backoffMs = 500;
+        RuntimeException failure;
+        while ((failure = commit(batch, items)) != null) {
+            if (stagesAborted) {
+                return;
+            }
+            System.err.println("Batch write failed, retrying in " + backoffMs + " ms: " + failure.getMessage());
+            Thread.sleep(backoffMs);
+            backoffMs = Math.min(backoffMs * 2, 30_000);
+        }
+
+        for (Item item : items) {
+            persisted[(int) item.seq & windowMask] = true;
+        }
+        long upTo = persistedUpTo;
+        while (persisted[(int) upTo & windowMask]) {
+            persisted[(int) upTo & windowMask] = false;
+            upTo++;
+        }
+        persistedUpTo = upTo;
+
+        batch.clear();
+        items.clear();
+    }
+
+    /**
+     * One attempt: writes the batch and passes it to {@code onCommitted}
+     * under {@code commitLock}, which is released before any backoff so a
+     * rebuild is never held up by a database that is down.
+     *
+     * @return the write failure, or null once committed
+     */
+    private RuntimeException commit(List<FixMessageRecord> batch, List<Item> items) {
+        List<FixMessageRecord> stored = batch;
+        commitLock.lock();
+        try {
+            if (!batch.isEmpty()) {
+                try {
+                    long start = System.nanoTime();
+                    stored = store.writeBatch(batch);
+                    metrics.committed(System.nanoTime() - start);
+                } catch (RuntimeException e) {
+                    return e;
+                }
+                metrics.count(PipelineMetrics.Stage.PERSISTED, stored.size());
+                savedLog.record(stored.size(), items.get(items.size() - 1).seq);
+            }
+            if (!stored.isEmpty()) {
+                onCommitted.onCommitted(stored);
+            }
+            return null;
+        } finally {
+            commitLock.unlock();
+        }
+    }
+
+    private void runStage(InterruptibleTask task) {
+        try {
+            task.run();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (RuntimeException e) {
+            System.err.println("Pipeline stage " + Thread.currentThread().getName() + " failed: " + e.getMessage());
+            e.printStackTrace();
+            stageFailed = true;
+        }
+    }
+
+    @FunctionalInterface
+    private interface InterruptibleTask {
+        void run() throws InterruptedException;
+    }
+}
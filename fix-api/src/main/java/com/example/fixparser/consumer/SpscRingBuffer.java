@@ -0,0 +1,106 @@
+package com.example.fixparser.consumer;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BooleanSupplier;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Bounded, lock-free single-producer/single-consumer queue.
+ *
+ * Exactly one thread may call {@link #offer}/{@link #put} and exactly one
+ * other thread {@link #poll}. Each side caches the other's index and only
+ * re-reads it when the ring looks full (producer) or empty (consumer), so
+ * the common case touches no shared cache line besides the slot itself.
+ */
+public final class SpscRingBuffer<E> {
+
+    private final Object[] buffer;
+    private final int mask;
+    private final int capacity;
+
+    private final AtomicLong head = new AtomicLong(); // next slot to poll
+    private final AtomicLong tail = new AtomicLong(); // next slot to fill
+
+    private long producerCachedHead;
+    private long consumerCachedTail;
+
+    public SpscRingBuffer(int requestedCapacity) {
+        int cap = Integer.highestOneBit(Math.max(2, requestedCapacity - 1)) << 1;
+        this.buffer = new Object[cap];
+        this.mask = cap - 1;
+        this.capacity = cap;
+    }
+
+    public boolean offer(E element) {
+        long t = tail.get();
+        if (t - producerCachedHead >= capacity) {
+            producerCachedHead = head.get();
+            if (t - producerCachedHead >= capacity) {
+                return false;
+            }
+        }
+        buffer[(int) t & mask] = element;
+        tail.lazySet(t + 1);
+        return true;
+    }
+
+    /**
+     * Offers, backing off while the queue is full. This is the backpressure
+     * path. A consumer that has died never makes room, so the wait ends
+     * as soon as {@code cancelled} returns true.
+     *
+     * @return false if cancelled before the element could be added
+     */
+    public boolean put(E element, BooleanSupplier cancelled) throws InterruptedException {
+        int idle = 0;
+        while (!offer(element)) {
+            if (cancelled.getAsBoolean()) {
+                return false;
+            }
+            idle = idle(idle);
+        }
+        return true;
+    }
+
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head.get();
+        if (h >= consumerCachedTail) {
+            consumerCachedTail = tail.get();
+            if (h >= consumerCachedTail) {
+                return null;
+            }
+        }
+        int slot = (int) h & mask;
+        E element = (E) buffer[slot];
+        buffer[slot] = null;
+        head.lazySet(h + 1);
+        return element;
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail.get() - head.get());
+    }
+
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * Spin, then yield, then park with a growing timeout. Returns the next
+     * idle count to pass back in; callers reset it to 0 after doing work.
+     */
+    public static int idle(int idleCount) throws InterruptedException {
+        if (idleCount < 100) {
+            Thread.onSpinWait();
+        } else if (idleCount < 200) {
+            Thread.yield();
+        } else {
+            LockSupport.parkNanos(Math.min(1_000_000L, 10_000L << Math.min(idleCount - 200, 6)));
+            if (Thread.interrupted()) {
+                throw new InterruptedException();
+            }
+        }
+        return idleCount + 1;
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.fixparser.consumer;
+
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.resps.StreamEntry;
+
+import java.util.List;
+
+/**
+ * Where a consumer worker gets its stream entries from, and how it records
+ * that they are safely persisted.
+ */
+public interface StreamSource extends AutoCloseable {
+
+    /** Next entries to process, blocking up to {@code blockMs}; empty if none arrived. */
+    List<StreamEntry> read(int count, int blockMs);
+
+    /**
+     * Called once the entries up to and including {@code ids} are committed
+     * to the database. {@code ids} are in stream order.
+     */
+    void commit(List<StreamEntryID> ids);
+
+    /** Short description for log lines. */
+    String describe();
+
+    @Override
+    void close();
+}
@@ -0,0 +1,132 @@
+package com.example.fixparser.consumer;
+
+import com.example.fixparser.publisher.FixStreamPublisher;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.params.XTrimParams;
+import redis.clients.jedis.resps.StreamGroupInfo;
+import redis.clients.jedis.resps.StreamPendingSummary;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Keeps the fix-messages stream a bounded buffer: entries are only needed
+ * until every reader has persisted them, so on a schedule the stream is
+ * trimmed with {@code XTRIM MINID ~} up to the oldest entry that is not yet
+ * durably in Postgres.
+ *
+ * Workers XACK (or, in checkpoint mode, save the checkpoint) only after
+ * their batch is committed, so for each consumer group that point is its
+ * oldest pending entry, or the one after its last delivered entry when
+ * nothing is pending. Every group on the stream counts, including other
+ * applications' groups, so a stalled or abandoned group holds trimming back;
+ * {@code fix.stream.trim.lag} shows it. Nothing is trimmed while no reader
+ * is known. {@code fix.stream.trim.keep-ms} keeps persisted entries that
+ * much longer, e.g. for ad-hoc replays.
+ *
+ * Trimming is approximate, so Redis only drops whole radix tree nodes and a
+ * few persisted entries may stay until the next pass.
+ */
+@Component
+@ConditionalOnProperty(name = "fix.stream.trim.enabled", havingValue = "true", matchIfMissing = true)
+public class StreamTrimmer {
+
+    private static final String STREAM_KEY = FixStreamPublisher.STREAM_KEY;
+
+    /** Where one reader stands: its last delivered entry and its oldest unacknowledged one, if any. */
+    record ReaderPosition(StreamEntryID lastDelivered, StreamEntryID oldestPending) {
+    }
+
+    private final JedisPool pool;
+    private final boolean checkpointMode;
+    private final long keepMs;
+    private final AtomicLong trimLagMs = new AtomicLong();
+    private final AtomicLong trimmed = new AtomicLong();
+
+    private boolean warned;
+
+    public StreamTrimmer(JedisPool pool, MeterRegistry registry,
+                         @Value("${fix.consumer.mode:group}") String consumerMode,
+                         @Value("${fix.stream.trim.keep-ms:0}") long keepMs) {
+        this.pool = pool;
+        this.checkpointMode = "checkpoint".equalsIgnoreCase(consumerMode);
+        this.keepMs = keepMs;
+        Gauge.builder("fix.stream.trim.lag", trimLagMs, AtomicLong::get)
+                .description("Age of the oldest entry not yet persisted by every reader; trimming stops there")
+                .baseUnit("milliseconds").register(registry);
+        FunctionCounter.builder("fix.stream.trimmed", trimmed, AtomicLong::get)
+                .description("Entries removed from the stream by the trimmer").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${fix.stream.trim.interval-ms:5000}")
+    public void trim() {
+        try (Jedis jedis = pool.getResource()) {
+            if (!jedis.exists(STREAM_KEY)) {
+                return;
+            }
+            List<ReaderPosition> readers = new ArrayList<>();
+            for (StreamGroupInfo group : jedis.xinfoGroups(STREAM_KEY)) {
+                StreamEntryID oldestPending = null;
+                if (group.getPending() > 0) {
+                    StreamPendingSummary summary = jedis.xpending(STREAM_KEY, group.getName());
+                    oldestPending = summary.getTotal() > 0 ? summary.getMinId() : null;
+                }
+                readers.add(new ReaderPosition(group.getLastDeliveredId(), oldestPending));
+            }
+            if (checkpointMode) {
+                StreamEntryID committed = CheckpointStreamSource.committed(CheckpointStreamSource.DEFAULT_CHECKPOINT_FILE);
+                readers.add(new ReaderPosition(committed == null ? new StreamEntryID(0, 0) : committed, null));
+            }
+
+            long now = System.currentTimeMillis();
+            StreamEntryID persisted = trimPoint(readers);
+            if (persisted == null) {
+                trimLagMs.set(0);
+                return;
+            }
+            StreamEntryID head = jedis.xinfoStream(STREAM_KEY).getLastGeneratedId();
+            trimLagMs.set(persisted.compareTo(head) > 0 ? 0 : Math.max(0, now - persisted.getTime()));
+
+            StreamEntryID minId = keepMs > 0 ? min(persisted, new StreamEntryID(Math.max(0, now - keepMs), 0)) : persisted;
+            if (minId.getTime() > 0 || minId.getSequence() > 0) {
+                trimmed.addAndGet(jedis.xtrim(STREAM_KEY, XTrimParams.xTrimParams().minId(minId.toString()).approximateTrimming()));
+            }
+            warned = false;
+        } catch (JedisException e) {
+            if (!warned) {
+                System.err.println("Could not trim " + STREAM_KEY + ": " + e.getMessage());
+                warned = true;
+            }
+        }
+    }
+
+    /**
+     * The first entry some reader has not yet persisted: entries before it
+     * can be trimmed. Null if there are no readers.
+     */
+    static StreamEntryID trimPoint(List<ReaderPosition> readers) {
+        StreamEntryID point = null;
+        for (ReaderPosition reader : readers) {
+            StreamEntryID needed = reader.oldestPending() != null
+                    ? reader.oldestPending()
+                    : new StreamEntryID(reader.lastDelivered().getTime(), reader.lastDelivered().getSequence() + 1);
+            point = point == null ? needed : min(point, needed);
+        }
+        return point;
+    }
+
+    private static StreamEntryID min(StreamEntryID a, StreamEntryID b) {
+        return a.compareTo(b) <= 0 ? a : b;
+    }
+}
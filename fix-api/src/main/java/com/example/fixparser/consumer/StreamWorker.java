@@ -0,0 +1,9 @@
+package com.example.fixparser.consumer;
+
+/**
+ * A long-running consumer loop that can be asked to finish its current batch and exit.
+ */
+public interface StreamWorker extends Runnable {
+
+    void stop();
+}
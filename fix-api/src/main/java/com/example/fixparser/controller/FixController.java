@@ -1,15 +1,26 @@
 package com.example.fixparser.controller;
 
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixTags;
+import com.example.fixcodec.FixValidator;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.media.Content;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.tags.Tag;
+import com.example.fixparser.ingest.BulkIngester;
+import com.example.fixparser.metrics.PipelineMetrics;
+import com.example.fixparser.metrics.RateLimitedLog;
+import com.example.fixparser.publisher.FixStreamPublisher;
+import com.example.fixparser.validation.MessageValidation;
+import jakarta.servlet.http.HttpServletRequest;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
-import redis.clients.jedis.Jedis;
 import redis.clients.jedis.StreamEntryID;
-import redis.clients.jedis.params.XAddParams;
 
+import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 
@@ -18,31 +29,20 @@ import java.util.Map;
 @Tag(name = "Fix Parsing API", description = "Endpoints for decoding and queuing FIX messages")
 public class FixController {
 
-    private final Jedis jedis;
+    private final FixStreamPublisher publisher;
+    private final BulkIngester bulkIngester;
+    private final RateLimitedLog queuedLog;
 
     @Autowired
-    public FixController(Jedis jedis) {
-        this.jedis = jedis;
+    public FixController(FixStreamPublisher publisher, BulkIngester bulkIngester, PipelineMetrics metrics) {
+        this.publisher = publisher;
+        this.bulkIngester = bulkIngester;
+        this.queuedLog = metrics.summaryLog("Sent to Redis stream via /api/fix/parse", "last_id");
     }
 
-    private static final Map<String, String> TAG_NAMES = Map.ofEntries(
-        Map.entry("8", "BeginString"),
-        Map.entry("9", "BodyLength"),
-        Map.entry("35", "MsgType"),
-        Map.entry("34", "MsgSeqNum"),
-        Map.entry("49", "SenderCompID"),
-        Map.entry("56", "TargetCompID"),
-        Map.entry("52", "SendingTime"),
-        Map.entry("11", "ClOrdID"),
-        Map.entry("21", "HandlInst"),
-        Map.entry("55", "Symbol"),
-        Map.entry("54", "Side"),
-        Map.entry("38", "OrderQty"),
-        Map.entry("40", "OrdType"),
-        Map.entry("44", "Price"),
-        Map.entry("59", "TimeInForce"),
-        Map.entry("10", "CheckSum")
-    );
+    // Decoders are reusable but not thread-safe; keep one per request thread.
+    private static final ThreadLocal<FixDecoder> DECODER = ThreadLocal.withInitial(FixDecoder::new);
+    private static final ThreadLocal<FixValidator> VALIDATOR = ThreadLocal.withInitial(FixValidator::new);
 
     @PostMapping("/parse")
     @Operation(
@@ -58,7 +58,7 @@ public class FixController {
                 mediaType = "application/json",
                 schema = @Schema(
                     type = "string",
-                    example = "8=FIX.4.4|35=D|55=AAPL|54=1|38=100|44=150.25|10=999"
+                    example = "8=FIX.4.4|9=35|35=D|55=AAPL|54=1|38=100|44=150.25|10=147"
                 )
             )
         )
@@ -79,27 +79,56 @@ public class FixController {
         fixMessage = fixMessage.replace("\u0001", "|");
 
         // Push into Redis Stream
-        StreamEntryID redisId = jedis.xadd(
-            "fix-messages",
-            XAddParams.xAddParams(),
-            Map.of("fixMessage", fixMessage)
-        );
+        StreamEntryID redisId = publisher.publish(fixMessage);
 
-        System.out.println("Sent to Redis stream with ID: " + redisId);
+        queuedLog.record(1, redisId);
 
         // Parse into key-value map
+        FixDecoder decoder = DECODER.get().wrap(fixMessage);
         Map<String, String> parsed = new LinkedHashMap<>();
-        for (String field : fixMessage.split("\\|")) {
-            if (field.contains("=")) {
-                String[] kv = field.split("=", 2);
-                parsed.put(TAG_NAMES.getOrDefault(kv[0], "Unknown(" + kv[0] + ")"), kv[1]);
-            }
+        for (int i = 0; i < decoder.fieldCount(); i++) {
+            int tag = decoder.tagAt(i);
+            String name = FixTags.nameOf(tag);
+            parsed.put(name != null ? name : "Unknown(" + tag + ")", decoder.stringAt(i));
         }
 
+        // What the consumer's check will say; an invalid message is queued anyway and dead-lettered there.
+        FixValidator validator = VALIDATOR.get();
+        String validation = MessageValidation.describe(validator, validator.validate(decoder));
+
         return Map.of(
             "status", "queued",
             "redis_id", redisId.toString(),
+            "validation", validation,
             "parsed", parsed
         );
     }
+
+    @PostMapping(value = "/bulk", consumes = MediaType.ALL_VALUE)
+    @Operation(
+        summary = "Stream many FIX messages into the queue",
+        description = "Accepts a streamed body of raw SOH-framed FIX, one message per line (| or SOH delimited), "
+            + "or either of those gzipped. Messages are decoded as the bytes arrive and pushed to the Redis Stream "
+            + "in pipelined batches. Returns counts, the first and last stream IDs, and sample rejects."
+    )
+    public ResponseEntity<Map<String, Object>> bulkIngest(HttpServletRequest request) throws IOException {
+        BulkIngester.Summary summary = bulkIngester.ingest(request.getInputStream());
+
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("status", summary.error() == null ? "queued" : "failed");
+        body.put("accepted", summary.accepted());
+        body.put("rejected", summary.rejected());
+        body.put("bytes", summary.bytes());
+        body.put("batches", summary.batches());
+        body.put("first_id", summary.firstId());
+        body.put("last_id", summary.lastId());
+        body.put("rejects", summary.rejects().stream()
+            .map(r -> Map.of("offset", r.offset(), "reason", r.reason()))
+            .toList());
+        if (summary.error() != null) {
+            body.put("error", summary.error());
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(body);
+        }
+        return ResponseEntity.ok(body);
+    }
 }
@@ -0,0 +1,101 @@
+package com.example.fixparser.dedup;
+
+import com.example.fixparser.metrics.PipelineMetrics;
+import com.example.fixparser.metrics.RateLimitedLog;
+import com.example.fixparser.model.FixMessageRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * Tells the stores which messages of a batch may already be stored, so only
+ * those pay for a duplicate check in the database.
+ *
+ * A message's key is its SenderCompID, TargetCompID, MsgSeqNum and
+ * SendingTime; a message without all four is never a duplicate. Keys seen
+ * in the last {@code fix.dedup.window-ms} are held in a
+ * {@link RotatingBloomFilter}: a key it has not seen is certainly new and
+ * is inserted as before, one it may have seen is a suspect, and the store
+ * lets the table's unique index on the key decide. Suspects are a replayed
+ * stream, a producer resending, and about {@code fix.dedup.false-positive-rate}
+ * of new messages. A duplicate older than the window is still caught, by
+ * the unique index failing the plain insert, at the cost of writing that
+ * batch again with every message as a suspect.
+ */
+@Component
+public class DuplicateFilter {
+
+    private final RotatingBloomFilter seen;
+    private final Counter suspects;
+    private final Counter duplicates;
+    private final RateLimitedLog duplicateLog;
+
+    public DuplicateFilter(MeterRegistry registry, PipelineMetrics metrics,
+                           @Value("${fix.dedup.window-ms:300000}") long windowMs,
+                           @Value("${fix.dedup.expected-keys:5000000}") long expectedKeys,
+                           @Value("${fix.dedup.false-positive-rate:0.01}") double falsePositiveRate) {
+        this.seen = new RotatingBloomFilter(expectedKeys, falsePositiveRate, windowMs * 1_000_000, System.nanoTime());
+        this.suspects = Counter.builder("fix.dedup.suspects")
+                .description("Messages the filter may have seen before, checked against the database")
+                .register(registry);
+        this.duplicates = Counter.builder("fix.dedup.duplicates")
+                .description("Messages not stored because they already were")
+                .register(registry);
+        Gauge.builder("fix.dedup.window", this, filter -> filter.coveredMillis() / 1000.0)
+                .description("How far back the filter remembers keys").baseUnit("seconds").register(registry);
+        this.duplicateLog = metrics.summaryLog("Dropped duplicate FIX messages", "last");
+        System.out.printf("Duplicate filter: %,d KB, %d hashes, window %d ms%n",
+                seen.bytes() / 1024, seen.hashes(), windowMs);
+    }
+
+    /** Whether {@code record} has every part of the key; only such messages are checked. */
+    public static boolean isKeyed(FixMessageRecord record) {
+        return record.getSenderId() != 0 && record.getTargetId() != 0
+                && record.hasMsgSeqNum() && record.getSendingTime() != FixMessageRecord.NULL;
+    }
+
+    /**
+     * Adds every keyed message of {@code batch} to the filter.
+     *
+     * @return the positions of the suspects: messages whose key was possibly
+     * seen before, earlier in this batch included
+     */
+    public synchronized BitSet screen(List<FixMessageRecord> batch) {
+        BitSet suspect = new BitSet(batch.size());
+        long now = System.nanoTime();
+        for (int i = 0; i < batch.size(); i++) {
+            FixMessageRecord record = batch.get(i);
+            if (isKeyed(record) && seen.add(key(record), now)) {
+                suspect.set(i);
+            }
+        }
+        suspects.increment(suspect.cardinality());
+        return suspect;
+    }
+
+    /** Counts the suspects the store found already stored. */
+    public void dropped(List<FixMessageRecord> duplicates) {
+        if (duplicates.isEmpty()) {
+            return;
+        }
+        this.duplicates.increment(duplicates.size());
+        FixMessageRecord last = duplicates.get(duplicates.size() - 1);
+        duplicateLog.record(duplicates.size(),
+                last.getSenderCompID() + "->" + last.getTargetCompID() + ":" + last.getMsgSeqNum());
+    }
+
+    private synchronized long coveredMillis() {
+        return seen.coveredNanos(System.nanoTime()) / 1_000_000;
+    }
+
+    static long key(FixMessageRecord record) {
+        long h = RotatingBloomFilter.mix(((long) record.getSenderId() << 32) | (record.getTargetId() & 0xffffffffL));
+        h = RotatingBloomFilter.mix(h ^ record.getMsgSeqNum());
+        return h ^ record.getSendingTime();
+    }
+}
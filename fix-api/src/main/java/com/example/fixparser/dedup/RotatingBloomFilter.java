@@ -0,0 +1,125 @@
+package com.example.fixparser.dedup;
+
+import java.util.Arrays;
+
+/**
+ * Remembers 64-bit keys for a time window in a fixed amount of memory.
+ *
+ * Two Bloom filters take turns: keys go into the current one, and lookups
+ * check both. Every {@code windowNanos}, or sooner if the current filter
+ * has taken its expected number of keys, the older filter is cleared and
+ * becomes the current one. A key is therefore remembered for at least one
+ * window (less only when keys arrive faster than sized for) and at most
+ * two. There are no false negatives within that time; false positives
+ * happen at about the configured rate.
+ *
+ * Bit positions come from the key by double hashing, so a key is hashed
+ * once however many bits it sets. Not thread-safe.
+ */
+final class RotatingBloomFilter {
+
+    private final long expectedKeys;
+    private final int hashes;
+    private final long mask;
+    private final long windowNanos;
+
+    private long[] current;
+    private long[] previous;
+    private long currentKeys;
+    private long currentSince;
+    private long previousSince;
+    private long rotations;
+
+    /**
+     * @param expectedKeys      keys per window the false-positive rate holds for
+     * @param falsePositiveRate chance that a key never added is reported as seen, e.g. 0.01
+     */
+    RotatingBloomFilter(long expectedKeys, double falsePositiveRate, long windowNanos, long nowNanos) {
+        if (expectedKeys < 1 || falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+            throw new IllegalArgumentException("expectedKeys must be >= 1 and falsePositiveRate in (0, 1)");
+        }
+        double ln2 = Math.log(2);
+        long bits = (long) Math.ceil(-expectedKeys * Math.log(falsePositiveRate) / (ln2 * ln2));
+        // A power of two, so a bit position is a mask rather than a modulo.
+        bits = Math.max(64, Long.highestOneBit(bits - 1) << 1);
+        this.expectedKeys = expectedKeys;
+        this.hashes = Math.max(1, (int) Math.round(-Math.log(falsePositiveRate) / ln2));
+        this.mask = bits - 1;
+        this.windowNanos = windowNanos;
+        this.current = new long[(int) (bits >>> 6)];
+        this.previous = new long[current.length];
+        this.currentSince = nowNanos;
+        this.previousSince = nowNanos;
+    }
+
+    /**
+     * Adds {@code key}, first checking whether it may have been added before.
+     *
+     * @return false if the key is certainly new, true if it may be a repeat
+     */
+    boolean add(long key, long nowNanos) {
+        if (nowNanos - currentSince >= windowNanos || currentKeys >= expectedKeys) {
+            rotate(nowNanos);
+        }
+        long h1 = mix(key);
+        long h2 = mix(h1) | 1;
+        boolean inCurrent = true;
+        boolean inPrevious = true;
+        long bit = h1;
+        for (int i = 0; i < hashes; i++) {
+            int word = (int) ((bit & mask) >>> 6);
+            long flag = 1L << bit;
+            if ((current[word] & flag) == 0) {
+                inCurrent = false;
+                current[word] |= flag;
+            }
+            if ((previous[word] & flag) == 0) {
+                inPrevious = false;
+            }
+            bit += h2;
+        }
+        if (!inCurrent) {
+            currentKeys++;
+        }
+        return inCurrent || inPrevious;
+    }
+
+    /** How far back keys are remembered right now. */
+    long coveredNanos(long nowNanos) {
+        return nowNanos - previousSince;
+    }
+
+    long rotations() {
+        return rotations;
+    }
+
+    /** Bytes held by both filters. */
+    long bytes() {
+        return 16L * current.length;
+    }
+
+    int hashes() {
+        return hashes;
+    }
+
+    private void rotate(long nowNanos) {
+        long[] cleared = previous;
+        Arrays.fill(cleared, 0);
+        previous = current;
+        previousSince = currentSince;
+        current = cleared;
+        currentSince = nowNanos;
+        currentKeys = 0;
+        rotations++;
+    }
+
+    /** The murmur3 64-bit finalizer. */
+    static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
@@ -0,0 +1,185 @@
+package com.example.fixparser.ingest;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixTags;
+import com.example.fixflow.FlowControl;
+import com.example.fixparser.publisher.FixStreamPublisher;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.exceptions.JedisException;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Streams an upload of many FIX messages into the fix-messages stream.
+ *
+ * The body is framed by {@link FixStreamFramer} chunk by chunk as it is
+ * read, and accepted messages are XADDed in pipelined batches of
+ * {@code fix.api.bulk.batch-size}. A partial batch is sent once it is older
+ * than {@code flush-interval-ms}, checked whenever more bytes arrive, so a
+ * slow uploader's messages don't wait for the whole body. A gzip body is
+ * recognised by its magic bytes. Messages without an {@code 8=FIX} header or
+ * a MsgType are rejected and reported by their byte offset in the
+ * (uncompressed) upload. Each batch first passes {@link IngestFlowControl},
+ * so an upload slows down and then waits while the consumers are behind.
+ */
+@Component
+public class BulkIngester {
+
+    public record Reject(long offset, String reason) {
+    }
+
+    /**
+     * Outcome of one upload. {@code error} is set when the stream could not be
+     * written to; everything counted as accepted before that was queued.
+     */
+    public record Summary(long accepted, long rejected, long bytes, int batches,
+                          String firstId, String lastId, List<Reject> rejects, String error) {
+    }
+
+    private final FixStreamPublisher publisher;
+    private final IngestFlowControl flow;
+    private final int batchSize;
+    private final long flushIntervalNanos;
+    private final int maxMessageBytes;
+    private final int maxReportedRejects;
+
+    public BulkIngester(FixStreamPublisher publisher, IngestFlowControl flow,
+                        @Value("${fix.api.bulk.batch-size:500}") int batchSize,
+                        @Value("${fix.api.bulk.flush-interval-ms:50}") long flushIntervalMs,
+                        @Value("${fix.api.bulk.max-message-bytes:65536}") int maxMessageBytes,
+                        @Value("${fix.api.bulk.max-reported-rejects:20}") int maxReportedRejects) {
+        this.publisher = publisher;
+        this.flow = flow;
+        this.batchSize = Math.max(1, batchSize);
+        this.flushIntervalNanos = flushIntervalMs * 1_000_000;
+        this.maxMessageBytes = maxMessageBytes;
+        this.maxReportedRejects = maxReportedRejects;
+    }
+
+    public Summary ingest(InputStream body) throws IOException {
+        Upload upload = new Upload();
+        InputStream in = decompressIfGzip(body);
+        FixStreamFramer framer = new FixStreamFramer(upload, maxMessageBytes);
+        byte[] chunk = new byte[64 * 1024];
+
+        try {
+            int n;
+            while ((n = in.read(chunk)) != -1) {
+                upload.bytes += n;
+                framer.feed(chunk, 0, n);
+                if (!upload.batch.isEmpty() && System.nanoTime() - upload.batchStartedAt >= flushIntervalNanos) {
+                    upload.flush();
+                }
+            }
+            framer.finish();
+            upload.flush();
+        } catch (JedisException e) {
+            return upload.summary("Redis unavailable: " + e.getMessage());
+        } catch (BacklogFullException e) {
+            return upload.summary("Consumers are behind: stream backlog stayed above the high-water mark for "
+                    + flow.maxPauseMs() + " ms");
+        }
+        return upload.summary(null);
+    }
+
+    private static InputStream decompressIfGzip(InputStream body) throws IOException {
+        BufferedInputStream in = new BufferedInputStream(body, 2);
+        in.mark(2);
+        int b1 = in.read();
+        int b2 = in.read();
+        in.reset();
+        if (b1 == 0x1f && b2 == 0x8b) {
+            return new GZIPInputStream(in, 64 * 1024);
+        }
+        return in;
+    }
+
+    /** Ends an upload that flow control held back for too long. */
+    private static final class BacklogFullException extends RuntimeException {
+        BacklogFullException() {
+            super(null, null, false, false);
+        }
+    }
+
+    /** Per-request state, fed by the framer. */
+    private final class Upload implements FixStreamFramer.Sink {
+        private final FixDecoder decoder = new FixDecoder();
+        private final List<byte[]> batch = new ArrayList<>(batchSize);
+        private final List<Reject> rejects = new ArrayList<>();
+        private long batchStartedAt;
+        private final FlowControl.Sender sender = flow.sender();
+        private long accepted;
+        private long rejected;
+        private long bytes;
+        private int batches;
+        private StreamEntryID firstId;
+        private StreamEntryID lastId;
+
+        @Override
+        public void onMessage(byte[] buffer, int offset, int length, long streamOffset) {
+            if (!startsWithHeader(buffer, offset, length)) {
+                onReject(streamOffset, "no 8=FIX header");
+                return;
+            }
+            FixDecoder fix = decoder.wrap(buffer, offset, length);
+            int msgType = fix.indexOf(FixTags.MSG_TYPE);
+            if (msgType < 0 || fix.valueLengthAt(msgType) == 0) {
+                onReject(streamOffset, "no MsgType (35)");
+                return;
+            }
+
+            if (batch.isEmpty()) {
+                batchStartedAt = System.nanoTime();
+            }
+            batch.add(Arrays.copyOfRange(buffer, offset, offset + length));
+            if (batch.size() >= batchSize) {
+                flush();
+            }
+        }
+
+        @Override
+        public void onReject(long streamOffset, String reason) {
+            rejected++;
+            if (rejects.size() < maxReportedRejects) {
+                rejects.add(new Reject(streamOffset, reason));
+            }
+        }
+
+        void flush() {
+            if (batch.isEmpty()) {
+                return;
+            }
+            if (!flow.await(sender)) {
+                throw new BacklogFullException();
+            }
+            List<StreamEntryID> ids = publisher.publishBatch(batch);
+            if (firstId == null) {
+                firstId = ids.get(0);
+            }
+            lastId = ids.get(ids.size() - 1);
+            accepted += batch.size();
+            batches++;
+            batch.clear();
+        }
+
+        Summary summary(String error) {
+            return new Summary(accepted, rejected, bytes, batches,
+                    firstId == null ? null : firstId.toString(),
+                    lastId == null ? null : lastId.toString(),
+                    rejects, error);
+        }
+    }
+
+    private static boolean startsWithHeader(byte[] buffer, int offset, int length) {
+        return length > 5 && buffer[offset] == '8' && buffer[offset + 1] == '='
+                && buffer[offset + 2] == 'F' && buffer[offset + 3] == 'I' && buffer[offset + 4] == 'X';
+    }
+}
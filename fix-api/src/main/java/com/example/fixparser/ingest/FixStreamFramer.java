@@ -0,0 +1,160 @@
+package com.example.fixparser.ingest;
+
+import java.util.Arrays;
+
+/**
+ * Splits an incoming byte stream into FIX messages as the bytes arrive, so an
+ * upload never has to be buffered whole.
+ *
+ * A message ends at the delimiter (SOH or '|') closing its CheckSum (10)
+ * field, at a line break, or where the next {@code 8=FIX} header begins.
+ * That covers raw SOH-framed FIX, one message per line, and a mix of both.
+ * Between messages, whitespace, stray delimiters and JSON punctuation
+ * ({@code " , [ ]}) are skipped, so lines may also be JSON strings. Only the
+ * message currently being framed is held; a message longer than
+ * {@code maxMessageBytes} is reported and skipped.
+ */
+final class FixStreamFramer {
+
+    interface Sink {
+
+        /** {@code buffer} is reused once this returns; copy what must be kept. */
+        void onMessage(byte[] buffer, int offset, int length, long streamOffset);
+
+        void onReject(long streamOffset, String reason);
+    }
+
+    private static final byte SOH = 0x01;
+    private static final byte PIPE = '|';
+    private static final byte[] CHECKSUM = {'1', '0', '='};
+    private static final byte[] HEADER = {'8', '=', 'F', 'I', 'X'};
+
+    private final Sink sink;
+    private final int maxMessageBytes;
+
+    private byte[] message = new byte[1024];
+    private int length;
+    private boolean inMessage;
+    private boolean discarding;
+    private long messageStart;
+    private long position;
+
+    // Progress through the current field, enough to recognise 10= and 8=FIX
+    // without looking back at bytes that may already have been discarded.
+    private int fieldLength;
+    private boolean checksumPrefix;
+    private boolean headerPrefix;
+
+    FixStreamFramer(Sink sink, int maxMessageBytes) {
+        this.sink = sink;
+        this.maxMessageBytes = maxMessageBytes;
+    }
+
+    void feed(byte[] bytes, int offset, int count) {
+        for (int i = offset, end = offset + count; i < end; i++, position++) {
+            byte b = bytes[i];
+
+            if (!inMessage) {
+                if (isSeparator(b)) {
+                    continue;
+                }
+                inMessage = true;
+                messageStart = position;
+                length = 0;
+                startField();
+            }
+
+            if (b == '\n' || b == '\r') {
+                endMessage();
+                continue;
+            }
+
+            if (b == SOH || b == PIPE) {
+                append(b);
+                if (checksumPrefix && fieldLength >= CHECKSUM.length) {
+                    endMessage();
+                } else {
+                    startField();
+                }
+                continue;
+            }
+
+            append(b);
+            if (fieldLength < CHECKSUM.length) {
+                checksumPrefix &= b == CHECKSUM[fieldLength];
+            }
+            if (fieldLength < HEADER.length) {
+                headerPrefix &= b == HEADER[fieldLength];
+            }
+            fieldLength++;
+
+            if (headerPrefix && fieldLength == HEADER.length && position - HEADER.length + 1 > messageStart) {
+                // A new header inside a message: the previous one had no CheckSum.
+                restartAtHeader();
+            }
+        }
+    }
+
+    /** Emits a trailing message that was not followed by a delimiter or line break. */
+    void finish() {
+        endMessage();
+    }
+
+    private void append(byte b) {
+        if (discarding) {
+            return;
+        }
+        if (length == maxMessageBytes) {
+            sink.onReject(messageStart, "message exceeds " + maxMessageBytes + " bytes");
+            discarding = true;
+            return;
+        }
+        if (length == message.length) {
+            message = Arrays.copyOf(message, Math.min(maxMessageBytes, length * 2));
+        }
+        message[length++] = b;
+    }
+
+    private void startField() {
+        fieldLength = 0;
+        checksumPrefix = true;
+        headerPrefix = true;
+    }
+
+    private void restartAtHeader() {
+        if (!discarding) {
+            emit(length - HEADER.length);
+        }
+        discarding = false;
+        messageStart = position - HEADER.length + 1;
+        System.arraycopy(HEADER, 0, message, 0, HEADER.length);
+        length = HEADER.length;
+    }
+
+    private void endMessage() {
+        if (inMessage && !discarding) {
+            emit(length);
+        }
+        inMessage = false;
+        discarding = false;
+        length = 0;
+    }
+
+    private void emit(int end) {
+        while (end > 0 && isTrailing(message[end - 1])) {
+            end--;
+        }
+        if (end > 0) {
+            sink.onMessage(message, 0, end, messageStart);
+        }
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == '\n' || b == '\r' || b == '"' || b == ','
+                || b == '[' || b == ']' || b == SOH || b == PIPE;
+    }
+
+    private static boolean isTrailing(byte b) {
+        return b == ' ' || b == '\t' || b == '"' || b == ',';
+    }
+}
@@ -0,0 +1,86 @@
+package com.example.fixparser.ingest;
+
+import com.example.fixflow.FlowControl;
+import com.example.fixflow.RedisBacklog;
+import com.example.fixparser.publisher.FixStreamPublisher;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.JedisPool;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Holds bulk uploads back while the consumers are behind, with the same
+ * {@link FlowControl} policy and backlog reading as the producer.
+ *
+ * The backlog is sampled at most every {@code poll-ms} and shared by all
+ * uploads. Between the low- and the high-water mark each upload is held
+ * back, per batch, in proportion to the time it spent reading and sending
+ * the one before; at the high-water mark uploads pause until the backlog has
+ * drained to the low-water mark. An upload paused longer than
+ * {@code max-pause-ms} is ended with an error, keeping what it queued.
+ */
+@Component
+public class IngestFlowControl {
+
+    private final FlowControl flow;
+    private final long maxPauseNanos;
+    private final Timer held;
+    private final Counter abandoned;
+
+    public IngestFlowControl(JedisPool pool, MeterRegistry registry,
+                             @Value("${fix.consumer.group:fix-consumers}") String group,
+                             @Value("${fix.api.bulk.flow.high-water:200000}") long highWater,
+                             @Value("${fix.api.bulk.flow.low-water:100000}") long lowWater,
+                             @Value("${fix.api.bulk.flow.poll-ms:100}") long pollMs,
+                             @Value("${fix.api.bulk.flow.max-pause-ms:30000}") long maxPauseMs) {
+        this.flow = highWater > 0
+                ? new FlowControl("Bulk ingest", new RedisBacklog(pool, FixStreamPublisher.STREAM_KEY, group),
+                        highWater, lowWater, pollMs * 1_000_000)
+                : null;
+        this.maxPauseNanos = maxPauseMs * 1_000_000;
+        Gauge.builder("fix.ingest.flow.state", this, f -> f.flow == null ? 0 : f.flow.state().ordinal())
+                .description("Bulk ingest flow control: 0 open, 1 throttled, 2 paused").register(registry);
+        Gauge.builder("fix.ingest.flow.backlog", this, f -> f.flow == null ? 0 : f.flow.backlog())
+                .description("Consumer backlog as last seen by bulk ingest flow control").register(registry);
+        this.held = Timer.builder("fix.ingest.flow.held")
+                .description("Time bulk uploads were held back per batch").register(registry);
+        FunctionCounter.builder("fix.ingest.flow.pauses", this, f -> f.flow == null ? 0 : f.flow.pauses())
+                .description("Batches that waited at the high-water mark").register(registry);
+        this.abandoned = Counter.builder("fix.ingest.flow.abandoned")
+                .description("Uploads ended after pausing longer than max-pause-ms").register(registry);
+    }
+
+    /** A sender for one upload; null with flow control off. */
+    public FlowControl.Sender sender() {
+        return flow == null ? null : flow.sender();
+    }
+
+    /**
+     * Called before each batch of an upload; returns when it may be sent.
+     *
+     * @return false if the upload should give up: paused for longer than
+     *         {@code max-pause-ms}, or interrupted
+     */
+    public boolean await(FlowControl.Sender sender) {
+        if (sender == null) {
+            return true;
+        }
+        long start = System.nanoTime();
+        boolean admitted = sender.admit(() -> { }, maxPauseNanos);
+        held.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+        if (!admitted) {
+            abandoned.increment();
+        }
+        return admitted;
+    }
+
+    public long maxPauseMs() {
+        return maxPauseNanos / 1_000_000;
+    }
+}
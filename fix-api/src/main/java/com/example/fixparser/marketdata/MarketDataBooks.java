@@ -0,0 +1,79 @@
+package com.example.fixparser.marketdata;
+
+import com.example.fixparser.consumer.BatchListener;
+import com.example.fixparser.model.FixMessageRecord;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One {@link OrderBook} per symbol, built from every committed W and X.
+ * Reads never touch the database; books start empty on restart and fill
+ * from the next snapshot (W) for each symbol.
+ */
+@Component
+@ConditionalOnProperty(name = "fix.marketdata.enabled", havingValue = "true", matchIfMissing = true)
+public class MarketDataBooks implements BatchListener {
+
+    private final ConcurrentHashMap<String, OrderBook> books = new ConcurrentHashMap<>();
+
+    public MarketDataBooks(MeterRegistry registry) {
+        Gauge.builder("fix.marketdata.books", books, ConcurrentHashMap::size)
+                .description("Symbols with an in-memory order book").register(registry);
+    }
+
+    @Override
+    public void onCommitted(List<FixMessageRecord> batch) {
+        for (FixMessageRecord record : batch) {
+            MarketDataUpdate update = record.getMarketData();
+            if (update != null) {
+                apply(update);
+            }
+        }
+    }
+
+    public void apply(MarketDataUpdate update) {
+        // An X may carry entries for several symbols; each book takes its own.
+        for (int i = 0; i < update.entries(); i++) {
+            String symbol = update.symbolAt(i);
+            if (symbol != null && !seenEarlier(update, i, symbol)) {
+                books.computeIfAbsent(symbol, OrderBook::new).update(update);
+            }
+        }
+        if (update.entries() == 0 && update.msgType() == 'W' && update.symbol() != null) {
+            books.computeIfAbsent(update.symbol(), OrderBook::new).update(update);
+        }
+    }
+
+    private static boolean seenEarlier(MarketDataUpdate update, int entry, String symbol) {
+        for (int i = 0; i < entry; i++) {
+            if (symbol.equals(update.symbolAt(i))) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public OrderBook book(String symbol) {
+        return books.get(symbol);
+    }
+
+    public Collection<OrderBook> books() {
+        return books.values();
+    }
+
+    public List<OrderBook.Top> tops() {
+        List<OrderBook.Top> tops = new ArrayList<>(books.size());
+        for (OrderBook book : books.values()) {
+            tops.add(book.top());
+        }
+        tops.sort((a, b) -> a.symbol().compareTo(b.symbol()));
+        return tops;
+    }
+}
@@ -0,0 +1,57 @@
+package com.example.fixparser.marketdata;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/marketdata")
+@ConditionalOnProperty(name = "fix.marketdata.enabled", havingValue = "true", matchIfMissing = true)
+@Tag(name = "Market Data API", description = "In-memory order books built from W and X messages")
+public class MarketDataController {
+
+    private final MarketDataBooks books;
+    private final TopOfBookStream stream;
+
+    public MarketDataController(MarketDataBooks books, TopOfBookStream stream) {
+        this.books = books;
+        this.stream = stream;
+    }
+
+    @GetMapping("/top")
+    @Operation(summary = "Top of book for every symbol")
+    public List<OrderBook.Top> tops() {
+        return books.tops();
+    }
+
+    @GetMapping("/{symbol}/top")
+    public ResponseEntity<OrderBook.Top> top(@PathVariable("symbol") String symbol) {
+        OrderBook book = books.book(symbol);
+        return book == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(book.top());
+    }
+
+    @GetMapping("/{symbol}/depth")
+    @Operation(summary = "Best price levels on each side")
+    public ResponseEntity<OrderBook.Depth> depth(@PathVariable("symbol") String symbol,
+                                                 @RequestParam(name = "levels", defaultValue = "10") int levels) {
+        OrderBook book = books.book(symbol);
+        return book == null ? ResponseEntity.notFound().build()
+                : ResponseEntity.ok(book.depth(Math.max(0, Math.min(levels, 1_000))));
+    }
+
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    @Operation(summary = "Server-sent top-of-book events as books change")
+    public SseEmitter stream(@RequestParam(name = "symbol", required = false) String symbol) {
+        return stream.subscribe(symbol);
+    }
+}
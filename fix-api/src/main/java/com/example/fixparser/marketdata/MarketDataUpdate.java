@@ -0,0 +1,23 @@
+package com.example.fixparser.marketdata;
+
+/**
+ * Every NoMDEntries (268) entry of a MarketDataSnapshot (W) or
+ * IncrementalRefresh (X), as parallel arrays, extracted on the parser
+ * thread for {@link MarketDataBooks}.
+ *
+ * Per entry: MDEntryType (269), MDUpdateAction (279, {@code '\0'} in a W),
+ * MDEntryPx (270) scaled by {@code FixMessageRecord.PRICE_SCALE}, MDEntrySize
+ * (271), and the entry's own Symbol (55) or {@code null} to use the
+ * message's. Absent numbers are {@code FixMessageRecord.NULL}.
+ */
+public record MarketDataUpdate(char msgType, String symbol, int entries, byte[] entryType, byte[] action,
+                               long[] price, long[] size, String[] entrySymbol, long eventTime) {
+
+    public static boolean isMarketData(String msgType) {
+        return "W".equals(msgType) || "X".equals(msgType);
+    }
+
+    public String symbolAt(int entry) {
+        return entrySymbol[entry] != null ? entrySymbol[entry] : symbol;
+    }
+}
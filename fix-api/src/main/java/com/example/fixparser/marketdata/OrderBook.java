@@ -0,0 +1,181 @@
+package com.example.fixparser.marketdata;
+
+import com.example.fixparser.model.FixMessageRecord;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Price-level book for one symbol: aggregated size per price on each side,
+ * kept as sorted primitive arrays (best price first) so top of book is
+ * index 0 and depth is a prefix copy. Levels change by binary search and
+ * an array shift, which is cheap at the tens of levels a feed carries.
+ *
+ * Prices are fixed-point with {@code FixMessageRecord.PRICE_SCALE} decimals.
+ * All methods synchronise on the book.
+ */
+public final class OrderBook {
+
+    public record Level(BigDecimal price, long size) {
+    }
+
+    public record Top(String symbol, BigDecimal bid, Long bidSize, BigDecimal ask, Long askSize,
+                      BigDecimal lastTradePx, Long lastTradeSize, Instant updatedAt, long version) {
+    }
+
+    public record Depth(String symbol, List<Level> bids, List<Level> asks, Instant updatedAt, long version) {
+    }
+
+    private final String symbol;
+    private final Side bids = new Side(true);
+    private final Side asks = new Side(false);
+    private long lastTradePx = FixMessageRecord.NULL;
+    private long lastTradeSize = FixMessageRecord.NULL;
+    private long updatedAt;
+    private long version;
+
+    public OrderBook(String symbol) {
+        this.symbol = symbol;
+    }
+
+    /**
+     * Applies the entries of {@code update} that are for this symbol, as one
+     * step: readers see the book before or after, never in between. A
+     * snapshot (W) first drops every level.
+     *
+     * MDEntryType 0 is a bid, 1 an offer and 2 a trade. MDUpdateAction 0
+     * (new) and 1 (change) set the level's size, 2 (delete) removes it; a
+     * size of zero also removes the level.
+     */
+    synchronized void update(MarketDataUpdate update) {
+        if (update.msgType() == 'W') {
+            bids.count = 0;
+            asks.count = 0;
+        }
+        for (int i = 0; i < update.entries(); i++) {
+            if (symbol.equals(update.symbolAt(i))) {
+                apply(update.entryType()[i], update.action()[i], update.price()[i], update.size()[i]);
+            }
+        }
+        updatedAt = Math.max(updatedAt, update.eventTime());
+        version++;
+    }
+
+    private void apply(byte entryType, byte action, long price, long size) {
+        if (entryType == '2') {
+            lastTradePx = price;
+            lastTradeSize = size;
+            return;
+        }
+        Side side = entryType == '0' ? bids : entryType == '1' ? asks : null;
+        if (side == null || price == FixMessageRecord.NULL) {
+            return;
+        }
+        if (action == '2' || size == 0) {
+            side.remove(price);
+        } else if (size != FixMessageRecord.NULL) {
+            side.set(price, size);
+        }
+    }
+
+    public String symbol() {
+        return symbol;
+    }
+
+    public synchronized long version() {
+        return version;
+    }
+
+    public synchronized Top top() {
+        return new Top(symbol,
+                bids.count > 0 ? decimal(bids.prices[0]) : null, bids.count > 0 ? bids.sizes[0] : null,
+                asks.count > 0 ? decimal(asks.prices[0]) : null, asks.count > 0 ? asks.sizes[0] : null,
+                lastTradePx == FixMessageRecord.NULL ? null : decimal(lastTradePx),
+                lastTradeSize == FixMessageRecord.NULL ? null : lastTradeSize,
+                instant(updatedAt), version);
+    }
+
+    /** The best {@code levels} on each side. */
+    public synchronized Depth depth(int levels) {
+        return new Depth(symbol, bids.levels(levels), asks.levels(levels), instant(updatedAt), version);
+    }
+
+    private static BigDecimal decimal(long scaled) {
+        return BigDecimal.valueOf(scaled, FixMessageRecord.PRICE_SCALE);
+    }
+
+    private static Instant instant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000);
+    }
+
+    /** One side, best first: descending prices for bids, ascending for offers. */
+    private static final class Side {
+        private final boolean descending;
+        long[] prices = new long[16];
+        long[] sizes = new long[16];
+        int count;
+
+        Side(boolean descending) {
+            this.descending = descending;
+        }
+
+        void set(long price, long size) {
+            int i = find(price);
+            if (i >= 0) {
+                sizes[i] = size;
+                return;
+            }
+            i = -i - 1;
+            if (count == prices.length) {
+                prices = Arrays.copyOf(prices, count * 2);
+                sizes = Arrays.copyOf(sizes, count * 2);
+            }
+            System.arraycopy(prices, i, prices, i + 1, count - i);
+            System.arraycopy(sizes, i, sizes, i + 1, count - i);
+            prices[i] = price;
+            sizes[i] = size;
+            count++;
+        }
+
+        void remove(long price) {
+            int i = find(price);
+            if (i < 0) {
+                return;
+            }
+            System.arraycopy(prices, i + 1, prices, i, count - i - 1);
+            System.arraycopy(sizes, i + 1, sizes, i, count - i - 1);
+            count--;
+        }
+
+        List<Level> levels(int max) {
+            int n = Math.min(max, count);
+            List<Level> levels = new ArrayList<>(n);
+            for (int i = 0; i < n; i++) {
+                levels.add(new Level(decimal(prices[i]), sizes[i]));
+            }
+            return levels;
+        }
+
+        /** Index of {@code price}, or {@code -(insertion point) - 1} like Arrays.binarySearch. */
+        private int find(long price) {
+            int low = 0;
+            int high = count - 1;
+            while (low <= high) {
+                int mid = (low + high) >>> 1;
+                long p = prices[mid];
+                if (p == price) {
+                    return mid;
+                }
+                if (descending ? p > price : p < price) {
+                    low = mid + 1;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return -low - 1;
+        }
+    }
+}
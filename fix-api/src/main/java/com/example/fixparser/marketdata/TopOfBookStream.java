@@ -0,0 +1,148 @@
+package com.example.fixparser.marketdata;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Server-sent events of top of book. Every {@code fix.marketdata.stream-interval-ms}
+ * each book whose version moved is sent once to every subscriber (optionally
+ * filtered to one symbol), so a busy symbol costs a subscriber at most one
+ * event per interval however many updates it had.
+ *
+ * The scheduler only hands the new tops to each subscriber; the sends run
+ * on a sender pool, one drain at a time per subscriber, so a slow client
+ * delays nobody else. A subscriber keeps just the latest top per symbol
+ * while its drain is behind, and one stuck in a single send for longer than
+ * {@code fix.marketdata.stream-send-timeout-ms} is dropped.
+ */
+@Component
+@ConditionalOnProperty(name = "fix.marketdata.enabled", havingValue = "true", matchIfMissing = true)
+public class TopOfBookStream {
+
+    private final class Subscriber {
+        final SseEmitter emitter;
+        final String symbol;
+        final Map<String, OrderBook.Top> pending = new ConcurrentHashMap<>();
+        final AtomicBoolean draining = new AtomicBoolean();
+        volatile long sendingSince;
+        volatile boolean dropped;
+
+        Subscriber(SseEmitter emitter, String symbol) {
+            this.emitter = emitter;
+            this.symbol = symbol;
+        }
+
+        void schedule() {
+            if (!pending.isEmpty() && draining.compareAndSet(false, true)) {
+                senders.execute(this::drain);
+            }
+        }
+
+        private void drain() {
+            do {
+                for (Iterator<String> it = pending.keySet().iterator(); it.hasNext() && !dropped; ) {
+                    // Taken with remove, so a newer top put meanwhile stays for the next pass.
+                    OrderBook.Top top = pending.remove(it.next());
+                    if (top == null) {
+                        continue;
+                    }
+                    sendingSince = System.nanoTime();
+                    try {
+                        emitter.send(SseEmitter.event().name("top").data(top));
+                    } catch (IOException | IllegalStateException e) {
+                        dropped = true;
+                    } finally {
+                        sendingSince = 0;
+                    }
+                }
+                if (dropped) {
+                    subscribers.remove(this);
+                    pending.clear();
+                    emitter.complete();
+                    return;
+                }
+                draining.set(false);
+                // A top queued after the loop but before the flag cleared would wait a whole interval.
+            } while (!pending.isEmpty() && draining.compareAndSet(false, true));
+        }
+    }
+
+    private final MarketDataBooks books;
+    private final long sendTimeoutNanos;
+    private final ExecutorService senders = Executors.newCachedThreadPool(runnable -> {
+        Thread thread = new Thread(runnable, "fix-sse-sender");
+        thread.setDaemon(true);
+        return thread;
+    });
+    private final CopyOnWriteArrayList<Subscriber> subscribers = new CopyOnWriteArrayList<>();
+    private final Map<String, Long> sentVersions = new HashMap<>();
+
+    public TopOfBookStream(MarketDataBooks books,
+                           @Value("${fix.marketdata.stream-send-timeout-ms:5000}") long sendTimeoutMs) {
+        this.books = books;
+        this.sendTimeoutNanos = sendTimeoutMs * 1_000_000;
+    }
+
+    /** A new subscription; {@code symbol} null for all symbols. */
+    public SseEmitter subscribe(String symbol) {
+        SseEmitter emitter = new SseEmitter(0L);
+        Subscriber subscriber = new Subscriber(emitter, symbol);
+        subscribers.add(subscriber);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        emitter.onError(e -> subscribers.remove(subscriber));
+        return emitter;
+    }
+
+    @Scheduled(fixedDelayString = "${fix.marketdata.stream-interval-ms:250}")
+    public void publish() {
+        if (subscribers.isEmpty()) {
+            return;
+        }
+        for (OrderBook book : books.books()) {
+            long version = book.version();
+            Long sent = sentVersions.put(book.symbol(), version);
+            if (sent != null && sent == version) {
+                continue;
+            }
+            OrderBook.Top top = book.top();
+            for (Subscriber subscriber : subscribers) {
+                if (subscriber.symbol == null || subscriber.symbol.equals(top.symbol())) {
+                    subscriber.pending.put(top.symbol(), top);
+                }
+            }
+        }
+        long now = System.nanoTime();
+        for (Subscriber subscriber : subscribers) {
+            long since = subscriber.sendingSince;
+            if (since != 0 && now - since > sendTimeoutNanos) {
+                // Its sender still holds the emitter; it completes it once the send gives up.
+                subscriber.dropped = true;
+                subscribers.remove(subscriber);
+                System.err.println("Dropped a top-of-book subscriber stuck sending for over "
+                        + sendTimeoutNanos / 1_000_000 + " ms");
+            } else {
+                subscriber.schedule();
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        senders.shutdownNow();
+    }
+}
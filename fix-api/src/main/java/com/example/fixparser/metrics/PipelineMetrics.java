@@ -0,0 +1,111 @@
+package com.example.fixparser.metrics;
+
+import com.example.fixparser.consumer.AdaptiveRead;
+import com.example.fixparser.consumer.SpscRingBuffer;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Meters for the stream consumer, shared by all of its workers.
+ *
+ * Latencies are Micrometer timers with client-side percentiles, computed
+ * from HdrHistogram over a rolling window, so the metrics and Prometheus
+ * endpoints export p50 to p99.9 rather than just averages:
+ * <ul>
+ *   <li>{@code fix.stream.delivery}: XADD to consumer read, from the
+ *       millisecond timestamp in the stream entry ID</li>
+ *   <li>{@code fix.consumer.parse}: decode + record mapping per message</li>
+ *   <li>{@code fix.db.commit}: one batch transaction</li>
+ * </ul>
+ * {@code fix.consumer.messages} counts messages per stage (read, parsed,
+ * persisted); its rate is the stage throughput. Queue depths are gauges
+ * tagged with worker and queue, and each worker's current read size and
+ * block time ({@code fix.consumer.read.count}, {@code fix.consumer.read.block})
+ * show how far behind it thinks it is.
+ *
+ * Progress lines on the console come from {@link #summaryLog}, at most one
+ * per {@code fix.logging.summary-interval-ms} for each source.
+ */
+@Component
+public class PipelineMetrics {
+
+    public enum Stage { READ, PARSED, PERSISTED }
+
+    private static final double[] PERCENTILES = { 0.5, 0.9, 0.99, 0.999 };
+
+    private final MeterRegistry registry;
+    private final Timer delivery;
+    private final Timer parse;
+    private final Timer commit;
+    private final Counter[] messages = new Counter[Stage.values().length];
+    private final long summaryIntervalMs;
+
+    public PipelineMetrics(MeterRegistry registry,
+                           @Value("${fix.logging.summary-interval-ms:10000}") long summaryIntervalMs) {
+        this.registry = registry;
+        this.summaryIntervalMs = summaryIntervalMs;
+        this.delivery = latency("fix.stream.delivery", "XADD to consumer read, from the stream entry ID");
+        this.parse = latency("fix.consumer.parse", "Decoding and mapping one message");
+        this.commit = latency("fix.db.commit", "Writing and committing one batch");
+        for (Stage stage : Stage.values()) {
+            messages[stage.ordinal()] = Counter.builder("fix.consumer.messages")
+                    .description("Messages through each consumer stage")
+                    .tag("stage", stage.name().toLowerCase())
+                    .register(registry);
+        }
+    }
+
+    private Timer latency(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentiles(PERCENTILES)
+                .percentilePrecision(2)
+                .register(registry);
+    }
+
+    /** Records read latency for an entry whose ID was assigned at {@code addedAtMillis}. */
+    public void delivered(long addedAtMillis, long readAtMillis) {
+        delivery.record(Math.max(0, readAtMillis - addedAtMillis), TimeUnit.MILLISECONDS);
+    }
+
+    public void parsed(long nanos) {
+        parse.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void committed(long nanos) {
+        commit.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    public void count(Stage stage, int count) {
+        messages[stage.ordinal()].increment(count);
+    }
+
+    public void queueDepth(String worker, String queue, SpscRingBuffer<?> buffer) {
+        Gauge.builder("fix.consumer.queue.depth", buffer, SpscRingBuffer::size)
+                .description("Items waiting in a pipeline queue")
+                .tags("worker", worker, "queue", queue)
+                .register(registry);
+    }
+
+    public void readControl(String worker, AdaptiveRead read) {
+        Gauge.builder("fix.consumer.read.count", read, AdaptiveRead::count)
+                .description("Entries asked for by the next stream read")
+                .tag("worker", worker)
+                .register(registry);
+        Gauge.builder("fix.consumer.read.block", read, AdaptiveRead::lastBlockMs)
+                .description("How long the last stream read could block")
+                .tag("worker", worker)
+                .baseUnit("milliseconds")
+                .register(registry);
+    }
+
+    public RateLimitedLog summaryLog(String label, String detailName) {
+        return new RateLimitedLog(label, detailName, summaryIntervalMs);
+    }
+}
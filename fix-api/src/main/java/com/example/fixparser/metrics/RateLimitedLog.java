@@ -0,0 +1,51 @@
+package com.example.fixparser.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Replaces a console line per event with at most one summary line per
+ * interval, {@code <label> count=<n> rate=<n>/s <detailName>=<detail>}.
+ * Events are only counted in between, so calling it on a hot path costs an
+ * atomic add and a clock read.
+ */
+public final class RateLimitedLog {
+
+    private final String label;
+    private final String detailName;
+    private final long intervalNanos;
+    private final AtomicLong count = new AtomicLong();
+    private final AtomicLong windowStart = new AtomicLong(System.nanoTime());
+    private volatile Object lastDetail;
+
+    public RateLimitedLog(String label, String detailName, long intervalMs) {
+        this.label = label;
+        this.detailName = detailName;
+        this.intervalNanos = intervalMs * 1_000_000;
+    }
+
+    /** Counts {@code events}; {@code detail} is only turned into text if this call writes the line. */
+    public void record(long events, Object detail) {
+        count.addAndGet(events);
+        lastDetail = detail;
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        if (now - start >= intervalNanos && windowStart.compareAndSet(start, now)) {
+            print(start, now);
+        }
+    }
+
+    /** Prints what has been counted since the last line, e.g. when the source goes idle. */
+    public void flush() {
+        long start = windowStart.get();
+        long now = System.nanoTime();
+        if (count.get() > 0 && windowStart.compareAndSet(start, now)) {
+            print(start, now);
+        }
+    }
+
+    private void print(long start, long now) {
+        long n = count.getAndSet(0);
+        double seconds = (now - start) / 1e9;
+        System.out.printf("%s count=%d rate=%.0f/s %s=%s%n", label, n, n / seconds, detailName, lastDetail);
+    }
+}
@@ -0,0 +1,79 @@
+package com.example.fixparser.metrics;
+
+import com.example.fixparser.publisher.FixStreamPublisher;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.resps.StreamGroupInfo;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Polls the fix-messages stream and exports how far the consumers are behind:
+ * {@code fix.stream.length} (XLEN), and for the consumer group
+ * {@code fix.stream.pending} (delivered but not yet XACKed) and
+ * {@code fix.stream.lag} (not yet delivered, from XINFO GROUPS on Redis 7+),
+ * and {@code fix.stream.memory}, the stream's size in Redis (MEMORY USAGE,
+ * estimated from a sample of its nodes). Values are refreshed on a schedule so a metrics scrape never waits on Redis.
+ */
+@Component
+public class StreamLagMonitor {
+
+    private final JedisPool pool;
+    private final String group;
+    private final AtomicLong length = new AtomicLong();
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong lag = new AtomicLong();
+    private final AtomicLong memory = new AtomicLong();
+
+    private boolean warned;
+
+    public StreamLagMonitor(JedisPool pool, MeterRegistry registry,
+                            @Value("${fix.consumer.group:fix-consumers}") String group) {
+        this.pool = pool;
+        this.group = group;
+        Gauge.builder("fix.stream.length", length, AtomicLong::get)
+                .description("Entries in the stream").register(registry);
+        Gauge.builder("fix.stream.pending", pending, AtomicLong::get)
+                .description("Entries delivered to the group but not acknowledged")
+                .tag("group", group).register(registry);
+        Gauge.builder("fix.stream.lag", lag, AtomicLong::get)
+                .description("Entries not yet delivered to the group")
+                .tag("group", group).register(registry);
+        Gauge.builder("fix.stream.memory", memory, AtomicLong::get)
+                .description("Memory used by the stream in Redis")
+                .baseUnit("bytes").register(registry);
+    }
+
+    @Scheduled(fixedDelayString = "${fix.metrics.stream-poll-ms:5000}")
+    public void poll() {
+        try (Jedis jedis = pool.getResource()) {
+            if (!jedis.exists(FixStreamPublisher.STREAM_KEY)) {
+                return;
+            }
+            length.set(jedis.xlen(FixStreamPublisher.STREAM_KEY));
+            Long bytes = jedis.memoryUsage(FixStreamPublisher.STREAM_KEY);
+            memory.set(bytes == null ? 0 : bytes);
+            for (StreamGroupInfo info : jedis.xinfoGroups(FixStreamPublisher.STREAM_KEY)) {
+                if (group.equals(info.getName())) {
+                    pending.set(info.getPending());
+                    Object groupLag = info.getGroupInfo().get("lag");
+                    if (groupLag instanceof Long value) {
+                        lag.set(value);
+                    }
+                }
+            }
+            warned = false;
+        } catch (JedisException e) {
+            if (!warned) {
+                System.err.println("Could not read stream lag: " + e.getMessage());
+                warned = true;
+            }
+        }
+    }
+}
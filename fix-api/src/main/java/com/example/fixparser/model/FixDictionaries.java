@@ -0,0 +1,20 @@
+package com.example.fixparser.model;
+
+import com.example.fixcodec.StringDictionary;
+
+/**
+ * The dictionaries the consumer interns repeated strings through: Symbol
+ * (55), and SenderCompID/TargetCompID (49/56), which share one dictionary
+ * since each session's IDs appear on both sides.
+ *
+ * With the typed schema the ids are the keys of the fix_symbols and
+ * fix_comp_ids tables and are what fix_messages_typed stores; see
+ * {@code repository.DictionaryTables}. Otherwise they are process-local and
+ * only serve to share one String instance per value.
+ */
+public record FixDictionaries(StringDictionary symbols, StringDictionary compIds) {
+
+    public static FixDictionaries local() {
+        return new FixDictionaries(new StringDictionary(), new StringDictionary());
+    }
+}
@@ -11,8 +11,10 @@ import lombok.*;
 @Builder
 public class FixMessageEntity {
 
+    // Pooled sequence rather than IDENTITY so inserts can be JDBC-batched.
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "fix_messages_seq")
+    @SequenceGenerator(name = "fix_messages_seq", sequenceName = "fix_messages_seq", allocationSize = 500)
     private Long id;
 
     private String msgType;
@@ -22,6 +24,7 @@ public class FixMessageEntity {
     private String price;
     private String senderCompID;
     private String targetCompID;
+    private Long msgSeqNum;
     private String sendingTime;
     private String rawMessage;
 
@@ -0,0 +1,68 @@
+package com.example.fixparser.model;
+
+import com.example.fixparser.marketdata.MarketDataUpdate;
+import com.example.fixparser.orders.OrderEvent;
+import lombok.*;
+
+/**
+ * One parsed message, typed once at ingest and handed to a
+ * {@link com.example.fixparser.repository.FixMessageStore}.
+ *
+ * Numeric fields are primitives; {@link #NULL} marks an absent or unparsable
+ * value and {@code '\0'} an absent side. Prices are fixed-point with
+ * {@link #PRICE_SCALE} decimals; times are microseconds since the epoch (UTC).
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class FixMessageRecord {
+
+    public static final long NULL = Long.MIN_VALUE;
+    public static final int PRICE_SCALE = 8;
+    private static final double PRICE_FACTOR = 1e8;
+
+    private String msgType;
+    private String symbol;
+    /** Dictionary ids (see {@link FixDictionaries}) of symbol and the CompIDs; 0 when absent. */
+    private int symbolId;
+    private char side;
+    private long orderQty;
+    private long price;
+    private String senderCompID;
+    private String targetCompID;
+    private int senderId;
+    private int targetId;
+    /** MsgSeqNum (34); with the CompIDs and SendingTime, the key duplicates are detected by. */
+    private long msgSeqNum;
+    private long sendingTime;
+    private long receivedAt;
+    private String rawMessage;
+    /** Store-specific encoding of rawMessage, filled in by {@code FixMessageStore.prepare}. */
+    private byte[] rawEncoded;
+    /** Order-flow fields for D/F/G/9/8, for in-memory order state; not persisted as such. */
+    private OrderEvent orderEvent;
+    /** Every NoMDEntries entry of a W/X, for the in-memory books; not persisted as such. */
+    private MarketDataUpdate marketData;
+
+    /** SendingTime, or the receive time for messages without one; decides the day partition. */
+    public long eventTime() {
+        return sendingTime != NULL ? sendingTime : receivedAt;
+    }
+
+    public boolean hasOrderQty() {
+        return orderQty != NULL;
+    }
+
+    public boolean hasMsgSeqNum() {
+        return msgSeqNum != NULL;
+    }
+
+    public boolean hasPrice() {
+        return price != NULL;
+    }
+
+    public double priceAsDouble() {
+        return price / PRICE_FACTOR;
+    }
+}
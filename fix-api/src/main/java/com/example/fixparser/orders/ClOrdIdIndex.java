@@ -0,0 +1,251 @@
+package com.example.fixparser.orders;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * ClOrdID to order-slot map with no per-entry objects: key bytes are packed
+ * into one byte arena and every entry is a row across a few primitive
+ * arrays, so millions of IDs cost a few dozen bytes each and nothing for
+ * the GC to trace. Lookups compare against the arena without allocating.
+ *
+ * Entries of the same order are linked through {@link #nextKey} so an
+ * order's ClOrdID chain (original, replacements, cancel) can be walked.
+ * Removed entries go on a free list; their arena bytes are reclaimed by
+ * compaction when the arena would otherwise have to grow.
+ *
+ * ClOrdIDs are FIX String fields, i.e. ASCII; each char is stored in one byte.
+ * Not thread-safe, {@link OrderStateEngine} guards it.
+ */
+final class ClOrdIdIndex {
+
+    static final int NONE = -1;
+
+    private int[] table;
+    private int mask;
+
+    private byte[] arena;
+    private int arenaUsed;
+    private int arenaFree;
+
+    private int[] keyOffset;
+    private int[] keyLength;
+    private int[] keyHash;
+    private int[] orderSlot;
+    private int[] nextKey;
+    private int entries;
+    private int freeEntry = NONE;
+    private int size;
+
+    ClOrdIdIndex(int expectedKeys) {
+        int capacity = Math.max(16, expectedKeys);
+        table = new int[tableSizeFor(capacity)];
+        Arrays.fill(table, NONE);
+        mask = table.length - 1;
+        arena = new byte[capacity * 12];
+        keyOffset = new int[capacity];
+        keyLength = new int[capacity];
+        keyHash = new int[capacity];
+        orderSlot = new int[capacity];
+        nextKey = new int[capacity];
+    }
+
+    private ClOrdIdIndex(ClOrdIdIndex other) {
+        table = other.table.clone();
+        mask = other.mask;
+        arena = Arrays.copyOf(other.arena, other.arenaUsed);
+        arenaUsed = other.arenaUsed;
+        arenaFree = other.arenaFree;
+        keyOffset = Arrays.copyOf(other.keyOffset, other.entries);
+        keyLength = Arrays.copyOf(other.keyLength, other.entries);
+        keyHash = Arrays.copyOf(other.keyHash, other.entries);
+        orderSlot = Arrays.copyOf(other.orderSlot, other.entries);
+        nextKey = Arrays.copyOf(other.nextKey, other.entries);
+        entries = other.entries;
+        freeEntry = other.freeEntry;
+        size = other.size;
+    }
+
+    /** A read-only copy, e.g. to write a snapshot without holding the engine's lock. */
+    ClOrdIdIndex copy() {
+        return new ClOrdIdIndex(this);
+    }
+
+    /** The entry for {@code key}, or {@link #NONE}. */
+    int find(CharSequence key) {
+        int hash = hash(key);
+        for (int i = hash & mask; ; i = (i + 1) & mask) {
+            int entry = table[i];
+            if (entry == NONE) {
+                return NONE;
+            }
+            if (keyHash[entry] == hash && matches(entry, key)) {
+                return entry;
+            }
+        }
+    }
+
+    /** The order slot mapped to {@code key}, or {@link #NONE}. */
+    int slotOf(CharSequence key) {
+        int entry = find(key);
+        return entry == NONE ? NONE : orderSlot[entry];
+    }
+
+    /** Adds {@code key}, which must not be present, and returns its entry. */
+    int add(CharSequence key, int slot) {
+        int length = key.length();
+        if (arenaUsed + length > arena.length) {
+            makeRoom(length);
+        }
+        int entry = freeEntry;
+        if (entry != NONE) {
+            freeEntry = nextKey[entry];
+        } else {
+            entry = entries++;
+            if (entry == keyOffset.length) {
+                growEntries();
+            }
+        }
+        for (int i = 0; i < length; i++) {
+            arena[arenaUsed + i] = (byte) key.charAt(i);
+        }
+        keyOffset[entry] = arenaUsed;
+        keyLength[entry] = length;
+        keyHash[entry] = hash(key);
+        orderSlot[entry] = slot;
+        nextKey[entry] = NONE;
+        arenaUsed += length;
+
+        insert(entry);
+        if (++size * 2 > table.length) {
+            rehash(table.length * 2);
+        }
+        return entry;
+    }
+
+    /** Removes {@code entry}; the caller unlinks it from its order's chain. */
+    void remove(int entry) {
+        int i = keyHash[entry] & mask;
+        while (table[i] != entry) {
+            i = (i + 1) & mask;
+        }
+        // Backward-shift deletion keeps probe sequences intact without tombstones.
+        for (int j = (i + 1) & mask; table[j] != NONE; j = (j + 1) & mask) {
+            int home = keyHash[table[j]] & mask;
+            boolean stays = i <= j ? (i < home && home <= j) : (i < home || home <= j);
+            if (!stays) {
+                table[i] = table[j];
+                i = j;
+            }
+        }
+        table[i] = NONE;
+
+        arenaFree += keyLength[entry];
+        keyLength[entry] = NONE;
+        nextKey[entry] = freeEntry;
+        freeEntry = entry;
+        size--;
+    }
+
+    int slot(int entry) {
+        return orderSlot[entry];
+    }
+
+    int nextKey(int entry) {
+        return nextKey[entry];
+    }
+
+    void setNextKey(int entry, int next) {
+        nextKey[entry] = next;
+    }
+
+    String key(int entry) {
+        return new String(arena, keyOffset[entry], keyLength[entry], StandardCharsets.ISO_8859_1);
+    }
+
+    int size() {
+        return size;
+    }
+
+    /** Approximate heap footprint in bytes. */
+    long footprint() {
+        return table.length * 4L + arena.length + keyOffset.length * 20L;
+    }
+
+    private boolean matches(int entry, CharSequence key) {
+        int length = keyLength[entry];
+        if (length != key.length()) {
+            return false;
+        }
+        int offset = keyOffset[entry];
+        for (int i = 0; i < length; i++) {
+            if ((char) (arena[offset + i] & 0xFF) != key.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void insert(int entry) {
+        int i = keyHash[entry] & mask;
+        while (table[i] != NONE) {
+            i = (i + 1) & mask;
+        }
+        table[i] = entry;
+    }
+
+    private void rehash(int newSize) {
+        table = new int[newSize];
+        Arrays.fill(table, NONE);
+        mask = newSize - 1;
+        for (int entry = 0; entry < entries; entry++) {
+            if (keyLength[entry] != NONE) {
+                insert(entry);
+            }
+        }
+    }
+
+    /** Compacts the arena, doubling it until at least half is free afterwards. */
+    private void makeRoom(int needed) {
+        int live = arenaUsed - arenaFree;
+        int capacity = arena.length;
+        while ((long) (live + needed) * 2 > capacity) {
+            capacity *= 2;
+        }
+        byte[] compacted = new byte[capacity];
+        int used = 0;
+        for (int entry = 0; entry < entries; entry++) {
+            int length = keyLength[entry];
+            if (length != NONE) {
+                System.arraycopy(arena, keyOffset[entry], compacted, used, length);
+                keyOffset[entry] = used;
+                used += length;
+            }
+        }
+        arena = compacted;
+        arenaUsed = used;
+        arenaFree = 0;
+    }
+
+    private void growEntries() {
+        int capacity = keyOffset.length * 2;
+        keyOffset = Arrays.copyOf(keyOffset, capacity);
+        keyLength = Arrays.copyOf(keyLength, capacity);
+        keyHash = Arrays.copyOf(keyHash, capacity);
+        orderSlot = Arrays.copyOf(orderSlot, capacity);
+        nextKey = Arrays.copyOf(nextKey, capacity);
+    }
+
+    private static int hash(CharSequence key) {
+        int h = 0;
+        for (int i = 0; i < key.length(); i++) {
+            h = 31 * h + key.charAt(i);
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    private static int tableSizeFor(int keys) {
+        return Integer.highestOneBit(Math.max(8, keys * 2 - 1)) << 1;
+    }
+}
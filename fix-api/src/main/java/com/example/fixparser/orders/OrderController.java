@@ -0,0 +1,61 @@
+package com.example.fixparser.orders;
+
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.List;
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/orders")
+@ConditionalOnProperty(name = "fix.orders.enabled", havingValue = "true", matchIfMissing = true)
+@Tag(name = "Orders API", description = "Current order state built from D, F, G, 9 and 8 messages")
+public class OrderController {
+
+    private final OrderTracker tracker;
+
+    public OrderController(OrderTracker tracker) {
+        this.tracker = tracker;
+    }
+
+    @GetMapping("/{clOrdId}")
+    @Operation(summary = "Order by any ClOrdID in its chain (original, replace or cancel)")
+    public ResponseEntity<OrderStateEngine.OrderView> order(@PathVariable("clOrdId") String clOrdId) {
+        OrderStateEngine.OrderView view = tracker.engine().find(clOrdId);
+        return view == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(view);
+    }
+
+    @GetMapping("/open")
+    @Operation(summary = "Open orders for a symbol, most recent first; without a symbol, open counts per symbol")
+    public ResponseEntity<?> open(@RequestParam(name = "symbol", required = false) String symbol,
+                                  @RequestParam(name = "limit", defaultValue = "100") int limit) {
+        if (symbol == null) {
+            Map<String, Integer> counts = tracker.engine().openCounts();
+            return ResponseEntity.ok(counts);
+        }
+        List<OrderStateEngine.OrderView> orders = tracker.engine().openOrders(symbol, Math.max(0, Math.min(limit, 10_000)));
+        return ResponseEntity.ok(orders);
+    }
+
+    @GetMapping("/stats")
+    public OrderStateEngine.Stats stats() {
+        return tracker.engine().stats();
+    }
+
+    @PostMapping("/snapshot")
+    @Operation(summary = "Write the order-state snapshot now")
+    public ResponseEntity<String> snapshot() {
+        int written = tracker.snapshot();
+        return written < 0
+                ? ResponseEntity.internalServerError().body("Snapshot failed, see the log")
+                : ResponseEntity.ok("Snapshot written: " + written + " orders");
+    }
+}
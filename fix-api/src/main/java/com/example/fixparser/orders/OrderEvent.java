@@ -0,0 +1,23 @@
+package com.example.fixparser.orders;
+
+/**
+ * The order-flow fields of one NewOrderSingle (D), OrderCancelRequest (F),
+ * OrderCancelReplaceRequest (G), OrderCancelReject (9) or ExecutionReport
+ * (8), extracted on the parser thread so {@link OrderStateEngine} never touches raw FIX.
+ *
+ * Numeric fields use {@code FixMessageRecord.NULL} when absent, prices are
+ * scaled by {@code FixMessageRecord.PRICE_SCALE}, and {@code ordStatus} and
+ * {@code side} are {@code '\0'} when absent.
+ */
+public record OrderEvent(char msgType, String clOrdId, String origClOrdId, String symbol, char side,
+                         long orderQty, long price, char ordStatus, long cumQty, long leavesQty,
+                         long avgPx, long lastQty, long lastPx, long eventTime, long receivedAt) {
+
+    public static boolean isOrderFlow(String msgType) {
+        return msgType != null && msgType.length() == 1 && isOrderFlow(msgType.charAt(0));
+    }
+
+    public static boolean isOrderFlow(char msgType) {
+        return msgType == 'D' || msgType == 'F' || msgType == 'G' || msgType == '9' || msgType == '8';
+    }
+}
@@ -0,0 +1,793 @@
+package com.example.fixparser.orders;
+
+import com.example.fixparser.model.FixMessageRecord;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Current state of every order seen on the stream, keyed by ClOrdID.
+ *
+ * D opens an order, G and F add their ClOrdID to the chain of the order
+ * named by OrigClOrdID (41) and mark it pending, 9 takes a rejected
+ * request's ClOrdID off the chain again and restores the status it reports,
+ * and 8 updates status (39), CumQty (14), LeavesQty (151), AvgPx (6) and the
+ * last fill (31/32). Any ClOrdID in a chain finds the order. Events older
+ * than the order's last update are dropped, so replaying an overlapping
+ * range of the stream is harmless.
+ *
+ * After a snapshot is loaded, events received up to its watermark may
+ * already be in it: a D for a known order is not a duplicate then, and an
+ * event for an unknown order older than the last purge cutoff is skipped
+ * rather than bringing a purged order back.
+ *
+ * Orders are rows across primitive column arrays and ClOrdIDs live in a
+ * {@link ClOrdIdIndex}, so state for millions of orders is a few dozen
+ * arrays rather than millions of objects. Open orders are additionally
+ * threaded on a doubly linked list per symbol for the open-order views.
+ *
+ * One writer lock per batch, shared read lock for the views. Not a
+ * Spring bean itself; {@link OrderTracker} wires it to the consumer.
+ */
+public class OrderStateEngine {
+
+    public record OrderView(String clOrdId, List<String> clOrdIdChain, String symbol, String side,
+                            String ordStatus, String ordStatusName, boolean open,
+                            Long orderQty, BigDecimal price, Long cumQty, Long leavesQty, BigDecimal avgPx,
+                            Long lastQty, BigDecimal lastPx, Instant createdAt, Instant updatedAt) {
+    }
+
+    public record Stats(int orders, int openOrders, int clOrdIds, int symbols, long events,
+                        long duplicates, long unmatched, long stale, long purged, long footprintBytes) {
+    }
+
+    private static final int NONE = ClOrdIdIndex.NONE;
+    private static final int SNAPSHOT_MAGIC = 0x4F524453; // "ORDS"
+    private static final int SNAPSHOT_VERSION = 1;
+
+    private static final String CLOSED_STATUSES = "2348C";
+    private static final String[] STATUS_NAMES = new String[128];
+
+    static {
+        String[][] names = {
+                { "0", "New" }, { "1", "PartiallyFilled" }, { "2", "Filled" }, { "3", "DoneForDay" },
+                { "4", "Canceled" }, { "5", "Replaced" }, { "6", "PendingCancel" }, { "7", "Stopped" },
+                { "8", "Rejected" }, { "9", "Suspended" }, { "A", "PendingNew" }, { "B", "Calculated" },
+                { "C", "Expired" }, { "D", "AcceptedForBidding" }, { "E", "PendingReplace" } };
+        for (String[] name : names) {
+            STATUS_NAMES[name[0].charAt(0)] = name[1];
+        }
+    }
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    private ClOrdIdIndex index;
+    private Orders orders;
+
+    private final Map<String, Integer> symbolIds = new HashMap<>();
+    private final List<String> symbols = new ArrayList<>();
+    private int[] openHead = new int[64];
+    private int[] openCount = new int[64];
+    private int openOrders;
+
+    private long maxReceivedAt = Long.MIN_VALUE;
+    private long maxEventTime = Long.MIN_VALUE;
+    private long snapshotWatermark = Long.MIN_VALUE;
+    private long purgeCutoff = Long.MIN_VALUE;
+    private long events;
+    private long duplicates;
+    private long unmatched;
+    private long stale;
+    private long purged;
+
+    public OrderStateEngine(int initialCapacity) {
+        index = new ClOrdIdIndex(initialCapacity);
+        orders = new Orders(Math.max(16, initialCapacity));
+        Arrays.fill(openHead, NONE);
+    }
+
+    // -------------------------------------------------------
+    // Updates
+    // -------------------------------------------------------
+
+    /** Applies the order events of a committed batch, in batch order. */
+    public void apply(List<FixMessageRecord> batch) {
+        lock.writeLock().lock();
+        try {
+            for (FixMessageRecord record : batch) {
+                OrderEvent event = record.getOrderEvent();
+                if (event != null) {
+                    applyLocked(event);
+                }
+            }
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void apply(OrderEvent event) {
+        lock.writeLock().lock();
+        try {
+            applyLocked(event);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    private void applyLocked(OrderEvent e) {
+        events++;
+        maxReceivedAt = Math.max(maxReceivedAt, e.receivedAt());
+        maxEventTime = Math.max(maxEventTime, e.eventTime());
+        switch (e.msgType()) {
+            case 'D' -> newOrderSingle(e);
+            case 'G', 'F' -> cancelOrReplace(e);
+            case '9' -> cancelReject(e);
+            case '8' -> executionReport(e);
+            default -> {
+            }
+        }
+    }
+
+    private void newOrderSingle(OrderEvent e) {
+        if (index.find(e.clOrdId()) != NONE) {
+            if (!inSnapshot(e)) {
+                duplicates++;
+            }
+            return;
+        }
+        if (maybePurged(e)) {
+            return;
+        }
+        create(e, 'A');
+    }
+
+    private void cancelOrReplace(OrderEvent e) {
+        int slot = e.origClOrdId() == null ? NONE : index.slotOf(e.origClOrdId());
+        if (slot == NONE) {
+            // Seen before, e.g. a replay, or the ack arrived first.
+            slot = index.slotOf(e.clOrdId());
+        }
+        if (slot == NONE) {
+            if (!maybePurged(e)) {
+                unmatched++;
+            }
+            return;
+        }
+        if (isStale(slot, e)) {
+            return;
+        }
+        link(slot, e.clOrdId());
+        if (e.msgType() == 'G') {
+            if (e.orderQty() != FixMessageRecord.NULL) {
+                orders.orderQty[slot] = e.orderQty();
+                if (orders.cumQty[slot] != FixMessageRecord.NULL) {
+                    orders.leavesQty[slot] = Math.max(0, e.orderQty() - orders.cumQty[slot]);
+                }
+            }
+            if (e.price() != FixMessageRecord.NULL) {
+                orders.price[slot] = e.price();
+            }
+        }
+        if (isOpen(orders.status[slot])) {
+            setStatus(slot, e.msgType() == 'G' ? 'E' : '6');
+        }
+        orders.updatedAt[slot] = e.eventTime();
+    }
+
+    /**
+     * The request named by ClOrdID was refused: its ClOrdID comes off the
+     * chain if the F or G added it, and the order takes the status (39) the
+     * reject reports, or, without one, goes back from pending to partially
+     * filled or new.
+     */
+    private void cancelReject(OrderEvent e) {
+        int slot = index.slotOf(e.clOrdId());
+        if (slot == NONE && e.origClOrdId() != null) {
+            slot = index.slotOf(e.origClOrdId());
+        }
+        if (slot == NONE) {
+            if (!maybePurged(e)) {
+                unmatched++;
+            }
+            return;
+        }
+        if (isStale(slot, e)) {
+            return;
+        }
+        unlinkLast(slot, e.clOrdId());
+        byte status = orders.status[slot];
+        if (e.ordStatus() != 0) {
+            setStatus(slot, e.ordStatus());
+        } else if (status == '6' || status == 'E') {
+            long cumQty = orders.cumQty[slot];
+            setStatus(slot, cumQty != FixMessageRecord.NULL && cumQty > 0 ? '1' : '0');
+        }
+        orders.updatedAt[slot] = e.eventTime();
+    }
+
+    private void executionReport(OrderEvent e) {
+        int slot = index.slotOf(e.clOrdId());
+        if (slot == NONE && e.origClOrdId() != null) {
+            slot = index.slotOf(e.origClOrdId());
+        }
+        if (slot == NONE && maybePurged(e)) {
+            return;
+        }
+        if (slot == NONE) {
+            // The sell side is authoritative: an unknown order starts from its first report.
+            slot = create(e, e.ordStatus() != 0 ? e.ordStatus() : '0');
+            if (e.orderQty() == FixMessageRecord.NULL
+                    && e.cumQty() != FixMessageRecord.NULL && e.leavesQty() != FixMessageRecord.NULL) {
+                orders.orderQty[slot] = e.cumQty() + e.leavesQty();
+            }
+        } else {
+            if (isStale(slot, e)) {
+                return;
+            }
+            link(slot, e.clOrdId());
+            if (e.ordStatus() != 0) {
+                setStatus(slot, e.ordStatus());
+            }
+            if (e.orderQty() != FixMessageRecord.NULL) {
+                orders.orderQty[slot] = e.orderQty();
+            }
+        }
+        Orders o = orders;
+        if (e.cumQty() != FixMessageRecord.NULL) {
+            o.cumQty[slot] = e.cumQty();
+        }
+        if (e.leavesQty() != FixMessageRecord.NULL) {
+            o.leavesQty[slot] = e.leavesQty();
+        }
+        if (e.avgPx() != FixMessageRecord.NULL) {
+            o.avgPx[slot] = e.avgPx();
+        }
+        if (e.lastQty() != FixMessageRecord.NULL) {
+            o.lastQty[slot] = e.lastQty();
+        }
+        if (e.lastPx() != FixMessageRecord.NULL) {
+            o.lastPx[slot] = e.lastPx();
+        }
+        o.updatedAt[slot] = e.eventTime();
+    }
+
+    private boolean isStale(int slot, OrderEvent e) {
+        if (e.eventTime() < orders.updatedAt[slot]) {
+            stale++;
+            return true;
+        }
+        return false;
+    }
+
+    /** Received before the loaded snapshot was taken, so possibly already in it. */
+    private boolean inSnapshot(OrderEvent e) {
+        return e.receivedAt() <= snapshotWatermark;
+    }
+
+    /**
+     * An event for an unknown order that may belong to one purged before the
+     * snapshot: purging removes orders last updated before the cutoff, and
+     * this event is no newer than its order's last update.
+     */
+    private boolean maybePurged(OrderEvent e) {
+        return inSnapshot(e) && e.eventTime() < purgeCutoff;
+    }
+
+    private int create(OrderEvent e, char status) {
+        Orders o = orders;
+        int slot = o.allocate();
+        o.symbol[slot] = e.symbol() == null ? NONE : symbolId(e.symbol());
+        o.side[slot] = (byte) e.side();
+        o.status[slot] = 0;
+        o.orderQty[slot] = e.orderQty();
+        o.price[slot] = e.price();
+        o.cumQty[slot] = FixMessageRecord.NULL;
+        o.leavesQty[slot] = e.orderQty();
+        o.avgPx[slot] = FixMessageRecord.NULL;
+        o.lastQty[slot] = FixMessageRecord.NULL;
+        o.lastPx[slot] = FixMessageRecord.NULL;
+        o.createdAt[slot] = e.eventTime();
+        o.updatedAt[slot] = e.eventTime();
+        int entry = index.add(e.clOrdId(), slot);
+        o.firstKey[slot] = entry;
+        o.lastKey[slot] = entry;
+        setStatus(slot, status);
+        return slot;
+    }
+
+    /** Appends {@code clOrdId} to the order's chain unless some order already has it. */
+    private void link(int slot, String clOrdId) {
+        if (index.find(clOrdId) != NONE) {
+            return;
+        }
+        int entry = index.add(clOrdId, slot);
+        index.setNextKey(orders.lastKey[slot], entry);
+        orders.lastKey[slot] = entry;
+    }
+
+    /** Takes {@code clOrdId} off the end of the order's chain, unless it is the only key. */
+    private void unlinkLast(int slot, String clOrdId) {
+        int last = orders.lastKey[slot];
+        int first = orders.firstKey[slot];
+        if (last == first || !index.key(last).equals(clOrdId)) {
+            return;
+        }
+        int prev = first;
+        while (index.nextKey(prev) != last) {
+            prev = index.nextKey(prev);
+        }
+        index.remove(last);
+        index.setNextKey(prev, NONE);
+        orders.lastKey[slot] = prev;
+    }
+
+    private void setStatus(int slot, char status) {
+        boolean wasOpen = orders.status[slot] != 0 && isOpen(orders.status[slot]);
+        boolean open = isOpen((byte) status);
+        orders.status[slot] = (byte) status;
+        if (wasOpen && !open) {
+            unlinkOpen(slot);
+        } else if (!wasOpen && open) {
+            linkOpen(slot);
+        }
+    }
+
+    private static boolean isOpen(byte status) {
+        return CLOSED_STATUSES.indexOf(status) < 0;
+    }
+
+    private void linkOpen(int slot) {
+        openOrders++;
+        int symbol = orders.symbol[slot];
+        orders.prevOpen[slot] = NONE;
+        orders.nextOpen[slot] = NONE;
+        if (symbol == NONE) {
+            return;
+        }
+        int head = openHead[symbol];
+        orders.nextOpen[slot] = head;
+        if (head != NONE) {
+            orders.prevOpen[head] = slot;
+        }
+        openHead[symbol] = slot;
+        openCount[symbol]++;
+    }
+
+    private void unlinkOpen(int slot) {
+        openOrders--;
+        int symbol = orders.symbol[slot];
+        if (symbol == NONE) {
+            return;
+        }
+        int prev = orders.prevOpen[slot];
+        int next = orders.nextOpen[slot];
+        if (prev != NONE) {
+            orders.nextOpen[prev] = next;
+        } else {
+            openHead[symbol] = next;
+        }
+        if (next != NONE) {
+            orders.prevOpen[next] = prev;
+        }
+        openCount[symbol]--;
+    }
+
+    private int symbolId(String symbol) {
+        Integer id = symbolIds.get(symbol);
+        if (id != null) {
+            return id;
+        }
+        int newId = symbols.size();
+        symbols.add(symbol);
+        symbolIds.put(symbol, newId);
+        if (newId == openHead.length) {
+            openHead = Arrays.copyOf(openHead, newId * 2);
+            Arrays.fill(openHead, newId, openHead.length, NONE);
+            openCount = Arrays.copyOf(openCount, newId * 2);
+        }
+        return newId;
+    }
+
+    /**
+     * Forgets closed orders whose last update is more than {@code retainMicros}
+     * older than the newest event seen (event time, so replays of old days
+     * purge the same way live traffic does).
+     *
+     * @return orders removed
+     */
+    public int purgeClosed(long retainMicros) {
+        lock.writeLock().lock();
+        try {
+            if (maxEventTime == Long.MIN_VALUE) {
+                return 0;
+            }
+            long cutoff = maxEventTime - retainMicros;
+            purgeCutoff = Math.max(purgeCutoff, cutoff);
+            Orders o = orders;
+            int removed = 0;
+            for (int slot = 0; slot < o.highWater; slot++) {
+                if (o.firstKey[slot] != NONE && !isOpen(o.status[slot]) && o.updatedAt[slot] < cutoff) {
+                    for (int entry = o.firstKey[slot]; entry != NONE; ) {
+                        int next = index.nextKey(entry);
+                        index.remove(entry);
+                        entry = next;
+                    }
+                    o.release(slot);
+                    removed++;
+                }
+            }
+            purged += removed;
+            return removed;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    // -------------------------------------------------------
+    // Views
+    // -------------------------------------------------------
+
+    /** The order that has {@code clOrdId} anywhere in its chain, or {@code null}. */
+    public OrderView find(String clOrdId) {
+        lock.readLock().lock();
+        try {
+            int slot = index.slotOf(clOrdId);
+            return slot == NONE ? null : view(slot);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Up to {@code limit} open orders for {@code symbol}, most recently opened first. */
+    public List<OrderView> openOrders(String symbol, int limit) {
+        lock.readLock().lock();
+        try {
+            Integer id = symbolIds.get(symbol);
+            if (id == null) {
+                return List.of();
+            }
+            List<OrderView> views = new ArrayList<>(Math.min(limit, openCount[id]));
+            for (int slot = openHead[id]; slot != NONE && views.size() < limit; slot = orders.nextOpen[slot]) {
+                views.add(view(slot));
+            }
+            return views;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Open-order count per symbol, for symbols with any. */
+    public Map<String, Integer> openCounts() {
+        lock.readLock().lock();
+        try {
+            Map<String, Integer> counts = new TreeMap<>();
+            for (int id = 0; id < symbols.size(); id++) {
+                if (openCount[id] > 0) {
+                    counts.put(symbols.get(id), openCount[id]);
+                }
+            }
+            return counts;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public Stats stats() {
+        lock.readLock().lock();
+        try {
+            return new Stats(orders.live, openOrders, index.size(), symbols.size(), events,
+                    duplicates, unmatched, stale, purged, index.footprint() + orders.footprint());
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /** Newest receivedAt applied, in epoch micros, or {@code Long.MIN_VALUE} if none. */
+    public long watermark() {
+        lock.readLock().lock();
+        try {
+            return maxReceivedAt;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int openOrderCount() {
+        lock.readLock().lock();
+        try {
+            return openOrders;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public int orderCount() {
+        lock.readLock().lock();
+        try {
+            return orders.live;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private OrderView view(int slot) {
+        Orders o = orders;
+        List<String> chain = new ArrayList<>(2);
+        for (int entry = o.firstKey[slot]; entry != NONE; entry = index.nextKey(entry)) {
+            chain.add(index.key(entry));
+        }
+        char status = (char) o.status[slot];
+        return new OrderView(chain.get(chain.size() - 1), chain,
+                o.symbol[slot] == NONE ? null : symbols.get(o.symbol[slot]),
+                o.side[slot] == 0 ? null : String.valueOf((char) o.side[slot]),
+                String.valueOf(status), status < STATUS_NAMES.length ? STATUS_NAMES[status] : null, isOpen(o.status[slot]),
+                boxed(o.orderQty[slot]), decimal(o.price[slot]), boxed(o.cumQty[slot]), boxed(o.leavesQty[slot]),
+                decimal(o.avgPx[slot]), boxed(o.lastQty[slot]), decimal(o.lastPx[slot]),
+                instant(o.createdAt[slot]), instant(o.updatedAt[slot]));
+    }
+
+    private static Long boxed(long value) {
+        return value == FixMessageRecord.NULL ? null : value;
+    }
+
+    private static BigDecimal decimal(long scaled) {
+        return scaled == FixMessageRecord.NULL ? null : BigDecimal.valueOf(scaled, FixMessageRecord.PRICE_SCALE);
+    }
+
+    private static Instant instant(long micros) {
+        return Instant.ofEpochSecond(Math.floorDiv(micros, 1_000_000L), Math.floorMod(micros, 1_000_000L) * 1_000);
+    }
+
+    // -------------------------------------------------------
+    // Snapshot
+    // -------------------------------------------------------
+
+    /**
+     * Writes every order to {@code out}. The state is copied under the read
+     * lock (a few array copies) and serialised after releasing it, so the
+     * consumer is held up for the copy, not for the I/O.
+     *
+     * @return the watermark the snapshot is complete up to
+     */
+    public long writeSnapshot(DataOutputStream out) throws IOException {
+        ClOrdIdIndex keys;
+        Orders rows;
+        List<String> symbolNames;
+        long watermark;
+        long cutoff;
+        lock.readLock().lock();
+        try {
+            keys = index.copy();
+            rows = orders.copy();
+            symbolNames = List.copyOf(symbols);
+            watermark = maxReceivedAt;
+            cutoff = purgeCutoff;
+        } finally {
+            lock.readLock().unlock();
+        }
+
+        out.writeInt(SNAPSHOT_MAGIC);
+        out.writeInt(SNAPSHOT_VERSION);
+        out.writeLong(watermark);
+        out.writeLong(cutoff);
+        out.writeInt(symbolNames.size());
+        for (String symbol : symbolNames) {
+            out.writeUTF(symbol);
+        }
+        out.writeInt(rows.live);
+        for (int slot = 0; slot < rows.highWater; slot++) {
+            if (rows.firstKey[slot] == NONE) {
+                continue;
+            }
+            out.writeInt(rows.symbol[slot]);
+            out.writeByte(rows.side[slot]);
+            out.writeByte(rows.status[slot]);
+            out.writeLong(rows.orderQty[slot]);
+            out.writeLong(rows.price[slot]);
+            out.writeLong(rows.cumQty[slot]);
+            out.writeLong(rows.leavesQty[slot]);
+            out.writeLong(rows.avgPx[slot]);
+            out.writeLong(rows.lastQty[slot]);
+            out.writeLong(rows.lastPx[slot]);
+            out.writeLong(rows.createdAt[slot]);
+            out.writeLong(rows.updatedAt[slot]);
+            int chainLength = 0;
+            for (int entry = rows.firstKey[slot]; entry != NONE; entry = keys.nextKey(entry)) {
+                chainLength++;
+            }
+            out.writeShort(chainLength);
+            for (int entry = rows.firstKey[slot]; entry != NONE; entry = keys.nextKey(entry)) {
+                out.writeUTF(keys.key(entry));
+            }
+        }
+        return watermark;
+    }
+
+    /** Replaces the current state with a snapshot written by {@link #writeSnapshot}. */
+    public void readSnapshot(DataInputStream in) throws IOException {
+        if (in.readInt() != SNAPSHOT_MAGIC) {
+            throw new IOException("Not an order-state snapshot");
+        }
+        int version = in.readInt();
+        if (version != SNAPSHOT_VERSION) {
+            throw new IOException("Unsupported order-state snapshot version " + version);
+        }
+        lock.writeLock().lock();
+        try {
+            long watermark = in.readLong();
+            long cutoff = in.readLong();
+            int symbolCount = in.readInt();
+            String[] names = new String[symbolCount];
+            for (int i = 0; i < symbolCount; i++) {
+                names[i] = in.readUTF();
+            }
+            int count = in.readInt();
+
+            index = new ClOrdIdIndex(Math.max(count * 2, 16));
+            orders = new Orders(Math.max(count * 2, 16));
+            symbolIds.clear();
+            symbols.clear();
+            Arrays.fill(openHead, NONE);
+            Arrays.fill(openCount, 0);
+            openOrders = 0;
+            maxEventTime = Long.MIN_VALUE;
+            for (String name : names) {
+                symbolId(name);
+            }
+
+            Orders o = orders;
+            for (int i = 0; i < count; i++) {
+                int slot = o.allocate();
+                o.symbol[slot] = in.readInt();
+                o.side[slot] = in.readByte();
+                byte status = in.readByte();
+                o.status[slot] = 0;
+                o.orderQty[slot] = in.readLong();
+                o.price[slot] = in.readLong();
+                o.cumQty[slot] = in.readLong();
+                o.leavesQty[slot] = in.readLong();
+                o.avgPx[slot] = in.readLong();
+                o.lastQty[slot] = in.readLong();
+                o.lastPx[slot] = in.readLong();
+                o.createdAt[slot] = in.readLong();
+                o.updatedAt[slot] = in.readLong();
+                maxEventTime = Math.max(maxEventTime, o.updatedAt[slot]);
+                int chainLength = in.readUnsignedShort();
+                int last = NONE;
+                for (int k = 0; k < chainLength; k++) {
+                    int entry = index.add(in.readUTF(), slot);
+                    if (last == NONE) {
+                        o.firstKey[slot] = entry;
+                    } else {
+                        index.setNextKey(last, entry);
+                    }
+                    last = entry;
+                }
+                o.lastKey[slot] = last;
+                setStatus(slot, (char) status);
+            }
+            maxReceivedAt = watermark;
+            snapshotWatermark = watermark;
+            purgeCutoff = cutoff;
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    /** Order rows as parallel primitive arrays; a slot is free when {@code firstKey} is NONE. */
+    private static final class Orders {
+        int[] symbol;
+        byte[] side;
+        byte[] status;
+        long[] orderQty;
+        long[] price;
+        long[] cumQty;
+        long[] leavesQty;
+        long[] avgPx;
+        long[] lastQty;
+        long[] lastPx;
+        long[] createdAt;
+        long[] updatedAt;
+        int[] firstKey;
+        int[] lastKey;
+        int[] prevOpen;
+        int[] nextOpen;
+
+        int highWater;
+        int freeSlot = NONE;
+        int live;
+
+        Orders(int capacity) {
+            resize(capacity);
+        }
+
+        private Orders() {
+        }
+
+        Orders copy() {
+            Orders copy = new Orders();
+            copy.symbol = Arrays.copyOf(symbol, highWater);
+            copy.side = Arrays.copyOf(side, highWater);
+            copy.status = Arrays.copyOf(status, highWater);
+            copy.orderQty = Arrays.copyOf(orderQty, highWater);
+            copy.price = Arrays.copyOf(price, highWater);
+            copy.cumQty = Arrays.copyOf(cumQty, highWater);
+            copy.leavesQty = Arrays.copyOf(leavesQty, highWater);
+            copy.avgPx = Arrays.copyOf(avgPx, highWater);
+            copy.lastQty = Arrays.copyOf(lastQty, highWater);
+            copy.lastPx = Arrays.copyOf(lastPx, highWater);
+            copy.createdAt = Arrays.copyOf(createdAt, highWater);
+            copy.updatedAt = Arrays.copyOf(updatedAt, highWater);
+            copy.firstKey = Arrays.copyOf(firstKey, highWater);
+            copy.highWater = highWater;
+            copy.live = live;
+            return copy;
+        }
+
+        int allocate() {
+            int slot = freeSlot;
+            if (slot != NONE) {
+                freeSlot = nextOpen[slot];
+            } else {
+                slot = highWater++;
+                if (slot == symbol.length) {
+                    resize(slot * 2);
+                }
+            }
+            live++;
+            return slot;
+        }
+
+        void release(int slot) {
+            firstKey[slot] = NONE;
+            lastKey[slot] = NONE;
+            nextOpen[slot] = freeSlot;
+            freeSlot = slot;
+            live--;
+        }
+
+        long footprint() {
+            return symbol.length * (4L + 1 + 1 + 8 * 9 + 4 * 4);
+        }
+
+        private void resize(int capacity) {
+            int old = symbol == null ? 0 : symbol.length;
+            symbol = symbol == null ? new int[capacity] : Arrays.copyOf(symbol, capacity);
+            side = side == null ? new byte[capacity] : Arrays.copyOf(side, capacity);
+            status = status == null ? new byte[capacity] : Arrays.copyOf(status, capacity);
+            orderQty = grow(orderQty, capacity);
+            price = grow(price, capacity);
+            cumQty = grow(cumQty, capacity);
+            leavesQty = grow(leavesQty, capacity);
+            avgPx = grow(avgPx, capacity);
+            lastQty = grow(lastQty, capacity);
+            lastPx = grow(lastPx, capacity);
+            createdAt = grow(createdAt, capacity);
+            updatedAt = grow(updatedAt, capacity);
+            firstKey = grow(firstKey, capacity, old);
+            lastKey = grow(lastKey, capacity, old);
+            prevOpen = grow(prevOpen, capacity, old);
+            nextOpen = grow(nextOpen, capacity, old);
+        }
+
+        private static long[] grow(long[] array, int capacity) {
+            return array == null ? new long[capacity] : Arrays.copyOf(array, capacity);
+        }
+
+        private static int[] grow(int[] array, int capacity, int old) {
+            int[] grown = array == null ? new int[capacity] : Arrays.copyOf(array, capacity);
+            Arrays.fill(grown, old, capacity, NONE);
+            return grown;
+        }
+    }
+}
@@ -0,0 +1,195 @@
+package com.example.fixparser.orders;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixparser.consumer.BatchListener;
+import com.example.fixparser.consumer.FixMessageMapper;
+import com.example.fixparser.model.FixDictionaries;
+import com.example.fixparser.model.FixMessageRecord;
+import com.example.fixparser.repository.RawMessageCodec;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Feeds the {@link OrderStateEngine} from the consumer and keeps it across
+ * restarts.
+ *
+ * On startup the last snapshot file is loaded and only the rows received
+ * since its watermark (less {@code fix.orders.replay-margin-ms}, to cover
+ * batches other workers were still committing) are replayed from Postgres;
+ * without a snapshot every stored D/F/G/9/8 is replayed. Snapshots are written
+ * on a schedule and at shutdown, to a temporary file that is then moved over
+ * the previous one, so a crash mid-write leaves the old snapshot intact.
+ */
+@Component
+@ConditionalOnProperty(name = "fix.orders.enabled", havingValue = "true", matchIfMissing = true)
+public class OrderTracker implements BatchListener {
+
+    private static final String REPLAY_TYPED_SQL =
+            "SELECT r.raw, t.received_at FROM fix_messages_typed t " +
+            "JOIN fix_messages_raw r ON r.id = t.id AND r.sending_time = t.sending_time " +
+            "WHERE t.msg_type IN ('D', 'F', 'G', '9', '8') AND t.received_at >= ? " +
+            "ORDER BY t.received_at, t.id";
+
+    private static final String REPLAY_LEGACY_SQL =
+            "SELECT raw_message, received_at FROM fix_messages " +
+            "WHERE msg_type IN ('D', 'F', 'G', '9', '8') AND received_at >= ? " +
+            "ORDER BY received_at, id";
+
+    private static final int REPLAY_BATCH = 1_000;
+
+    private final OrderStateEngine engine;
+    private final FixDictionaries dictionaries;
+    private final JdbcTemplate replayJdbc;
+    private final TransactionTemplate transaction;
+    private final boolean typedSchema;
+    private final Path snapshotPath;
+    private final long retainClosedMicros;
+    private final long replayMarginMicros;
+
+    public OrderTracker(DataSource dataSource, PlatformTransactionManager transactionManager, MeterRegistry registry,
+                        FixDictionaries dictionaries,
+                        @Value("${fix.storage.schema:legacy}") String storageSchema,
+                        @Value("${fix.orders.initial-capacity:65536}") int initialCapacity,
+                        @Value("${fix.orders.snapshot-path:order-state.snap}") String snapshotPath,
+                        @Value("${fix.orders.retain-closed-minutes:60}") long retainClosedMinutes,
+                        @Value("${fix.orders.replay-margin-ms:60000}") long replayMarginMs) {
+        this.engine = new OrderStateEngine(initialCapacity);
+        this.dictionaries = dictionaries;
+        // Postgres only streams a result set with a fetch size inside a transaction.
+        this.replayJdbc = new JdbcTemplate(dataSource);
+        this.replayJdbc.setFetchSize(REPLAY_BATCH);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setReadOnly(true);
+        this.typedSchema = "typed".equalsIgnoreCase(storageSchema);
+        this.snapshotPath = Paths.get(snapshotPath);
+        this.retainClosedMicros = retainClosedMinutes * 60_000_000L;
+        this.replayMarginMicros = replayMarginMs * 1_000;
+
+        Gauge.builder("fix.orders.tracked", engine, OrderStateEngine::orderCount)
+                .description("Orders held in memory").register(registry);
+        Gauge.builder("fix.orders.open", engine, OrderStateEngine::openOrderCount)
+                .description("Orders not filled, canceled, rejected, expired or done for day").register(registry);
+    }
+
+    public OrderStateEngine engine() {
+        return engine;
+    }
+
+    @Override
+    public void onCommitted(List<FixMessageRecord> batch) {
+        engine.apply(batch);
+    }
+
+    @Override
+    public void restore() {
+        long start = System.currentTimeMillis();
+        long from = Long.MIN_VALUE;
+        if (Files.exists(snapshotPath)) {
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Files.newInputStream(snapshotPath), 1 << 16))) {
+                engine.readSnapshot(in);
+                long watermark = engine.watermark();
+                from = watermark == Long.MIN_VALUE ? Long.MIN_VALUE : watermark - replayMarginMicros;
+                System.out.println("Order state loaded from " + snapshotPath + ": " + engine.orderCount() + " orders");
+            } catch (IOException e) {
+                System.err.println("Could not read " + snapshotPath + ", replaying all orders: " + e.getMessage());
+                from = Long.MIN_VALUE;
+            }
+        }
+        try {
+            long replayed = replay(from);
+            System.out.println("Order state ready: " + engine.orderCount() + " orders (" + engine.openOrderCount()
+                    + " open), " + replayed + " events replayed in " + (System.currentTimeMillis() - start) + " ms");
+        } catch (RuntimeException e) {
+            System.err.println("Could not replay orders, order state may be incomplete: " + e.getMessage());
+        }
+    }
+
+    /** Streams the stored order flow received at or after {@code fromMicros} through the engine. */
+    private long replay(long fromMicros) {
+        LocalDateTime from = fromMicros == Long.MIN_VALUE
+                ? LocalDateTime.of(1970, 1, 1, 0, 0)
+                : LocalDateTime.ofEpochSecond(Math.floorDiv(fromMicros, 1_000_000L),
+                        (int) Math.floorMod(fromMicros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+        // The legacy table stores local time; the typed tables store UTC.
+        ZoneId zone = typedSchema ? ZoneOffset.UTC : ZoneId.systemDefault();
+        Object param = typedSchema ? from : from.atZone(ZoneOffset.UTC).withZoneSameInstant(zone).toLocalDateTime();
+
+        FixDecoder decoder = new FixDecoder();
+        List<FixMessageRecord> batch = new ArrayList<>(REPLAY_BATCH);
+        long[] count = new long[1];
+        transaction.executeWithoutResult(status -> replayJdbc.query(typedSchema ? REPLAY_TYPED_SQL : REPLAY_LEGACY_SQL, rs -> {
+            String raw = typedSchema ? RawMessageCodec.decode(rs.getBytes(1)) : rs.getString(1);
+            Timestamp receivedAt = rs.getTimestamp(2);
+            long receivedMicros = receivedAt.toLocalDateTime().atZone(zone).toEpochSecond() * 1_000_000L
+                    + receivedAt.getNanos() / 1_000;
+            try {
+                decoder.wrap(raw);
+                batch.add(FixMessageMapper.toRecord(decoder, null, receivedMicros, dictionaries));
+            } catch (RuntimeException e) {
+                return; // stored as-is by the consumer; nothing to track
+            }
+            if (batch.size() == REPLAY_BATCH) {
+                engine.apply(batch);
+                count[0] += batch.size();
+                batch.clear();
+            }
+        }, param));
+        engine.apply(batch);
+        return count[0] + batch.size();
+    }
+
+    @Scheduled(initialDelayString = "${fix.orders.snapshot-interval-ms:60000}",
+            fixedDelayString = "${fix.orders.snapshot-interval-ms:60000}")
+    public void maintain() {
+        int purged = engine.purgeClosed(retainClosedMicros);
+        if (purged > 0) {
+            System.out.println("Purged " + purged + " closed orders");
+        }
+        snapshot();
+    }
+
+    /** Writes the snapshot now; returns the number of orders written, or -1 on failure. */
+    public int snapshot() {
+        Path tmp = snapshotPath.resolveSibling(snapshotPath.getFileName() + ".tmp");
+        try {
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp), 1 << 16))) {
+                engine.writeSnapshot(out);
+            }
+            Files.move(tmp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            return engine.orderCount();
+        } catch (IOException e) {
+            System.err.println("Could not write order snapshot " + snapshotPath + ": " + e.getMessage());
+            return -1;
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        snapshot();
+    }
+}
@@ -0,0 +1,229 @@
+package com.example.fixparser.publisher;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.Response;
+import redis.clients.jedis.StreamEntryID;
+import redis.clients.jedis.params.XAddParams;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Appends messages from the REST layer to the fix-messages stream.
+ *
+ * By default every call borrows a pooled connection for one XADD. With
+ * {@code fix.api.parse.coalesce.enabled} callers instead hand their message
+ * to a few flusher threads, each of which takes whatever has queued up (up to
+ * {@code max-batch}) and sends it as one pipelined batch of XADDs on a single
+ * connection. A caller still gets its own entry ID back, so the REST response
+ * is unchanged; under load many requests share one round trip. A caller
+ * waits at most {@code timeout-ms} for room in the queue and again for its
+ * reply. Once the publisher is stopping, new messages are refused and any
+ * the flushers did not get to are failed rather than left waiting.
+ *
+ * {@code fix.stream.retention.max-len} or {@code max-age-ms} caps the stream
+ * on every XADD (approximate MAXLEN or MINID), as a backstop for the
+ * StreamTrimmer: unlike the trimmer, a cap drops entries whether or not
+ * they have been persisted.
+ */
+@Component
+public class FixStreamPublisher {
+
+    public static final String STREAM_KEY = "fix-messages";
+    public static final String FIELD = "fixMessage";
+
+    private static final byte[] STREAM_KEY_BYTES = STREAM_KEY.getBytes(StandardCharsets.US_ASCII);
+    private static final byte[] FIELD_BYTES = FIELD.getBytes(StandardCharsets.US_ASCII);
+
+    private final JedisPool pool;
+    private final boolean coalesce;
+    private final int maxBatch;
+    private final long lingerMicros;
+    private final long timeoutMs;
+    private final BlockingQueue<Pending> queue;
+    private final List<Thread> flushers = new ArrayList<>();
+    private final DistributionSummary batchSizes;
+    private final long maxLen;
+    private final long maxAgeMs;
+
+    private volatile boolean running = true;
+
+    private record Pending(String message, CompletableFuture<StreamEntryID> result) {
+    }
+
+    public FixStreamPublisher(JedisPool pool, MeterRegistry registry,
+                              @Value("${fix.api.parse.coalesce.enabled:false}") boolean coalesce,
+                              @Value("${fix.api.parse.coalesce.max-batch:256}") int maxBatch,
+                              @Value("${fix.api.parse.coalesce.linger-micros:0}") long lingerMicros,
+                              @Value("${fix.api.parse.coalesce.flushers:2}") int flusherCount,
+                              @Value("${fix.api.parse.coalesce.queue-capacity:8192}") int queueCapacity,
+                              @Value("${fix.api.parse.coalesce.timeout-ms:5000}") long timeoutMs,
+                              @Value("${fix.stream.retention.max-len:0}") long maxLen,
+                              @Value("${fix.stream.retention.max-age-ms:0}") long maxAgeMs) {
+        if (maxLen > 0 && maxAgeMs > 0) {
+            throw new IllegalArgumentException(
+                    "Set at most one of fix.stream.retention.max-len and fix.stream.retention.max-age-ms");
+        }
+        this.pool = pool;
+        this.maxLen = maxLen;
+        this.maxAgeMs = maxAgeMs;
+        this.coalesce = coalesce;
+        this.maxBatch = Math.max(1, maxBatch);
+        this.lingerMicros = lingerMicros;
+        this.timeoutMs = timeoutMs;
+        this.queue = coalesce ? new ArrayBlockingQueue<>(queueCapacity) : null;
+        this.batchSizes = DistributionSummary.builder("fix.parse.coalesce.batch")
+                .description("Messages per pipelined XADD batch")
+                .register(registry);
+
+        if (coalesce) {
+            for (int i = 0; i < Math.max(1, flusherCount); i++) {
+                Thread flusher = new Thread(this::flushLoop, "xadd-flusher-" + i);
+                flusher.setDaemon(true);
+                flushers.add(flusher);
+                flusher.start();
+            }
+        }
+    }
+
+    /** XADDs one message and returns its entry ID. */
+    public StreamEntryID publish(String fixMessage) {
+        if (!coalesce) {
+            try (Jedis jedis = pool.getResource()) {
+                return jedis.xadd(STREAM_KEY, xaddParams(), Map.of(FIELD, fixMessage));
+            }
+        }
+
+        if (!running) {
+            throw new IllegalStateException("Publisher is stopped");
+        }
+        Pending pending = new Pending(fixMessage, new CompletableFuture<>());
+        try {
+            if (!queue.offer(pending, timeoutMs, TimeUnit.MILLISECONDS)) {
+                throw new IllegalStateException("Publish queue still full after " + timeoutMs + " ms");
+            }
+            if (!running && queue.remove(pending)) {
+                // Stopped while we queued; the flushers may already be gone.
+                throw new IllegalStateException("Publisher is stopped");
+            }
+            return pending.result().get(timeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while publishing", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re : new IllegalStateException(e.getCause());
+        } catch (TimeoutException e) {
+            // Still queued means never sent; otherwise it is in a batch and may yet be added.
+            throw new IllegalStateException(queue.remove(pending)
+                    ? "Publish not sent within " + timeoutMs + " ms"
+                    : "No XADD reply within " + timeoutMs + " ms; the message may still be added", e);
+        }
+    }
+
+    /** XADDs the messages, unchanged and in order, as one pipeline on a pooled connection. */
+    public List<StreamEntryID> publishBatch(List<byte[]> messages) {
+        List<Response<byte[]>> responses = new ArrayList<>(messages.size());
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (byte[] message : messages) {
+                responses.add(pipeline.xadd(STREAM_KEY_BYTES, xaddParams(), Map.of(FIELD_BYTES, message)));
+            }
+            pipeline.sync();
+        }
+        List<StreamEntryID> ids = new ArrayList<>(responses.size());
+        for (Response<byte[]> response : responses) {
+            ids.add(new StreamEntryID(new String(response.get(), StandardCharsets.US_ASCII)));
+        }
+        return ids;
+    }
+
+    /** XADD options with the approximate cap, if one is configured. */
+    private XAddParams xaddParams() {
+        XAddParams params = XAddParams.xAddParams();
+        if (maxLen > 0) {
+            params.maxLen(maxLen).approximateTrimming();
+        } else if (maxAgeMs > 0) {
+            params.minId((System.currentTimeMillis() - maxAgeMs) + "-0").approximateTrimming();
+        }
+        return params;
+    }
+
+    private void flushLoop() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (running || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, maxBatch - 1);
+                if (lingerMicros > 0 && batch.size() < maxBatch) {
+                    long deadline = System.nanoTime() + lingerMicros * 1_000;
+                    long remaining;
+                    while (batch.size() < maxBatch && (remaining = deadline - System.nanoTime()) > 0) {
+                        Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                        if (next == null) {
+                            break;
+                        }
+                        batch.add(next);
+                        queue.drainTo(batch, maxBatch - batch.size());
+                    }
+                }
+                send(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    private void send(List<Pending> batch) {
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            List<Response<StreamEntryID>> ids = new ArrayList<>(batch.size());
+            for (Pending pending : batch) {
+                ids.add(pipeline.xadd(STREAM_KEY, xaddParams(), Map.of(FIELD, pending.message())));
+            }
+            pipeline.sync();
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).result().complete(ids.get(i).get());
+            }
+            batchSizes.record(batch.size());
+        } catch (RuntimeException e) {
+            batch.forEach(pending -> pending.result().completeExceptionally(e));
+        }
+    }
+
+    /** Refuses new messages, sends what is already queued, then stops the flushers. */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        running = false;
+        for (Thread flusher : flushers) {
+            flusher.join(5_000);
+        }
+        if (queue != null) {
+            List<Pending> left = new ArrayList<>();
+            queue.drainTo(left);
+            IllegalStateException stopped = new IllegalStateException("Publisher stopped before sending");
+            left.forEach(pending -> pending.result().completeExceptionally(stopped));
+        }
+    }
+}
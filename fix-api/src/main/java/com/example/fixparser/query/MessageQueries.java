@@ -0,0 +1,268 @@
+package com.example.fixparser.query;
+
+import com.example.fixparser.repository.FixMessagePartitions;
+import com.example.fixparser.repository.RawMessageCodec;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * Reads stored messages by filter, in (sending_time, id) order with keyset
+ * pagination: a page ends with a {@link Cursor} on its last row, and the
+ * next page starts strictly after it, so every page is an index range scan
+ * however deep it is. The legacy table has no typed sending time and is
+ * paged by id alone.
+ *
+ * {@link #stream} runs one forward-only query with a fetch size, handing
+ * rows to the caller as they arrive, so an export of any size holds one
+ * fetch of rows in memory. The raw message, the bulk of every row, is only
+ * read when asked for.
+ */
+@Component
+public class MessageQueries {
+
+    /** Optional filters; null means any. The time range is [from, to). */
+    public record Filter(String symbol, String msgType, String senderCompId, String targetCompId,
+                         Instant from, Instant to) {
+    }
+
+    /** Position after a row: its sending time (micros, typed schema only) and id. */
+    public record Cursor(long sendingMicros, long id) {
+
+        public static Cursor parse(String value) {
+            int sep = value.indexOf('_');
+            if (sep < 0) {
+                throw new IllegalArgumentException("Bad cursor: " + value);
+            }
+            return new Cursor(Long.parseLong(value.substring(0, sep)), Long.parseLong(value.substring(sep + 1)));
+        }
+
+        @Override
+        public String toString() {
+            return sendingMicros + "_" + id;
+        }
+    }
+
+    public record Page(List<MessageRow> items, String next) {
+    }
+
+    private static final String TYPED_COLUMNS =
+            "t.id, t.msg_type, s.symbol, t.side, t.order_qty, t.price, snd.comp_id, tgt.comp_id, t.sending_time, t.received_at";
+
+    // Strings are joined from the (small) dictionary tables; filters resolve
+    // the string to its id once, so the (symbol_id, sending_time) index applies.
+    private static final String TYPED_FROM =
+            " FROM " + FixMessagePartitions.TYPED_TABLE + " t" +
+            " LEFT JOIN " + FixMessagePartitions.SYMBOLS_TABLE + " s ON s.id = t.symbol_id" +
+            " LEFT JOIN " + FixMessagePartitions.COMP_IDS_TABLE + " snd ON snd.id = t.sender_id" +
+            " LEFT JOIN " + FixMessagePartitions.COMP_IDS_TABLE + " tgt ON tgt.id = t.target_id";
+
+    private static final String RAW_JOIN =
+            " LEFT JOIN " + FixMessagePartitions.RAW_TABLE + " r ON r.id = t.id AND r.sending_time = t.sending_time";
+
+    private static final String LEGACY_COLUMNS =
+            "id, msg_type, symbol, side, order_qty, price, sender_compid, target_compid, sending_time, received_at";
+
+    // The legacy writer's SendingTime text, which sorts like the time itself.
+    private static final DateTimeFormatter LEGACY_SENDING_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HH:mm:ss.SSS").withZone(ZoneOffset.UTC);
+
+    private final JdbcTemplate jdbc;
+    private final JdbcTemplate streamingJdbc;
+    private final TransactionTemplate transaction;
+    private final boolean typedSchema;
+
+    public MessageQueries(DataSource dataSource, PlatformTransactionManager transactionManager,
+                          @Value("${fix.storage.schema:legacy}") String storageSchema,
+                          @Value("${fix.query.fetch-size:1000}") int fetchSize) {
+        this.jdbc = new JdbcTemplate(dataSource);
+        // Postgres only streams a result set with a fetch size inside a transaction.
+        this.streamingJdbc = new JdbcTemplate(dataSource);
+        this.streamingJdbc.setFetchSize(fetchSize);
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.transaction.setReadOnly(true);
+        this.typedSchema = "typed".equalsIgnoreCase(storageSchema);
+    }
+
+    /** Up to {@code limit} rows after {@code after} (null for the first page). */
+    public Page page(Filter filter, Cursor after, int limit, boolean withRaw) {
+        List<Object> params = new ArrayList<>();
+        String sql = sql(filter, after, withRaw, params) + " LIMIT ?";
+        params.add(limit + 1);
+        List<MessageRow> rows = jdbc.query(sql, (rs, i) -> row(rs, withRaw), params.toArray());
+        String next = null;
+        if (rows.size() > limit) {
+            rows = rows.subList(0, limit);
+            MessageRow last = rows.get(limit - 1);
+            next = new Cursor(typedSchema ? micros(last.sendingTime()) : 0, last.id()).toString();
+        }
+        return new Page(rows, next);
+    }
+
+    /** Every row after {@code after} (null for all), at most {@code limit} (0 for no limit), in order. */
+    public void stream(Filter filter, Cursor after, long limit, boolean withRaw, Consumer<MessageRow> sink) {
+        List<Object> params = new ArrayList<>();
+        String sql = sql(filter, after, withRaw, params);
+        if (limit > 0) {
+            sql += " LIMIT ?";
+            params.add(limit);
+        }
+        String query = sql;
+        transaction.executeWithoutResult(status -> streamingJdbc.query(query,
+                (RowCallbackHandler) rs -> sink.accept(row(rs, withRaw)), params.toArray()));
+    }
+
+    private String sql(Filter filter, Cursor after, boolean withRaw, List<Object> params) {
+        StringBuilder sql = new StringBuilder("SELECT ");
+        if (typedSchema) {
+            sql.append(TYPED_COLUMNS).append(withRaw ? ", r.raw" : "").append(TYPED_FROM).append(withRaw ? RAW_JOIN : "");
+            sql.append(" WHERE TRUE");
+            if (filter.symbol() != null) {
+                sql.append(" AND t.symbol_id = (SELECT id FROM " + FixMessagePartitions.SYMBOLS_TABLE + " WHERE symbol = ?)");
+                params.add(filter.symbol());
+            }
+            if (filter.msgType() != null) {
+                sql.append(" AND t.msg_type = ?");
+                params.add(filter.msgType());
+            }
+            if (filter.senderCompId() != null) {
+                sql.append(" AND t.sender_id = (SELECT id FROM " + FixMessagePartitions.COMP_IDS_TABLE + " WHERE comp_id = ?)");
+                params.add(filter.senderCompId());
+            }
+            if (filter.targetCompId() != null) {
+                sql.append(" AND t.target_id = (SELECT id FROM " + FixMessagePartitions.COMP_IDS_TABLE + " WHERE comp_id = ?)");
+                params.add(filter.targetCompId());
+            }
+            if (filter.from() != null) {
+                sql.append(" AND t.sending_time >= ?");
+                params.add(LocalDateTime.ofInstant(filter.from(), ZoneOffset.UTC));
+            }
+            if (filter.to() != null) {
+                sql.append(" AND t.sending_time < ?");
+                params.add(LocalDateTime.ofInstant(filter.to(), ZoneOffset.UTC));
+            }
+            if (after != null) {
+                // The first half bounds the index scan; the second skips the rows up to the cursor.
+                LocalDateTime at = toDateTime(after.sendingMicros());
+                sql.append(" AND t.sending_time >= ? AND (t.sending_time > ? OR t.id > ?)");
+                params.add(at);
+                params.add(at);
+                params.add(after.id());
+            }
+            sql.append(" ORDER BY t.sending_time, t.id");
+        } else {
+            sql.append(LEGACY_COLUMNS).append(withRaw ? ", raw_message" : "").append(" FROM fix_messages WHERE TRUE");
+            if (filter.symbol() != null) {
+                sql.append(" AND symbol = ?");
+                params.add(filter.symbol());
+            }
+            if (filter.msgType() != null) {
+                sql.append(" AND msg_type = ?");
+                params.add(filter.msgType());
+            }
+            if (filter.senderCompId() != null) {
+                sql.append(" AND sender_compid = ?");
+                params.add(filter.senderCompId());
+            }
+            if (filter.targetCompId() != null) {
+                sql.append(" AND target_compid = ?");
+                params.add(filter.targetCompId());
+            }
+            if (filter.from() != null) {
+                sql.append(" AND sending_time >= ?");
+                params.add(LEGACY_SENDING_TIME.format(filter.from()));
+            }
+            if (filter.to() != null) {
+                sql.append(" AND sending_time < ?");
+                params.add(LEGACY_SENDING_TIME.format(filter.to()));
+            }
+            if (after != null) {
+                sql.append(" AND id > ?");
+                params.add(after.id());
+            }
+            sql.append(" ORDER BY id");
+        }
+        return sql.toString();
+    }
+
+    private MessageRow row(ResultSet rs, boolean withRaw) throws SQLException {
+        long id = rs.getLong(1);
+        Long orderQty;
+        BigDecimal price;
+        Instant sendingTime;
+        String raw = null;
+        if (typedSchema) {
+            long qty = rs.getLong(5);
+            orderQty = rs.wasNull() ? null : qty;
+            price = rs.getBigDecimal(6);
+            sendingTime = instant(rs.getTimestamp(9));
+            if (withRaw) {
+                byte[] encoded = rs.getBytes(11);
+                raw = encoded == null ? null : RawMessageCodec.decode(encoded);
+            }
+        } else {
+            // All text; values the old consumer could not parse are passed through as absent.
+            orderQty = parseLong(rs.getString(5));
+            price = parseDecimal(rs.getString(6));
+            sendingTime = parseSendingTime(rs.getString(9));
+            if (withRaw) {
+                raw = rs.getString(11);
+            }
+        }
+        return new MessageRow(id, rs.getString(2), rs.getString(3), rs.getString(4), orderQty, price,
+                rs.getString(7), rs.getString(8), sendingTime, instant(rs.getTimestamp(10)), raw);
+    }
+
+    private static Long parseLong(String value) {
+        try {
+            return value == null ? null : Long.valueOf(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static BigDecimal parseDecimal(String value) {
+        try {
+            return value == null ? null : new BigDecimal(value);
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    private static Instant parseSendingTime(String value) {
+        try {
+            return value == null ? null : LEGACY_SENDING_TIME.parse(value, Instant::from);
+        } catch (RuntimeException e) {
+            return null;
+        }
+    }
+
+    private static Instant instant(Timestamp timestamp) {
+        return timestamp == null ? null : timestamp.toLocalDateTime().toInstant(ZoneOffset.UTC);
+    }
+
+    private static long micros(Instant instant) {
+        return instant.getEpochSecond() * 1_000_000L + instant.getNano() / 1_000;
+    }
+
+    private static LocalDateTime toDateTime(long micros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+                (int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+}
@@ -0,0 +1,140 @@
+package com.example.fixparser.query;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.dao.DataAccessException;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.format.DateTimeParseException;
+
+@RestController
+@RequestMapping("/api/messages")
+@Tag(name = "Messages API", description = "Stored FIX messages by symbol, type, CompIDs and SendingTime range")
+public class MessageQueryController {
+
+    private static final int MAX_PAGE = 5_000;
+
+    private final MessageQueries queries;
+    private final ObjectMapper mapper;
+
+    public MessageQueryController(MessageQueries queries, ObjectMapper mapper) {
+        this.queries = queries;
+        this.mapper = mapper;
+    }
+
+    @GetMapping
+    @Operation(summary = "One page in SendingTime order; pass the returned `next` as `after` for the following page")
+    public ResponseEntity<?> page(@RequestParam(name = "symbol", required = false) String symbol,
+                                  @RequestParam(name = "msgType", required = false) String msgType,
+                                  @RequestParam(name = "sender", required = false) String sender,
+                                  @RequestParam(name = "target", required = false) String target,
+                                  @RequestParam(name = "from", required = false) String from,
+                                  @RequestParam(name = "to", required = false) String to,
+                                  @RequestParam(name = "after", required = false) String after,
+                                  @RequestParam(name = "limit", defaultValue = "100") int limit,
+                                  @RequestParam(name = "raw", defaultValue = "false") boolean raw) {
+        MessageQueries.Filter filter;
+        MessageQueries.Cursor cursor;
+        try {
+            filter = new MessageQueries.Filter(symbol, msgType, sender, target, instant(from), instant(to));
+            cursor = after == null ? null : MessageQueries.Cursor.parse(after);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+        return ResponseEntity.ok(queries.page(filter, cursor, Math.max(1, Math.min(limit, MAX_PAGE)), raw));
+    }
+
+    /**
+     * Streams every matching row as NDJSON (one object per line) or CSV,
+     * straight from a database cursor to the response.
+     */
+    @GetMapping("/export")
+    @Operation(summary = "Stream all matching messages as NDJSON or CSV; `limit` 0 for all")
+    public void export(@RequestParam(name = "symbol", required = false) String symbol,
+                       @RequestParam(name = "msgType", required = false) String msgType,
+                       @RequestParam(name = "sender", required = false) String sender,
+                       @RequestParam(name = "target", required = false) String target,
+                       @RequestParam(name = "from", required = false) String from,
+                       @RequestParam(name = "to", required = false) String to,
+                       @RequestParam(name = "after", required = false) String after,
+                       @RequestParam(name = "limit", defaultValue = "0") long limit,
+                       @RequestParam(name = "raw", defaultValue = "false") boolean raw,
+                       @RequestParam(name = "format", defaultValue = "ndjson") String format,
+                       HttpServletResponse response) throws IOException {
+        MessageQueries.Filter filter;
+        MessageQueries.Cursor cursor;
+        try {
+            filter = new MessageQueries.Filter(symbol, msgType, sender, target, instant(from), instant(to));
+            cursor = after == null ? null : MessageQueries.Cursor.parse(after);
+        } catch (DateTimeParseException | IllegalArgumentException e) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, e.getMessage());
+            return;
+        }
+        boolean csv = "csv".equalsIgnoreCase(format);
+        if (!csv && !"ndjson".equalsIgnoreCase(format)) {
+            response.sendError(HttpServletResponse.SC_BAD_REQUEST, "Unknown format " + format + ", use ndjson or csv");
+            return;
+        }
+
+        response.setContentType(csv ? "text/csv;charset=UTF-8" : "application/x-ndjson");
+        response.setHeader("Content-Disposition", "attachment; filename=\"fix_messages." + (csv ? "csv" : "ndjson") + "\"");
+        long start = System.currentTimeMillis();
+        long[] rows = new long[1];
+        try {
+            if (csv) {
+                Writer out = new BufferedWriter(new OutputStreamWriter(response.getOutputStream(), StandardCharsets.UTF_8), 1 << 16);
+                out.write(MessageRow.CSV_HEADER + (raw ? ",raw\n" : "\n"));
+                queries.stream(filter, cursor, limit, raw, row -> {
+                    try {
+                        out.write(row.toCsv());
+                        out.write('\n');
+                        rows[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                out.flush();
+            } else {
+                // Without a flush per row, Tomcat sends full buffers rather than a chunk per message.
+                SequenceWriter out = mapper.writer().without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE)
+                        .withRootValueSeparator("\n").writeValues(response.getOutputStream());
+                queries.stream(filter, cursor, limit, raw, row -> {
+                    try {
+                        out.write(row);
+                        rows[0]++;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                if (rows[0] > 0) {
+                    out.flush();
+                    response.getOutputStream().write('\n');
+                }
+            }
+        } catch (UncheckedIOException | DataAccessException e) {
+            // Headers are gone by now; the client sees a truncated body.
+            System.err.println("Export aborted after " + rows[0] + " rows: " + e.getMessage());
+            return;
+        }
+        System.out.println("Exported " + rows[0] + " messages in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static Instant instant(String value) {
+        return value == null ? null : Instant.parse(value);
+    }
+}
@@ -0,0 +1,51 @@
+package com.example.fixparser.query;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+/**
+ * One stored message as returned by the query API. {@code raw} is only
+ * filled in when asked for, and then left out of JSON when absent.
+ */
+@JsonInclude(JsonInclude.Include.NON_NULL)
+public record MessageRow(long id, String msgType, String symbol, String side, Long orderQty, BigDecimal price,
+                         String senderCompId, String targetCompId, Instant sendingTime, Instant receivedAt,
+                         String raw) {
+
+    static final String CSV_HEADER =
+            "id,msg_type,symbol,side,order_qty,price,sender_comp_id,target_comp_id,sending_time,received_at";
+
+    /** One CSV line without the line break; raw, when present, is the last column. */
+    String toCsv() {
+        StringBuilder line = new StringBuilder(128);
+        line.append(id).append(',');
+        csv(line, msgType).append(',');
+        csv(line, symbol).append(',');
+        csv(line, side).append(',');
+        line.append(orderQty == null ? "" : orderQty.toString()).append(',');
+        line.append(price == null ? "" : price.toPlainString()).append(',');
+        csv(line, senderCompId).append(',');
+        csv(line, targetCompId).append(',');
+        line.append(sendingTime == null ? "" : sendingTime.toString()).append(',');
+        line.append(receivedAt == null ? "" : receivedAt.toString());
+        if (raw != null) {
+            csv(line.append(','), raw.replace('\u0001', '|'));
+        }
+        return line.toString();
+    }
+
+    /** Quotes values containing a separator, quote or line break, per RFC 4180. */
+    private static StringBuilder csv(StringBuilder line, String value) {
+        if (value == null) {
+            return line;
+        }
+        boolean quote = false;
+        for (int i = 0; i < value.length() && !quote; i++) {
+            char c = value.charAt(i);
+            quote = c == ',' || c == '"' || c == '\n' || c == '\r';
+        }
+        return quote ? line.append('"').append(value.replace("\"", "\"\"")).append('"') : line.append(value);
+    }
+}
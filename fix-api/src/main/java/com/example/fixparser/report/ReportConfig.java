@@ -1,6 +1,10 @@
 package com.example.fixparser.report;
 
+import com.example.fixparser.consumer.BatchListener;
+import com.example.fixparser.consumer.FixMessageMapper;
 import com.example.fixreport.FixReportApp;
+import com.example.fixreport.ReportAggregator;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
@@ -9,8 +13,20 @@ import javax.sql.DataSource;
 @Configuration
 public class ReportConfig {
 
+    /** Fed by the stream consumer after every committed batch. */
     @Bean
-    public FixReportApp fixReportApp(DataSource dataSource) {
-        return new FixReportApp(dataSource);
+    public ReportAggregator reportAggregator() {
+        return new ReportAggregator();
+    }
+
+    @Bean
+    public BatchListener reportTotals(ReportAggregator reportAggregator) {
+        return batch -> FixMessageMapper.aggregate(reportAggregator, batch);
+    }
+
+    @Bean
+    public FixReportApp fixReportApp(DataSource dataSource, ReportAggregator reportAggregator,
+                                     @Value("${fix.storage.schema:legacy}") String storageSchema) {
+        return new FixReportApp(dataSource, reportAggregator, "typed".equalsIgnoreCase(storageSchema));
     }
 }
@@ -1,11 +1,32 @@
 package com.example.fixparser.report;
 
-import com.example.fixreport.FixReportApp;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.annotation.*;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.ServletWebRequest;
 
-import io.swagger.v3.oas.annotations.tags.Tag;
-import io.swagger.v3.oas.annotations.Operation;
+import java.io.IOException;
+import java.net.URI;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 
 @RestController
@@ -13,31 +34,118 @@ import io.swagger.v3.oas.annotations.Operation;
 @Tag(name = "Report API", description = "Endpoints for generating and retrieving FIX reports")
 public class ReportController {
 
-    private final FixReportApp reportApp;
+    // Tomcat's NIO connector sends a file named in these request attributes
+    // with sendfile(2) once the servlet returns, without copying it through the JVM.
+    private static final String SENDFILE_SUPPORT = "org.apache.tomcat.sendfile.support";
+    private static final String SENDFILE_FILENAME = "org.apache.tomcat.sendfile.filename";
+    private static final String SENDFILE_START = "org.apache.tomcat.sendfile.start";
+    private static final String SENDFILE_END = "org.apache.tomcat.sendfile.end";
 
-    public ReportController(FixReportApp reportApp) {
-        this.reportApp = reportApp;
+    private final ReportJobs jobs;
+
+    public ReportController(ReportJobs jobs) {
+        this.jobs = jobs;
     }
 
-    @GetMapping("/generate")
-    public ResponseEntity<String> generateReport() throws Exception {
-        String outputPath = "/reports/fix_report.txt";
-        reportApp.generateReport(outputPath);
-        return ResponseEntity.ok("Report saved to: " + outputPath);
+    @PostMapping("/jobs")
+    @Operation(summary = "Start a report job; returns the finished or running job instead when no data arrived since")
+    public ResponseEntity<ReportJobs.Status> submit() {
+        ReportJobs.Status status = jobs.submit();
+        HttpStatus code = status.state() == ReportJobs.State.DONE ? HttpStatus.OK : HttpStatus.ACCEPTED;
+        return ResponseEntity.status(code).location(URI.create("/api/report/jobs/" + status.id())).body(status);
     }
 
-    @GetMapping("/read")
-public ResponseEntity<String> readReport() throws Exception {
-    String outputPath = "/reports/fix_report.txt";
+    @GetMapping("/jobs")
+    @Operation(summary = "Known report jobs, most recent first")
+    public List<ReportJobs.Status> list() {
+        return jobs.list();
+    }
 
-    java.nio.file.Path path = java.nio.file.Paths.get(outputPath);
+    @GetMapping("/jobs/{id}")
+    public ResponseEntity<ReportJobs.Status> status(@PathVariable("id") String id) {
+        ReportJobs.Status status = jobs.status(id);
+        return status == null ? ResponseEntity.notFound().build() : ResponseEntity.ok(status);
+    }
 
-    if (!java.nio.file.Files.exists(path)) {
-        return ResponseEntity.status(404).body("Report not found. Generate it first.");
+    @GetMapping("/jobs/{id}/content")
+    @Operation(summary = "Download a finished report; supports If-None-Match")
+    public void content(@PathVariable("id") String id, HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ReportJobs.Status status = jobs.status(id);
+        if (status == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Unknown report job " + id);
+        } else if (status.state() != ReportJobs.State.DONE) {
+            response.sendError(HttpServletResponse.SC_CONFLICT, "Report job " + id + " is " + status.state());
+        } else {
+            send(status, jobs.file(id), request, response);
+        }
     }
 
-    String content = java.nio.file.Files.readString(path);
-    return ResponseEntity.ok(content);
-}
+    /** Submits a job and waits for it; kept for clients of the synchronous API. */
+    @GetMapping("/generate")
+    public ResponseEntity<String> generateReport(@RequestParam(name = "timeoutSeconds", defaultValue = "60") long timeoutSeconds)
+            throws Exception {
+        ReportJobs.Status status;
+        try {
+            status = jobs.completion(jobs.submit().id()).get(timeoutSeconds, TimeUnit.SECONDS);
+        } catch (TimeoutException e) {
+            return ResponseEntity.status(HttpStatus.ACCEPTED).body("Report still running, poll /api/report/jobs");
+        }
+        if (status == null || status.state() != ReportJobs.State.DONE) {
+            return ResponseEntity.internalServerError().body("Report failed: " + (status == null ? "job evicted" : status.error()));
+        }
+        return ResponseEntity.ok("Report saved to: " + jobs.file(status.id()));
+    }
 
+    /** The most recently finished report. */
+    @GetMapping("/read")
+    public void readReport(HttpServletRequest request, HttpServletResponse response) throws IOException {
+        ReportJobs.Status latest = jobs.latest();
+        if (latest == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Report not found. Generate it first.");
+        } else {
+            send(latest, jobs.file(latest.id()), request, response);
+        }
+    }
+
+    /**
+     * A report file never changes once written, so its job id is a strong
+     * ETag; a matching If-None-Match gets 304 with no body.
+     */
+    private static void send(ReportJobs.Status status, Path file, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (file == null) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Report " + status.id() + " is no longer kept");
+            return;
+        }
+        long lastModified = status.completedAt().toEpochMilli();
+        if (new ServletWebRequest(request, response).checkNotModified("\"" + status.id() + "\"", lastModified)) {
+            return;
+        }
+        long size;
+        try {
+            size = Files.size(file);
+        } catch (NoSuchFileException e) {
+            response.sendError(HttpServletResponse.SC_NOT_FOUND, "Report " + status.id() + " is no longer kept");
+            return;
+        }
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE + ";charset=UTF-8");
+        response.setContentLengthLong(size);
+        response.setHeader("X-Report-Watermark", Long.toString(status.watermark()));
+        if ("HEAD".equals(request.getMethod())) {
+            return;
+        }
+        if (Boolean.TRUE.equals(request.getAttribute(SENDFILE_SUPPORT))) {
+            request.setAttribute(SENDFILE_FILENAME, file.toAbsolutePath().toString());
+            request.setAttribute(SENDFILE_START, 0L);
+            request.setAttribute(SENDFILE_END, size);
+        } else {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                long position = 0;
+                WritableByteChannel out = Channels.newChannel(response.getOutputStream());
+                while (position < size) {
+                    position += channel.transferTo(position, size - position, out);
+                }
+            }
+        }
+    }
 }
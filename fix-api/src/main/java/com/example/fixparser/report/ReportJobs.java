@@ -0,0 +1,241 @@
+package com.example.fixparser.report;
+
+import com.example.fixreport.FixReportApp;
+import com.example.fixreport.ReportAggregator;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Report generation as background jobs.
+ *
+ * A job writes the report for one {@link ReportAggregator} snapshot to its
+ * own file, {@code fix_report-<id>.txt} under {@code fix.report.dir}, via a
+ * temporary file and a move, so concurrent jobs never share a file and a
+ * reader never sees a partial one. Jobs are keyed by the aggregator version
+ * they cover: submitting while a job for the current version is queued,
+ * running or done returns that job instead of starting another, so repeated
+ * requests with no new data cost nothing.
+ *
+ * Only the last {@code fix.report.keep} jobs are kept; older ones are
+ * forgotten and their files deleted. Jobs do not survive a restart, and
+ * files left by a previous run are removed on startup.
+ */
+@Component
+public class ReportJobs {
+
+    public enum State { QUEUED, RUNNING, DONE, FAILED }
+
+    /** What a client sees of a job; {@code watermark} is the aggregator version the report covers. */
+    public record Status(String id, State state, long watermark, Instant submittedAt, Instant completedAt,
+                         Long bytes, String error) {
+    }
+
+    static final String FILE_PREFIX = "fix_report-";
+
+    private final FixReportApp reportApp;
+    private final Path dir;
+    private final int keep;
+    private final ExecutorService executor;
+    private final String idPrefix = Long.toString(System.currentTimeMillis(), 36) + "-";
+    private final AtomicLong sequence = new AtomicLong();
+
+    // Insertion order, oldest first; both maps are guarded by this.
+    private final LinkedHashMap<String, Job> jobs = new LinkedHashMap<>();
+    private final Map<Long, Job> byVersion = new HashMap<>();
+
+    public ReportJobs(FixReportApp reportApp,
+                      @Value("${fix.report.dir:/reports}") String dir,
+                      @Value("${fix.report.keep:20}") int keep,
+                      @Value("${fix.report.threads:1}") int threads) {
+        this.reportApp = reportApp;
+        this.dir = Paths.get(dir);
+        this.keep = Math.max(1, keep);
+        this.executor = Executors.newFixedThreadPool(Math.max(1, threads), runnable -> {
+            Thread thread = new Thread(runnable, "fix-report-job");
+            thread.setDaemon(true);
+            return thread;
+        });
+        removeStaleFiles();
+    }
+
+    /**
+     * The job for the data as it is now: an existing queued, running or
+     * finished one for the current aggregator version, else a new queued job.
+     */
+    public synchronized Status submit() {
+        long version = reportApp.aggregator().version();
+        Job existing = byVersion.get(version);
+        if (existing != null && existing.state != State.FAILED) {
+            return existing.status();
+        }
+        Job job = new Job(idPrefix + sequence.incrementAndGet(), version);
+        jobs.put(job.id, job);
+        byVersion.put(version, job);
+        evict();
+        job.future = CompletableFuture.runAsync(() -> run(job), executor);
+        return job.status();
+    }
+
+    public synchronized Status status(String id) {
+        Job job = jobs.get(id);
+        return job == null ? null : job.status();
+    }
+
+    /** The most recent jobs first. */
+    public synchronized List<Status> list() {
+        List<Status> list = new ArrayList<>(jobs.size());
+        jobs.values().forEach(job -> list.add(0, job.status()));
+        return list;
+    }
+
+    /** The report file of a finished job, or null if it is unknown or not done. */
+    public synchronized Path file(String id) {
+        Job job = jobs.get(id);
+        return job == null || job.state != State.DONE ? null : job.file;
+    }
+
+    /** The most recently finished job, or null. */
+    public synchronized Status latest() {
+        Status latest = null;
+        for (Job job : jobs.values()) {
+            if (job.state == State.DONE) {
+                latest = job.status();
+            }
+        }
+        return latest;
+    }
+
+    /** Completes when the job has finished, successfully or not. */
+    public CompletableFuture<Status> completion(String id) {
+        Job job;
+        synchronized (this) {
+            job = jobs.get(id);
+        }
+        if (job == null) {
+            return CompletableFuture.completedFuture(null);
+        }
+        return job.future.handle((ignored, e) -> status(id));
+    }
+
+    private void run(Job job) {
+        synchronized (this) {
+            job.state = State.RUNNING;
+        }
+        Path file = dir.resolve(FILE_PREFIX + job.id + ".txt");
+        Path tmp = dir.resolve(FILE_PREFIX + job.id + ".txt.tmp");
+        try {
+            ReportAggregator.Snapshot snapshot = reportApp.snapshot();
+            Files.createDirectories(dir);
+            reportApp.writeReport(snapshot, tmp.toString());
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            long bytes = Files.size(file);
+            System.out.println("📄 Report written to: " + file + " (watermark " + snapshot.version() + ")");
+            synchronized (this) {
+                job.watermark = snapshot.version();
+                job.file = file;
+                job.bytes = bytes;
+                job.completedAt = Instant.now();
+                job.state = State.DONE;
+                // The totals may have moved on since submit; later requests for
+                // the version actually covered can reuse this job too.
+                Job covering = byVersion.get(snapshot.version());
+                if (covering == null || covering.state == State.FAILED) {
+                    byVersion.put(snapshot.version(), job);
+                }
+            }
+        } catch (Exception e) {
+            delete(tmp);
+            System.err.println("Report job " + job.id + " failed: " + e.getMessage());
+            synchronized (this) {
+                job.error = e.getMessage() == null ? e.getClass().getSimpleName() : e.getMessage();
+                job.completedAt = Instant.now();
+                job.state = State.FAILED;
+            }
+        }
+    }
+
+    /** Drops the oldest jobs past {@code keep}, except ones still queued or running. */
+    private void evict() {
+        Iterator<Job> it = jobs.values().iterator();
+        int excess = jobs.size() - keep;
+        while (excess > 0 && it.hasNext()) {
+            Job job = it.next();
+            if (job.state == State.QUEUED || job.state == State.RUNNING) {
+                continue;
+            }
+            it.remove();
+            byVersion.remove(job.watermark, job);
+            byVersion.remove(job.requestedVersion, job);
+            if (job.file != null) {
+                delete(job.file);
+            }
+            excess--;
+        }
+    }
+
+    private void removeStaleFiles() {
+        if (!Files.isDirectory(dir)) {
+            return;
+        }
+        try (DirectoryStream<Path> stale = Files.newDirectoryStream(dir, FILE_PREFIX + "*")) {
+            stale.forEach(ReportJobs::delete);
+        } catch (IOException e) {
+            System.err.println("Could not clean up old reports in " + dir + ": " + e.getMessage());
+        }
+    }
+
+    private static void delete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            System.err.println("Could not delete " + file + ": " + e.getMessage());
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        executor.shutdownNow();
+    }
+
+    private static final class Job {
+        final String id;
+        final long requestedVersion;
+        final Instant submittedAt = Instant.now();
+        CompletableFuture<Void> future;
+        State state = State.QUEUED;
+        long watermark;
+        Path file;
+        Long bytes;
+        Instant completedAt;
+        String error;
+
+        Job(String id, long requestedVersion) {
+            this.id = id;
+            this.requestedVersion = requestedVersion;
+            this.watermark = requestedVersion;
+        }
+
+        Status status() {
+            return new Status(id, state, watermark, submittedAt, completedAt, bytes, error);
+        }
+    }
+}
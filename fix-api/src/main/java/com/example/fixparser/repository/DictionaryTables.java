@@ -0,0 +1,43 @@
+package com.example.fixparser.repository;
+
+import com.example.fixcodec.StringDictionary;
+import com.example.fixparser.model.FixDictionaries;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Backs the {@link FixDictionaries} with the fix_symbols and fix_comp_ids
+ * tables: every known value is loaded once at startup, and a value seen
+ * for the first time gets its id from an upsert, so every instance sharing
+ * the database agrees on the ids. New values are rare (a new symbol or
+ * session), and the upsert commits before any row can reference it.
+ */
+@Component
+@ConditionalOnProperty(name = "fix.storage.schema", havingValue = "typed")
+public class DictionaryTables {
+
+    private final JdbcTemplate jdbc;
+
+    // Depends on the partitions bean so the tables exist before they are read.
+    public DictionaryTables(JdbcTemplate jdbc, FixMessagePartitions partitions) {
+        this.jdbc = jdbc;
+    }
+
+    public FixDictionaries load() {
+        StringDictionary symbols = load(FixMessagePartitions.SYMBOLS_TABLE, "symbol");
+        StringDictionary compIds = load(FixMessagePartitions.COMP_IDS_TABLE, "comp_id");
+        System.out.println("Dictionaries loaded: " + symbols.size() + " symbols, " + compIds.size() + " CompIDs");
+        return new FixDictionaries(symbols, compIds);
+    }
+
+    private StringDictionary load(String table, String column) {
+        String upsert = "INSERT INTO " + table + " (" + column + ") VALUES (?) " +
+                "ON CONFLICT (" + column + ") DO UPDATE SET " + column + " = EXCLUDED." + column + " RETURNING id";
+        StringDictionary dictionary = new StringDictionary(value -> jdbc.queryForObject(upsert, Integer.class, value));
+        jdbc.query("SELECT id, " + column + " FROM " + table, rs -> {
+            dictionary.put(rs.getString(2), rs.getInt(1));
+        });
+        return dictionary;
+    }
+}
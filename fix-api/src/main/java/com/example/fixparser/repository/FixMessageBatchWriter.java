@@ -0,0 +1,180 @@
+package com.example.fixparser.repository;
+
+import com.example.fixparser.dedup.DuplicateFilter;
+import com.example.fixparser.model.FixMessageEntity;
+import com.example.fixparser.model.FixMessageRecord;
+import jakarta.annotation.PostConstruct;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Legacy store: writes a batch of parsed messages into the all-text
+ * fix_messages table in one transaction.
+ *
+ * Ids come from the pooled fix_messages_seq sequence, so Hibernate can group
+ * the INSERTs into JDBC batches (hibernate.jdbc.batch_size), and the Postgres
+ * driver's reWriteBatchedInserts turns each batch into multi-row INSERTs.
+ * When this method returns the batch is committed.
+ *
+ * Messages {@link DuplicateFilter} flags as possibly seen are looked up by
+ * their full key first, one index probe each, and left out if already
+ * stored; fix_messages_dedup_idx rejects the batch if one gets past that,
+ * and it is written again with every keyed message looked up.
+ */
+@Component
+@ConditionalOnProperty(name = "fix.storage.schema", havingValue = "legacy", matchIfMissing = true)
+public class FixMessageBatchWriter implements FixMessageStore {
+
+    private static final DateTimeFormatter SENDING_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HH:mm:ss.SSS").withZone(ZoneOffset.UTC);
+
+    // Whole keys, so each suspect is one probe of fix_messages_dedup_idx.
+    private static final String EXISTING_KEYS = "SELECT sender_compid, target_compid, msg_seq_num, sending_time" +
+            " FROM fix_messages WHERE (sender_compid, target_compid, msg_seq_num, sending_time) IN" +
+            " (SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::bigint[], ?::varchar[]))";
+
+    private static final String ALIGN_SEQUENCE = "SELECT setval('fix_messages_seq', m.max_id) FROM" +
+            " (SELECT COALESCE(MAX(id), 0) AS max_id FROM fix_messages) m" +
+            " WHERE m.max_id > (SELECT last_value FROM fix_messages_seq)";
+
+    private final FixMessageRepository repository;
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+    private final DuplicateFilter duplicates;
+
+    public FixMessageBatchWriter(FixMessageRepository repository, JdbcTemplate jdbc,
+                                 PlatformTransactionManager transactionManager, DuplicateFilter duplicates) {
+        this.repository = repository;
+        this.jdbc = jdbc;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.duplicates = duplicates;
+    }
+
+    @PostConstruct
+    public void createDedupIndex() {
+        // Rows from before msg_seq_num have it NULL and never conflict.
+        jdbc.execute("CREATE UNIQUE INDEX IF NOT EXISTS fix_messages_dedup_idx" +
+                " ON fix_messages (sender_compid, target_compid, msg_seq_num, sending_time)");
+        // A table whose ids came from the identity column gets fix_messages_seq starting at 1; move it past
+        // them. Only ever forwards, so a block another instance already holds is never handed out again.
+        jdbc.queryForList(ALIGN_SEQUENCE);
+    }
+
+    @Override
+    public List<FixMessageRecord> writeBatch(List<FixMessageRecord> batch) {
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        BitSet suspects = duplicates.screen(batch);
+        try {
+            return transaction.execute(status -> write(batch, suspects));
+        } catch (DataIntegrityViolationException e) {
+            // A duplicate older than the filter remembers; look up every keyed message instead.
+            for (int i = 0; i < batch.size(); i++) {
+                if (DuplicateFilter.isKeyed(batch.get(i))) {
+                    suspects.set(i);
+                }
+            }
+            return transaction.execute(status -> write(batch, suspects));
+        }
+    }
+
+    private List<FixMessageRecord> write(List<FixMessageRecord> batch, BitSet suspects) {
+        List<FixMessageEntity> entities = new ArrayList<>(batch.size());
+        for (FixMessageRecord record : batch) {
+            entities.add(toEntity(record));
+        }
+        if (suspects.isEmpty()) {
+            repository.saveAllAndFlush(entities);
+            return batch;
+        }
+
+        Set<String> stored = existingKeys(entities, suspects);
+        List<FixMessageEntity> toSave = new ArrayList<>(batch.size());
+        List<FixMessageRecord> saved = new ArrayList<>(batch.size());
+        List<FixMessageRecord> dropped = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            FixMessageEntity entity = entities.get(i);
+            boolean keyed = DuplicateFilter.isKeyed(batch.get(i));
+            // add() also catches a repeat earlier in this batch.
+            if (keyed && !stored.add(key(entity.getSenderCompID(), entity.getTargetCompID(),
+                    entity.getMsgSeqNum(), entity.getSendingTime())) && suspects.get(i)) {
+                dropped.add(batch.get(i));
+            } else {
+                toSave.add(entity);
+                saved.add(batch.get(i));
+            }
+        }
+        repository.saveAllAndFlush(toSave);
+        duplicates.dropped(dropped);
+        return dropped.isEmpty() ? batch : saved;
+    }
+
+    /** Keys of the suspects that are already in fix_messages. */
+    private Set<String> existingKeys(List<FixMessageEntity> entities, BitSet suspects) {
+        int count = suspects.cardinality();
+        String[] senders = new String[count];
+        String[] targets = new String[count];
+        Long[] seqNums = new Long[count];
+        String[] sendingTimes = new String[count];
+        int n = 0;
+        for (int i = suspects.nextSetBit(0); i >= 0; i = suspects.nextSetBit(i + 1)) {
+            FixMessageEntity entity = entities.get(i);
+            senders[n] = entity.getSenderCompID();
+            targets[n] = entity.getTargetCompID();
+            seqNums[n] = entity.getMsgSeqNum();
+            sendingTimes[n++] = entity.getSendingTime();
+        }
+        Set<String> existing = new HashSet<>();
+        jdbc.query(connection -> {
+            PreparedStatement statement = connection.prepareStatement(EXISTING_KEYS);
+            statement.setArray(1, connection.createArrayOf("varchar", senders));
+            statement.setArray(2, connection.createArrayOf("varchar", targets));
+            statement.setArray(3, connection.createArrayOf("bigint", seqNums));
+            statement.setArray(4, connection.createArrayOf("varchar", sendingTimes));
+            return statement;
+        }, (RowCallbackHandler) row -> existing.add(key(row.getString(1), row.getString(2),
+                row.getLong(3), row.getString(4))));
+        return existing;
+    }
+
+    private static String key(String sender, String target, Long msgSeqNum, String sendingTime) {
+        return sender + '\u0001' + target + '\u0001' + msgSeqNum + '\u0001' + sendingTime;
+    }
+
+    private static FixMessageEntity toEntity(FixMessageRecord record) {
+        return FixMessageEntity.builder()
+                .msgType(record.getMsgType())
+                .symbol(record.getSymbol())
+                .side(record.getSide() == 0 ? null : String.valueOf(record.getSide()))
+                .orderQty(record.hasOrderQty() ? Long.toString(record.getOrderQty()) : null)
+                .price(record.hasPrice()
+                        ? BigDecimal.valueOf(record.getPrice(), FixMessageRecord.PRICE_SCALE).stripTrailingZeros().toPlainString()
+                        : null)
+                .senderCompID(record.getSenderCompID())
+                .targetCompID(record.getTargetCompID())
+                .msgSeqNum(record.hasMsgSeqNum() ? record.getMsgSeqNum() : null)
+                .sendingTime(record.getSendingTime() == FixMessageRecord.NULL ? null
+                        : SENDING_TIME.format(Instant.EPOCH.plusNanos(record.getSendingTime() * 1_000)))
+                .rawMessage(record.getRawMessage())
+                .receivedAt(LocalDateTime.ofEpochSecond(Math.floorDiv(record.getReceivedAt(), 1_000_000), 0, ZoneOffset.UTC))
+                .build();
+    }
+}
@@ -0,0 +1,178 @@
+package com.example.fixparser.repository;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import jakarta.annotation.PostConstruct;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Owns the typed schema: fix_messages_typed holds the hot columns as native
+ * types, fix_messages_raw the compressed original message. Both are range
+ * partitioned on sending_time with one partition per trading day (UTC), so
+ * a day is created on its first message and retired with a DROP TABLE
+ * instead of a DELETE. With {@code fix.storage.retention-days} set, a
+ * scheduled job drops the days that have left the window, counted back from
+ * today's UTC date rather than from the newest message, and writers turn
+ * away messages older than the window instead of recreating their day. Symbol and the CompIDs are stored as int keys into
+ * the fix_symbols and fix_comp_ids dictionary tables; the
+ * fix_messages_typed_v view joins the strings back in.
+ *
+ * Schema creation and partition DDL run outside the batch transactions,
+ * which would otherwise hold locks on the parent tables.
+ */
+@Component
+@ConditionalOnProperty(name = "fix.storage.schema", havingValue = "typed")
+public class FixMessagePartitions {
+
+    public static final String TYPED_TABLE = "fix_messages_typed";
+    public static final String RAW_TABLE = "fix_messages_raw";
+    public static final String SEQUENCE = "fix_messages_typed_seq";
+    public static final String SYMBOLS_TABLE = "fix_symbols";
+    public static final String COMP_IDS_TABLE = "fix_comp_ids";
+    public static final int ID_BLOCK = 1000;
+
+    private static final DateTimeFormatter SUFFIX = DateTimeFormatter.BASIC_ISO_DATE;
+
+    private static final List<String> SCHEMA = List.of(
+            "CREATE SEQUENCE IF NOT EXISTS " + SEQUENCE + " INCREMENT BY " + ID_BLOCK,
+            "CREATE TABLE IF NOT EXISTS " + SYMBOLS_TABLE + " (" +
+                    "id SERIAL PRIMARY KEY, " +
+                    "symbol TEXT NOT NULL UNIQUE)",
+            "CREATE TABLE IF NOT EXISTS " + COMP_IDS_TABLE + " (" +
+                    "id SERIAL PRIMARY KEY, " +
+                    "comp_id TEXT NOT NULL UNIQUE)",
+            "CREATE TABLE IF NOT EXISTS " + TYPED_TABLE + " (" +
+                    "id BIGINT NOT NULL, " +
+                    "msg_type VARCHAR(4), " +
+                    "symbol_id INT REFERENCES " + SYMBOLS_TABLE + " (id), " +
+                    "side CHAR(1), " +
+                    "order_qty BIGINT, " +
+                    "price NUMERIC(20,8), " +
+                    "sender_id INT REFERENCES " + COMP_IDS_TABLE + " (id), " +
+                    "target_id INT REFERENCES " + COMP_IDS_TABLE + " (id), " +
+                    "msg_seq_num BIGINT, " +
+                    "sending_time TIMESTAMP NOT NULL, " +
+                    "received_at TIMESTAMP NOT NULL, " +
+                    "PRIMARY KEY (id, sending_time)" +
+                    ") PARTITION BY RANGE (sending_time)",
+            "CREATE INDEX IF NOT EXISTS " + TYPED_TABLE + "_msg_type_idx ON " + TYPED_TABLE + " (msg_type, sending_time)",
+            "CREATE INDEX IF NOT EXISTS " + TYPED_TABLE + "_sending_time_idx ON " + TYPED_TABLE + " (sending_time)",
+            "CREATE INDEX IF NOT EXISTS " + TYPED_TABLE + "_symbol_id_idx ON " + TYPED_TABLE + " (symbol_id, sending_time)",
+            // The backstop for DuplicateFilter. Messages without a MsgSeqNum never conflict.
+            "CREATE UNIQUE INDEX IF NOT EXISTS " + TYPED_TABLE + "_dedup_idx ON " + TYPED_TABLE +
+                    " (sender_id, target_id, msg_seq_num, sending_time)",
+            "CREATE TABLE IF NOT EXISTS " + RAW_TABLE + " (" +
+                    "id BIGINT NOT NULL, " +
+                    "sending_time TIMESTAMP NOT NULL, " +
+                    "raw BYTEA NOT NULL, " +
+                    "PRIMARY KEY (id, sending_time)" +
+                    ") PARTITION BY RANGE (sending_time)",
+            // The rows with their strings, for ad-hoc queries and pgAdmin.
+            "CREATE OR REPLACE VIEW " + TYPED_TABLE + "_v AS SELECT t.id, t.msg_type, s.symbol, t.side, t.order_qty, " +
+                    "t.price, snd.comp_id AS sender_comp_id, tgt.comp_id AS target_comp_id, t.sending_time, t.received_at, " +
+                    "t.msg_seq_num " +
+                    "FROM " + TYPED_TABLE + " t " +
+                    "LEFT JOIN " + SYMBOLS_TABLE + " s ON s.id = t.symbol_id " +
+                    "LEFT JOIN " + COMP_IDS_TABLE + " snd ON snd.id = t.sender_id " +
+                    "LEFT JOIN " + COMP_IDS_TABLE + " tgt ON tgt.id = t.target_id");
+
+    private final JdbcTemplate jdbc;
+
+    /** Days to keep, today (UTC) included. 0 keeps everything. */
+    @Value("${fix.storage.retention-days:0}")
+    private int retentionDays;
+
+    private final Set<LocalDate> knownDays = ConcurrentHashMap.newKeySet();
+
+    public FixMessagePartitions(JdbcTemplate jdbc) {
+        this.jdbc = jdbc;
+    }
+
+    @PostConstruct
+    public void createSchema() {
+        SCHEMA.forEach(jdbc::execute);
+        for (String name : jdbc.queryForList(
+                "SELECT c.relname FROM pg_inherits i JOIN pg_class c ON c.oid = i.inhrelid " +
+                "JOIN pg_class p ON p.oid = i.inhparent WHERE p.relname = ?", String.class, TYPED_TABLE)) {
+            knownDays.add(dayOf(name));
+        }
+        System.out.println("Typed FIX schema ready: " + knownDays.size() + " day partitions");
+    }
+
+    /** Creates the partitions for {@code day} in both tables unless they already exist. */
+    public void ensureDay(LocalDate day) {
+        if (knownDays.contains(day)) {
+            return;
+        }
+        synchronized (this) {
+            if (knownDays.contains(day)) {
+                return;
+            }
+            String from = day.toString();
+            String to = day.plusDays(1).toString();
+            for (String table : List.of(TYPED_TABLE, RAW_TABLE)) {
+                try {
+                    jdbc.execute("CREATE TABLE IF NOT EXISTS " + partition(table, day) + " PARTITION OF " + table
+                            + " FOR VALUES FROM ('" + from + "') TO ('" + to + "')");
+                } catch (DataAccessException e) {
+                    // Another instance created it between our check and the CREATE.
+                    if (!partitionExists(partition(table, day))) {
+                        throw e;
+                    }
+                }
+            }
+            knownDays.add(day);
+            System.out.println("Created FIX partitions for " + day);
+        }
+    }
+
+    /** The oldest day within the retention window, or null if every day is kept. */
+    public LocalDate oldestKept() {
+        return retentionDays > 0 ? LocalDate.now(ZoneOffset.UTC).minusDays(retentionDays - 1) : null;
+    }
+
+    @Scheduled(fixedDelayString = "${fix.storage.retention-check-ms:600000}")
+    public void dropExpiredDays() {
+        LocalDate oldestKept = oldestKept();
+        if (oldestKept != null) {
+            dropDaysBefore(oldestKept);
+        }
+    }
+
+    /** Drops every day partition older than {@code oldestKept}, in both tables. */
+    public synchronized int dropDaysBefore(LocalDate oldestKept) {
+        int dropped = 0;
+        for (LocalDate day : List.copyOf(knownDays)) {
+            if (day.isBefore(oldestKept)) {
+                jdbc.execute("DROP TABLE IF EXISTS " + partition(TYPED_TABLE, day) + ", " + partition(RAW_TABLE, day));
+                knownDays.remove(day);
+                dropped++;
+                System.out.println("Dropped FIX partitions for " + day);
+            }
+        }
+        return dropped;
+    }
+
+    private boolean partitionExists(String name) {
+        Integer count = jdbc.queryForObject("SELECT COUNT(*) FROM pg_class WHERE relname = ?", Integer.class, name);
+        return count != null && count > 0;
+    }
+
+    private static String partition(String table, LocalDate day) {
+        return table + "_" + day.format(SUFFIX);
+    }
+
+    private static LocalDate dayOf(String partitionName) {
+        return LocalDate.parse(partitionName.substring(partitionName.length() - 8), SUFFIX);
+    }
+}
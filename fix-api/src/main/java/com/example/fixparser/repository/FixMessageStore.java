@@ -0,0 +1,34 @@
+package com.example.fixparser.repository;
+
+import com.example.fixparser.model.FixMessageRecord;
+
+import java.util.List;
+
+/**
+ * Where the stream consumer persists parsed messages. When
+ * {@link #writeBatch} returns, the whole batch is committed, less the
+ * messages that were already stored: a message is a duplicate when another
+ * with the same SenderCompID, TargetCompID, MsgSeqNum and SendingTime is
+ * in the table (see {@link com.example.fixparser.dedup.DuplicateFilter}).
+ *
+ * {@code fix.storage.schema} picks the implementation: {@code legacy}
+ * (default) writes the original all-text fix_messages table through JPA,
+ * {@code typed} the day-partitioned tables. Rows already in fix_messages are
+ * not copied into the typed tables, so switching starts them empty.
+ */
+public interface FixMessageStore {
+
+    /**
+     * Per-record work that does not need the database, such as compressing
+     * the raw message. Called on the parsing thread so it runs in parallel
+     * rather than on the single writer.
+     */
+    default void prepare(FixMessageRecord record) {
+    }
+
+    /**
+     * @return the messages stored, in batch order; {@code batch} itself when
+     * none were duplicates
+     */
+    List<FixMessageRecord> writeBatch(List<FixMessageRecord> batch);
+}
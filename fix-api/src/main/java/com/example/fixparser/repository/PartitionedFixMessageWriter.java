@@ -0,0 +1,320 @@
+package com.example.fixparser.repository;
+
+import com.example.fixparser.dedup.DuplicateFilter;
+import com.example.fixparser.metrics.PipelineMetrics;
+import com.example.fixparser.metrics.RateLimitedLog;
+import com.example.fixparser.model.FixMessageRecord;
+import com.example.fixparser.validation.DeadLetterStream;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.math.BigDecimal;
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Typed store: writes each batch into fix_messages_typed and
+ * fix_messages_raw with plain JDBC batches in one transaction. Symbol and
+ * CompIDs go in as the dictionary ids the mapper already resolved.
+ *
+ * Ids are handed out from blocks of the fix_messages_typed_seq sequence
+ * (INCREMENT BY {@value FixMessagePartitions#ID_BLOCK}), so a batch needs no
+ * per-row round trip; the raw row shares the id of its typed row.
+ *
+ * Messages {@link DuplicateFilter} flags as possibly seen are inserted only
+ * if fix_messages_typed_dedup_idx has no row with their key, and left out of
+ * the returned list otherwise.
+ *
+ * Messages older than the retention window ({@link FixMessagePartitions#oldestKept()})
+ * have no partition to go to. They are sent to the {@link DeadLetterStream}
+ * and left out too, rather than failing, and retrying, the whole batch.
+ */
+@Component
+@ConditionalOnProperty(name = "fix.storage.schema", havingValue = "typed")
+public class PartitionedFixMessageWriter implements FixMessageStore {
+
+    private static final String INSERT_TYPED = "INSERT INTO " + FixMessagePartitions.TYPED_TABLE +
+            " (id, msg_type, symbol_id, side, order_qty, price, sender_id, target_id, msg_seq_num, sending_time, received_at)" +
+            " VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    // Prices and times go in as the record's longs and are scaled here.
+    private static final String INSERT_TYPED_IF_NEW = "INSERT INTO " + FixMessagePartitions.TYPED_TABLE +
+            " (id, msg_type, symbol_id, side, order_qty, price, sender_id, target_id, msg_seq_num, sending_time, received_at)" +
+            " SELECT id, msg_type, symbol_id, side, order_qty, price * 0.00000001, sender_id, target_id, msg_seq_num," +
+            " TIMESTAMP 'epoch' + sending_time * INTERVAL '1 microsecond'," +
+            " TIMESTAMP 'epoch' + received_at * INTERVAL '1 microsecond'" +
+            " FROM unnest(?::bigint[], ?::text[], ?::int[], ?::text[], ?::bigint[], ?::bigint[], ?::int[], ?::int[]," +
+            " ?::bigint[], ?::bigint[], ?::bigint[])" +
+            " AS r (id, msg_type, symbol_id, side, order_qty, price, sender_id, target_id, msg_seq_num, sending_time, received_at)" +
+            " ON CONFLICT DO NOTHING RETURNING id";
+
+    private static final String INSERT_RAW = "INSERT INTO " + FixMessagePartitions.RAW_TABLE +
+            " (id, sending_time, raw) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbc;
+    private final TransactionTemplate transaction;
+    private final FixMessagePartitions partitions;
+    private final DuplicateFilter duplicates;
+    private final DeadLetterStream deadLetters;
+    private final RateLimitedLog expiredLog;
+
+    private long nextId;
+    private long idLimit;
+
+    public PartitionedFixMessageWriter(JdbcTemplate jdbc, PlatformTransactionManager transactionManager,
+                                       FixMessagePartitions partitions, DuplicateFilter duplicates,
+                                       DeadLetterStream deadLetters, PipelineMetrics metrics) {
+        this.jdbc = jdbc;
+        this.transaction = new TransactionTemplate(transactionManager);
+        this.partitions = partitions;
+        this.duplicates = duplicates;
+        this.deadLetters = deadLetters;
+        this.expiredLog = metrics.summaryLog("Rejected FIX messages older than the retention window to "
+                + deadLetters.streamKey(), "last_sending_day");
+    }
+
+    @Override
+    public void prepare(FixMessageRecord record) {
+        if (record.getRawMessage() != null) {
+            record.setRawEncoded(RawMessageCodec.encode(record.getRawMessage()));
+        }
+    }
+
+    @Override
+    public List<FixMessageRecord> writeBatch(List<FixMessageRecord> batch) {
+        batch = withoutExpired(batch);
+        if (batch.isEmpty()) {
+            return batch;
+        }
+        BitSet suspects = duplicates.screen(batch);
+        try {
+            return write(batch, suspects);
+        } catch (DuplicateKeyException e) {
+            // A duplicate older than the filter remembers; check every keyed message instead.
+            for (int i = 0; i < batch.size(); i++) {
+                if (DuplicateFilter.isKeyed(batch.get(i))) {
+                    suspects.set(i);
+                }
+            }
+            return write(batch, suspects);
+        }
+    }
+
+    /** {@code batch} less the messages from before the retention window, which are dead-lettered. */
+    private List<FixMessageRecord> withoutExpired(List<FixMessageRecord> batch) {
+        LocalDate oldestKept = partitions.oldestKept();
+        if (oldestKept == null) {
+            return batch;
+        }
+        long firstKeptMicros = oldestKept.toEpochDay() * 86_400_000_000L;
+        List<FixMessageRecord> kept = null;
+        for (int i = 0; i < batch.size(); i++) {
+            FixMessageRecord record = batch.get(i);
+            if (record.eventTime() >= firstKeptMicros) {
+                if (kept != null) {
+                    kept.add(record);
+                }
+                continue;
+            }
+            if (kept == null) {
+                kept = new ArrayList<>(batch.subList(0, i));
+            }
+            LocalDate day = LocalDate.ofEpochDay(Math.floorDiv(record.eventTime(), 86_400_000_000L));
+            Map<String, String> entry = new LinkedHashMap<>();
+            entry.put("reason", "expired");
+            entry.put("detail", "sent on " + day + ", before the retention window starting " + oldestKept);
+            entry.put("receivedAt", Long.toString(record.getReceivedAt()));
+            entry.put("fixMessage", record.getRawMessage() == null ? "" : record.getRawMessage());
+            deadLetters.publish(entry);
+            expiredLog.record(1, day);
+        }
+        return kept == null ? batch : kept;
+    }
+
+    /**
+     * Inserts the messages not in {@code suspects} as plain batches, and the
+     * suspects with one INSERT ... ON CONFLICT DO NOTHING over arrays, whose
+     * RETURNING tells which of them were new. The driver rewrites batches
+     * into multi-row INSERTs and then reports no per-row counts, so a batch
+     * of single-row upserts could not say which rows it skipped.
+     */
+    private List<FixMessageRecord> write(List<FixMessageRecord> batch, BitSet suspects) {
+        int suspectCount = suspects.cardinality();
+        long[] ids = new long[batch.size()];
+        List<Object[]> typedRows = new ArrayList<>(batch.size() - suspectCount);
+        List<Object[]> rawRows = new ArrayList<>(batch.size());
+        SuspectRows suspectRows = new SuspectRows(suspectCount);
+        long lastDay = Long.MIN_VALUE;
+
+        for (int i = 0; i < ids.length; i++) {
+            FixMessageRecord record = batch.get(i);
+            long eventTime = record.eventTime();
+            long day = Math.floorDiv(eventTime, 86_400_000_000L);
+            if (day != lastDay) {
+                partitions.ensureDay(LocalDate.ofEpochDay(day));
+                lastDay = day;
+            }
+            if (record.getRawMessage() != null && record.getRawEncoded() == null) {
+                prepare(record);
+            }
+
+            ids[i] = nextId();
+            if (suspects.get(i)) {
+                suspectRows.add(ids[i], record, eventTime);
+                continue;
+            }
+            LocalDateTime sendingTime = toDateTime(eventTime);
+            typedRows.add(new Object[] {
+                    ids[i],
+                    record.getMsgType(),
+                    record.getSymbolId() == 0 ? null : record.getSymbolId(),
+                    record.getSide() == 0 ? null : String.valueOf(record.getSide()),
+                    record.hasOrderQty() ? record.getOrderQty() : null,
+                    record.hasPrice() ? BigDecimal.valueOf(record.getPrice(), FixMessageRecord.PRICE_SCALE) : null,
+                    record.getSenderId() == 0 ? null : record.getSenderId(),
+                    record.getTargetId() == 0 ? null : record.getTargetId(),
+                    DuplicateFilter.isKeyed(record) ? record.getMsgSeqNum() : null,
+                    sendingTime,
+                    toDateTime(record.getReceivedAt())
+            });
+            if (record.getRawMessage() != null) {
+                rawRows.add(new Object[] { ids[i], sendingTime, record.getRawEncoded() });
+            }
+        }
+
+        int[] typedTypes = { Types.BIGINT, Types.VARCHAR, Types.INTEGER, Types.CHAR, Types.BIGINT, Types.NUMERIC,
+                Types.INTEGER, Types.INTEGER, Types.BIGINT, Types.TIMESTAMP, Types.TIMESTAMP };
+        int[] rawTypes = { Types.BIGINT, Types.TIMESTAMP, Types.BINARY };
+
+        Set<Long> inserted = transaction.execute(status -> {
+            if (!typedRows.isEmpty()) {
+                jdbc.batchUpdate(INSERT_TYPED, typedRows, typedTypes);
+            }
+            Set<Long> newIds = suspectRows.insert(jdbc);
+            for (int i = suspects.nextSetBit(0); i >= 0; i = suspects.nextSetBit(i + 1)) {
+                FixMessageRecord record = batch.get(i);
+                if (newIds.contains(ids[i]) && record.getRawMessage() != null) {
+                    rawRows.add(new Object[] { ids[i], toDateTime(record.eventTime()), record.getRawEncoded() });
+                }
+            }
+            if (!rawRows.isEmpty()) {
+                jdbc.batchUpdate(INSERT_RAW, rawRows, rawTypes);
+            }
+            return newIds;
+        });
+
+        if (inserted.size() == suspectCount) {
+            return batch;
+        }
+        List<FixMessageRecord> stored = new ArrayList<>(batch.size());
+        List<FixMessageRecord> dropped = new ArrayList<>(suspectCount - inserted.size());
+        for (int i = 0; i < ids.length; i++) {
+            if (suspects.get(i) && !inserted.contains(ids[i])) {
+                dropped.add(batch.get(i));
+            } else {
+                stored.add(batch.get(i));
+            }
+        }
+        duplicates.dropped(dropped);
+        return stored;
+    }
+
+    private synchronized long nextId() {
+        if (nextId == idLimit) {
+            Long blockStart = jdbc.queryForObject("SELECT nextval('" + FixMessagePartitions.SEQUENCE + "')", Long.class);
+            nextId = blockStart;
+            idLimit = blockStart + FixMessagePartitions.ID_BLOCK;
+        }
+        return nextId++;
+    }
+
+    private static LocalDateTime toDateTime(long epochMicros) {
+        return LocalDateTime.ofEpochSecond(Math.floorDiv(epochMicros, 1_000_000L),
+                (int) Math.floorMod(epochMicros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+    }
+
+    /** The suspects of a batch as one array per column, for {@link #INSERT_TYPED_IF_NEW}. */
+    private static final class SuspectRows {
+        private final Long[] ids;
+        private final String[] msgTypes;
+        private final Integer[] symbolIds;
+        private final String[] sides;
+        private final Long[] orderQtys;
+        private final Long[] prices;
+        private final Integer[] senderIds;
+        private final Integer[] targetIds;
+        private final Long[] msgSeqNums;
+        private final Long[] sendingTimes;
+        private final Long[] receivedAts;
+        private int size;
+
+        SuspectRows(int capacity) {
+            ids = new Long[capacity];
+            msgTypes = new String[capacity];
+            symbolIds = new Integer[capacity];
+            sides = new String[capacity];
+            orderQtys = new Long[capacity];
+            prices = new Long[capacity];
+            senderIds = new Integer[capacity];
+            targetIds = new Integer[capacity];
+            msgSeqNums = new Long[capacity];
+            sendingTimes = new Long[capacity];
+            receivedAts = new Long[capacity];
+        }
+
+        void add(long id, FixMessageRecord record, long eventTime) {
+            ids[size] = id;
+            msgTypes[size] = record.getMsgType();
+            symbolIds[size] = record.getSymbolId() == 0 ? null : record.getSymbolId();
+            sides[size] = record.getSide() == 0 ? null : String.valueOf(record.getSide());
+            orderQtys[size] = record.hasOrderQty() ? record.getOrderQty() : null;
+            prices[size] = record.hasPrice() ? record.getPrice() : null;
+            // Suspects are always keyed, so all of these are present.
+            senderIds[size] = record.getSenderId();
+            targetIds[size] = record.getTargetId();
+            msgSeqNums[size] = record.getMsgSeqNum();
+            sendingTimes[size] = eventTime;
+            receivedAts[size] = record.getReceivedAt();
+            size++;
+        }
+
+        /** @return the ids of the rows that were inserted */
+        Set<Long> insert(JdbcTemplate jdbc) {
+            Set<Long> inserted = new HashSet<>();
+            if (size == 0) {
+                return inserted;
+            }
+            jdbc.query(connection -> {
+                PreparedStatement statement = connection.prepareStatement(INSERT_TYPED_IF_NEW);
+                statement.setArray(1, connection.createArrayOf("bigint", ids));
+                statement.setArray(2, connection.createArrayOf("text", msgTypes));
+                statement.setArray(3, connection.createArrayOf("int4", symbolIds));
+                statement.setArray(4, connection.createArrayOf("text", sides));
+                statement.setArray(5, connection.createArrayOf("bigint", orderQtys));
+                statement.setArray(6, connection.createArrayOf("bigint", prices));
+                statement.setArray(7, connection.createArrayOf("int4", senderIds));
+                statement.setArray(8, connection.createArrayOf("int4", targetIds));
+                statement.setArray(9, connection.createArrayOf("bigint", msgSeqNums));
+                statement.setArray(10, connection.createArrayOf("bigint", sendingTimes));
+                statement.setArray(11, connection.createArrayOf("bigint", receivedAts));
+                return statement;
+            }, (RowCallbackHandler) row -> inserted.add(row.getLong(1)));
+            return inserted;
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.fixparser.repository;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * Compresses raw FIX messages for the fix_messages_raw table.
+ *
+ * A single message is only a few hundred bytes, too small for Postgres TOAST
+ * compression (which starts around 2 KB) and too small for plain deflate to
+ * find much to reuse. A preset dictionary of the tags and values common to
+ * every message gives deflate that context up front, which typically halves
+ * the stored size. The first byte of the output says how the rest is encoded,
+ * so the dictionary can change later without breaking stored rows.
+ */
+public final class RawMessageCodec {
+
+    private static final byte STORED = 0;
+    private static final byte DEFLATE_DICT_V1 = 1;
+
+    // Deflate favours matches near the end of the dictionary, so the most
+    // common fragments come last.
+    private static final byte[] DICTIONARY_V1 = String.join("\u0001",
+            "268=2", "269=0", "269=1", "270=", "271=", "279=0", "262=",
+            "37=", "17=", "150=0", "150=2", "39=0", "39=2", "14=", "151=", "6=", "31=", "32=",
+            "41=", "60=", "1=", "58=",
+            "35=0", "35=A", "35=5", "35=1", "35=2", "35=W", "35=X", "35=G", "35=F", "35=8", "35=D",
+            "40=1", "40=2", "59=0", "59=1", "54=1", "54=2", "38=", "44=", "11=",
+            "55=SPY", "55=AAPL", "55=MSFT", "55=", "BUY_SIDE_", "SELL_SIDE_",
+            "10=", "52=2025", "52=2026", "34=", "49=", "56=", "8=FIX.4.4\u00019=").getBytes(StandardCharsets.US_ASCII);
+
+    private static final ThreadLocal<Deflater> DEFLATER = ThreadLocal.withInitial(() -> new Deflater(Deflater.BEST_SPEED, true));
+    private static final ThreadLocal<Inflater> INFLATER = ThreadLocal.withInitial(() -> new Inflater(true));
+    private static final ThreadLocal<byte[]> SCRATCH = ThreadLocal.withInitial(() -> new byte[4096]);
+
+    private RawMessageCodec() {
+    }
+
+    public static byte[] encode(String raw) {
+        byte[] plain = raw.getBytes(StandardCharsets.ISO_8859_1);
+        Deflater deflater = DEFLATER.get();
+        deflater.reset();
+        deflater.setDictionary(DICTIONARY_V1);
+        deflater.setInput(plain);
+        deflater.finish();
+
+        byte[] out = SCRATCH.get();
+        int len = deflater.deflate(out, 1, Math.min(out.length - 1, plain.length));
+        if (!deflater.finished() || len >= plain.length) {
+            byte[] stored = new byte[plain.length + 1];
+            stored[0] = STORED;
+            System.arraycopy(plain, 0, stored, 1, plain.length);
+            return stored;
+        }
+        out[0] = DEFLATE_DICT_V1;
+        return Arrays.copyOf(out, len + 1);
+    }
+
+    public static String decode(byte[] encoded) {
+        if (encoded[0] == STORED) {
+            return new String(encoded, 1, encoded.length - 1, StandardCharsets.ISO_8859_1);
+        }
+        if (encoded[0] != DEFLATE_DICT_V1) {
+            throw new IllegalArgumentException("Unknown raw message encoding " + encoded[0]);
+        }
+        Inflater inflater = INFLATER.get();
+        inflater.reset();
+        inflater.setDictionary(DICTIONARY_V1);
+        inflater.setInput(encoded, 1, encoded.length - 1);
+
+        ByteArrayOutputStream plain = new ByteArrayOutputStream(encoded.length * 3);
+        byte[] chunk = SCRATCH.get();
+        try {
+            while (!inflater.finished()) {
+                int n = inflater.inflate(chunk);
+                if (n == 0 && (inflater.needsInput() || inflater.needsDictionary())) {
+                    throw new IllegalArgumentException("Truncated raw message");
+                }
+                plain.write(chunk, 0, n);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalArgumentException("Corrupt raw message", e);
+        }
+        return plain.toString(StandardCharsets.ISO_8859_1);
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.fixparser.validation;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.Pipeline;
+import redis.clients.jedis.params.XAddParams;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+/**
+ * The fix-messages-dlq stream: messages the consumer rejected and sequence
+ * events, for someone to look at or replay.
+ *
+ * Consumer threads only queue an entry; a scheduled flush sends whatever
+ * has queued up as one pipeline of XADDs on a pooled connection, so a burst
+ * of bad messages costs the consumer no round trips. The queue is bounded:
+ * when Redis is down or the burst is larger than it, entries are counted in
+ * {@code fix.deadletter.dropped} and discarded rather than slowing the
+ * consumer down. The stream is capped at about
+ * {@code fix.validation.dead-letter.max-len} entries.
+ */
+@Component
+public class DeadLetterStream {
+
+    private final JedisPool pool;
+    private final String streamKey;
+    private final long maxLen;
+    private final BlockingQueue<Map<String, String>> queue;
+    private final Counter sent;
+    private final Counter dropped;
+    private boolean warned;
+
+    public DeadLetterStream(JedisPool pool, MeterRegistry registry,
+                            @Value("${fix.validation.dead-letter.stream:fix-messages-dlq}") String streamKey,
+                            @Value("${fix.validation.dead-letter.max-len:100000}") long maxLen,
+                            @Value("${fix.validation.dead-letter.queue-capacity:10000}") int queueCapacity) {
+        this.pool = pool;
+        this.streamKey = streamKey;
+        this.maxLen = maxLen;
+        this.queue = new ArrayBlockingQueue<>(queueCapacity);
+        this.sent = Counter.builder("fix.deadletter.sent")
+                .description("Entries added to the dead-letter stream").register(registry);
+        this.dropped = Counter.builder("fix.deadletter.dropped")
+                .description("Dead-letter entries discarded because the queue was full or Redis failed")
+                .register(registry);
+        Gauge.builder("fix.deadletter.queued", queue, BlockingQueue::size)
+                .description("Dead-letter entries waiting for the next flush").register(registry);
+    }
+
+    public String streamKey() {
+        return streamKey;
+    }
+
+    /** Queues an entry for the next flush; never blocks. */
+    public void publish(Map<String, String> fields) {
+        if (!queue.offer(fields)) {
+            dropped.increment();
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${fix.validation.dead-letter.flush-interval-ms:200}")
+    public synchronized void flush() {
+        if (queue.isEmpty()) {
+            return;
+        }
+        List<Map<String, String>> batch = new ArrayList<>(queue.size());
+        queue.drainTo(batch);
+        XAddParams params = XAddParams.xAddParams().maxLen(maxLen).approximateTrimming();
+        try (Jedis jedis = pool.getResource()) {
+            Pipeline pipeline = jedis.pipelined();
+            for (Map<String, String> fields : batch) {
+                pipeline.xadd(streamKey, params, fields);
+            }
+            pipeline.sync();
+            sent.increment(batch.size());
+            warned = false;
+        } catch (RuntimeException e) {
+            dropped.increment(batch.size());
+            if (!warned) {
+                System.err.println("Could not write to " + streamKey + ", " + batch.size() + " entries dropped: "
+                        + e.getMessage());
+                warned = true;
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        flush();
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.fixparser.validation;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixTags;
+import com.example.fixcodec.FixValidator;
+import com.example.fixcodec.SequenceTracker;
+import com.example.fixparser.metrics.PipelineMetrics;
+import com.example.fixparser.metrics.RateLimitedLog;
+import com.example.fixparser.model.FixMessageRecord;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.EnumMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * The consumer's validation stage, between decoding and the store.
+ *
+ * {@link #accept} checks BodyLength and CheckSum with a {@link FixValidator};
+ * a message that fails is sent to the {@link DeadLetterStream} with the
+ * reason instead of being stored. This catches messages cut short or run
+ * together by a bad split, and any corrupted on the way.
+ *
+ * {@link #checkSequence} follows MsgSeqNum per SenderCompID/TargetCompID
+ * session with a {@link SequenceTracker}: per direction, as FIX numbers
+ * them, or with {@code sequence-scope=pair} one counter for both
+ * directions, as the sample log does. Gaps and numbers lower than
+ * expected (without PossDupFlag=Y) are dead-lettered as events; the message
+ * itself is still stored. SequenceReset (35=4) and ResetSeqNumFlag=Y move
+ * the expectation instead of being checked. A tracker has to see a
+ * session's messages in stream order, which holds for one worker per
+ * instance; a reconnect or an entry claimed from another consumer can
+ * still show up as too low.
+ */
+@Component
+public class MessageValidation {
+
+    private static final byte[] YES = { 'Y' };
+    private static final byte[] SEQUENCE_RESET = { '4' };
+
+    private final DeadLetterStream deadLetters;
+    private final boolean enabled;
+    private final boolean sequenceChecks;
+    private final boolean perPair;
+    private final Map<FixValidator.Result, Counter> invalid = new EnumMap<>(FixValidator.Result.class);
+    private final Counter gaps;
+    private final Counter tooLow;
+    private final Counter resets;
+    private final Counter missing;
+    private final RateLimitedLog invalidLog;
+    private final RateLimitedLog sequenceLog;
+
+    public MessageValidation(DeadLetterStream deadLetters, MeterRegistry registry, PipelineMetrics metrics,
+                             @Value("${fix.validation.enabled:true}") boolean enabled,
+                             @Value("${fix.validation.sequence-checks:true}") boolean sequenceChecks,
+                             @Value("${fix.validation.sequence-scope:direction}") String sequenceScope) {
+        this.deadLetters = deadLetters;
+        this.enabled = enabled;
+        this.sequenceChecks = sequenceChecks;
+        this.perPair = "pair".equalsIgnoreCase(sequenceScope);
+        for (FixValidator.Result result : FixValidator.Result.values()) {
+            if (result != FixValidator.Result.VALID) {
+                invalid.put(result, Counter.builder("fix.validation.invalid").tag("reason", reason(result))
+                        .description("Messages rejected by the BodyLength/CheckSum check").register(registry));
+            }
+        }
+        this.gaps = sequenceCounter(registry, "gap");
+        this.tooLow = sequenceCounter(registry, "too_low");
+        this.resets = sequenceCounter(registry, "reset");
+        this.missing = Counter.builder("fix.validation.missing")
+                .description("MsgSeqNums skipped over by gaps").register(registry);
+        this.invalidLog = metrics.summaryLog("Rejected invalid FIX messages to " + deadLetters.streamKey(), "last");
+        this.sequenceLog = metrics.summaryLog("FIX sequence gaps and repeats", "last");
+        System.out.println("FIX validation: " + (enabled ? (FixValidator.isVectorAvailable()
+                ? "vectorized" : "scalar") + " checksum" : "off") + ", sequence checks "
+                + (sequenceChecks ? "per " + (perPair ? "pair" : "direction") : "off"));
+    }
+
+    private static Counter sequenceCounter(MeterRegistry registry, String event) {
+        return Counter.builder("fix.validation.sequence").tag("event", event)
+                .description("MsgSeqNum events per session").register(registry);
+    }
+
+    /**
+     * Validates the message {@code decoder} wraps.
+     *
+     * @return true if it should be stored; false if it was dead-lettered
+     */
+    public boolean accept(FixValidator validator, FixDecoder decoder, String raw, long receivedAt) {
+        if (!enabled) {
+            return true;
+        }
+        FixValidator.Result result = validator.validate(decoder);
+        if (result == FixValidator.Result.VALID) {
+            return true;
+        }
+        invalid.get(result).increment();
+        Map<String, String> entry = new LinkedHashMap<>();
+        entry.put("reason", reason(result));
+        entry.put("detail", describe(validator, result));
+        entry.put("receivedAt", Long.toString(receivedAt));
+        entry.put("fixMessage", raw);
+        deadLetters.publish(entry);
+        invalidLog.record(1, reason(result));
+        return false;
+    }
+
+    /** A tracker for one worker, or null when sequence checks are off. */
+    public SequenceTracker newTracker() {
+        return sequenceChecks ? new SequenceTracker(64) : null;
+    }
+
+    /**
+     * Checks the MsgSeqNum of a stored message. Call in stream order.
+     *
+     * @param resetTo what {@link #resetTo} read from the message
+     */
+    public void checkSequence(SequenceTracker tracker, FixMessageRecord record, boolean possDup, long resetTo) {
+        if (tracker == null || record.getSenderId() == 0 || record.getTargetId() == 0 || !record.hasMsgSeqNum()) {
+            return;
+        }
+        int first = record.getSenderId();
+        int second = record.getTargetId();
+        if (perPair && first > second) {
+            first = record.getTargetId();
+            second = record.getSenderId();
+        }
+        long session = (long) first << 32 | (second & 0xffffffffL);
+        if (resetTo != FixMessageRecord.NULL) {
+            tracker.reset(session, resetTo);
+            resets.increment();
+            return;
+        }
+        long seqNum = record.getMsgSeqNum();
+        switch (tracker.check(session, seqNum, possDup)) {
+            case GAP -> {
+                gaps.increment();
+                missing.increment(seqNum - tracker.expected());
+                sequenceEvent("gap", record, tracker.expected());
+            }
+            case TOO_LOW -> {
+                tooLow.increment();
+                sequenceEvent("too_low", record, tracker.expected());
+            }
+            default -> {
+            }
+        }
+    }
+
+    private void sequenceEvent(String reason, FixMessageRecord record, long expected) {
+        String session = record.getSenderCompID() + (perPair ? "<->" : "->") + record.getTargetCompID();
+        Map<String, String> entry = new LinkedHashMap<>();
+        entry.put("reason", reason);
+        entry.put("detail", "expected " + expected + ", received " + record.getMsgSeqNum());
+        entry.put("session", session);
+        entry.put("expected", Long.toString(expected));
+        entry.put("received", Long.toString(record.getMsgSeqNum()));
+        entry.put("receivedAt", Long.toString(record.getReceivedAt()));
+        entry.put("fixMessage", record.getRawMessage());
+        deadLetters.publish(entry);
+        sequenceLog.record(1, reason + " " + session + " expected=" + expected + " received=" + record.getMsgSeqNum());
+    }
+
+    public static boolean possDup(FixDecoder fix) {
+        return fix.valueEquals(FixTags.POSS_DUP_FLAG, YES);
+    }
+
+    /**
+     * The MsgSeqNum expected after this message if it resets the sequence:
+     * NewSeqNo (36) of a SequenceReset, or the next number after a message
+     * with ResetSeqNumFlag=Y. {@link FixMessageRecord#NULL} otherwise.
+     */
+    public static long resetTo(FixDecoder fix, FixMessageRecord record) {
+        try {
+            if (fix.valueEquals(FixTags.MSG_TYPE, SEQUENCE_RESET)) {
+                return fix.getLong(FixTags.NEW_SEQ_NO, FixMessageRecord.NULL);
+            }
+        } catch (NumberFormatException e) {
+            return FixMessageRecord.NULL;
+        }
+        if (record.hasMsgSeqNum() && fix.valueEquals(FixTags.RESET_SEQ_NUM_FLAG, YES)) {
+            return record.getMsgSeqNum() + 1;
+        }
+        return FixMessageRecord.NULL;
+    }
+
+    /** What is wrong with a message, for people. */
+    public static String describe(FixValidator validator, FixValidator.Result result) {
+        return switch (result) {
+            case VALID -> "valid";
+            case MALFORMED -> "not framed as 8=...|9=...|...|10=NNN|";
+            case BAD_BODY_LENGTH -> "BodyLength " + validator.declaredBodyLength() + ", counted " + validator.bodyLength();
+            case BAD_CHECKSUM -> "CheckSum " + validator.declaredChecksum() + ", computed " + validator.checksum();
+            case UNMAPPABLE_CHARACTER -> "character above 0xFF, not a FIX byte";
+        };
+    }
+
+    private static String reason(FixValidator.Result result) {
+        return switch (result) {
+            case VALID -> "valid";
+            case MALFORMED -> "malformed";
+            case BAD_BODY_LENGTH -> "body_length";
+            case BAD_CHECKSUM -> "checksum";
+            case UNMAPPABLE_CHARACTER -> "character";
+        };
+    }
+}
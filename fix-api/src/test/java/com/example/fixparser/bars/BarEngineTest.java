@@ -0,0 +1,127 @@
+package com.example.fixparser.bars;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BarEngineTest {
+
+    private static final long PX = 100_000_000L; // 1.0 at PRICE_SCALE
+    private static final long SECOND = 1_000_000L;
+    private static final long T0 = 1_760_739_300L * SECOND; // a 5m boundary
+
+    @Test
+    void buildsOhlcVwapAndSideVolumeRegardlessOfArrivalOrder() {
+        BarEngine inOrder = new BarEngine(60, 60, 60);
+        BarEngine shuffled = new BarEngine(60, 60, 60);
+        long[][] prints = {
+                {T0 + 100_000, 10 * PX, 100, '1'},
+                {T0 + 200_000, 12 * PX, 300, '2'},
+                {T0 + 300_000, 9 * PX, 100, '1'},
+                {T0 + 400_000, 11 * PX, 500, 0},
+        };
+        for (long[] p : prints) {
+            inOrder.add(1, p[0], p[1], p[2], (char) p[3]);
+        }
+        for (int i : new int[] {3, 1, 0, 2}) {
+            shuffled.add(1, prints[i][0], prints[i][1], prints[i][2], (char) prints[i][3]);
+        }
+
+        BarEngine.Bar bar = inOrder.latest(1, BarResolution.SECOND, 1, Long.MAX_VALUE).get(0);
+        assertEquals(T0, bar.start());
+        assertEquals(10 * PX, bar.open());
+        assertEquals(12 * PX, bar.high());
+        assertEquals(9 * PX, bar.low());
+        assertEquals(11 * PX, bar.close());
+        assertEquals(1000, bar.volume());
+        assertEquals(200, bar.buyVolume());
+        assertEquals(300, bar.sellVolume());
+        assertEquals(4, bar.trades());
+        assertEquals((10 * 100 + 12 * 300 + 9 * 100 + 11 * 500) * PX / 1000, bar.vwap());
+
+        assertEquals(bar, shuffled.latest(1, BarResolution.SECOND, 1, Long.MAX_VALUE).get(0));
+    }
+
+    @Test
+    void coarserBarsAreTheRollupOfFinerOnes() {
+        BarEngine engine = new BarEngine(600, 60, 60);
+        for (int s = 0; s < 300; s += 7) {
+            engine.add(1, T0 + s * SECOND, (100 + s % 13) * PX, 10 + s, s % 2 == 0 ? '1' : '2');
+        }
+
+        List<BarEngine.Bar> seconds = engine.latest(1, BarResolution.SECOND, 600, Long.MAX_VALUE);
+        List<BarEngine.Bar> minutes = engine.latest(1, BarResolution.MINUTE, 60, Long.MAX_VALUE);
+        BarEngine.Bar five = engine.latest(1, BarResolution.FIVE_MINUTES, 1, Long.MAX_VALUE).get(0);
+
+        assertEquals(5, minutes.size());
+        assertEquals(seconds.stream().mapToLong(BarEngine.Bar::volume).sum(), five.volume());
+        assertEquals(minutes.stream().mapToLong(BarEngine.Bar::trades).sum(), five.trades());
+        assertEquals(minutes.stream().mapToLong(BarEngine.Bar::high).max().getAsLong(), five.high());
+        assertEquals(minutes.get(minutes.size() - 1).open(), five.open());
+        assertEquals(minutes.get(0).close(), five.close());
+    }
+
+    @Test
+    void recyclesSlotsAndKeepsEvictedDirtyBarsUntilDrained() {
+        BarEngine engine = new BarEngine(4, 4, 4);
+        for (int s = 0; s < 6; s++) {
+            engine.add(1, T0 + s * SECOND, PX, 1, '1');
+        }
+
+        List<BarEngine.Bar> latest = engine.latest(1, BarResolution.SECOND, 10, Long.MAX_VALUE);
+        assertEquals(4, latest.size());
+        assertEquals(T0 + 5 * SECOND, latest.get(0).start());
+        assertEquals(T0 + 2 * SECOND, engine.windowStart(1, BarResolution.SECOND));
+
+        // Six 1s bars (two evicted), one 1m and one 5m bar.
+        assertEquals(8, engine.drainDirty().size());
+        assertTrue(engine.drainDirty().isEmpty());
+
+        assertFalse(engine.add(1, T0, PX, 1, '1'), "older than the 1s window");
+        assertEquals(1, engine.late());
+        assertEquals(7, engine.latest(1, BarResolution.MINUTE, 1, Long.MAX_VALUE).get(0).trades());
+    }
+
+    @Test
+    void drainsTheSumsAddedSinceTheLastDrain() {
+        BarEngine engine = new BarEngine(60, 60, 60);
+        engine.load(new BarEngine.Bar(1, BarResolution.SECOND, T0, 10 * PX, 10 * PX, 10 * PX, 10 * PX,
+                T0, T0, 100, 100, 0, 1, 1000.0 * PX));
+        engine.add(1, T0 + 100_000, 12 * PX, 50, '2');
+        BarEngine.Bar first = secondBar(engine.drainDirty());
+        assertEquals(50, first.volume(), "the loaded prints are not drained again");
+        assertEquals(1, first.trades());
+        assertEquals(12 * PX, first.high());
+        assertEquals(10 * PX, first.open());
+
+        engine.add(1, T0 + 200_000, 9 * PX, 20, '1');
+        BarEngine.Bar second = secondBar(engine.drainDirty());
+        assertEquals(20, second.volume());
+        assertEquals(20, second.buyVolume());
+        assertEquals(9 * PX, second.low());
+        assertEquals(9 * PX, second.close());
+    }
+
+    private static BarEngine.Bar secondBar(List<BarEngine.Bar> bars) {
+        return bars.stream().filter(bar -> bar.resolution() == BarResolution.SECOND).findFirst().orElseThrow();
+    }
+
+    @Test
+    void loadedBarsKeepTheirPrintsAndTakeNewOnes() {
+        BarEngine engine = new BarEngine(60, 60, 60);
+        engine.load(new BarEngine.Bar(1, BarResolution.MINUTE, T0, 10 * PX, 12 * PX, 9 * PX, 11 * PX,
+                T0 + SECOND, T0 + 30 * SECOND, 100, 60, 40, 3, 1050.0 * PX));
+
+        engine.add(1, T0 + 40 * SECOND, 13 * PX, 50, '2');
+
+        BarEngine.Bar bar = engine.latest(1, BarResolution.MINUTE, 1, Long.MAX_VALUE).get(0);
+        assertEquals(10 * PX, bar.open());
+        assertEquals(13 * PX, bar.high());
+        assertEquals(13 * PX, bar.close());
+        assertEquals(150, bar.volume());
+        assertEquals(90, bar.sellVolume());
+        assertEquals(4, bar.trades());
+    }
+}
@@ -0,0 +1,36 @@
+package com.example.fixparser.consumer;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class AdaptiveReadTest {
+
+    @Test
+    void growsWhileReadsComeBackFullAndShrinksWhenCaughtUp() {
+        AdaptiveRead read = new AdaptiveRead(1, 500, 200, 5000);
+        assertEquals(1, read.count());
+        for (int i = 0; i < 12; i++) {
+            read.onRead(read.count());
+        }
+        assertEquals(500, read.count(), "capped at maxCount");
+
+        read.onRead(300);
+        assertEquals(500, read.count(), "more than half full: stays");
+        read.onRead(10);
+        assertEquals(250, read.count());
+        for (int i = 0; i < 12; i++) {
+            read.onRead(0);
+        }
+        assertEquals(1, read.count(), "caught up: single reads");
+    }
+
+    @Test
+    void blocksLongOnlyWithNothingInHand() {
+        AdaptiveRead read = new AdaptiveRead(1, 500, 200, 5000);
+        assertEquals(200, read.blockMs(true));
+        assertEquals(200, read.lastBlockMs());
+        assertEquals(5000, read.blockMs(false));
+        assertEquals(5000, read.lastBlockMs());
+    }
+}
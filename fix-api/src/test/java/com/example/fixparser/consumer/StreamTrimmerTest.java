@@ -0,0 +1,34 @@
+package com.example.fixparser.consumer;
+
+import org.junit.jupiter.api.Test;
+import redis.clients.jedis.StreamEntryID;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StreamTrimmerTest {
+
+    private static StreamEntryID id(long ms, long seq) {
+        return new StreamEntryID(ms, seq);
+    }
+
+    @Test
+    void trimsUpToTheOldestEntryAnyReaderStillNeeds() {
+        StreamTrimmer.ReaderPosition caughtUp = new StreamTrimmer.ReaderPosition(id(500, 3), null);
+        StreamTrimmer.ReaderPosition withPending = new StreamTrimmer.ReaderPosition(id(600, 0), id(420, 1));
+
+        assertEquals(id(500, 4), StreamTrimmer.trimPoint(List.of(caughtUp)), "everything delivered is acknowledged");
+        assertEquals(id(420, 1), StreamTrimmer.trimPoint(List.of(caughtUp, withPending)));
+    }
+
+    @Test
+    void aReaderThatHasReadNothingHoldsTheWholeStream() {
+        StreamTrimmer.ReaderPosition fresh = new StreamTrimmer.ReaderPosition(id(0, 0), null);
+        StreamTrimmer.ReaderPosition caughtUp = new StreamTrimmer.ReaderPosition(id(500, 3), null);
+
+        assertEquals(id(0, 1), StreamTrimmer.trimPoint(List.of(caughtUp, fresh)));
+        assertNull(StreamTrimmer.trimPoint(List.of()), "no readers, nothing is known to be persisted");
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.fixparser.dedup;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RotatingBloomFilterTest {
+
+    private static final long WINDOW = 1_000;
+
+    @Test
+    void remembersKeysForAtLeastOneWindow() {
+        RotatingBloomFilter filter = new RotatingBloomFilter(1_000, 0.01, WINDOW, 0);
+        assertFalse(filter.add(42, 0));
+        assertTrue(filter.add(42, 10));
+
+        // Rotated once: 42 is in the previous filter and still reported.
+        assertFalse(filter.add(7, WINDOW));
+        assertTrue(filter.add(42, WINDOW + 10), "seen within the last window");
+        assertEquals(1, filter.rotations());
+
+        // 42 was added again at WINDOW + 10, so it survives the next rotation too; 99 never was.
+        assertTrue(filter.add(42, 2 * WINDOW));
+        assertFalse(filter.add(99, 2 * WINDOW));
+
+        // Two windows with no repeat of 7 forget it.
+        filter.add(1, 3 * WINDOW);
+        filter.add(2, 4 * WINDOW);
+        assertFalse(filter.add(7, 4 * WINDOW + 1));
+    }
+
+    @Test
+    void falsePositivesStayNearTheConfiguredRate() {
+        int keys = 100_000;
+        RotatingBloomFilter filter = new RotatingBloomFilter(keys, 0.01, Long.MAX_VALUE, 0);
+        for (long key = 0; key < keys; key++) {
+            filter.add(key, 0);
+        }
+        for (long key = 0; key < keys; key++) {
+            assertTrue(filter.add(key, 0), "no false negatives");
+        }
+        int falsePositives = 0;
+        for (long key = keys; key < 2L * keys; key++) {
+            if (filter.add(key, 0)) {
+                falsePositives++;
+            }
+        }
+        // The current filter fills up after `keys` keys and rotates; the old keys then sit in the previous one.
+        assertTrue(falsePositives < keys * 0.02, "false positives: " + falsePositives);
+    }
+}
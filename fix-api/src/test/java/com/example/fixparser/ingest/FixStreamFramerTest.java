@@ -0,0 +1,70 @@
+package com.example.fixparser.ingest;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixStreamFramerTest {
+
+    private static final String ORDER = "8=FIX.4.4\u00019=20\u000135=D\u000155=SPY\u000110=104\u0001";
+    private static final String HEARTBEAT = "8=FIX.4.4|9=5|35=0|10=161|";
+
+    private final List<String> messages = new ArrayList<>();
+    private final List<String> rejects = new ArrayList<>();
+
+    private final FixStreamFramer.Sink sink = new FixStreamFramer.Sink() {
+        @Override
+        public void onMessage(byte[] buffer, int offset, int length, long streamOffset) {
+            messages.add(streamOffset + ":" + new String(buffer, offset, length, StandardCharsets.US_ASCII));
+        }
+
+        @Override
+        public void onReject(long streamOffset, String reason) {
+            rejects.add(streamOffset + ":" + reason);
+        }
+    };
+
+    /** Feeds the input one byte at a time, the worst case for chunk boundaries. */
+    private void frame(String input, int maxMessageBytes) {
+        FixStreamFramer framer = new FixStreamFramer(sink, maxMessageBytes);
+        byte[] bytes = input.getBytes(StandardCharsets.US_ASCII);
+        for (int i = 0; i < bytes.length; i++) {
+            framer.feed(bytes, i, 1);
+        }
+        framer.finish();
+    }
+
+    @Test
+    void splitsBackToBackMessagesOnTheirCheckSum() {
+        frame(ORDER + ORDER + HEARTBEAT, 1024);
+
+        assertEquals(List.of("0:" + ORDER, ORDER.length() + ":" + ORDER, 2 * ORDER.length() + ":" + HEARTBEAT),
+                messages);
+    }
+
+    @Test
+    void acceptsLinesJsonStringsAndMessagesWithoutCheckSum() {
+        frame("8=FIX.4.4|35=0\n\"" + HEARTBEAT + "\"\r\n" + "8=FIX.4.4|35=1|" + ORDER, 1024);
+
+        assertEquals(4, messages.size());
+        assertEquals("0:8=FIX.4.4|35=0", messages.get(0));
+        assertEquals("16:" + HEARTBEAT, messages.get(1));
+        assertTrue(messages.get(2).endsWith(":8=FIX.4.4|35=1|"), messages.get(2));
+        assertTrue(messages.get(3).endsWith(":" + ORDER));
+        assertTrue(rejects.isEmpty());
+    }
+
+    @Test
+    void skipsOversizedMessagesAndResumesAtTheNext() {
+        String big = "8=FIX.4.4|35=D|58=" + "x".repeat(100) + "|10=000|";
+
+        frame(big + HEARTBEAT, 64);
+
+        assertEquals(List.of("0:message exceeds 64 bytes"), rejects);
+        assertEquals(List.of(big.length() + ":" + HEARTBEAT), messages);
+    }
+}
@@ -0,0 +1,56 @@
+package com.example.fixparser.marketdata;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixparser.consumer.FixMessageMapper;
+import com.example.fixparser.model.FixDictionaries;
+import com.example.fixparser.model.FixMessageRecord;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MarketDataBooksTest {
+
+    private final FixDecoder decoder = new FixDecoder();
+    private final FixDictionaries dictionaries = FixDictionaries.local();
+    private final MarketDataBooks books = new MarketDataBooks(new SimpleMeterRegistry());
+
+    private void feed(String message) {
+        FixMessageRecord record = FixMessageMapper.toRecord(decoder.wrap(message), message, 0, dictionaries);
+        books.onCommitted(List.of(record));
+    }
+
+    @Test
+    void snapshotReplacesTheBookAndKeepsEveryEntry() {
+        feed("35=W|52=20251017-22:18:03.105|55=SPY|268=3|269=0|270=441.10|271=300|269=0|270=441.05|271=100|269=1|270=441.20|271=500|10=000|");
+
+        OrderBook.Depth depth = books.book("SPY").depth(10);
+        assertEquals(List.of(new OrderBook.Level(new BigDecimal("441.10000000"), 300),
+                new OrderBook.Level(new BigDecimal("441.05000000"), 100)), depth.bids());
+        assertEquals(1, depth.asks().size());
+
+        feed("35=W|52=20251017-22:18:04.105|55=SPY|268=1|269=1|270=442|271=10|10=000|");
+        OrderBook.Top top = books.book("SPY").top();
+        assertNull(top.bid());
+        assertEquals(0, new BigDecimal("442").compareTo(top.ask()));
+        assertEquals(10L, top.askSize());
+    }
+
+    @Test
+    void incrementalRefreshAddsChangesAndDeletesPerSymbol() {
+        feed("35=W|55=AAPL|268=1|269=0|270=150|271=10|10=000|");
+        feed("35=X|268=3|279=0|269=0|55=AAPL|270=151|271=5|279=1|269=0|55=AAPL|270=150|271=20|279=0|269=1|55=MSFT|270=300|271=7|10=000|");
+
+        OrderBook.Depth aapl = books.book("AAPL").depth(10);
+        assertEquals(2, aapl.bids().size());
+        assertEquals(5, aapl.bids().get(0).size());
+        assertEquals(20, aapl.bids().get(1).size());
+        assertEquals(7L, books.book("MSFT").top().askSize());
+
+        feed("35=X|268=1|279=2|269=0|55=AAPL|270=151|10=000|");
+        assertEquals(20L, books.book("AAPL").top().bidSize());
+    }
+}
@@ -0,0 +1,155 @@
+package com.example.fixparser.orders;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.List;
+
+import static com.example.fixparser.model.FixMessageRecord.NULL;
+import static org.junit.jupiter.api.Assertions.*;
+
+class OrderStateEngineTest {
+
+    private static final long PX = 100_000_000L; // 1.0 at PRICE_SCALE
+
+    private static OrderEvent newOrder(String clOrdId, String symbol, long qty, long time) {
+        return new OrderEvent('D', clOrdId, null, symbol, '1', qty, 10 * PX, '\0',
+                NULL, NULL, NULL, NULL, NULL, time, time);
+    }
+
+    private static OrderEvent replace(String clOrdId, String orig, long qty, long time) {
+        return new OrderEvent('G', clOrdId, orig, "SPY", '1', qty, 11 * PX, '\0',
+                NULL, NULL, NULL, NULL, NULL, time, time);
+    }
+
+    private static OrderEvent report(String clOrdId, char status, long cum, long leaves, long time) {
+        return new OrderEvent('8', clOrdId, null, "SPY", '\0', NULL, NULL, status,
+                cum, leaves, 11 * PX, cum, 11 * PX, time, time);
+    }
+
+    @Test
+    void followsTheClOrdIdChainToFill() {
+        OrderStateEngine engine = new OrderStateEngine(16);
+        engine.apply(newOrder("A1", "SPY", 100, 1_000));
+        engine.apply(replace("A2", "A1", 150, 2_000));
+        engine.apply(report("A2", '1', 50, 100, 3_000));
+
+        OrderStateEngine.OrderView order = engine.find("A1");
+        assertEquals(List.of("A1", "A2"), order.clOrdIdChain());
+        assertEquals("A2", order.clOrdId());
+        assertEquals("PartiallyFilled", order.ordStatusName());
+        assertEquals(150, order.orderQty());
+        assertEquals(100, order.leavesQty());
+        assertEquals(1, engine.openOrders("SPY", 10).size());
+
+        engine.apply(report("A2", '2', 150, 0, 4_000));
+        assertFalse(engine.find("A2").open());
+        assertTrue(engine.openOrders("SPY", 10).isEmpty());
+
+        // An older event replayed after the fill must not reopen the order.
+        engine.apply(report("A2", '1', 50, 100, 3_000));
+        assertEquals("2", engine.find("A1").ordStatus());
+        assertEquals(1, engine.stats().stale());
+    }
+
+    @Test
+    void countsUnmatchedAndDuplicateRequests() {
+        OrderStateEngine engine = new OrderStateEngine(16);
+        engine.apply(newOrder("A1", "SPY", 100, 1_000));
+        engine.apply(newOrder("A1", "SPY", 100, 1_000));
+        engine.apply(replace("B2", "UNKNOWN", 10, 2_000));
+
+        OrderStateEngine.Stats stats = engine.stats();
+        assertEquals(1, stats.orders());
+        assertEquals(1, stats.duplicates());
+        assertEquals(1, stats.unmatched());
+        assertNull(engine.find("B2"));
+    }
+
+    @Test
+    void purgesClosedOrdersAndReusesTheirSlots() {
+        OrderStateEngine engine = new OrderStateEngine(16);
+        for (int i = 0; i < 5_000; i++) {
+            engine.apply(newOrder("C" + i, "SYM" + (i % 7), 10, i));
+            engine.apply(new OrderEvent('8', "C" + i, null, null, '\0', NULL, NULL, i % 2 == 0 ? '4' : '0',
+                    0, 10, NULL, NULL, NULL, i, i));
+        }
+        assertEquals(2_500, engine.purgeClosed(0));
+        assertEquals(2_500, engine.stats().orders());
+        assertNull(engine.find("C0"));
+        assertNotNull(engine.find("C4999"));
+
+        engine.apply(newOrder("C0", "SYM0", 10, 10_000));
+        assertEquals("PendingNew", engine.find("C0").ordStatusName());
+        assertEquals(2_501, engine.stats().orders());
+    }
+
+    @Test
+    void cancelRejectRestoresTheOrder() {
+        OrderStateEngine engine = new OrderStateEngine(16);
+        engine.apply(newOrder("A1", "SPY", 100, 1_000));
+        engine.apply(report("A1", '1', 40, 60, 2_000));
+        engine.apply(new OrderEvent('F', "A2", "A1", "SPY", '1', NULL, NULL, '\0',
+                NULL, NULL, NULL, NULL, NULL, 3_000, 3_000));
+        assertEquals("PendingCancel", engine.find("A1").ordStatusName());
+
+        engine.apply(new OrderEvent('9', "A2", "A1", null, '\0', NULL, NULL, '\0',
+                NULL, NULL, NULL, NULL, NULL, 4_000, 4_000));
+        OrderStateEngine.OrderView order = engine.find("A1");
+        assertEquals("PartiallyFilled", order.ordStatusName());
+        assertEquals(List.of("A1"), order.clOrdIdChain());
+        assertNull(engine.find("A2"));
+        assertEquals(1, engine.openOrderCount());
+    }
+
+    @Test
+    void replayAfterASnapshotNeitherCountsDuplicatesNorRevivesPurgedOrders() throws IOException {
+        OrderStateEngine engine = new OrderStateEngine(16);
+        engine.apply(newOrder("A1", "SPY", 100, 1_000));
+        engine.apply(report("A1", '2', 100, 0, 2_000));
+        engine.apply(newOrder("B1", "SPY", 10, 50_000));
+        assertEquals(1, engine.purgeClosed(10_000));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        engine.writeSnapshot(new DataOutputStream(bytes));
+        OrderStateEngine restored = new OrderStateEngine(16);
+        restored.readSnapshot(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        // The replay margin covers everything above.
+        restored.apply(newOrder("A1", "SPY", 100, 1_000));
+        restored.apply(report("A1", '2', 100, 0, 2_000));
+        restored.apply(newOrder("B1", "SPY", 10, 50_000));
+        assertNull(restored.find("A1"));
+        assertEquals(1, restored.orderCount());
+        assertEquals(0, restored.stats().duplicates());
+
+        // Received after the snapshot: live traffic again.
+        restored.apply(new OrderEvent('D', "B1", null, "SPY", '1', 10, 10 * PX, '\0',
+                NULL, NULL, NULL, NULL, NULL, 60_000, 60_000));
+        assertEquals(1, restored.stats().duplicates());
+    }
+
+    @Test
+    void snapshotRoundTrip() throws IOException {
+        OrderStateEngine engine = new OrderStateEngine(16);
+        engine.apply(newOrder("A1", "SPY", 100, 1_000));
+        engine.apply(replace("A2", "A1", 150, 2_000));
+        engine.apply(newOrder("B1", "QQQ", 5, 2_500));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        long watermark = engine.writeSnapshot(new DataOutputStream(bytes));
+
+        OrderStateEngine restored = new OrderStateEngine(16);
+        restored.readSnapshot(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+
+        assertEquals(2_500, watermark);
+        assertEquals(watermark, restored.watermark());
+        assertEquals(engine.find("A2"), restored.find("A1"));
+        assertEquals(engine.openCounts(), restored.openCounts());
+        assertEquals(2, restored.stats().openOrders());
+    }
+}
@@ -0,0 +1,29 @@
+package com.example.fixparser.query;
+
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MessageRowTest {
+
+    @Test
+    void writesCsvWithQuotingOnlyWhereNeeded() {
+        MessageRow row = new MessageRow(7, "D", "BRK,B", "1", 100L, new BigDecimal("10.50000000"),
+                "BUY \"A\"", null, Instant.parse("2025-10-17T22:18:03.105Z"), Instant.parse("2025-10-17T22:18:03.200Z"),
+                "8=FIX.4.4\u000135=D\u0001");
+
+        assertEquals("7,D,\"BRK,B\",1,100,10.50000000,\"BUY \"\"A\"\"\",,2025-10-17T22:18:03.105Z,"
+                + "2025-10-17T22:18:03.200Z,8=FIX.4.4|35=D|", row.toCsv());
+    }
+
+    @Test
+    void cursorRoundTrips() {
+        MessageQueries.Cursor cursor = new MessageQueries.Cursor(1_760_739_483_105_000L, 42);
+
+        assertEquals(cursor, MessageQueries.Cursor.parse(cursor.toString()));
+        assertThrows(IllegalArgumentException.class, () -> MessageQueries.Cursor.parse("42"));
+    }
+}
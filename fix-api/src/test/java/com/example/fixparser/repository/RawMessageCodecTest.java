@@ -0,0 +1,31 @@
+package com.example.fixparser.repository;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RawMessageCodecTest {
+
+    private static final String ORDER =
+            "8=FIX.4.4\u00019=139\u000135=D\u000134=1\u000149=BUY_SIDE_8XKV\u000156=SELL_SIDE_YXTZ\u0001"
+            + "52=20251017-22:18:03.105\u000111=DBMMGSM2UA\u000155=SPY\u000154=2\u000138=3550\u0001"
+            + "44=441.16\u000140=2\u000159=0\u000110=104\u0001";
+
+    @Test
+    void roundTripsAndShrinksATypicalMessage() {
+        byte[] encoded = RawMessageCodec.encode(ORDER);
+
+        assertTrue(encoded.length < ORDER.length() * 3 / 4, "encoded to " + encoded.length + " bytes");
+        assertEquals(ORDER, RawMessageCodec.decode(encoded));
+    }
+
+    @Test
+    void storesIncompressibleInputVerbatim() {
+        String noise = "\u00ff\u0080q";
+
+        byte[] encoded = RawMessageCodec.encode(noise);
+
+        assertEquals(noise.length() + 1, encoded.length);
+        assertEquals(noise, RawMessageCodec.decode(encoded));
+    }
+}
@@ -0,0 +1,103 @@
+package com.example.fixarchive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Appends rows to an archive, rolling segments by day and size.
+ *
+ * Each row goes to the open segment of its event time's UTC day, so a
+ * segment never spans days, even when old messages are replayed next to
+ * live ones. A segment is written once it holds {@code segmentRows} rows,
+ * and every open segment on {@link #flush()}. Rows appended but not yet
+ * flushed are only in memory.
+ *
+ * Not thread-safe.
+ */
+public final class ArchiveWriter {
+
+    private final SegmentArchive archive;
+    private final int segmentRows;
+    private final Map<LocalDate, SegmentWriter> open = new TreeMap<>();
+    private long nextSequence;
+    private long segmentsWritten;
+    private long bytesWritten;
+
+    public ArchiveWriter(SegmentArchive archive, int segmentRows) throws IOException {
+        if (segmentRows < 1) {
+            throw new IllegalArgumentException("segmentRows must be >= 1");
+        }
+        this.archive = archive;
+        this.segmentRows = segmentRows;
+        this.nextSequence = archive.nextSequence();
+    }
+
+    /**
+     * Adds one row; see {@link SegmentWriter#append}. A row without any time
+     * is filed under the current day.
+     */
+    public void append(String msgType, String symbol, char side, long orderQty, long price,
+                       String senderCompID, String targetCompID, long sendingTime, long receivedAt,
+                       byte[] raw) throws IOException {
+        long eventTime = sendingTime != Segment.NULL ? sendingTime : receivedAt;
+        LocalDate day = eventTime != Segment.NULL ? SegmentArchive.day(eventTime) : LocalDate.now(ZoneOffset.UTC);
+        SegmentWriter writer = open.computeIfAbsent(day, d -> new SegmentWriter());
+        writer.append(msgType, symbol, side, orderQty, price, senderCompID, targetCompID, sendingTime, receivedAt, raw);
+        if (writer.rows() >= segmentRows) {
+            write(day, writer);
+            open.remove(day);
+        }
+    }
+
+    /**
+     * Writes every open segment. On a failure the segments not yet written
+     * stay open, so the next flush retries them.
+     *
+     * @return the files written
+     */
+    public List<Path> flush() throws IOException {
+        List<Path> written = new ArrayList<>();
+        Iterator<Map.Entry<LocalDate, SegmentWriter>> it = open.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<LocalDate, SegmentWriter> entry = it.next();
+            written.add(write(entry.getKey(), entry.getValue()));
+            it.remove();
+        }
+        return written;
+    }
+
+    /** Rows appended but not yet written. */
+    public long pendingRows() {
+        long rows = 0;
+        for (SegmentWriter writer : open.values()) {
+            rows += writer.rows();
+        }
+        return rows;
+    }
+
+    public long segmentsWritten() {
+        return segmentsWritten;
+    }
+
+    public long bytesWritten() {
+        return bytesWritten;
+    }
+
+    private Path write(LocalDate day, SegmentWriter writer) throws IOException {
+        Path file = archive.pathFor(day, nextSequence);
+        Files.createDirectories(file.getParent());
+        writer.write(file, nextSequence);
+        nextSequence += writer.rows();
+        segmentsWritten++;
+        bytesWritten += Files.size(file);
+        return file;
+    }
+}
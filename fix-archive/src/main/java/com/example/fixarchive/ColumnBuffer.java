@@ -0,0 +1,109 @@
+package com.example.fixarchive;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Growable byte array one column is encoded into while a segment is built.
+ *
+ * Integers are LEB128 varints, seven bits per byte with the high bit set on
+ * every byte but the last; signed values and deltas are zigzag-mapped first
+ * so small negative numbers stay short too.
+ */
+final class ColumnBuffer {
+
+    private byte[] bytes;
+    private int size;
+
+    ColumnBuffer(int initialCapacity) {
+        bytes = new byte[Math.max(16, initialCapacity)];
+    }
+
+    int size() {
+        return size;
+    }
+
+    byte[] array() {
+        return bytes;
+    }
+
+    void putByte(int b) {
+        ensure(1);
+        bytes[size++] = (byte) b;
+    }
+
+    void putBytes(byte[] src, int offset, int length) {
+        ensure(length);
+        System.arraycopy(src, offset, bytes, size, length);
+        size += length;
+    }
+
+    void putVarLong(long value) {
+        ensure(10);
+        while ((value & ~0x7FL) != 0) {
+            bytes[size++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[size++] = (byte) value;
+    }
+
+    void putZigZag(long value) {
+        putVarLong((value << 1) ^ (value >> 63));
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    /** A view of the bytes written so far, for writing out. */
+    ByteBuffer view() {
+        return ByteBuffer.wrap(bytes, 0, size);
+    }
+
+    private void ensure(int extra) {
+        if (size + extra > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(bytes.length * 2, size + extra));
+        }
+    }
+
+    // -------------------------------------------------------
+    // Decoding, from the mapped file
+    // -------------------------------------------------------
+
+    /**
+     * Reads the varint at {@code pos[0]} of {@code buffer}, with absolute
+     * gets, and moves {@code pos[0]} past it.
+     */
+    static long getVarLong(ByteBuffer buffer, int[] pos) {
+        int p = pos[0];
+        long value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = buffer.get(p++);
+            value |= (long) (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        pos[0] = p;
+        return value;
+    }
+
+    static long getZigZag(ByteBuffer buffer, int[] pos) {
+        long value = getVarLong(buffer, pos);
+        return (value >>> 1) ^ -(value & 1);
+    }
+
+    static int getVarInt(byte[] bytes, int[] pos) {
+        int p = pos[0];
+        int value = 0;
+        int shift = 0;
+        byte b;
+        do {
+            b = bytes[p++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+        pos[0] = p;
+        return value;
+    }
+}
@@ -0,0 +1,386 @@
+package com.example.fixarchive;
+
+import com.github.luben.zstd.Zstd;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * One immutable segment file, memory-mapped read-only.
+ *
+ * <pre>
+ * header   magic "FIXSEG01", first sequence (long), rows (int), raw blocks (int),
+ *          min/max event time (long, long), min/max price (long, long),
+ *          section count (int), then (offset, length) ints per section
+ * sections DICTIONARY   msgType, symbol and CompID tables: count, then length-prefixed UTF-8
+ *          MSG_TYPE, SYMBOL, SENDER, TARGET   varint dictionary codes, 0 for absent
+ *          SIDE         one byte per row, 0 for absent
+ *          FLAGS        one byte per row: which of the optional values below it has
+ *          SENDING_TIME, RECEIVED_AT   zigzag varint delta from the previous present value
+ *          ORDER_QTY    zigzag varint
+ *          PRICE        zigzag varint delta from the previous present price
+ *          RAW_INDEX    per block: first row, raw length, offset and length in RAW_DATA (ints)
+ *          RAW_DATA     zstd-compressed blocks of length-prefixed raw messages
+ * </pre>
+ *
+ * The header is the segment's index: event time and price ranges, plus the
+ * symbol table, let a reader skip a segment without touching its columns.
+ * Rows are read through a {@link Cursor}, which decodes every column in one
+ * forward pass and only decompresses a raw block when a message in it is
+ * asked for. The mapping lives until the segment is garbage collected.
+ */
+public final class Segment {
+
+    public static final long NULL = Long.MIN_VALUE;
+    public static final int PRICE_SCALE = 8;
+
+    static final byte[] MAGIC = "FIXSEG01".getBytes(StandardCharsets.US_ASCII);
+
+    static final int HAS_SENDING_TIME = 1;
+    static final int HAS_RECEIVED_AT = 1 << 1;
+    static final int HAS_ORDER_QTY = 1 << 2;
+    static final int HAS_PRICE = 1 << 3;
+    static final int HAS_RAW = 1 << 4;
+
+    enum Section {
+        DICTIONARY, MSG_TYPE, SYMBOL, SENDER, TARGET, SIDE, FLAGS,
+        SENDING_TIME, RECEIVED_AT, ORDER_QTY, PRICE, RAW_INDEX, RAW_DATA
+    }
+
+    private static final int SECTION_TABLE = 60;
+    private static final int RAW_INDEX_ENTRY = 16;
+
+    private final Path path;
+    private final MappedByteBuffer buffer;
+    private final long firstSequence;
+    private final int rows;
+    private final int rawBlocks;
+    private final long minEventTime;
+    private final long maxEventTime;
+    private final long minPrice;
+    private final long maxPrice;
+    private final int[] sectionOffsets;
+    private final String[] msgTypes;
+    private final String[] symbols;
+    private final String[] compIds;
+
+    private Segment(Path path, MappedByteBuffer buffer) throws IOException {
+        this.path = path;
+        this.buffer = buffer;
+        byte[] magic = new byte[MAGIC.length];
+        buffer.get(0, magic);
+        if (buffer.capacity() < SECTION_TABLE || !Arrays.equals(magic, MAGIC)) {
+            throw new IOException("Not a segment file: " + path);
+        }
+        firstSequence = buffer.getLong(8);
+        rows = buffer.getInt(16);
+        rawBlocks = buffer.getInt(20);
+        minEventTime = buffer.getLong(24);
+        maxEventTime = buffer.getLong(32);
+        minPrice = buffer.getLong(40);
+        maxPrice = buffer.getLong(48);
+        int sections = buffer.getInt(56);
+        if (sections < Section.values().length) {
+            throw new IOException("Segment " + path + " has " + sections + " sections, expected "
+                    + Section.values().length);
+        }
+        sectionOffsets = new int[sections];
+        for (int i = 0; i < sections; i++) {
+            sectionOffsets[i] = buffer.getInt(SECTION_TABLE + i * 8);
+        }
+
+        int[] pos = {sectionOffsets[Section.DICTIONARY.ordinal()]};
+        msgTypes = readDictionary(pos);
+        symbols = readDictionary(pos);
+        compIds = readDictionary(pos);
+    }
+
+    /** Maps the segment file; only its header and dictionaries are read now. */
+    public static Segment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return new Segment(path, channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        }
+    }
+
+    static int headerSize(int sections) {
+        return SECTION_TABLE + sections * 8;
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    /** Archive-wide number of row 0; segments are written in sequence order. */
+    public long firstSequence() {
+        return firstSequence;
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    public long minEventTime() {
+        return minEventTime;
+    }
+
+    public long maxEventTime() {
+        return maxEventTime;
+    }
+
+    /** Smallest price in the segment, {@link #NULL} if no row has one. */
+    public long minPrice() {
+        return minPrice;
+    }
+
+    public long maxPrice() {
+        return maxPrice;
+    }
+
+    /** Distinct symbols in the segment, in first-seen order. */
+    public List<String> symbols() {
+        return Collections.unmodifiableList(Arrays.asList(symbols));
+    }
+
+    public boolean containsSymbol(String symbol) {
+        return Arrays.asList(symbols).contains(symbol);
+    }
+
+    /**
+     * Whether any row's event time may fall in [{@code fromMicros}, {@code toMicros}];
+     * {@link #NULL} leaves that end open.
+     */
+    public boolean overlaps(long fromMicros, long toMicros) {
+        if (minEventTime == NULL) {
+            return true; // no row has a time; it cannot be ruled out
+        }
+        return (fromMicros == NULL || maxEventTime >= fromMicros) && (toMicros == NULL || minEventTime <= toMicros);
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    private String[] readDictionary(int[] pos) {
+        int count = (int) ColumnBuffer.getVarLong(buffer, pos);
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = (int) ColumnBuffer.getVarLong(buffer, pos);
+            byte[] bytes = new byte[length];
+            buffer.get(pos[0], bytes);
+            pos[0] += length;
+            values[i] = new String(bytes, StandardCharsets.UTF_8);
+        }
+        return values;
+    }
+
+    private int[] start(Section section) {
+        return new int[] {sectionOffsets[section.ordinal()]};
+    }
+
+    @Override
+    public String toString() {
+        return path + " (" + rows + " rows from " + firstSequence + ")";
+    }
+
+    /**
+     * Forward-only reader over the rows; the accessors describe the row the
+     * last {@link #next()} moved to. String values are the segment's
+     * dictionary instances, so they can be compared and hashed cheaply. Not
+     * thread-safe; take one cursor per thread.
+     */
+    public final class Cursor {
+
+        private final int[] msgTypePos = start(Section.MSG_TYPE);
+        private final int[] symbolPos = start(Section.SYMBOL);
+        private final int[] senderPos = start(Section.SENDER);
+        private final int[] targetPos = start(Section.TARGET);
+        private final int[] sendingTimePos = start(Section.SENDING_TIME);
+        private final int[] receivedAtPos = start(Section.RECEIVED_AT);
+        private final int[] orderQtyPos = start(Section.ORDER_QTY);
+        private final int[] pricePos = start(Section.PRICE);
+        private final int sideOffset = sectionOffsets[Section.SIDE.ordinal()];
+        private final int flagsOffset = sectionOffsets[Section.FLAGS.ordinal()];
+
+        private int row = -1;
+        private int flags;
+        private String msgType;
+        private String symbol;
+        private String senderCompID;
+        private String targetCompID;
+        private long sendingTime = NULL;
+        private long receivedAt = NULL;
+        private long orderQty;
+        private long price;
+        private long lastSendingTime;
+        private long lastReceivedAt;
+        private long lastPrice;
+
+        // Raw messages: the block decompressed last, and how far into it has been walked.
+        private int block = -1;
+        private byte[] blockBytes;
+        private int blockRow;
+        private final int[] blockPos = new int[1];
+
+        private Cursor() {
+        }
+
+        public boolean next() {
+            if (row + 1 >= rows) {
+                return false;
+            }
+            row++;
+            flags = buffer.get(flagsOffset + row);
+            msgType = decode(msgTypes, msgTypePos);
+            symbol = decode(symbols, symbolPos);
+            senderCompID = decode(compIds, senderPos);
+            targetCompID = decode(compIds, targetPos);
+            if ((flags & HAS_SENDING_TIME) != 0) {
+                lastSendingTime += ColumnBuffer.getZigZag(buffer, sendingTimePos);
+                sendingTime = lastSendingTime;
+            } else {
+                sendingTime = NULL;
+            }
+            if ((flags & HAS_RECEIVED_AT) != 0) {
+                lastReceivedAt += ColumnBuffer.getZigZag(buffer, receivedAtPos);
+                receivedAt = lastReceivedAt;
+            } else {
+                receivedAt = NULL;
+            }
+            orderQty = (flags & HAS_ORDER_QTY) != 0 ? ColumnBuffer.getZigZag(buffer, orderQtyPos) : NULL;
+            if ((flags & HAS_PRICE) != 0) {
+                lastPrice += ColumnBuffer.getZigZag(buffer, pricePos);
+                price = lastPrice;
+            } else {
+                price = NULL;
+            }
+            return true;
+        }
+
+        private String decode(String[] dictionary, int[] pos) {
+            int code = (int) ColumnBuffer.getVarLong(buffer, pos);
+            return code == 0 ? null : dictionary[code - 1];
+        }
+
+        public long sequence() {
+            return firstSequence + row;
+        }
+
+        public String msgType() {
+            return msgType;
+        }
+
+        public String symbol() {
+            return symbol;
+        }
+
+        /** {@code '\0'} when absent. */
+        public char side() {
+            return (char) (buffer.get(sideOffset + row) & 0xFF);
+        }
+
+        public String senderCompID() {
+            return senderCompID;
+        }
+
+        public String targetCompID() {
+            return targetCompID;
+        }
+
+        public long sendingTime() {
+            return sendingTime;
+        }
+
+        public long receivedAt() {
+            return receivedAt;
+        }
+
+        /** SendingTime, or the receive time for messages without one. */
+        public long eventTime() {
+            return sendingTime != NULL ? sendingTime : receivedAt;
+        }
+
+        public long orderQty() {
+            return orderQty;
+        }
+
+        /** Fixed-point with {@link #PRICE_SCALE} decimals. */
+        public long price() {
+            return price;
+        }
+
+        public boolean hasOrderQty() {
+            return orderQty != NULL;
+        }
+
+        public boolean hasPrice() {
+            return price != NULL;
+        }
+
+        /**
+         * The raw message, or null if none was archived. Decompresses the
+         * row's block the first time one of its messages is asked for.
+         */
+        public byte[] raw() {
+            if ((flags & HAS_RAW) == 0) {
+                return null;
+            }
+            int wanted = blockOf(row);
+            if (wanted != block || blockRow > row) {
+                loadBlock(wanted);
+            }
+            // Skip the messages of the rows between the last one read and this one.
+            while (blockRow < row) {
+                if ((buffer.get(flagsOffset + blockRow) & HAS_RAW) != 0) {
+                    int skipped = ColumnBuffer.getVarInt(blockBytes, blockPos);
+                    blockPos[0] += skipped;
+                }
+                blockRow++;
+            }
+            int length = ColumnBuffer.getVarInt(blockBytes, blockPos);
+            byte[] raw = Arrays.copyOfRange(blockBytes, blockPos[0], blockPos[0] + length);
+            blockPos[0] += length;
+            blockRow++;
+            return raw;
+        }
+
+        private int blockOf(int target) {
+            int index = sectionOffsets[Section.RAW_INDEX.ordinal()];
+            int low = 0;
+            int high = rawBlocks - 1;
+            while (low < high) {
+                int mid = (low + high + 1) >>> 1;
+                if (buffer.getInt(index + mid * RAW_INDEX_ENTRY) <= target) {
+                    low = mid;
+                } else {
+                    high = mid - 1;
+                }
+            }
+            return low;
+        }
+
+        private void loadBlock(int index) {
+            int entry = sectionOffsets[Section.RAW_INDEX.ordinal()] + index * RAW_INDEX_ENTRY;
+            int rawLength = buffer.getInt(entry + 4);
+            int offset = sectionOffsets[Section.RAW_DATA.ordinal()] + buffer.getInt(entry + 8);
+            byte[] compressed = new byte[buffer.getInt(entry + 12)];
+            buffer.get(offset, compressed);
+            if (blockBytes == null || blockBytes.length < rawLength) {
+                blockBytes = new byte[rawLength];
+            }
+            long size = Zstd.decompressByteArray(blockBytes, 0, rawLength, compressed, 0, compressed.length);
+            if (Zstd.isError(size) || size != rawLength) {
+                throw new IllegalStateException("Corrupt raw block " + index + " in " + path);
+            }
+            block = index;
+            blockRow = buffer.getInt(entry);
+            blockPos[0] = 0;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.fixarchive;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.function.BinaryOperator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+
+/**
+ * A directory of segments, one subdirectory per UTC day of event time:
+ * {@code <dir>/2025-10-18/000000000001200000.fixseg}, named by the sequence
+ * of their first row. Every row of a segment belongs to its directory's day
+ * (see {@link ArchiveWriter}), so a time range first rules out whole days by
+ * name and then segments by their header.
+ *
+ * {@link #scan} runs one fork-join task per segment, for work whose result
+ * can be combined in any order such as report totals; {@link #replay} visits
+ * rows in archive order, one segment after the other.
+ */
+public final class SegmentArchive {
+
+    public static final String SUFFIX = ".fixseg";
+
+    private final Path dir;
+
+    public SegmentArchive(Path dir) {
+        this.dir = dir;
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    /** UTC day of an event time in epoch micros. */
+    public static LocalDate day(long eventMicros) {
+        return LocalDate.ofInstant(Instant.ofEpochSecond(Math.floorDiv(eventMicros, 1_000_000)), ZoneOffset.UTC);
+    }
+
+    /** Start of a UTC day, in epoch micros. */
+    public static long startOfDay(LocalDate day) {
+        return day.atStartOfDay(ZoneOffset.UTC).toEpochSecond() * 1_000_000;
+    }
+
+    /** Where the segment starting at {@code firstSequence} of {@code day} lives. */
+    public Path pathFor(LocalDate day, long firstSequence) {
+        return dir.resolve(day.toString()).resolve(String.format("%018d", firstSequence) + SUFFIX);
+    }
+
+    /** Every segment, in sequence order. */
+    public List<Segment> segments() throws IOException {
+        return segments(Segment.NULL, Segment.NULL);
+    }
+
+    /**
+     * Segments that may hold rows with an event time in
+     * [{@code fromMicros}, {@code toMicros}], in sequence order;
+     * {@link Segment#NULL} leaves that end open.
+     */
+    public List<Segment> segments(long fromMicros, long toMicros) throws IOException {
+        LocalDate fromDay = fromMicros == Segment.NULL ? null : day(fromMicros);
+        LocalDate toDay = toMicros == Segment.NULL ? null : day(toMicros);
+        List<Segment> segments = new ArrayList<>();
+        for (Path dayDir : dayDirs()) {
+            LocalDate day = LocalDate.parse(dayDir.getFileName().toString());
+            if ((fromDay != null && day.isBefore(fromDay)) || (toDay != null && day.isAfter(toDay))) {
+                continue;
+            }
+            for (Path file : segmentFiles(dayDir)) {
+                Segment segment = Segment.open(file);
+                if (segment.overlaps(fromMicros, toMicros)) {
+                    segments.add(segment);
+                }
+            }
+        }
+        segments.sort(Comparator.comparingLong(Segment::firstSequence));
+        return segments;
+    }
+
+    /** The sequence the next segment starts at: one past the last row archived, 0 for an empty archive. */
+    public long nextSequence() throws IOException {
+        long next = 0;
+        for (Path dayDir : dayDirs()) {
+            List<Path> files = segmentFiles(dayDir);
+            if (!files.isEmpty()) {
+                Segment last = Segment.open(files.get(files.size() - 1));
+                next = Math.max(next, last.firstSequence() + last.rows());
+            }
+        }
+        return next;
+    }
+
+    /**
+     * Runs {@code task} on every segment in parallel, one fork-join task per
+     * segment, and folds the results together with {@code combine}. Results
+     * are combined in pairs, left before right, so {@code combine} has to be
+     * associative but need not be commutative.
+     */
+    public static <R> R scan(List<Segment> segments, Function<Segment, R> task, BinaryOperator<R> combine,
+                             ForkJoinPool pool) {
+        if (segments.isEmpty()) {
+            throw new IllegalArgumentException("No segments to scan");
+        }
+        return pool.invoke(new ScanTask<>(segments, 0, segments.size(), task, combine));
+    }
+
+    public static <R> R scan(List<Segment> segments, Function<Segment, R> task, BinaryOperator<R> combine) {
+        return scan(segments, task, combine, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Visits every row with an event time in [{@code fromMicros}, {@code toMicros}]
+     * in archive order; {@link Segment#NULL} leaves that end open. Rows
+     * without any time are only visited when the range is fully open.
+     */
+    public static void replay(List<Segment> segments, long fromMicros, long toMicros,
+                              Consumer<Segment.Cursor> visitor) {
+        boolean everything = fromMicros == Segment.NULL && toMicros == Segment.NULL;
+        for (Segment segment : segments) {
+            Segment.Cursor cursor = segment.cursor();
+            while (cursor.next()) {
+                long time = cursor.eventTime();
+                if (everything || (time != Segment.NULL
+                        && (fromMicros == Segment.NULL || time >= fromMicros)
+                        && (toMicros == Segment.NULL || time <= toMicros))) {
+                    visitor.accept(cursor);
+                }
+            }
+        }
+    }
+
+    private List<Path> dayDirs() throws IOException {
+        if (!Files.isDirectory(dir)) {
+            return List.of();
+        }
+        try (Stream<Path> entries = Files.list(dir)) {
+            return entries.filter(Files::isDirectory).filter(SegmentArchive::isDay).sorted().toList();
+        }
+    }
+
+    private static boolean isDay(Path dayDir) {
+        try {
+            LocalDate.parse(dayDir.getFileName().toString());
+            return true;
+        } catch (DateTimeParseException e) {
+            return false;
+        }
+    }
+
+    /** Finished segments of one day, by name and so by sequence; temporary files are skipped. */
+    private static List<Path> segmentFiles(Path dayDir) throws IOException {
+        try (Stream<Path> entries = Files.list(dayDir)) {
+            return entries.filter(p -> p.getFileName().toString().endsWith(SUFFIX)).sorted().toList();
+        }
+    }
+
+    /** Splits the segment list in halves until each task has one segment. */
+    private static final class ScanTask<R> extends RecursiveTask<R> {
+
+        private final List<Segment> segments;
+        private final int from;
+        private final int to;
+        private final Function<Segment, R> task;
+        private final BinaryOperator<R> combine;
+
+        ScanTask(List<Segment> segments, int from, int to, Function<Segment, R> task, BinaryOperator<R> combine) {
+            this.segments = segments;
+            this.from = from;
+            this.to = to;
+            this.task = task;
+            this.combine = combine;
+        }
+
+        @Override
+        protected R compute() {
+            if (to - from == 1) {
+                return task.apply(segments.get(from));
+            }
+            int mid = (from + to) >>> 1;
+            ScanTask<R> left = new ScanTask<>(segments, from, mid, task, combine);
+            ScanTask<R> right = new ScanTask<>(segments, mid, to, task, combine);
+            left.fork();
+            R rightResult = right.compute();
+            return combine.apply(left.join(), rightResult);
+        }
+    }
+}
@@ -0,0 +1,297 @@
+package com.example.fixarchive;
+
+import com.github.luben.zstd.Zstd;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Builds one segment in memory, a column at a time, and writes it out as an
+ * immutable file in the layout {@link Segment} reads.
+ *
+ * Each appended row is split across the columns straight away: strings
+ * become segment-local dictionary codes, times and prices deltas from the
+ * previous row's, and the raw message is added to the current raw block,
+ * which is zstd-compressed once it reaches {@code blockBytes}. Only the
+ * compressed raw data and the varint columns are held, so a segment of a
+ * million rows takes a few tens of MB to build.
+ *
+ * Not thread-safe, and single-use: once {@link #write} succeeds no more rows
+ * can be added. A failed write can be retried.
+ */
+public final class SegmentWriter {
+
+    public static final int DEFAULT_BLOCK_BYTES = 64 * 1024;
+    public static final int DEFAULT_LEVEL = 3;
+
+    private final int blockBytes;
+    private final int level;
+
+    private final Dictionary msgTypes = new Dictionary();
+    private final Dictionary symbols = new Dictionary();
+    private final Dictionary compIds = new Dictionary();
+
+    private final ColumnBuffer msgTypeCodes = new ColumnBuffer(4096);
+    private final ColumnBuffer symbolCodes = new ColumnBuffer(4096);
+    private final ColumnBuffer senderCodes = new ColumnBuffer(4096);
+    private final ColumnBuffer targetCodes = new ColumnBuffer(4096);
+    private final ColumnBuffer sides = new ColumnBuffer(4096);
+    private final ColumnBuffer flags = new ColumnBuffer(4096);
+    private final ColumnBuffer sendingTimes = new ColumnBuffer(4096);
+    private final ColumnBuffer receivedAts = new ColumnBuffer(4096);
+    private final ColumnBuffer quantities = new ColumnBuffer(4096);
+    private final ColumnBuffer prices = new ColumnBuffer(4096);
+
+    private final ColumnBuffer block;
+    private final ColumnBuffer rawIndex = new ColumnBuffer(1024);
+    private final ColumnBuffer rawData = new ColumnBuffer(64 * 1024);
+    private byte[] compressBuffer = new byte[0];
+    private int blockFirstRow;
+    private int rawBlocks;
+
+    private int rows;
+    private long lastSendingTime;
+    private long lastReceivedAt;
+    private long lastPrice;
+    private long minEventTime = Long.MAX_VALUE;
+    private long maxEventTime = Long.MIN_VALUE;
+    private long minPrice = Segment.NULL;
+    private long maxPrice = Segment.NULL;
+    private boolean written;
+
+    public SegmentWriter() {
+        this(DEFAULT_BLOCK_BYTES, DEFAULT_LEVEL);
+    }
+
+    /**
+     * @param blockBytes raw bytes per compressed block; a bigger block
+     *                   compresses better but costs more to read one message
+     * @param level      zstd compression level
+     */
+    public SegmentWriter(int blockBytes, int level) {
+        this.blockBytes = blockBytes;
+        this.level = level;
+        this.block = new ColumnBuffer(blockBytes + 1024);
+    }
+
+    /**
+     * Adds one row. Absent numbers are {@link Segment#NULL}, an absent side
+     * is {@code '\0'}; prices are fixed-point with {@link Segment#PRICE_SCALE}
+     * decimals and times are microseconds since the epoch.
+     */
+    public void append(String msgType, String symbol, char side, long orderQty, long price,
+                       String senderCompID, String targetCompID, long sendingTime, long receivedAt, byte[] raw) {
+        if (written) {
+            throw new IllegalStateException("Segment already written");
+        }
+        int rowFlags = 0;
+        msgTypeCodes.putVarLong(msgTypes.code(msgType));
+        symbolCodes.putVarLong(symbols.code(symbol));
+        senderCodes.putVarLong(compIds.code(senderCompID));
+        targetCodes.putVarLong(compIds.code(targetCompID));
+        sides.putByte(side);
+
+        if (sendingTime != Segment.NULL) {
+            rowFlags |= Segment.HAS_SENDING_TIME;
+            sendingTimes.putZigZag(sendingTime - lastSendingTime);
+            lastSendingTime = sendingTime;
+        }
+        if (receivedAt != Segment.NULL) {
+            rowFlags |= Segment.HAS_RECEIVED_AT;
+            receivedAts.putZigZag(receivedAt - lastReceivedAt);
+            lastReceivedAt = receivedAt;
+        }
+        if (orderQty != Segment.NULL) {
+            rowFlags |= Segment.HAS_ORDER_QTY;
+            quantities.putZigZag(orderQty);
+        }
+        if (price != Segment.NULL) {
+            rowFlags |= Segment.HAS_PRICE;
+            prices.putZigZag(price - lastPrice);
+            lastPrice = price;
+            minPrice = minPrice == Segment.NULL ? price : Math.min(minPrice, price);
+            maxPrice = maxPrice == Segment.NULL ? price : Math.max(maxPrice, price);
+        }
+        if (raw != null) {
+            rowFlags |= Segment.HAS_RAW;
+            if (block.size() == 0) {
+                blockFirstRow = rows;
+            }
+            block.putVarLong(raw.length);
+            block.putBytes(raw, 0, raw.length);
+        }
+        flags.putByte(rowFlags);
+
+        long eventTime = sendingTime != Segment.NULL ? sendingTime : receivedAt;
+        if (eventTime != Segment.NULL) {
+            minEventTime = Math.min(minEventTime, eventTime);
+            maxEventTime = Math.max(maxEventTime, eventTime);
+        }
+        rows++;
+        if (block.size() >= blockBytes) {
+            compressBlock();
+        }
+    }
+
+    public int rows() {
+        return rows;
+    }
+
+    /** Smallest SendingTime (or receive time, without one) so far; {@link Segment#NULL} if none. */
+    public long minEventTime() {
+        return minEventTime == Long.MAX_VALUE ? Segment.NULL : minEventTime;
+    }
+
+    public long maxEventTime() {
+        return maxEventTime == Long.MIN_VALUE ? Segment.NULL : maxEventTime;
+    }
+
+    /** Bytes held so far, roughly the size of the file. */
+    public long bytes() {
+        return (long) msgTypeCodes.size() + symbolCodes.size() + senderCodes.size() + targetCodes.size()
+                + sides.size() + flags.size() + sendingTimes.size() + receivedAts.size() + quantities.size()
+                + prices.size() + block.size() + rawIndex.size() + rawData.size();
+    }
+
+    /**
+     * Writes the segment to {@code file}. It is written and synced under a
+     * temporary name first and then renamed, so a reader never sees a
+     * partial segment.
+     *
+     * @param firstSequence archive-wide number of the first row; row {@code i}
+     *                      is {@code firstSequence + i}
+     */
+    public void write(Path file, long firstSequence) throws IOException {
+        if (rows == 0) {
+            throw new IllegalStateException("Segment has no rows");
+        }
+        if (block.size() > 0) {
+            compressBlock();
+        }
+
+        ColumnBuffer dictionary = new ColumnBuffer(1024);
+        msgTypes.writeTo(dictionary);
+        symbols.writeTo(dictionary);
+        compIds.writeTo(dictionary);
+
+        ColumnBuffer[] sections = new ColumnBuffer[Segment.Section.values().length];
+        sections[Segment.Section.DICTIONARY.ordinal()] = dictionary;
+        sections[Segment.Section.MSG_TYPE.ordinal()] = msgTypeCodes;
+        sections[Segment.Section.SYMBOL.ordinal()] = symbolCodes;
+        sections[Segment.Section.SENDER.ordinal()] = senderCodes;
+        sections[Segment.Section.TARGET.ordinal()] = targetCodes;
+        sections[Segment.Section.SIDE.ordinal()] = sides;
+        sections[Segment.Section.FLAGS.ordinal()] = flags;
+        sections[Segment.Section.SENDING_TIME.ordinal()] = sendingTimes;
+        sections[Segment.Section.RECEIVED_AT.ordinal()] = receivedAts;
+        sections[Segment.Section.ORDER_QTY.ordinal()] = quantities;
+        sections[Segment.Section.PRICE.ordinal()] = prices;
+        sections[Segment.Section.RAW_INDEX.ordinal()] = rawIndex;
+        sections[Segment.Section.RAW_DATA.ordinal()] = rawData;
+
+        int headerSize = Segment.headerSize(sections.length);
+        ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.BIG_ENDIAN);
+        header.put(Segment.MAGIC);
+        header.putLong(firstSequence);
+        header.putInt(rows);
+        header.putInt(rawBlocks);
+        header.putLong(minEventTime());
+        header.putLong(maxEventTime());
+        header.putLong(minPrice);
+        header.putLong(maxPrice);
+        header.putInt(sections.length);
+        long offset = headerSize;
+        for (ColumnBuffer section : sections) {
+            header.putInt((int) offset);
+            header.putInt(section.size());
+            offset += section.size();
+        }
+        if (offset > Integer.MAX_VALUE) {
+            throw new IOException("Segment too large (" + offset + " bytes), use fewer rows per segment");
+        }
+        header.flip();
+
+        ByteBuffer[] buffers = new ByteBuffer[sections.length + 1];
+        buffers[0] = header;
+        for (int i = 0; i < sections.length; i++) {
+            buffers[i + 1] = sections[i].view();
+        }
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            long remaining = offset;
+            while (remaining > 0) {
+                remaining -= channel.write(buffers);
+            }
+            channel.force(true);
+        }
+        Files.move(tmp, file, StandardCopyOption.ATOMIC_MOVE);
+        written = true;
+    }
+
+    private void compressBlock() {
+        int bound = (int) Zstd.compressBound(block.size());
+        if (compressBuffer.length < bound) {
+            compressBuffer = new byte[bound];
+        }
+        long compressed = Zstd.compressByteArray(compressBuffer, 0, compressBuffer.length,
+                block.array(), 0, block.size(), level);
+        if (Zstd.isError(compressed)) {
+            throw new IllegalStateException("zstd: " + Zstd.getErrorName(compressed));
+        }
+        putInt(rawIndex, blockFirstRow);
+        putInt(rawIndex, block.size());
+        putInt(rawIndex, rawData.size());
+        putInt(rawIndex, (int) compressed);
+        rawData.putBytes(compressBuffer, 0, (int) compressed);
+        rawBlocks++;
+        block.clear();
+    }
+
+    private static void putInt(ColumnBuffer buffer, int value) {
+        buffer.putByte(value >>> 24);
+        buffer.putByte(value >>> 16);
+        buffer.putByte(value >>> 8);
+        buffer.putByte(value);
+    }
+
+    /** Segment-local string table; code 0 is null, code {@code i + 1} the i-th distinct value. */
+    private static final class Dictionary {
+        private final Map<String, Integer> codes = new HashMap<>();
+        private final List<String> values = new ArrayList<>();
+
+        int code(String value) {
+            if (value == null) {
+                return 0;
+            }
+            Integer code = codes.get(value);
+            if (code == null) {
+                values.add(value);
+                code = values.size();
+                codes.put(value, code);
+            }
+            return code;
+        }
+
+        void writeTo(ColumnBuffer out) {
+            out.putVarLong(values.size());
+            for (String value : values) {
+                byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+                out.putVarLong(bytes.length);
+                out.putBytes(bytes, 0, bytes.length);
+            }
+        }
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.fixarchive;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SegmentTest {
+
+    private static final long NULL = Segment.NULL;
+    private static final long DAY_1 = SegmentArchive.startOfDay(LocalDate.of(2025, 10, 17));
+    private static final long DAY_2 = SegmentArchive.startOfDay(LocalDate.of(2025, 10, 18));
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void roundTripsEveryColumnAcrossRawBlocks() throws Exception {
+        // 256-byte blocks, so the raw messages span many blocks.
+        SegmentWriter writer = new SegmentWriter(256, SegmentWriter.DEFAULT_LEVEL);
+        for (int i = 0; i < 100; i++) {
+            writer.append(i % 2 == 0 ? "D" : "8", i % 3 == 0 ? null : "SYM" + (i % 7), i % 4 == 0 ? '\0' : '1',
+                    i % 5 == 0 ? NULL : 100 + i, i % 6 == 0 ? NULL : 15_000_000_000L - i * 3_000_000L,
+                    "BUY_SIDE_" + (i % 3), "SELL_SIDE_1", i == 10 ? NULL : DAY_2 + 1_000L * i, DAY_2 + 2_000L * i,
+                    i % 9 == 0 ? null : raw(i));
+        }
+        Path file = dir.resolve("s" + SegmentArchive.SUFFIX);
+        writer.write(file, 500);
+
+        Segment segment = Segment.open(file);
+        assertEquals(100, segment.rows());
+        assertEquals(500, segment.firstSequence());
+        assertEquals(DAY_2, segment.minEventTime());
+        assertEquals(DAY_2 + 99_000, segment.maxEventTime());
+        assertEquals(15_000_000_000L - 99 * 3_000_000L, segment.minPrice());
+        assertEquals(15_000_000_000L - 3_000_000L, segment.maxPrice());
+        assertTrue(segment.containsSymbol("SYM3"));
+        assertFalse(segment.containsSymbol("SYM9"));
+
+        Segment.Cursor cursor = segment.cursor();
+        for (int i = 0; i < 100; i++) {
+            assertTrue(cursor.next());
+            assertEquals(500 + i, cursor.sequence());
+            assertEquals(i % 2 == 0 ? "D" : "8", cursor.msgType());
+            assertEquals(i % 3 == 0 ? null : "SYM" + (i % 7), cursor.symbol());
+            assertEquals(i % 4 == 0 ? '\0' : '1', cursor.side());
+            assertEquals(i % 5 == 0 ? NULL : 100 + i, cursor.orderQty());
+            assertEquals(i % 6 == 0 ? NULL : 15_000_000_000L - i * 3_000_000L, cursor.price());
+            assertEquals("BUY_SIDE_" + (i % 3), cursor.senderCompID());
+            assertEquals(i == 10 ? NULL : DAY_2 + 1_000L * i, cursor.sendingTime());
+            assertEquals(DAY_2 + 2_000L * i, cursor.receivedAt());
+            // Only every third message is read, so most are skipped inside their block.
+            if (i % 3 == 1) {
+                assertArrayEquals(i % 9 == 0 ? null : raw(i), cursor.raw());
+            }
+        }
+        assertFalse(cursor.next());
+    }
+
+    @Test
+    void rollsByDayAndPrunesByTheIndex() throws Exception {
+        SegmentArchive archive = new SegmentArchive(dir.resolve("archive"));
+        ArchiveWriter writer = new ArchiveWriter(archive, 4);
+        for (int i = 0; i < 6; i++) {
+            // Alternate days, as when an old log is replayed next to live traffic.
+            long time = (i % 2 == 0 ? DAY_1 : DAY_2) + 60_000_000L * i;
+            writer.append("D", "SYM" + i, '1', 10, 100_000_000L, "A", "B", time, time, raw(i));
+        }
+        assertEquals(6, writer.pendingRows());
+        assertEquals(2, writer.flush().size());
+        assertTrue(Files.isDirectory(archive.dir().resolve("2025-10-17")));
+
+        writer = new ArchiveWriter(archive, 2);
+        for (int i = 6; i < 8; i++) {
+            writer.append("D", "SYM" + i, '2', 20, 200_000_000L, "A", "B", DAY_2 + i, NULL, raw(i));
+        }
+        assertEquals(0, writer.pendingRows());
+        assertEquals(8, archive.nextSequence());
+
+        assertEquals(3, archive.segments().size());
+        assertEquals(1, archive.segments(DAY_1, DAY_2 - 1).size());
+        // Day 2's first segment starts at minute 1; only the later one has rows in the first ten micros.
+        assertEquals(6, archive.segments(DAY_2, DAY_2 + 10).get(0).firstSequence());
+        assertEquals(1, archive.segments(DAY_2, DAY_2 + 10).size());
+
+        List<Segment> segments = archive.segments();
+        long total = SegmentArchive.scan(segments, segment -> {
+            long qty = 0;
+            Segment.Cursor cursor = segment.cursor();
+            while (cursor.next()) {
+                qty += cursor.orderQty();
+            }
+            return qty;
+        }, Long::sum);
+        assertEquals(6 * 10 + 2 * 20, total);
+
+        List<Long> sequences = new ArrayList<>();
+        SegmentArchive.replay(segments, DAY_2, NULL, cursor -> sequences.add(cursor.sequence()));
+        assertEquals(List.of(3L, 4L, 5L, 6L, 7L), sequences);
+    }
+
+    private static byte[] raw(int i) {
+        return ("8=FIX.4.4\u00019=42\u000135=D\u000111=ORD" + i + "\u000155=SYM" + i + "\u000110=000\u0001")
+                .getBytes(StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.fixbenchmarks;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixTags;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * The consumer's per-message parse step over the synthetic dataset: the
+ * original {@code FixStreamConsumer.parseFixMessage} plus the string reads of
+ * {@code saveToDatabase}, against the decoder with the typed extraction that
+ * {@code FixMessageMapper.toRecord} does today. (fix-api is a Spring Boot
+ * jar and can't be a dependency, so that extraction is mirrored here; keep
+ * the two in step.)
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ConsumerParseBenchmark {
+
+    private static final Pattern FIELD_PATTERN = Pattern.compile("\\|");
+
+    private String[] messages;
+    private int next;
+    private final FixDecoder decoder = new FixDecoder();
+
+    @Setup
+    public void setUp() {
+        List<String> generated = SyntheticFixData.messages(10_000);
+        messages = generated.toArray(new String[0]);
+    }
+
+    private String nextMessage() {
+        String message = messages[next];
+        next = next + 1 == messages.length ? 0 : next + 1;
+        return message;
+    }
+
+    @Benchmark
+    public void legacyParseFixMessage(Blackhole bh) {
+        String fixMessage = nextMessage().replace("\u0001", "|");
+        String[] fields = FIELD_PATTERN.split(fixMessage);
+        Map<String, String> map = new HashMap<>();
+        for (String field : fields) {
+            if (field.contains("=")) {
+                String[] kv = field.split("=", 2);
+                map.put(kv[0], kv[1]);
+            }
+        }
+        bh.consume(map.get("35"));
+        bh.consume(map.get("55"));
+        bh.consume(map.get("54"));
+        bh.consume(map.get("38"));
+        bh.consume(map.get("44"));
+        bh.consume(map.get("49"));
+        bh.consume(map.get("56"));
+        bh.consume(map.get("52"));
+    }
+
+    @Benchmark
+    public void decoderTypedRecord(Blackhole bh) {
+        FixDecoder fix = decoder.wrap(nextMessage());
+        bh.consume(fix.getString(FixTags.MSG_TYPE));
+        bh.consume(fix.getString(FixTags.SYMBOL));
+        int side = fix.indexOf(FixTags.SIDE);
+        bh.consume(side < 0 || fix.valueLengthAt(side) != 1 ? 0 : (char) fix.buffer()[fix.valueOffsetAt(side)]);
+        bh.consume(fix.getLong(FixTags.ORDER_QTY, Long.MIN_VALUE));
+        bh.consume(fix.getScaled(FixTags.PRICE, 8, Long.MIN_VALUE));
+        bh.consume(fix.getString(FixTags.SENDER_COMP_ID));
+        bh.consume(fix.getString(FixTags.TARGET_COMP_ID));
+        bh.consume(fix.getTimestampMicros(FixTags.SENDING_TIME, Long.MIN_VALUE));
+    }
+
+    /** Routing hash the pipelined consumer computes on the reader thread before parsing. */
+    @Benchmark
+    public int partitionHash() {
+        return FixDecoder.hashValue(nextMessage(), FixTags.SYMBOL);
+    }
+}
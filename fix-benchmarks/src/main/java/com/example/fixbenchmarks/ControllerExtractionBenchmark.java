@@ -0,0 +1,83 @@
+package com.example.fixbenchmarks;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixTags;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The field-extraction loop of {@code FixController.parseAndQueueFixMessage}:
+ * the original split/TAG_NAMES version against the decoder/FixTags one. Both
+ * include the SOH to '|' normalisation the endpoint does first.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ControllerExtractionBenchmark {
+
+    private static final Map<String, String> TAG_NAMES = Map.ofEntries(
+            Map.entry("8", "BeginString"),
+            Map.entry("9", "BodyLength"),
+            Map.entry("35", "MsgType"),
+            Map.entry("34", "MsgSeqNum"),
+            Map.entry("49", "SenderCompID"),
+            Map.entry("56", "TargetCompID"),
+            Map.entry("52", "SendingTime"),
+            Map.entry("11", "ClOrdID"),
+            Map.entry("21", "HandlInst"),
+            Map.entry("55", "Symbol"),
+            Map.entry("54", "Side"),
+            Map.entry("38", "OrderQty"),
+            Map.entry("40", "OrdType"),
+            Map.entry("44", "Price"),
+            Map.entry("59", "TimeInForce"),
+            Map.entry("10", "CheckSum")
+    );
+
+    private String[] messages;
+    private int next;
+    private final FixDecoder decoder = new FixDecoder();
+
+    @Setup
+    public void setUp() {
+        messages = SyntheticFixData.messages(10_000).toArray(new String[0]);
+    }
+
+    private String nextMessage() {
+        String message = messages[next];
+        next = next + 1 == messages.length ? 0 : next + 1;
+        return message;
+    }
+
+    @Benchmark
+    public Map<String, String> legacySplitLoop() {
+        String fixMessage = nextMessage().replace("\u0001", "|");
+        Map<String, String> parsed = new LinkedHashMap<>();
+        for (String field : fixMessage.split("\\|")) {
+            if (field.contains("=")) {
+                String[] kv = field.split("=", 2);
+                parsed.put(TAG_NAMES.getOrDefault(kv[0], "Unknown(" + kv[0] + ")"), kv[1]);
+            }
+        }
+        return parsed;
+    }
+
+    @Benchmark
+    public Map<String, String> decoderLoop() {
+        String fixMessage = nextMessage().replace("\u0001", "|");
+        FixDecoder fix = decoder.wrap(fixMessage);
+        Map<String, String> parsed = new LinkedHashMap<>();
+        for (int i = 0; i < fix.fieldCount(); i++) {
+            int tag = fix.tagAt(i);
+            String name = FixTags.nameOf(tag);
+            parsed.put(name != null ? name : "Unknown(" + tag + ")", fix.stringAt(i));
+        }
+        return parsed;
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.fixbenchmarks;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixTags;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Per-message cost of the old String/regex parser against {@link FixDecoder}.
+ *
+ * Run with the GC profiler to see allocation per message:
+ *   java -jar fix-benchmarks/target/benchmarks.jar DecoderBenchmark -prof gc
+ * and compare the gc.alloc.rate.norm rows (bytes/op).
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DecoderBenchmark {
+
+    // One of each shape in logs/fix_synthetic_2025-10-18_10000.log, as the consumer receives them.
+    private static final String[] MESSAGES = {
+            "8=FIX.4.4\u00019=139\u000135=D\u000134=1\u000149=BUY_SIDE_8XKV\u000156=SELL_SIDE_YXTZ\u000152=20251017-22:18:03.105\u000111=DBMMGSM2UA\u000155=SPY\u000154=2\u000138=3550\u000140=2\u000159=0\u000160=20251017-22:18:03.105\u000110=104\u0001",
+            "8=FIX.4.4\u00019=116\u000135=X\u000134=1\u000149=SELL_SIDE_WH3P\u000156=BUY_SIDE_ZZTB\u000152=20251017-22:18:03.155\u0001268=1\u0001269=0\u0001279=2\u000155=META\u0001270=266.89\u0001271=4339\u000110=057\u0001",
+            "8=FIX.4.4\u00019=154\u000135=G\u000134=1\u000149=BUY_SIDE_KU3Q\u000156=SELL_SIDE_M9E7\u000152=20251017-22:18:03.255\u000111=B758W9QQEI\u000141=DKUFM28QD9\u000155=TSLA\u000154=2\u000138=2870\u000160=20251017-22:18:03.255\u000144=441.16\u000110=147\u0001",
+            "8=FIX.4.4\u00019=193\u000135=8\u000134=2\u000149=SELL_SIDE_YXTZ\u000156=BUY_SIDE_8XKV\u000152=20251017-22:18:03.305\u000111=JD3WYENWQN\u000155=TSLA\u000139=0\u0001150=0\u000114=1605\u0001151=1982\u000117=19QKOVZM0K4U\u000137=CB8M1T8UZW\u000160=20251017-22:18:03.305\u000131=156.11\u000132=3606\u000110=108\u0001",
+            "8=FIX.4.4\u00019=134\u000135=W\u000134=6\u000149=SELL_SIDE_YXTZ\u000156=BUY_SIDE_8XKV\u000152=20251017-22:18:03.805\u000155=JPM\u0001268=2\u0001269=0\u0001270=54.71\u0001271=4564\u0001269=1\u0001270=161.88\u0001271=2665\u000110=156\u0001",
+            "8=FIX.4.4\u00019=136\u000135=F\u000134=3\u000149=BUY_SIDE_ZZTB\u000156=SELL_SIDE_WH3P\u000152=20251017-22:18:03.855\u000111=Q0UVF8R8RC\u000141=UDI155VKY7\u000155=AAPL\u000154=2\u000160=20251017-22:18:03.855\u000110=164\u0001",
+            "8=FIX.4.4\u00019=70\u000135=0\u000134=6\u000149=BUY_SIDE_ZZTB\u000156=SELL_SIDE_WH3P\u000152=20251017-22:18:04.605\u000110=040\u0001",
+    };
+
+    private static final Pattern FIELD_PATTERN = Pattern.compile("\\|");
+
+    private final FixDecoder decoder = new FixDecoder();
+    private int next;
+
+    private String nextMessage() {
+        String message = MESSAGES[next];
+        next = next + 1 == MESSAGES.length ? 0 : next + 1;
+        return message;
+    }
+
+    /** The parser FixStreamConsumer used before the shared decoder. */
+    @Benchmark
+    public void legacyConsumerParse(Blackhole bh) {
+        String fixMessage = nextMessage().replace("\u0001", "|");
+        String[] fields = FIELD_PATTERN.split(fixMessage);
+        Map<String, String> map = new HashMap<>();
+        for (String field : fields) {
+            if (field.contains("=")) {
+                String[] kv = field.split("=", 2);
+                map.put(kv[0], kv[1]);
+            }
+        }
+        bh.consume(map.get("35"));
+        bh.consume(map.get("55"));
+        bh.consume(map.get("38"));
+        bh.consume(map.get("44"));
+    }
+
+    /** Same fields read through the decoder as typed values. */
+    @Benchmark
+    public void decoderTyped(Blackhole bh) {
+        FixDecoder fix = decoder.wrap(nextMessage());
+        bh.consume(fix.getByte(FixTags.MSG_TYPE));
+        bh.consume(fix.indexOf(FixTags.SYMBOL));
+        bh.consume(fix.getInt(FixTags.ORDER_QTY, 0));
+        bh.consume(fix.getDecimal(FixTags.PRICE, 0.0));
+    }
+
+    /** The decode step alone: one pass over the bytes, no field materialised. */
+    @Benchmark
+    public int decoderScan() {
+        return decoder.wrap(nextMessage()).fieldCount();
+    }
+}
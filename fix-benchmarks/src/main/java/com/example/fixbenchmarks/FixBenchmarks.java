@@ -0,0 +1,30 @@
+package com.example.fixbenchmarks;
+
+import org.openjdk.jmh.Main;
+
+import java.util.Arrays;
+
+/**
+ * Entry point of benchmarks.jar: JMH's own launcher with the GC profiler on
+ * by default, so every suite reports allocation (gc.alloc.rate.norm, bytes
+ * per op) next to throughput. Any explicit {@code -prof} replaces it.
+ *
+ *   java -jar fix-benchmarks/target/benchmarks.jar                  # every suite
+ *   java -jar fix-benchmarks/target/benchmarks.jar ConsumerParse    # one suite
+ */
+public final class FixBenchmarks {
+
+    private FixBenchmarks() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (Arrays.asList(args).contains("-prof")) {
+            Main.main(args);
+            return;
+        }
+        String[] withGc = Arrays.copyOf(args, args.length + 2);
+        withGc[args.length] = "-prof";
+        withGc[args.length + 1] = "gc";
+        Main.main(withGc);
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.fixbenchmarks;
+
+import com.example.fixproducer.FixLogReader;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.StringReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Splitting a log into messages and rebuilding each one for XADD, per message
+ * ({@code @OperationsPerInvocation}). The original producer read the file as
+ * lines, regex-split on the BeginString and rebuilt each message as a String
+ * in a HashMap; {@link FixLogReader} scans a mapped file and the producer
+ * copies each slice into a byte[].
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ProducerSplitBenchmark {
+
+    public static final int MESSAGES = 10_000;
+
+    private String logText;
+    private Path logFile;
+
+    @Setup
+    public void setUp() throws IOException {
+        byte[] log = SyntheticFixData.log(MESSAGES, SyntheticFixData.DEFAULT_SEED);
+        logText = new String(log, StandardCharsets.US_ASCII);
+        logFile = Files.createTempFile("fix-bench", ".log");
+        Files.write(logFile, log);
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.deleteIfExists(logFile);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public int legacySplitRebuild(Blackhole bh) throws IOException {
+        int count = 0;
+        try (BufferedReader reader = new BufferedReader(new StringReader(logText))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] messages = line.split("8=FIX\\.4\\.4");
+                for (String msg : messages) {
+                    if (msg.isBlank()) continue;
+
+                    String fixMessage = "8=FIX.4.4" + msg.trim();
+
+                    Map<String, String> entry = new HashMap<>();
+                    entry.put("fixMessage", fixMessage);
+                    bh.consume(entry);
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public long logReaderSlices(Blackhole bh) throws IOException, InterruptedException {
+        FixLogReader reader = new FixLogReader(logFile, 64 << 20, false, 0);
+        return reader.read((window, offset, length) -> {
+            byte[] message = new byte[length];
+            window.get(offset, message, 0, length);
+            bh.consume(message);
+        });
+    }
+}
@@ -0,0 +1,78 @@
+package com.example.fixbenchmarks;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixTags;
+import com.example.fixreport.ReportAggregator;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Report aggregation over the synthetic dataset: folding persisted messages
+ * into {@link ReportAggregator} (per message, {@code @OperationsPerInvocation})
+ * and taking the snapshot a report renders from. Messages are decoded once
+ * in setup, as the consumer hands over already-parsed records.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ReportAggregationBenchmark {
+
+    public static final int MESSAGES = 10_000;
+
+    private String[] msgTypes;
+    private String[] symbols;
+    private char[] sides;
+    private boolean[] priced;
+    private long[] quantities;
+    private double[] prices;
+
+    private ReportAggregator aggregator;
+
+    @Setup
+    public void setUp() {
+        List<String> messages = SyntheticFixData.messages(MESSAGES);
+        msgTypes = new String[MESSAGES];
+        symbols = new String[MESSAGES];
+        sides = new char[MESSAGES];
+        priced = new boolean[MESSAGES];
+        quantities = new long[MESSAGES];
+        prices = new double[MESSAGES];
+
+        FixDecoder fix = new FixDecoder();
+        for (int i = 0; i < MESSAGES; i++) {
+            fix.wrap(messages.get(i));
+            msgTypes[i] = fix.getString(FixTags.MSG_TYPE);
+            symbols[i] = fix.getString(FixTags.SYMBOL);
+            sides[i] = fix.has(FixTags.SIDE) ? (char) fix.getByte(FixTags.SIDE) : 0;
+            priced[i] = fix.has(FixTags.ORDER_QTY) && fix.has(FixTags.PRICE);
+            quantities[i] = fix.getLong(FixTags.ORDER_QTY, 0);
+            prices[i] = fix.getDecimal(FixTags.PRICE, 0);
+        }
+
+        aggregator = new ReportAggregator();
+        addAll();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(MESSAGES)
+    public ReportAggregator add() {
+        addAll();
+        return aggregator;
+    }
+
+    @Benchmark
+    public ReportAggregator.Snapshot snapshot() {
+        return aggregator.snapshot(5);
+    }
+
+    private void addAll() {
+        for (int i = 0; i < MESSAGES; i++) {
+            aggregator.add(msgTypes[i], symbols[i], sides[i], priced[i], quantities[i], prices[i]);
+        }
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.fixbenchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Deterministic FIX 4.4 traffic shaped like logs/fix_synthetic_2025-10-18_10000.log:
+ * the same message types in the same proportions (D, 8, X, 0, W, G, F, A, 5,
+ * 1, 2), the same tags per type, BUY_SIDE_/SELL_SIDE_ sessions with their
+ * own sequence numbers, 50 ms between SendingTimes, and valid BodyLength
+ * and CheckSum. The same seed always gives the same messages.
+ *
+ * Also writes a log file for the producer:
+ *   java -cp fix-benchmarks/target/benchmarks.jar com.example.fixbenchmarks.SyntheticFixData out.log 100000
+ */
+public final class SyntheticFixData {
+
+    public static final long DEFAULT_SEED = 20251018L;
+
+    private static final char SOH = '\u0001';
+
+    // Per 10000 messages in the sample log.
+    private static final String[] TYPES = { "D", "8", "X", "0", "W", "G", "F", "A", "5", "1", "2" };
+    private static final int[] WEIGHTS = { 2214, 2212, 1337, 1134, 886, 696, 638, 320, 242, 206, 115 };
+
+    private static final String[] SYMBOLS = {
+            "EURUSD", "NVDA", "META", "ETHUSD", "GOOG", "MSFT", "AAPL", "BTCUSD", "JPM", "BAC",
+            "NFLX", "ESZ5", "NQZ5", "GCZ5", "USDJPY", "TSLA", "CLX5", "GBPUSD", "SPY", "AMZN" };
+
+    private static final String[][] SESSIONS = {
+            { "BUY_SIDE_8XKV", "SELL_SIDE_YXTZ" }, { "BUY_SIDE_ZZTB", "SELL_SIDE_WH3P" },
+            { "BUY_SIDE_NXG1", "SELL_SIDE_ZE6W" }, { "BUY_SIDE_KU3Q", "SELL_SIDE_M9E7" } };
+
+    private static final DateTimeFormatter SENDING_TIME =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HH:mm:ss.SSS").withZone(ZoneOffset.UTC);
+
+    private static final String ID_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+
+    // 2025-10-17T22:18:03.105Z, the first SendingTime in the sample log.
+    private static final long START_MILLIS = 1_760_739_483_105L;
+
+    private final SplittableRandom random;
+    private final int[] buySeq = new int[SESSIONS.length];
+    private final int[] sellSeq = new int[SESSIONS.length];
+    private final StringBuilder body = new StringBuilder(256);
+    private long clock = START_MILLIS;
+
+    private SyntheticFixData(long seed) {
+        this.random = new SplittableRandom(seed);
+    }
+
+    /** {@code count} SOH-delimited messages, each with its trailing SOH, as the consumer receives them. */
+    public static List<String> messages(int count, long seed) {
+        SyntheticFixData generator = new SyntheticFixData(seed);
+        List<String> messages = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            messages.add(generator.next());
+        }
+        return messages;
+    }
+
+    public static List<String> messages(int count) {
+        return messages(count, DEFAULT_SEED);
+    }
+
+    /** The messages back to back with no separator, like the log file. */
+    public static byte[] log(int count, long seed) {
+        return String.join("", messages(count, seed)).getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private String next() {
+        String type = pickType();
+        int session = random.nextInt(SESSIONS.length);
+        boolean fromBuySide = !type.equals("8") && !type.equals("X") && !type.equals("W");
+        String sender = SESSIONS[session][fromBuySide ? 0 : 1];
+        String target = SESSIONS[session][fromBuySide ? 1 : 0];
+        int seq = fromBuySide ? ++buySeq[session] : ++sellSeq[session];
+        String time = timestamp(clock);
+        clock += 50;
+
+        body.setLength(0);
+        field(35, type).field(34, Integer.toString(seq)).field(49, sender).field(56, target).field(52, time);
+        String symbol = SYMBOLS[random.nextInt(SYMBOLS.length)];
+        switch (type) {
+            case "D" -> {
+                boolean limit = random.nextBoolean();
+                field(11, id(10)).field(55, symbol).field(54, side()).field(38, qty())
+                        .field(40, limit ? "2" : "1").field(59, "0").field(60, time);
+                if (limit && random.nextInt(4) == 0) {
+                    field(44, price());
+                }
+            }
+            case "8" -> {
+                int filled = random.nextInt(1, 4000);
+                field(11, id(10)).field(55, symbol).field(39, "0").field(150, "0")
+                        .field(14, Integer.toString(filled)).field(151, Integer.toString(random.nextInt(1, 4000)))
+                        .field(17, id(12)).field(37, id(10)).field(60, time)
+                        .field(31, price()).field(32, Integer.toString(filled + random.nextInt(0, 3000)));
+            }
+            case "X" -> field(268, "1").field(269, random.nextBoolean() ? "0" : "1").field(279, "2")
+                    .field(55, symbol).field(270, price()).field(271, qty());
+            case "W" -> field(55, symbol).field(268, "2")
+                    .field(269, "0").field(270, price()).field(271, qty())
+                    .field(269, "1").field(270, price()).field(271, qty());
+            case "G" -> field(11, id(10)).field(41, id(10)).field(55, symbol).field(54, side())
+                    .field(38, qty()).field(60, time).field(44, price());
+            case "F" -> field(11, id(10)).field(41, id(10)).field(55, symbol).field(54, side()).field(60, time);
+            case "A" -> field(98, "0").field(108, "30").field(141, "Y");
+            case "5" -> field(58, "Session closing");
+            case "1" -> field(112, id(8));
+            case "2" -> field(7, "1").field(16, Integer.toString(Math.max(1, seq - 1)));
+            default -> {
+            }
+        }
+
+        String head = "8=FIX.4.4" + SOH + "9=" + body.length() + SOH;
+        String withoutTrailer = head + body;
+        int sum = 0;
+        for (int i = 0; i < withoutTrailer.length(); i++) {
+            sum += withoutTrailer.charAt(i);
+        }
+        return withoutTrailer + "10=" + String.format("%03d", sum & 0xFF) + SOH;
+    }
+
+    private String pickType() {
+        int r = random.nextInt(10_000);
+        for (int i = 0; i < TYPES.length; i++) {
+            r -= WEIGHTS[i];
+            if (r < 0) {
+                return TYPES[i];
+            }
+        }
+        return TYPES[0];
+    }
+
+    private SyntheticFixData field(int tag, String value) {
+        body.append(tag).append('=').append(value).append(SOH);
+        return this;
+    }
+
+    private String side() {
+        return random.nextBoolean() ? "1" : "2";
+    }
+
+    private String qty() {
+        return Integer.toString(random.nextInt(1, 5000));
+    }
+
+    private String price() {
+        int cents = random.nextInt(1_000, 50_000);
+        return (cents / 100) + "." + (cents % 100 < 10 ? "0" : "") + (cents % 100);
+    }
+
+    private String id(int length) {
+        char[] id = new char[length];
+        for (int i = 0; i < length; i++) {
+            id[i] = ID_CHARS.charAt(random.nextInt(ID_CHARS.length()));
+        }
+        return new String(id);
+    }
+
+    private static String timestamp(long epochMillis) {
+        return SENDING_TIME.format(Instant.ofEpochMilli(epochMillis));
+    }
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 1) {
+            System.err.println("Usage: SyntheticFixData <output.log> [count] [seed]");
+            System.exit(1);
+        }
+        Path out = Paths.get(args[0]);
+        int count = args.length > 1 ? Integer.parseInt(args[1]) : 10_000;
+        long seed = args.length > 2 ? Long.parseLong(args[2]) : DEFAULT_SEED;
+        Files.write(out, log(count, seed));
+        System.out.println("Wrote " + count + " messages to " + out);
+    }
+}
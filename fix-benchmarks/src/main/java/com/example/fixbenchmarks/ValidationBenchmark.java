@@ -0,0 +1,98 @@
+package com.example.fixbenchmarks;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixTags;
+import com.example.fixcodec.FixValidator;
+import com.example.fixcodec.SequenceTracker;
+import org.openjdk.jmh.annotations.*;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-message cost of the consumer's validation stage: BodyLength and
+ * CheckSum with and without jdk.incubator.vector, and the per-session
+ * MsgSeqNum check, over SyntheticFixData's 10k messages.
+ *
+ *   java --add-modules jdk.incubator.vector -jar fix-benchmarks/target/benchmarks.jar ValidationBenchmark
+ *
+ * The forked JVM always gets the module; vectorChecksum falls back to the
+ * scalar loop (and measures the same) if it is missing.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = { "--add-modules", "jdk.incubator.vector" })
+public class ValidationBenchmark {
+
+    private String[] messages;
+    private byte[][] encoded;
+    private long[] sessions;
+    private long[] seqNums;
+    private int next;
+
+    private final FixValidator scalar = FixValidator.scalar();
+    private final FixValidator vector = new FixValidator();
+    private final FixDecoder decoder = new FixDecoder();
+    private final SequenceTracker tracker = new SequenceTracker(64);
+
+    @Setup
+    public void setup() {
+        List<String> generated = SyntheticFixData.messages(10_000);
+        messages = generated.toArray(new String[0]);
+        encoded = new byte[messages.length][];
+        sessions = new long[messages.length];
+        seqNums = new long[messages.length];
+        Map<String, Integer> compIds = new HashMap<>();
+        for (int i = 0; i < messages.length; i++) {
+            encoded[i] = messages[i].getBytes(StandardCharsets.US_ASCII);
+            FixDecoder fix = decoder.wrap(messages[i]);
+            int sender = compIds.computeIfAbsent(fix.getString(FixTags.SENDER_COMP_ID), k -> compIds.size() + 1);
+            int target = compIds.computeIfAbsent(fix.getString(FixTags.TARGET_COMP_ID), k -> compIds.size() + 1);
+            sessions[i] = (long) sender << 32 | target;
+            seqNums[i] = fix.getLong(FixTags.MSG_SEQ_NUM, 0);
+        }
+        if (!vector.isVectorized()) {
+            System.err.println("jdk.incubator.vector is not available; vectorChecksum runs the scalar loop");
+        }
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = i + 1 == messages.length ? 0 : i + 1;
+        return i;
+    }
+
+    @Benchmark
+    public FixValidator.Result scalarChecksum() {
+        byte[] message = encoded[nextIndex()];
+        return scalar.validate(message, 0, message.length);
+    }
+
+    @Benchmark
+    public FixValidator.Result vectorChecksum() {
+        byte[] message = encoded[nextIndex()];
+        return vector.validate(message, 0, message.length);
+    }
+
+    /** What the consumer pays per entry: decode the String, then validate the decoder's bytes. */
+    @Benchmark
+    public FixValidator.Result decodeAndValidate() {
+        return vector.validate(decoder.wrap(messages[nextIndex()]));
+    }
+
+    /**
+     * One lookup and compare. The sequence numbers wrap around every 10k
+     * messages, so each session also sees one TOO_LOW per pass.
+     */
+    @Benchmark
+    public SequenceTracker.Event sequenceCheck() {
+        int i = nextIndex();
+        return tracker.check(sessions[i], seqNums[i], false);
+    }
+}
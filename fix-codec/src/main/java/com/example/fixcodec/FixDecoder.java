@@ -0,0 +1,578 @@
+package com.example.fixcodec;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Single-pass, allocation-free decoder for FIX tag=value messages.
+ *
+ * A decoder is a reusable flyweight: {@link #wrap} walks the message once,
+ * reading tags as ints and remembering each value as an offset/length view
+ * into the wrapped bytes. Nothing is copied or boxed, so decoding a stream of
+ * messages with one decoder produces no garbage. Fields may be separated by
+ * SOH (0x01) or by {@code |}.
+ *
+ * Views are only valid until the next call to {@code wrap}, and a decoder
+ * must not be shared between threads.
+ */
+public final class FixDecoder {
+
+    public static final byte SOH = 0x01;
+    public static final byte PIPE = '|';
+
+    /** Tags below this bound are resolved through a direct lookup table. */
+    private static final int INDEXED_TAGS = 1024;
+
+    private static final double[] POW10 = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18
+    };
+
+    private byte[] buffer;
+    private int offset;
+    private int length;
+
+    private int fieldCount;
+    private int[] tags = new int[64];
+    private int[] valueOffsets = new int[64];
+    private int[] valueLengths = new int[64];
+
+    // First occurrence of each low tag. A slot is only valid when its stamp
+    // matches the current message, which saves clearing the table per wrap.
+    private final int[] indexByTag = new int[INDEXED_TAGS];
+    private final int[] stampByTag = new int[INDEXED_TAGS];
+    private int stamp;
+
+    private byte[] scratch = new byte[512];
+    private int unmappableAt = -1;
+
+    public FixDecoder wrap(byte[] message) {
+        return wrap(message, 0, message.length);
+    }
+
+    public FixDecoder wrap(byte[] message, int offset, int length) {
+        return wrap(message, offset, length, -1);
+    }
+
+    private FixDecoder wrap(byte[] message, int offset, int length, int unmappableAt) {
+        this.unmappableAt = unmappableAt;
+        this.buffer = message;
+        this.offset = offset;
+        this.length = length;
+        decode();
+        return this;
+    }
+
+    /**
+     * Wraps the remaining bytes of {@code message} without changing its position.
+     * Direct buffers are copied once into an internal, reused scratch array.
+     */
+    public FixDecoder wrap(ByteBuffer message) {
+        int len = message.remaining();
+        if (message.hasArray()) {
+            return wrap(message.array(), message.arrayOffset() + message.position(), len);
+        }
+        ensureScratch(len);
+        message.get(message.position(), scratch, 0, len);
+        return wrap(scratch, 0, len);
+    }
+
+    /**
+     * Wraps a message that is already held as text (e.g. a Redis stream field).
+     * FIX is ASCII, so the characters are narrowed into a reused scratch array.
+     * A character above 0xFF has no byte to narrow to: it is decoded as
+     * {@code ?} and flagged through {@link #unmappableAt()}.
+     */
+    public FixDecoder wrap(CharSequence message) {
+        int len = message.length();
+        ensureScratch(len);
+        byte[] dst = scratch;
+        int unmappable = -1;
+        for (int i = 0; i < len; i++) {
+            char c = message.charAt(i);
+            if (c > 0xFF) {
+                if (unmappable < 0) {
+                    unmappable = i;
+                }
+                c = '?';
+            }
+            dst[i] = (byte) c;
+        }
+        return wrap(dst, 0, len, unmappable);
+    }
+
+    /**
+     * Position of the first character of the wrapped text that did not fit
+     * in a byte, or -1 if there was none. Always -1 for wrapped bytes.
+     */
+    public int unmappableAt() {
+        return unmappableAt;
+    }
+
+    private void decode() {
+        fieldCount = 0;
+        if (++stamp == 0) {
+            Arrays.fill(stampByTag, 0);
+            stamp = 1;
+        }
+
+        final byte[] buf = buffer;
+        final int end = offset + length;
+        int i = offset;
+
+        while (i < end) {
+            int tag = 0;
+            int tagStart = i;
+            boolean numeric = true;
+            while (i < end) {
+                byte b = buf[i];
+                if (b == '=' || b == SOH || b == PIPE) {
+                    break;
+                }
+                if (b < '0' || b > '9') {
+                    numeric = false;
+                }
+                tag = tag * 10 + (b - '0');
+                i++;
+            }
+            int tagDigits = i - tagStart;
+            numeric &= tagDigits > 0 && tagDigits <= 9;
+
+            if (i >= end || buf[i] != '=') {
+                // Field without '=' - skip it, like the old split-based parser did.
+                i++;
+                continue;
+            }
+
+            int valueStart = ++i;
+            while (i < end && buf[i] != SOH && buf[i] != PIPE) {
+                i++;
+            }
+
+            if (numeric) {
+                addField(tag, valueStart, i - valueStart);
+            }
+            i++;
+        }
+    }
+
+    private void addField(int tag, int valueOffset, int valueLength) {
+        int n = fieldCount;
+        if (n == tags.length) {
+            int capacity = n << 1;
+            tags = Arrays.copyOf(tags, capacity);
+            valueOffsets = Arrays.copyOf(valueOffsets, capacity);
+            valueLengths = Arrays.copyOf(valueLengths, capacity);
+        }
+        tags[n] = tag;
+        valueOffsets[n] = valueOffset;
+        valueLengths[n] = valueLength;
+        if (tag < INDEXED_TAGS && stampByTag[tag] != stamp) {
+            stampByTag[tag] = stamp;
+            indexByTag[tag] = n;
+        }
+        fieldCount = n + 1;
+    }
+
+    private void ensureScratch(int len) {
+        if (scratch.length < len) {
+            scratch = new byte[Math.max(len, scratch.length << 1)];
+        }
+    }
+
+    // -------------------------------------------------------
+    // FIELD ACCESS BY POSITION (repeating groups, iteration)
+    // -------------------------------------------------------
+
+    public int fieldCount() {
+        return fieldCount;
+    }
+
+    public int tagAt(int index) {
+        return tags[index];
+    }
+
+    public int valueOffsetAt(int index) {
+        return valueOffsets[index];
+    }
+
+    public int valueLengthAt(int index) {
+        return valueLengths[index];
+    }
+
+    /** The array the current value views point into. */
+    public byte[] buffer() {
+        return buffer;
+    }
+
+    public int offset() {
+        return offset;
+    }
+
+    public int length() {
+        return length;
+    }
+
+    public String stringAt(int index) {
+        return new String(buffer, valueOffsets[index], valueLengths[index], StandardCharsets.US_ASCII);
+    }
+
+    public long longAt(int index) {
+        return parseLong(valueOffsets[index], valueLengths[index]);
+    }
+
+    public double decimalAt(int index) {
+        return parseDecimal(valueOffsets[index], valueLengths[index]);
+    }
+
+    public long scaledAt(int index, int scale) {
+        return parseScaled(valueOffsets[index], valueLengths[index], scale);
+    }
+
+    /** Position of the first occurrence of {@code tag}, or -1 if absent. */
+    public int indexOf(int tag) {
+        if (tag >= 0 && tag < INDEXED_TAGS) {
+            return stampByTag[tag] == stamp ? indexByTag[tag] : -1;
+        }
+        for (int i = 0; i < fieldCount; i++) {
+            if (tags[i] == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /** Position of the next occurrence of {@code tag} at or after {@code from}, or -1. */
+    public int indexOf(int tag, int from) {
+        for (int i = from; i < fieldCount; i++) {
+            if (tags[i] == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    // -------------------------------------------------------
+    // TYPED ACCESSORS BY TAG (first occurrence)
+    // -------------------------------------------------------
+
+    public boolean has(int tag) {
+        return indexOf(tag) >= 0;
+    }
+
+    public int getInt(int tag) {
+        long value = getLong(tag);
+        if (value < Integer.MIN_VALUE || value > Integer.MAX_VALUE) {
+            throw new NumberFormatException("Tag " + tag + " does not fit in an int");
+        }
+        return (int) value;
+    }
+
+    public int getInt(int tag, int missingValue) {
+        return has(tag) ? getInt(tag) : missingValue;
+    }
+
+    public long getLong(int tag) {
+        int i = require(tag);
+        return parseLong(valueOffsets[i], valueLengths[i]);
+    }
+
+    public long getLong(int tag, long missingValue) {
+        int i = indexOf(tag);
+        return i < 0 ? missingValue : parseLong(valueOffsets[i], valueLengths[i]);
+    }
+
+    /** Decimal value (e.g. Price 44) as a double, parsed without allocating. */
+    public double getDecimal(int tag) {
+        int i = require(tag);
+        return parseDecimal(valueOffsets[i], valueLengths[i]);
+    }
+
+    public double getDecimal(int tag, double missingValue) {
+        int i = indexOf(tag);
+        return i < 0 ? missingValue : parseDecimal(valueOffsets[i], valueLengths[i]);
+    }
+
+    /**
+     * Decimal value as a fixed-point long with {@code scale} fractional digits,
+     * e.g. {@code getScaled(44, 4)} turns 150.25 into 1502500. Extra digits are truncated.
+     */
+    public long getScaled(int tag, int scale) {
+        int i = require(tag);
+        return parseScaled(valueOffsets[i], valueLengths[i], scale);
+    }
+
+    public long getScaled(int tag, int scale, long missingValue) {
+        int i = indexOf(tag);
+        return i < 0 ? missingValue : parseScaled(valueOffsets[i], valueLengths[i], scale);
+    }
+
+    /**
+     * UTCTimestamp (e.g. SendingTime 52, {@code 20251017-22:18:03.105}) as
+     * microseconds since the epoch. Seconds and the fraction are optional;
+     * digits past microseconds are truncated.
+     */
+    public long getTimestampMicros(int tag, long missingValue) {
+        int i = indexOf(tag);
+        return i < 0 ? missingValue : parseTimestampMicros(valueOffsets[i], valueLengths[i]);
+    }
+
+    /** First byte of the value; MsgType, Side and similar single-character fields. */
+    public byte getByte(int tag) {
+        int i = require(tag);
+        if (valueLengths[i] == 0) {
+            throw new IllegalStateException("Tag " + tag + " is empty");
+        }
+        return buffer[valueOffsets[i]];
+    }
+
+    /** Value as a new String, or {@code null} if the tag is absent. Allocates. */
+    public String getString(int tag) {
+        int i = indexOf(tag);
+        return i < 0 ? null : stringAt(i);
+    }
+
+    /** Compares the value of {@code tag} with an ASCII constant without allocating. */
+    public boolean valueEquals(int tag, byte[] expected) {
+        int i = indexOf(tag);
+        if (i < 0 || valueLengths[i] != expected.length) {
+            return false;
+        }
+        int off = valueOffsets[i];
+        for (int k = 0; k < expected.length; k++) {
+            if (buffer[off + k] != expected[k]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int require(int tag) {
+        int i = indexOf(tag);
+        if (i < 0) {
+            throw new NumberFormatException("Tag " + tag + " is not present");
+        }
+        return i;
+    }
+
+    // -------------------------------------------------------
+    // NUMBER PARSING
+    // -------------------------------------------------------
+
+    private long parseLong(int off, int len) {
+        if (len == 0) {
+            throw new NumberFormatException("Empty numeric value");
+        }
+        final byte[] buf = buffer;
+        int i = off;
+        int end = off + len;
+        boolean negative = buf[i] == '-';
+        if (negative || buf[i] == '+') {
+            i++;
+        }
+        if (i == end || end - i > 18) {
+            throw new NumberFormatException("Not a long: " + new String(buf, off, len, StandardCharsets.US_ASCII));
+        }
+        long value = 0;
+        for (; i < end; i++) {
+            int d = buf[i] - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Not a long: " + new String(buf, off, len, StandardCharsets.US_ASCII));
+            }
+            value = value * 10 + d;
+        }
+        return negative ? -value : value;
+    }
+
+    private double parseDecimal(int off, int len) {
+        final byte[] buf = buffer;
+        int i = off;
+        int end = off + len;
+        boolean negative = i < end && buf[i] == '-';
+        if (negative || (i < end && buf[i] == '+')) {
+            i++;
+        }
+
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = 0;
+        boolean seenPoint = false;
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (b == '.' && !seenPoint) {
+                seenPoint = true;
+                continue;
+            }
+            int d = b - '0';
+            if (d < 0 || d > 9 || digits == 18) {
+                // Exponents, junk or more precision than a long holds: take the slow path.
+                return Double.parseDouble(new String(buf, off, len, StandardCharsets.US_ASCII));
+            }
+            mantissa = mantissa * 10 + d;
+            digits++;
+            if (seenPoint) {
+                fractionDigits++;
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not a decimal: " + new String(buf, off, len, StandardCharsets.US_ASCII));
+        }
+        if (mantissa >= (1L << 53)) {
+            return Double.parseDouble(new String(buf, off, len, StandardCharsets.US_ASCII));
+        }
+        // Both operands are exact doubles, so the quotient is correctly rounded.
+        double value = mantissa / POW10[fractionDigits];
+        return negative ? -value : value;
+    }
+
+    private long parseScaled(int off, int len, int scale) {
+        final byte[] buf = buffer;
+        int i = off;
+        int end = off + len;
+        boolean negative = i < end && buf[i] == '-';
+        if (negative || (i < end && buf[i] == '+')) {
+            i++;
+        }
+        long value = 0;
+        int fractionDigits = -1;
+        int digits = 0;
+        for (; i < end; i++) {
+            byte b = buf[i];
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+                continue;
+            }
+            int d = b - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Not a decimal: " + new String(buf, off, len, StandardCharsets.US_ASCII));
+            }
+            if (fractionDigits == scale) {
+                continue;
+            }
+            // Up to 18 digits always fit; past that, check before each step.
+            if (digits >= 18 && value > (Long.MAX_VALUE - d) / 10) {
+                throw new NumberFormatException("Out of range at scale " + scale + ": "
+                        + new String(buf, off, len, StandardCharsets.US_ASCII));
+            }
+            value = value * 10 + d;
+            digits++;
+            if (fractionDigits >= 0) {
+                fractionDigits++;
+            }
+        }
+        if (digits == 0) {
+            throw new NumberFormatException("Not a decimal: " + new String(buf, off, len, StandardCharsets.US_ASCII));
+        }
+        for (int f = Math.max(fractionDigits, 0); f < scale; f++) {
+            if (value > Long.MAX_VALUE / 10) {
+                throw new NumberFormatException("Out of range at scale " + scale + ": "
+                        + new String(buf, off, len, StandardCharsets.US_ASCII));
+            }
+            value *= 10;
+        }
+        return negative ? -value : value;
+    }
+
+    private long parseTimestampMicros(int off, int len) {
+        final byte[] buf = buffer;
+        if (len < 14 || buf[off + 8] != '-' || buf[off + 11] != ':') {
+            throw new NumberFormatException("Not a UTCTimestamp: " + new String(buf, off, len, StandardCharsets.US_ASCII));
+        }
+        int year = digits(off, 4);
+        int month = digits(off + 4, 2);
+        int day = digits(off + 6, 2);
+        int hour = digits(off + 9, 2);
+        int minute = digits(off + 12, 2);
+        int second = 0;
+        long micros = 0;
+        if (len >= 17) {
+            if (buf[off + 14] != ':') {
+                throw new NumberFormatException("Not a UTCTimestamp: " + new String(buf, off, len, StandardCharsets.US_ASCII));
+            }
+            second = digits(off + 15, 2);
+            if (len > 18 && buf[off + 17] == '.') {
+                int fractionDigits = Math.min(len - 18, 6);
+                micros = digits(off + 18, fractionDigits);
+                for (int f = fractionDigits; f < 6; f++) {
+                    micros *= 10;
+                }
+            }
+        }
+        if (month < 1 || month > 12 || day < 1 || day > 31 || hour > 23 || minute > 59 || second > 60) {
+            throw new NumberFormatException("Not a UTCTimestamp: " + new String(buf, off, len, StandardCharsets.US_ASCII));
+        }
+        long seconds = epochDay(year, month, day) * 86_400L + hour * 3_600L + minute * 60L + second;
+        return seconds * 1_000_000L + micros;
+    }
+
+    private int digits(int off, int count) {
+        int value = 0;
+        for (int k = off; k < off + count; k++) {
+            int d = buffer[k] - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("Not a UTCTimestamp: " + new String(buffer, off, count, StandardCharsets.US_ASCII));
+            }
+            value = value * 10 + d;
+        }
+        return value;
+    }
+
+    /** Days since 1970-01-01 for a proleptic Gregorian date. */
+    private static long epochDay(int year, int month, int day) {
+        int y = month <= 2 ? year - 1 : year;
+        int era = Math.floorDiv(y, 400);
+        int yoe = y - era * 400;
+        int doy = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        int doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+        return era * 146_097L + doe - 719_468;
+    }
+
+    /**
+     * Hash of the first value of {@code tag} in a raw message, without decoding
+     * the rest of it. Used to route messages (e.g. by Symbol) before parsing;
+     * returns 0 if the tag is absent.
+     */
+    public static int hashValue(CharSequence message, int tag) {
+        final int len = message.length();
+        int i = 0;
+        while (i < len) {
+            int t = 0;
+            int start = i;
+            while (i < len) {
+                char c = message.charAt(i);
+                if (c < '0' || c > '9') {
+                    break;
+                }
+                t = t * 10 + (c - '0');
+                i++;
+            }
+            boolean match = i > start && t == tag && i < len && message.charAt(i) == '=';
+            int valueStart = i + 1;
+            while (i < len) {
+                char c = message.charAt(i);
+                if (c == SOH || c == PIPE) {
+                    break;
+                }
+                i++;
+            }
+            if (match) {
+                int h = 1;
+                for (int k = valueStart; k < i; k++) {
+                    h = 31 * h + message.charAt(k);
+                }
+                return h;
+            }
+            i++;
+        }
+        return 0;
+    }
+
+    @Override
+    public String toString() {
+        if (buffer == null) {
+            return "FixDecoder[]";
+        }
+        return new String(buffer, offset, length, StandardCharsets.US_ASCII).replace((char) SOH, '|');
+    }
+}
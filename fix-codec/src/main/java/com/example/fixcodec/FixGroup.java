@@ -0,0 +1,77 @@
+package com.example.fixcodec;
+
+/**
+ * Cursor over the entries of one repeating group in a {@link FixDecoder},
+ * e.g. NoMDEntries (268) in MarketDataSnapshot (W) and IncrementalRefresh (X).
+ *
+ * The first tag after the count tag is taken as the entry delimiter, as
+ * FIX requires, so a new entry starts wherever it appears again. Lookups
+ * through {@link #indexOf} only see the current entry. Without a data
+ * dictionary the end of the last entry is not known, so it runs to the end
+ * of the message; look up group member tags only.
+ *
+ * Reusable and allocation-free like the decoder, and only valid until the
+ * decoder is wrapped around the next message.
+ */
+public final class FixGroup {
+
+    private FixDecoder decoder;
+    private int count;
+    private int delimiter;
+    private int entryStart;
+    private int entryEnd;
+    private int entry;
+
+    /**
+     * Positions the cursor before the first entry of the group counted by
+     * {@code countTag}. A missing or unparsable count gives an empty group.
+     */
+    public FixGroup wrap(FixDecoder decoder, int countTag) {
+        this.decoder = decoder;
+        this.entry = -1;
+        this.count = 0;
+        int countIndex = decoder.indexOf(countTag);
+        if (countIndex >= 0 && countIndex + 1 < decoder.fieldCount()) {
+            try {
+                count = (int) Math.max(0, decoder.longAt(countIndex));
+            } catch (NumberFormatException e) {
+                count = 0;
+            }
+            delimiter = decoder.tagAt(countIndex + 1);
+            entryEnd = countIndex + 1;
+        }
+        return this;
+    }
+
+    /** The declared number of entries (the count tag's value). */
+    public int count() {
+        return count;
+    }
+
+    /** Moves to the next entry; false once {@link #count} entries or the message are exhausted. */
+    public boolean next() {
+        if (entry + 1 >= count || entryEnd >= decoder.fieldCount() || decoder.tagAt(entryEnd) != delimiter) {
+            return false;
+        }
+        entry++;
+        entryStart = entryEnd;
+        int nextEntry = decoder.indexOf(delimiter, entryStart + 1);
+        entryEnd = nextEntry < 0 || entry + 1 == count ? decoder.fieldCount() : nextEntry;
+        return true;
+    }
+
+    /** Zero-based index of the current entry. */
+    public int entry() {
+        return entry;
+    }
+
+    /** Decoder position of {@code tag} within the current entry, or -1. */
+    public int indexOf(int tag) {
+        for (int i = entryStart; i < entryEnd; i++) {
+            if (decoder.tagAt(i) == tag) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
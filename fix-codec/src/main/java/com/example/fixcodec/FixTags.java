@@ -0,0 +1,96 @@
+package com.example.fixcodec;
+
+/**
+ * FIX 4.4 tag numbers used across the pipeline, plus a lookup of their
+ * human-readable field names.
+ */
+public final class FixTags {
+
+    public static final int AVG_PX = 6;
+    public static final int BEGIN_STRING = 8;
+    public static final int BODY_LENGTH = 9;
+    public static final int CHECK_SUM = 10;
+    public static final int CL_ORD_ID = 11;
+    public static final int CUM_QTY = 14;
+    public static final int EXEC_ID = 17;
+    public static final int HANDL_INST = 21;
+    public static final int LAST_PX = 31;
+    public static final int LAST_QTY = 32;
+    public static final int MSG_SEQ_NUM = 34;
+    public static final int MSG_TYPE = 35;
+    public static final int NEW_SEQ_NO = 36;
+    public static final int ORDER_ID = 37;
+    public static final int ORDER_QTY = 38;
+    public static final int ORD_STATUS = 39;
+    public static final int ORD_TYPE = 40;
+    public static final int ORIG_CL_ORD_ID = 41;
+    public static final int POSS_DUP_FLAG = 43;
+    public static final int PRICE = 44;
+    public static final int SENDER_COMP_ID = 49;
+    public static final int SENDING_TIME = 52;
+    public static final int SIDE = 54;
+    public static final int SYMBOL = 55;
+    public static final int TARGET_COMP_ID = 56;
+    public static final int TEXT = 58;
+    public static final int TIME_IN_FORCE = 59;
+    public static final int TRANSACT_TIME = 60;
+    public static final int GAP_FILL_FLAG = 123;
+    public static final int RESET_SEQ_NUM_FLAG = 141;
+    public static final int LEAVES_QTY = 151;
+    public static final int EXEC_TYPE = 150;
+    public static final int NO_MD_ENTRIES = 268;
+    public static final int MD_ENTRY_TYPE = 269;
+    public static final int MD_ENTRY_PX = 270;
+    public static final int MD_ENTRY_SIZE = 271;
+    public static final int MD_UPDATE_ACTION = 279;
+
+    private static final String[] NAMES = new String[1024];
+
+    static {
+        NAMES[AVG_PX] = "AvgPx";
+        NAMES[BEGIN_STRING] = "BeginString";
+        NAMES[BODY_LENGTH] = "BodyLength";
+        NAMES[CHECK_SUM] = "CheckSum";
+        NAMES[CL_ORD_ID] = "ClOrdID";
+        NAMES[CUM_QTY] = "CumQty";
+        NAMES[EXEC_ID] = "ExecID";
+        NAMES[HANDL_INST] = "HandlInst";
+        NAMES[LAST_PX] = "LastPx";
+        NAMES[LAST_QTY] = "LastQty";
+        NAMES[MSG_SEQ_NUM] = "MsgSeqNum";
+        NAMES[MSG_TYPE] = "MsgType";
+        NAMES[NEW_SEQ_NO] = "NewSeqNo";
+        NAMES[ORDER_ID] = "OrderID";
+        NAMES[ORDER_QTY] = "OrderQty";
+        NAMES[ORD_STATUS] = "OrdStatus";
+        NAMES[ORD_TYPE] = "OrdType";
+        NAMES[ORIG_CL_ORD_ID] = "OrigClOrdID";
+        NAMES[POSS_DUP_FLAG] = "PossDupFlag";
+        NAMES[PRICE] = "Price";
+        NAMES[SENDER_COMP_ID] = "SenderCompID";
+        NAMES[SENDING_TIME] = "SendingTime";
+        NAMES[SIDE] = "Side";
+        NAMES[SYMBOL] = "Symbol";
+        NAMES[TARGET_COMP_ID] = "TargetCompID";
+        NAMES[TEXT] = "Text";
+        NAMES[TIME_IN_FORCE] = "TimeInForce";
+        NAMES[TRANSACT_TIME] = "TransactTime";
+        NAMES[GAP_FILL_FLAG] = "GapFillFlag";
+        NAMES[RESET_SEQ_NUM_FLAG] = "ResetSeqNumFlag";
+        NAMES[LEAVES_QTY] = "LeavesQty";
+        NAMES[EXEC_TYPE] = "ExecType";
+        NAMES[NO_MD_ENTRIES] = "NoMDEntries";
+        NAMES[MD_ENTRY_TYPE] = "MDEntryType";
+        NAMES[MD_ENTRY_PX] = "MDEntryPx";
+        NAMES[MD_ENTRY_SIZE] = "MDEntrySize";
+        NAMES[MD_UPDATE_ACTION] = "MDUpdateAction";
+    }
+
+    private FixTags() {
+    }
+
+    /** Returns the FIX field name for a tag, or {@code null} if it is not known. */
+    public static String nameOf(int tag) {
+        return tag >= 0 && tag < NAMES.length ? NAMES[tag] : null;
+    }
+}
@@ -0,0 +1,197 @@
+package com.example.fixcodec;
+
+/**
+ * Checks the BodyLength (9) and CheckSum (10) of a framed FIX message.
+ *
+ * The header and trailer are read in place, so the only pass over the
+ * message is the byte sum for the checksum. Where the
+ * {@code jdk.incubator.vector} module is present (the JVM was started with
+ * {@code --add-modules jdk.incubator.vector}) and the CPU has vectors of at
+ * least 16 bytes, the sum is taken a vector at a time; otherwise a scalar
+ * loop does it. {@code -Dfix.codec.vector=false} forces the scalar loop.
+ *
+ * Messages may be delimited by SOH or by {@code |}, as the decoder accepts;
+ * with {@code |} each delimiter is summed as the SOH it stands for. A
+ * trailing line break, as in a log file, is ignored.
+ *
+ * Like {@link FixDecoder}, a validator is a reusable flyweight: the values
+ * behind the last result stay readable until the next call, and an instance
+ * must not be shared between threads.
+ */
+public final class FixValidator {
+
+    public enum Result { VALID, MALFORMED, BAD_BODY_LENGTH, BAD_CHECKSUM, UNMAPPABLE_CHARACTER }
+
+    /** The checksum byte sum over {@code [from, to)} modulo 256, as {@link #scalarSum}. */
+    interface ByteSum {
+        int sum(byte[] message, int from, int to, boolean pipes);
+    }
+
+    /** VectorChecksum, or null where it cannot run. */
+    static final ByteSum VECTOR_SUM = vectorSum();
+    private static final boolean VECTOR_AVAILABLE = VECTOR_SUM != null;
+
+    /** BeginString values are short; a delimiter further in means there is no header. */
+    private static final int MAX_BEGIN_STRING = 16;
+
+    private final boolean vectorized;
+
+    private int declaredBodyLength;
+    private int bodyLength;
+    private int declaredChecksum;
+    private int checksum;
+
+    /** A validator using vectors when they are available. */
+    public FixValidator() {
+        this(VECTOR_AVAILABLE);
+    }
+
+    private FixValidator(boolean vectorized) {
+        this.vectorized = vectorized;
+    }
+
+    /** A validator that never uses vectors, for comparison. */
+    public static FixValidator scalar() {
+        return new FixValidator(false);
+    }
+
+    /** Whether {@link #FixValidator()} sums with vectors in this JVM. */
+    public static boolean isVectorAvailable() {
+        return VECTOR_AVAILABLE;
+    }
+
+    public boolean isVectorized() {
+        return vectorized;
+    }
+
+    /**
+     * Validates the message the decoder currently wraps, in the decoder's own
+     * bytes. Text with a character that did not fit in a byte (see
+     * {@link FixDecoder#unmappableAt()}) is rejected without summing.
+     */
+    public Result validate(FixDecoder decoder) {
+        if (decoder.unmappableAt() >= 0) {
+            declaredBodyLength = -1;
+            bodyLength = -1;
+            declaredChecksum = -1;
+            checksum = -1;
+            return Result.UNMAPPABLE_CHARACTER;
+        }
+        return validate(decoder.buffer(), decoder.offset(), decoder.length());
+    }
+
+    public Result validate(byte[] message, int offset, int length) {
+        declaredBodyLength = -1;
+        bodyLength = -1;
+        declaredChecksum = -1;
+        checksum = -1;
+
+        int end = offset + length;
+        while (end > offset && (message[end - 1] == '\n' || message[end - 1] == '\r')) {
+            end--;
+        }
+
+        // 8=<BeginString><delimiter>9=<BodyLength><delimiter>
+        if (end - offset < 2 || message[offset] != '8' || message[offset + 1] != '=') {
+            return Result.MALFORMED;
+        }
+        int i = offset + 2;
+        int limit = Math.min(end, i + MAX_BEGIN_STRING);
+        while (i < limit && message[i] != FixDecoder.SOH && message[i] != FixDecoder.PIPE) {
+            i++;
+        }
+        if (i + 3 >= end || message[i + 1] != '9' || message[i + 2] != '=') {
+            return Result.MALFORMED;
+        }
+        byte delimiter = message[i];
+        i += 3;
+        int declared = 0;
+        int digitsStart = i;
+        while (i < end && message[i] >= '0' && message[i] <= '9' && i - digitsStart < 9) {
+            declared = declared * 10 + (message[i++] - '0');
+        }
+        if (i == digitsStart || i >= end || message[i] != delimiter) {
+            return Result.MALFORMED;
+        }
+        int bodyStart = i + 1;
+
+        // <delimiter>10=NNN, optionally followed by one more delimiter.
+        int trailerEnd = message[end - 1] == delimiter ? end - 1 : end;
+        int trailer = trailerEnd - 7;
+        if (trailer < bodyStart - 1 || message[trailer] != delimiter || message[trailer + 1] != '1'
+                || message[trailer + 2] != '0' || message[trailer + 3] != '=') {
+            return Result.MALFORMED;
+        }
+        int sum = 0;
+        for (int d = trailer + 4; d < trailerEnd; d++) {
+            byte b = message[d];
+            if (b < '0' || b > '9') {
+                return Result.MALFORMED;
+            }
+            sum = sum * 10 + (b - '0');
+        }
+
+        declaredBodyLength = declared;
+        declaredChecksum = sum;
+        // BodyLength counts from after its own delimiter up to and including the one before 10=.
+        bodyLength = trailer + 1 - bodyStart;
+        boolean pipes = delimiter == FixDecoder.PIPE;
+        checksum = vectorized
+                ? VECTOR_SUM.sum(message, offset, trailer + 1, pipes)
+                : scalarSum(message, offset, trailer + 1, pipes);
+
+        if (bodyLength != declaredBodyLength) {
+            return Result.BAD_BODY_LENGTH;
+        }
+        return checksum == declaredChecksum ? Result.VALID : Result.BAD_CHECKSUM;
+    }
+
+    /** BodyLength as the message states it; -1 if it could not be read. */
+    public int declaredBodyLength() {
+        return declaredBodyLength;
+    }
+
+    /** BodyLength as counted; -1 if the message is malformed. */
+    public int bodyLength() {
+        return bodyLength;
+    }
+
+    public int declaredChecksum() {
+        return declaredChecksum;
+    }
+
+    public int checksum() {
+        return checksum;
+    }
+
+    /** The sum of the bytes in {@code [from, to)} modulo 256. */
+    static int scalarSum(byte[] message, int from, int to, boolean pipes) {
+        int sum = 0;
+        if (pipes) {
+            for (int i = from; i < to; i++) {
+                byte b = message[i];
+                sum += b == FixDecoder.PIPE ? FixDecoder.SOH : b;
+            }
+        } else {
+            for (int i = from; i < to; i++) {
+                sum += message[i];
+            }
+        }
+        // Signed bytes sum to the same value modulo 256 as unsigned ones.
+        return sum & 0xFF;
+    }
+
+    private static ByteSum vectorSum() {
+        if (!Boolean.parseBoolean(System.getProperty("fix.codec.vector", "true"))) {
+            return null;
+        }
+        try {
+            // By name: this class is compiled without jdk.incubator.vector.
+            return (ByteSum) Class.forName(FixValidator.class.getPackageName() + ".VectorChecksum")
+                    .getDeclaredConstructor().newInstance();
+        } catch (LinkageError | ReflectiveOperationException e) {
+            // jdk.incubator.vector is not in the module graph, or the vectors are too narrow.
+            return null;
+        }
+    }
+}
@@ -0,0 +1,131 @@
+package com.example.fixcodec;
+
+/**
+ * The next expected MsgSeqNum (34) of each session, for spotting gaps and
+ * repeats in a message stream.
+ *
+ * Sessions are identified by a caller-chosen non-zero long, such as the
+ * SenderCompID and TargetCompID dictionary ids packed together. Keys and
+ * expected numbers live in two parallel arrays with linear probing, so a
+ * check is a hash, a probe or two and no allocation.
+ *
+ * Not thread-safe, and it only makes sense fed in stream order.
+ */
+public final class SequenceTracker {
+
+    public enum Event {
+        /** The first message seen from the session; nothing to compare with. */
+        FIRST,
+        IN_SEQUENCE,
+        /** Higher than expected: {@link #expected()} up to the number before this one are missing. */
+        GAP,
+        /** Lower than expected and not flagged PossDupFlag=Y. */
+        TOO_LOW,
+        /** Lower than expected, flagged as a possible duplicate: a normal resend. */
+        RESENT
+    }
+
+    private long[] keys;
+    private long[] nextExpected;
+    private int mask;
+    private int size;
+    private long expected;
+
+    public SequenceTracker(int expectedSessions) {
+        int capacity = Integer.highestOneBit(Math.max(8, expectedSessions * 2 - 1)) << 1;
+        keys = new long[capacity];
+        nextExpected = new long[capacity];
+        mask = capacity - 1;
+    }
+
+    /**
+     * Compares {@code seqNum} with what {@code session} should send next. A
+     * gap moves the expectation past {@code seqNum}; a lower number leaves
+     * it where it was.
+     */
+    public Event check(long session, long seqNum, boolean possDup) {
+        int slot = slot(session);
+        if (keys[slot] == 0) {
+            insert(slot, session, seqNum + 1);
+            expected = seqNum;
+            return Event.FIRST;
+        }
+        expected = nextExpected[slot];
+        if (seqNum == expected) {
+            nextExpected[slot] = seqNum + 1;
+            return Event.IN_SEQUENCE;
+        }
+        if (seqNum > expected) {
+            nextExpected[slot] = seqNum + 1;
+            return Event.GAP;
+        }
+        return possDup ? Event.RESENT : Event.TOO_LOW;
+    }
+
+    /** Sets the next expected number, as a SequenceReset or a Logon with ResetSeqNumFlag=Y does. */
+    public void reset(long session, long nextSeqNum) {
+        int slot = slot(session);
+        if (keys[slot] == 0) {
+            insert(slot, session, nextSeqNum);
+        } else {
+            nextExpected[slot] = nextSeqNum;
+        }
+    }
+
+    /** What the last {@link #check} expected. */
+    public long expected() {
+        return expected;
+    }
+
+    /** The next number expected from {@code session}; 0 if it has not been seen. */
+    public long nextExpected(long session) {
+        int slot = slot(session);
+        return keys[slot] == 0 ? 0 : nextExpected[slot];
+    }
+
+    public int sessions() {
+        return size;
+    }
+
+    private int slot(long session) {
+        if (session == 0) {
+            throw new IllegalArgumentException("Session key 0 is reserved");
+        }
+        int slot = hash(session) & mask;
+        while (keys[slot] != 0 && keys[slot] != session) {
+            slot = (slot + 1) & mask;
+        }
+        return slot;
+    }
+
+    private void insert(int slot, long session, long next) {
+        keys[slot] = session;
+        nextExpected[slot] = next;
+        if (++size * 2 > keys.length) {
+            grow();
+        }
+    }
+
+    private void grow() {
+        long[] oldKeys = keys;
+        long[] oldNext = nextExpected;
+        keys = new long[oldKeys.length * 2];
+        nextExpected = new long[oldKeys.length * 2];
+        mask = keys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != 0) {
+                int slot = hash(oldKeys[i]) & mask;
+                while (keys[slot] != 0) {
+                    slot = (slot + 1) & mask;
+                }
+                keys[slot] = oldKeys[i];
+                nextExpected[slot] = oldNext[i];
+            }
+        }
+    }
+
+    private static int hash(long key) {
+        key *= 0x9E3779B97F4A7C15L;
+        return (int) (key ^ (key >>> 32));
+    }
+}
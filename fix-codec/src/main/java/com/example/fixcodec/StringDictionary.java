@@ -0,0 +1,173 @@
+package com.example.fixcodec;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Small, mostly-read dictionary of FIX string values (Symbol, CompIDs) to
+ * dense int ids, with one canonical String per value.
+ *
+ * {@link #lookup} hashes and compares the value bytes in place, so a
+ * decoder field resolves to its id and canonical String without allocating.
+ * Reads are lock-free: entries are published through an
+ * {@link AtomicReferenceArray}, after their id and String are written.
+ * Misses go through {@link #intern}, which takes a lock and asks the
+ * {@link IdAssigner} for the new value's id (e.g. from a database table,
+ * so ids agree across processes).
+ *
+ * Ids are positive; 0 means absent. Values are ASCII, as FIX String fields are.
+ */
+public final class StringDictionary {
+
+    /** Supplies the id for a value seen for the first time. Called under the dictionary's lock. */
+    @FunctionalInterface
+    public interface IdAssigner {
+        int assign(String value);
+    }
+
+    private static final class Table {
+        final AtomicReferenceArray<byte[]> keys;
+        final int[] ids;
+        final int mask;
+
+        Table(int capacity) {
+            keys = new AtomicReferenceArray<>(capacity);
+            ids = new int[capacity];
+            mask = capacity - 1;
+        }
+    }
+
+    private final IdAssigner assigner;
+    private volatile Table table = new Table(64);
+    private volatile String[] values = new String[64];
+    private int size;
+    private int nextId = 1;
+
+    /** A process-local dictionary numbering values 1, 2, 3... in order of first use. */
+    public StringDictionary() {
+        this(null);
+    }
+
+    public StringDictionary(IdAssigner assigner) {
+        this.assigner = assigner;
+    }
+
+    /** Id of the value in {@code buf[off, off + len)}, or 0 if it has none yet. Lock-free. */
+    public int lookup(byte[] buf, int off, int len) {
+        Table t = table;
+        for (int i = hash(buf, off, len) & t.mask; ; i = (i + 1) & t.mask) {
+            byte[] key = t.keys.get(i);
+            if (key == null) {
+                return 0;
+            }
+            if (Arrays.equals(key, 0, key.length, buf, off, off + len)) {
+                return t.ids[i];
+            }
+        }
+    }
+
+    /** Id of {@code value}, or 0 if it has none yet. */
+    public int lookup(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        return lookup(bytes, 0, bytes.length);
+    }
+
+    /** Id of the value, adding it on first use. */
+    public int intern(byte[] buf, int off, int len) {
+        int id = lookup(buf, off, len);
+        return id != 0 ? id : add(new String(buf, off, len, StandardCharsets.US_ASCII));
+    }
+
+    /** Id of the first {@code tag} in the decoded message, adding it on first use; 0 if absent. */
+    public int intern(FixDecoder decoder, int tag) {
+        int i = decoder.indexOf(tag);
+        return i < 0 ? 0 : intern(decoder.buffer(), decoder.valueOffsetAt(i), decoder.valueLengthAt(i));
+    }
+
+    public int intern(String value) {
+        int id = lookup(value);
+        return id != 0 ? id : add(value);
+    }
+
+    /** The canonical String for {@code id}, or {@code null} for 0 or an unknown id. */
+    public String value(int id) {
+        String[] v = values;
+        return id > 0 && id < v.length ? v[id] : null;
+    }
+
+    public synchronized int size() {
+        return size;
+    }
+
+    /** Records an id assigned elsewhere, e.g. when loading the dictionary from its table. */
+    public synchronized void put(String value, int id) {
+        if (id <= 0) {
+            throw new IllegalArgumentException("Dictionary ids are positive: " + id);
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        if (lookup(bytes, 0, bytes.length) == 0) {
+            insert(bytes, value, id);
+        }
+        nextId = Math.max(nextId, id + 1);
+    }
+
+    private synchronized int add(String value) {
+        byte[] bytes = value.getBytes(StandardCharsets.US_ASCII);
+        int id = lookup(bytes, 0, bytes.length);
+        if (id != 0) {
+            return id;
+        }
+        id = assigner != null ? assigner.assign(value) : nextId;
+        if (id <= 0) {
+            throw new IllegalStateException("Dictionary ids are positive: " + id + " for " + value);
+        }
+        insert(bytes, value, id);
+        nextId = Math.max(nextId, id + 1);
+        return id;
+    }
+
+    private void insert(byte[] bytes, String value, int id) {
+        String[] v = values;
+        if (id >= v.length) {
+            v = Arrays.copyOf(v, Math.max(v.length * 2, id + 1));
+        }
+        v[id] = value;
+        values = v;
+
+        if ((size + 1) * 2 > table.keys.length()) {
+            Table grown = new Table(table.keys.length() * 2);
+            Table old = table;
+            for (int i = 0; i < old.keys.length(); i++) {
+                byte[] key = old.keys.get(i);
+                if (key != null) {
+                    place(grown, key, old.ids[i]);
+                }
+            }
+            place(grown, bytes, id);
+            table = grown;
+        } else {
+            place(table, bytes, id);
+        }
+        size++;
+    }
+
+    /** Writes the id first; the key store publishes both. */
+    private static void place(Table t, byte[] key, int id) {
+        int i = hash(key, 0, key.length) & t.mask;
+        while (t.keys.get(i) != null) {
+            i = (i + 1) & t.mask;
+        }
+        t.ids[i] = id;
+        t.keys.set(i, key);
+    }
+
+    private static int hash(byte[] buf, int off, int len) {
+        int h = 0;
+        for (int i = off; i < off + len; i++) {
+            h = 31 * h + buf[i];
+        }
+        h *= 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
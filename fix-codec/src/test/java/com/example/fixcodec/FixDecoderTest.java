@@ -0,0 +1,128 @@
+package com.example.fixcodec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixDecoderTest {
+
+    private static final String ORDER =
+            "8=FIX.4.4\u00019=139\u000135=D\u000134=1\u000149=BUY_SIDE_8XKV\u000156=SELL_SIDE_YXTZ\u0001"
+            + "52=20251017-22:18:03.105\u000111=DBMMGSM2UA\u000155=SPY\u000154=2\u000138=3550\u0001"
+            + "44=441.16\u000140=2\u000159=0\u000110=104\u0001";
+
+    private final FixDecoder decoder = new FixDecoder();
+
+    @Test
+    void decodesSohDelimitedMessage() {
+        decoder.wrap(ORDER.getBytes(StandardCharsets.US_ASCII));
+
+        assertEquals(15, decoder.fieldCount());
+        assertEquals('D', decoder.getByte(FixTags.MSG_TYPE));
+        assertEquals("SPY", decoder.getString(FixTags.SYMBOL));
+        assertEquals(3550, decoder.getInt(FixTags.ORDER_QTY));
+        assertEquals(441.16, decoder.getDecimal(FixTags.PRICE));
+        assertEquals(4411600, decoder.getScaled(FixTags.PRICE, 4));
+        assertEquals(104, decoder.getInt(FixTags.CHECK_SUM));
+    }
+
+    @Test
+    void pipeAndSohAreInterchangeable() {
+        String piped = ORDER.replace('\u0001', '|');
+        decoder.wrap(piped);
+
+        assertEquals("SELL_SIDE_YXTZ", decoder.getString(FixTags.TARGET_COMP_ID));
+        assertEquals("20251017-22:18:03.105", decoder.getString(FixTags.SENDING_TIME));
+    }
+
+    @Test
+    void missingTagsUseDefaults() {
+        decoder.wrap("8=FIX.4.4|35=0|34=6|10=040|");
+
+        assertFalse(decoder.has(FixTags.SYMBOL));
+        assertNull(decoder.getString(FixTags.SYMBOL));
+        assertEquals(-1, decoder.getInt(FixTags.ORDER_QTY, -1));
+        assertThrows(NumberFormatException.class, () -> decoder.getDecimal(FixTags.PRICE));
+    }
+
+    @Test
+    void keepsEveryRepeatingGroupEntry() {
+        decoder.wrap("8=FIX.4.4|35=W|55=JPM|268=2|269=0|270=54.71|271=4564|269=1|270=161.88|271=2665|10=156|");
+
+        int first = decoder.indexOf(FixTags.MD_ENTRY_PX);
+        int second = decoder.indexOf(FixTags.MD_ENTRY_PX, first + 1);
+        assertEquals(54.71, decoder.decimalAt(first));
+        assertEquals(161.88, decoder.decimalAt(second));
+        assertEquals(-1, decoder.indexOf(FixTags.MD_ENTRY_PX, second + 1));
+    }
+
+    @Test
+    void skipsMalformedFieldsAndResetsBetweenMessages() {
+        decoder.wrap("8=FIX.4.4|garbage|X=1|=2|55=AAPL|");
+        assertEquals(2, decoder.fieldCount());
+        assertEquals("AAPL", decoder.getString(FixTags.SYMBOL));
+
+        decoder.wrap(ByteBuffer.allocateDirect(16).put("35=0|".getBytes(StandardCharsets.US_ASCII)).flip());
+        assertFalse(decoder.has(FixTags.SYMBOL));
+        assertEquals('0', decoder.getByte(FixTags.MSG_TYPE));
+    }
+
+    @Test
+    void hashesARoutingFieldWithoutDecoding() {
+        assertEquals(FixDecoder.hashValue("8=FIX.4.4|155=X|55=SPY|", FixTags.SYMBOL),
+                FixDecoder.hashValue(ORDER, FixTags.SYMBOL));
+        assertEquals(0, FixDecoder.hashValue("8=FIX.4.4|35=0|", FixTags.SYMBOL));
+    }
+
+    @Test
+    void parsesUtcTimestamps() {
+        decoder.wrap(ORDER);
+        long expected = Instant.parse("2025-10-17T22:18:03.105Z").toEpochMilli() * 1_000;
+        assertEquals(expected, decoder.getTimestampMicros(FixTags.SENDING_TIME, -1));
+
+        decoder.wrap("52=20240229-23:59:59.123456789|60=19991231-00:00|");
+        assertEquals(Instant.parse("2024-02-29T23:59:59.123456Z").toEpochMilli() * 1_000 + 456,
+                decoder.getTimestampMicros(FixTags.SENDING_TIME, -1));
+        assertEquals(Instant.parse("1999-12-31T00:00:00Z").getEpochSecond() * 1_000_000,
+                decoder.getTimestampMicros(FixTags.TRANSACT_TIME, -1));
+        assertEquals(-1, decoder.getTimestampMicros(FixTags.SYMBOL, -1));
+    }
+
+    @Test
+    void parsesSignedAndIntegralDecimals() {
+        decoder.wrap("44=-12.5|31=7|32=0.000001|");
+
+        assertEquals(-12.5, decoder.getDecimal(FixTags.PRICE));
+        assertEquals(7.0, decoder.getDecimal(FixTags.LAST_PX));
+        assertEquals(1e-6, decoder.getDecimal(FixTags.LAST_QTY));
+        assertEquals(-125000, decoder.getScaled(FixTags.PRICE, 4));
+    }
+
+    @Test
+    void rejectsScaledValuesPastALong() {
+        decoder.wrap("44=922337203685477.5807|31=922337203685477.5808|32=1000000000000000|");
+
+        assertEquals(Long.MAX_VALUE, decoder.getScaled(FixTags.PRICE, 4));
+        assertThrows(NumberFormatException.class, () -> decoder.getScaled(FixTags.LAST_PX, 4));
+        assertThrows(NumberFormatException.class, () -> decoder.getScaled(FixTags.LAST_QTY, 4));
+    }
+
+    @Test
+    void flagsCharactersThatDoNotFitInAByte() {
+        decoder.wrap("8=FIX.4.4|58=caf\u00e9|10=000|");
+        assertEquals(-1, decoder.unmappableAt());
+        assertEquals("caf\u00e9", new String(decoder.buffer(), decoder.valueOffsetAt(1),
+                decoder.valueLengthAt(1), StandardCharsets.ISO_8859_1));
+
+        decoder.wrap("8=FIX.4.4|58=10\u20ac|10=000|");
+        assertEquals(15, decoder.unmappableAt());
+        assertEquals("10?", decoder.getString(58));
+
+        decoder.wrap("8=FIX.4.4|58=ok|10=000|".getBytes(StandardCharsets.US_ASCII));
+        assertEquals(-1, decoder.unmappableAt());
+    }
+}
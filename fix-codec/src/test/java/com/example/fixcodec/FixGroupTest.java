@@ -0,0 +1,52 @@
+package com.example.fixcodec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixGroupTest {
+
+    private final FixDecoder decoder = new FixDecoder();
+    private final FixGroup group = new FixGroup();
+
+    @Test
+    void walksEachEntryOfASnapshot() {
+        decoder.wrap("8=FIX.4.4|9=90|35=W|55=SPY|268=2|269=0|270=441.10|271=300|269=1|270=441.20|271=500|10=000|");
+        group.wrap(decoder, FixTags.NO_MD_ENTRIES);
+
+        assertEquals(2, group.count());
+        assertTrue(group.next());
+        assertEquals('0', decoder.buffer()[decoder.valueOffsetAt(group.indexOf(FixTags.MD_ENTRY_TYPE))]);
+        assertEquals(44110, decoder.scaledAt(group.indexOf(FixTags.MD_ENTRY_PX), 2));
+        assertEquals(300, decoder.longAt(group.indexOf(FixTags.MD_ENTRY_SIZE)));
+        assertTrue(group.next());
+        assertEquals(1, group.entry());
+        assertEquals(44120, decoder.scaledAt(group.indexOf(FixTags.MD_ENTRY_PX), 2));
+        assertEquals(500, decoder.longAt(group.indexOf(FixTags.MD_ENTRY_SIZE)));
+        assertFalse(group.next());
+    }
+
+    @Test
+    void entriesDoNotSeeEachOthersFields() {
+        decoder.wrap("35=X|268=2|279=0|269=0|55=AAPL|270=150|271=10|279=2|269=1|55=MSFT|270=300|10=000|");
+        group.wrap(decoder, FixTags.NO_MD_ENTRIES);
+
+        assertTrue(group.next());
+        assertEquals("AAPL", decoder.stringAt(group.indexOf(FixTags.SYMBOL)));
+        assertTrue(group.next());
+        assertEquals("MSFT", decoder.stringAt(group.indexOf(FixTags.SYMBOL)));
+        assertEquals(-1, group.indexOf(FixTags.MD_ENTRY_SIZE));
+        assertFalse(group.next());
+    }
+
+    @Test
+    void missingOrOvercountedGroupStopsAtWhatIsThere() {
+        decoder.wrap("35=0|112=X|10=000|");
+        assertFalse(group.wrap(decoder, FixTags.NO_MD_ENTRIES).next());
+
+        decoder.wrap("35=W|55=SPY|268=3|269=0|270=1|10=000|");
+        group.wrap(decoder, FixTags.NO_MD_ENTRIES);
+        assertTrue(group.next());
+        assertFalse(group.next());
+    }
+}
@@ -0,0 +1,80 @@
+package com.example.fixcodec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FixValidatorTest {
+
+    // From logs/fix_synthetic_2025-10-18_10000.log, with its real BodyLength and CheckSum.
+    private static final String ORDER =
+            "8=FIX.4.4\u00019=139\u000135=D\u000134=1\u000149=BUY_SIDE_8XKV\u000156=SELL_SIDE_YXTZ\u0001"
+            + "52=20251017-22:18:03.105\u000111=DBMMGSM2UA\u000155=SPY\u000154=2\u000138=3550\u000140=2\u0001"
+            + "59=0\u000160=20251017-22:18:03.105\u000110=104\u0001";
+
+    private final FixValidator vector = new FixValidator();
+    private final FixValidator scalar = FixValidator.scalar();
+
+    @Test
+    void vectorsAreUsedWhenTheModuleIsAdded() {
+        // The surefire argLine adds jdk.incubator.vector.
+        assertTrue(FixValidator.isVectorAvailable());
+        assertTrue(vector.isVectorized());
+        assertFalse(scalar.isVectorized());
+    }
+
+    @Test
+    void acceptsAValidMessageHoweverItIsDelimited() {
+        for (FixValidator validator : new FixValidator[] { vector, scalar }) {
+            assertEquals(FixValidator.Result.VALID, validate(validator, ORDER));
+            assertEquals(139, validator.bodyLength());
+            assertEquals(104, validator.checksum());
+
+            assertEquals(FixValidator.Result.VALID, validate(validator, ORDER.replace('\u0001', '|')));
+            assertEquals(FixValidator.Result.VALID, validate(validator, ORDER + "\n"));
+            assertEquals(FixValidator.Result.VALID, validate(validator, ORDER.substring(0, ORDER.length() - 1)));
+        }
+    }
+
+    @Test
+    void reportsWhatIsWrong() {
+        for (FixValidator validator : new FixValidator[] { vector, scalar }) {
+            assertEquals(FixValidator.Result.BAD_CHECKSUM, validate(validator, ORDER.replace("SPY", "SPX")));
+            assertEquals(104, validator.declaredChecksum());
+            assertEquals(FixValidator.Result.BAD_BODY_LENGTH, validate(validator, ORDER.replace("3550", "35500")));
+            assertEquals(140, validator.bodyLength());
+            assertEquals(139, validator.declaredBodyLength());
+
+            // Cut off mid-message, as a bad split on 8=FIX leaves it.
+            assertEquals(FixValidator.Result.MALFORMED, validate(validator, ORDER.substring(0, 80)));
+            assertEquals(FixValidator.Result.MALFORMED, validate(validator, ORDER.substring(12)));
+            assertEquals(FixValidator.Result.MALFORMED, validate(validator, ORDER.replace("10=104", "10=1O4")));
+            assertEquals(FixValidator.Result.MALFORMED, validate(validator, "8=FIX.4.4|35=D|10=999"));
+            assertEquals(FixValidator.Result.MALFORMED, validate(validator, ""));
+
+            // Text the decoder could not narrow to bytes.
+            assertEquals(FixValidator.Result.UNMAPPABLE_CHARACTER,
+                    validator.validate(new FixDecoder().wrap(ORDER.replace("SPY", "SP\u20ac"))));
+        }
+    }
+
+    @Test
+    void vectorAndScalarSumsAgreeAtEveryLengthAndOffset() {
+        byte[] bytes = new byte[300];
+        new Random(7).nextBytes(bytes);
+        for (int from = 0; from < 40; from++) {
+            for (int to = from; to <= bytes.length; to++) {
+                assertEquals(FixValidator.scalarSum(bytes, from, to, false), FixValidator.VECTOR_SUM.sum(bytes, from, to, false));
+                assertEquals(FixValidator.scalarSum(bytes, from, to, true), FixValidator.VECTOR_SUM.sum(bytes, from, to, true));
+            }
+        }
+    }
+
+    private static FixValidator.Result validate(FixValidator validator, String message) {
+        byte[] bytes = ("xx" + message).getBytes(StandardCharsets.ISO_8859_1);
+        return validator.validate(bytes, 2, bytes.length - 2);
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.fixcodec;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SequenceTrackerTest {
+
+    @Test
+    void followsEachSessionSeparately() {
+        SequenceTracker tracker = new SequenceTracker(2);
+        assertEquals(SequenceTracker.Event.FIRST, tracker.check(1, 5, false));
+        assertEquals(SequenceTracker.Event.IN_SEQUENCE, tracker.check(1, 6, false));
+        assertEquals(SequenceTracker.Event.FIRST, tracker.check(2, 1, false));
+
+        assertEquals(SequenceTracker.Event.GAP, tracker.check(1, 10, false));
+        assertEquals(7, tracker.expected(), "7 to 9 are missing");
+        assertEquals(11, tracker.nextExpected(1));
+
+        assertEquals(SequenceTracker.Event.TOO_LOW, tracker.check(1, 8, false));
+        assertEquals(SequenceTracker.Event.RESENT, tracker.check(1, 9, true));
+        assertEquals(11, tracker.nextExpected(1), "a low number does not move the expectation back");
+        assertEquals(SequenceTracker.Event.IN_SEQUENCE, tracker.check(2, 2, false));
+    }
+
+    @Test
+    void resetMovesTheExpectationEitherWay() {
+        SequenceTracker tracker = new SequenceTracker(1);
+        tracker.check(3, 100, false);
+        tracker.reset(3, 1);
+        assertEquals(SequenceTracker.Event.IN_SEQUENCE, tracker.check(3, 1, false));
+        tracker.reset(4, 50);
+        assertEquals(SequenceTracker.Event.IN_SEQUENCE, tracker.check(4, 50, false));
+    }
+
+    @Test
+    void growsPastItsInitialCapacity() {
+        SequenceTracker tracker = new SequenceTracker(1);
+        for (long session = 1; session <= 1000; session++) {
+            tracker.check(session << 32 | session, session, false);
+        }
+        assertEquals(1000, tracker.sessions());
+        for (long session = 1; session <= 1000; session++) {
+            assertEquals(session + 1, tracker.nextExpected(session << 32 | session));
+        }
+    }
+}
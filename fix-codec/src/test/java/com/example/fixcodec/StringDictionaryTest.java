@@ -0,0 +1,48 @@
+package com.example.fixcodec;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringDictionaryTest {
+
+    @Test
+    void resolvesDecodedFieldsToCanonicalInstances() {
+        StringDictionary symbols = new StringDictionary();
+        FixDecoder decoder = new FixDecoder();
+
+        int spy = symbols.intern(decoder.wrap("35=D|55=SPY|10=000|"), FixTags.SYMBOL);
+        String first = symbols.value(spy);
+        int again = symbols.intern(decoder.wrap("35=8|55=SPY|10=000|"), FixTags.SYMBOL);
+
+        assertEquals(spy, again);
+        assertSame(first, symbols.value(again));
+        assertEquals(0, symbols.intern(decoder.wrap("35=0|10=000|"), FixTags.SYMBOL));
+        assertNull(symbols.value(0));
+    }
+
+    @Test
+    void asksTheAssignerOncePerValueAndGrows() {
+        List<String> assigned = new ArrayList<>();
+        StringDictionary dictionary = new StringDictionary(value -> {
+            assigned.add(value);
+            return 100 + assigned.size();
+        });
+        dictionary.put("EXISTING", 7);
+
+        for (int round = 0; round < 2; round++) {
+            for (int i = 0; i < 500; i++) {
+                byte[] bytes = ("SYM" + i).getBytes(StandardCharsets.US_ASCII);
+                assertEquals(101 + i, dictionary.intern(bytes, 0, bytes.length));
+            }
+        }
+        assertEquals(7, dictionary.intern("EXISTING"));
+        assertEquals(500, assigned.size());
+        assertEquals(501, dictionary.size());
+        assertEquals("SYM499", dictionary.value(600));
+    }
+}
@@ -0,0 +1,47 @@
+package com.example.fixcodec;
+
+import jdk.incubator.vector.ByteVector;
+import jdk.incubator.vector.VectorOperators;
+import jdk.incubator.vector.VectorSpecies;
+
+/**
+ * The checksum byte sum a vector at a time. Lanes are added as bytes and
+ * left to wrap: only the sum modulo 256 is wanted, so nothing needs
+ * widening, and the lanes are reduced once at the end.
+ *
+ * Compiled apart from the rest of the module (src/vector/java), the only
+ * class built against {@code jdk.incubator.vector}. {@link FixValidator}
+ * loads it by name; without the module that load fails and the validator
+ * stays scalar.
+ */
+final class VectorChecksum implements FixValidator.ByteSum {
+
+    private static final VectorSpecies<Byte> SPECIES = ByteVector.SPECIES_PREFERRED;
+
+    VectorChecksum() {
+        // Below 16 lanes the scalar loop is as fast.
+        if (SPECIES.length() < 16) {
+            throw new UnsupportedOperationException(SPECIES.length() + " byte lanes");
+        }
+    }
+
+    @Override
+    public int sum(byte[] message, int from, int to, boolean pipes) {
+        ByteVector acc = ByteVector.zero(SPECIES);
+        int step = SPECIES.length();
+        int i = from;
+        int bound = from + SPECIES.loopBound(to - from);
+        if (pipes) {
+            for (; i < bound; i += step) {
+                ByteVector v = ByteVector.fromArray(SPECIES, message, i);
+                acc = acc.add(v.blend(FixDecoder.SOH, v.eq(FixDecoder.PIPE)));
+            }
+        } else {
+            for (; i < bound; i += step) {
+                acc = acc.add(ByteVector.fromArray(SPECIES, message, i));
+            }
+        }
+        int sum = acc.reduceLanes(VectorOperators.ADD);
+        return (sum + FixValidator.scalarSum(message, i, to, pipes)) & 0xFF;
+    }
+}
@@ -0,0 +1,179 @@
+package com.example.fixflow;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongSupplier;
+
+/**
+ * Holds senders back while the consumers are behind: the producer per
+ * message, bulk ingest per batch.
+ *
+ * The backlog (entries not yet persisted by the consumer group, see
+ * {@link RedisBacklog}) is sampled at most every {@code pollNanos} and
+ * shared by all senders. Up to the low-water mark they run freely. Between
+ * the low- and the high-water mark they are throttled: for every unit of
+ * time a sender spends working it waits {@code f / (1 - f)} units, where
+ * {@code f} is how far the backlog is into that band, so its rate falls
+ * linearly to nothing at the high-water mark. At the high-water mark they
+ * pause, and resume once the backlog has drained to the low-water mark, so
+ * they do not flap around the limit.
+ */
+public final class FlowControl {
+
+    public enum State { OPEN, THROTTLED, PAUSED }
+
+    /** Shorter waits are added up rather than parked for, since a park overshoots. */
+    private static final long MIN_PARK_NANOS = 1_000_000;
+
+    private final String name;
+    private final LongSupplier backlogSource;
+    private final long highWater;
+    private final long lowWater;
+    private final long pollNanos;
+    private final AtomicLong heldBackNanos = new AtomicLong();
+    private final AtomicLong pauses = new AtomicLong();
+
+    private volatile State state = State.OPEN;
+    private volatile long backlog;
+    private volatile boolean stopped;
+    private long lastPollNanos;
+
+    /**
+     * @param name          what is held back, for the pause and resume log lines
+     * @param backlogSource read under this object's lock, at most every {@code pollNanos}
+     */
+    public FlowControl(String name, LongSupplier backlogSource, long highWater, long lowWater, long pollNanos) {
+        this.name = name;
+        this.backlogSource = backlogSource;
+        this.highWater = highWater;
+        this.lowWater = Math.min(lowWater, highWater - 1);
+        this.pollNanos = pollNanos;
+        this.lastPollNanos = System.nanoTime() - pollNanos;
+    }
+
+    /** The state after seeing {@code backlog} in {@code current}. */
+    public static State next(State current, long backlog, long highWater, long lowWater) {
+        if (current == State.PAUSED) {
+            return backlog <= lowWater ? State.OPEN : State.PAUSED;
+        }
+        if (backlog >= highWater) {
+            return State.PAUSED;
+        }
+        return backlog > lowWater ? State.THROTTLED : State.OPEN;
+    }
+
+    /** Fraction of the time to hold back at {@code backlog}: 0 at the low-water mark, 1 at the high-water mark. */
+    public static double throttle(long backlog, long highWater, long lowWater) {
+        if (backlog <= lowWater) {
+            return 0;
+        }
+        return Math.min(1.0, (double) (backlog - lowWater) / (highWater - lowWater));
+    }
+
+    /** A sender of its own for one thread, which times its work between admits. */
+    public Sender sender() {
+        return new Sender();
+    }
+
+    /** Ends pauses in progress and lets every later send through. */
+    public void stop() {
+        stopped = true;
+    }
+
+    public State state() {
+        return state;
+    }
+
+    /** The backlog as last seen. */
+    public long backlog() {
+        return backlog;
+    }
+
+    /** Time all senders were held back, throttled or paused. */
+    public long heldBackNanos() {
+        return heldBackNanos.get();
+    }
+
+    /** Admits that waited at the high-water mark. */
+    public long pauses() {
+        return pauses.get();
+    }
+
+    private synchronized State refresh() {
+        long now = System.nanoTime();
+        if (now - lastPollNanos < pollNanos) {
+            return state;
+        }
+        lastPollNanos = now;
+        backlog = backlogSource.getAsLong();
+        State previous = state;
+        state = next(previous, backlog, highWater, lowWater);
+        if (state != previous && (state == State.PAUSED || previous == State.PAUSED)) {
+            System.out.println(name + " " + (state == State.PAUSED ? "paused" : "resumed") + ": backlog="
+                    + backlog + " (high-water " + highWater + ", low-water " + lowWater + ")");
+        }
+        return state;
+    }
+
+    /**
+     * One thread's view of the flow control. The time from one admit
+     * returning to the next call is its work, which the throttle holds it
+     * back in proportion to.
+     */
+    public final class Sender {
+
+        private long lastAdmitNanos = System.nanoTime();
+        private long debtNanos;
+
+        private Sender() {
+        }
+
+        /**
+         * Called before each send; returns when it may go. {@code idle} runs
+         * before every wait, so a pipelining publisher keeps reading replies.
+         *
+         * @return false if the sender should give up: paused for longer than
+         *         {@code maxPauseNanos}, or interrupted
+         */
+        public boolean admit(Runnable idle, long maxPauseNanos) {
+            try {
+                return stopped || hold(idle, maxPauseNanos);
+            } finally {
+                lastAdmitNanos = System.nanoTime();
+            }
+        }
+
+        private boolean hold(Runnable idle, long maxPauseNanos) {
+            long now = System.nanoTime();
+            State current = refresh();
+            if (current == State.OPEN) {
+                debtNanos = 0;
+            } else if (current == State.THROTTLED) {
+                // The backlog may have moved past the high-water mark since the
+                // state was read; the cap keeps f = 1 from holding forever.
+                double f = throttle(backlog, highWater, lowWater);
+                debtNanos = (long) Math.min(pollNanos, debtNanos + (now - lastAdmitNanos) * f / (1 - f));
+                if (debtNanos >= MIN_PARK_NANOS) {
+                    idle.run();
+                    LockSupport.parkNanos(debtNanos);
+                    heldBackNanos.addAndGet(debtNanos);
+                    debtNanos = 0;
+                }
+            } else {
+                pauses.incrementAndGet();
+                try {
+                    do {
+                        if (System.nanoTime() - now >= maxPauseNanos || Thread.currentThread().isInterrupted()) {
+                            return false;
+                        }
+                        idle.run();
+                        LockSupport.parkNanos(pollNanos);
+                    } while (refresh() == State.PAUSED && !stopped);
+                } finally {
+                    heldBackNanos.addAndGet(System.nanoTime() - now);
+                }
+            }
+            return !Thread.currentThread().isInterrupted();
+        }
+    }
+}
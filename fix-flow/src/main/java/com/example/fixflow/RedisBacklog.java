@@ -0,0 +1,57 @@
+package com.example.fixflow;
+
+import redis.clients.jedis.Jedis;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.exceptions.JedisException;
+import redis.clients.jedis.resps.StreamGroupInfo;
+
+import java.util.function.LongSupplier;
+
+/**
+ * How many entries of the stream the consumers have yet to persist.
+ *
+ * For the consumer group that is its lag (entries not yet delivered, from
+ * XINFO GROUPS on Redis 7+) plus its pending entries (delivered, not yet
+ * acknowledged). Without the group, or on older Redis, it is the stream
+ * length, which the API's trimmer keeps close to the same number. If Redis
+ * cannot be asked, the last value stands.
+ *
+ * Not thread-safe; {@link FlowControl} only reads it under its lock.
+ */
+public final class RedisBacklog implements LongSupplier {
+
+    private final JedisPool pool;
+    private final String streamKey;
+    private final String group;
+    private long last;
+    private boolean warned;
+
+    public RedisBacklog(JedisPool pool, String streamKey, String group) {
+        this.pool = pool;
+        this.streamKey = streamKey;
+        this.group = group;
+    }
+
+    @Override
+    public long getAsLong() {
+        try (Jedis jedis = pool.getResource()) {
+            if (!jedis.exists(streamKey)) {
+                last = 0;
+                return last;
+            }
+            last = jedis.xlen(streamKey);
+            for (StreamGroupInfo info : jedis.xinfoGroups(streamKey)) {
+                if (group.equals(info.getName()) && info.getGroupInfo().get("lag") instanceof Long lag) {
+                    last = lag + info.getPending();
+                }
+            }
+            warned = false;
+        } catch (JedisException e) {
+            if (!warned) {
+                System.err.println("Could not read the stream backlog, keeping " + last + ": " + e.getMessage());
+                warned = true;
+            }
+        }
+        return last;
+    }
+}
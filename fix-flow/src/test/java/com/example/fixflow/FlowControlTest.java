@@ -0,0 +1,74 @@
+package com.example.fixflow;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class FlowControlTest {
+
+    @Test
+    void pausesAtTheHighWaterMarkAndResumesOnlyAtTheLow() {
+        FlowControl.State state = FlowControl.State.OPEN;
+        state = FlowControl.next(state, 100, 1000, 500);
+        assertEquals(FlowControl.State.OPEN, state);
+        state = FlowControl.next(state, 600, 1000, 500);
+        assertEquals(FlowControl.State.THROTTLED, state);
+        state = FlowControl.next(state, 1000, 1000, 500);
+        assertEquals(FlowControl.State.PAUSED, state);
+        state = FlowControl.next(state, 700, 1000, 500);
+        assertEquals(FlowControl.State.PAUSED, state, "no flapping between the marks");
+        state = FlowControl.next(state, 500, 1000, 500);
+        assertEquals(FlowControl.State.OPEN, state);
+    }
+
+    @Test
+    void throttleGrowsLinearlyThroughTheBand() {
+        assertEquals(0.0, FlowControl.throttle(400, 1000, 500));
+        assertEquals(0.5, FlowControl.throttle(750, 1000, 500));
+        assertEquals(1.0, FlowControl.throttle(5000, 1000, 500));
+    }
+
+    @Test
+    void pauseLastsUntilTheBacklogDrains() {
+        AtomicLong backlog = new AtomicLong(2000);
+        int[] idle = new int[1];
+        FlowControl flow = new FlowControl("Test", backlog::get, 1000, 500, 1_000_000);
+
+        // The consumer catches up a little on every poll.
+        assertTrue(flow.sender().admit(() -> {
+            idle[0]++;
+            backlog.addAndGet(-100);
+        }, Long.MAX_VALUE));
+        assertEquals(FlowControl.State.OPEN, flow.state());
+        assertEquals(500, flow.backlog());
+        assertEquals(1, flow.pauses());
+        assertTrue(idle[0] >= 15, "idle ran " + idle[0] + " times");
+        assertTrue(flow.heldBackNanos() > 0);
+    }
+
+    @Test
+    void givesUpAfterTheMaxPause() {
+        FlowControl flow = new FlowControl("Test", () -> 5000, 1000, 500, 1_000_000);
+        assertFalse(flow.sender().admit(() -> { }, 20_000_000));
+        assertEquals(FlowControl.State.PAUSED, flow.state());
+        assertTrue(flow.heldBackNanos() >= 20_000_000);
+    }
+
+    @Test
+    void stopEndsAPause() throws InterruptedException {
+        FlowControl flow = new FlowControl("Test", () -> 5000, 1000, 500, 1_000_000);
+        AtomicBoolean admitted = new AtomicBoolean();
+        Thread sender = new Thread(() -> admitted.set(flow.sender().admit(() -> { }, Long.MAX_VALUE)));
+        sender.start();
+        Thread.sleep(20);
+        flow.stop();
+        sender.join(1_000);
+        assertTrue(!sender.isAlive(), "still paused after stop");
+        assertTrue(admitted.get());
+    }
+}
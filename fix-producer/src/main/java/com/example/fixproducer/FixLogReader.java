@@ -0,0 +1,284 @@
+package com.example.fixproducer;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.Objects;
+
+/**
+ * Streams FIX messages out of a log file without materialising lines or Strings.
+ *
+ * The file is memory-mapped one window at a time and scanned for the
+ * {@code 8=FIX} header. When a message carries a usable BodyLength (9) its end
+ * is computed directly (header + body + {@code 10=nnn<SOH>}); otherwise the
+ * message runs up to the next header, minus trailing whitespace. Heap use is
+ * constant regardless of file size, and messages may sit on one enormous line,
+ * one per line, or anything in between.
+ *
+ * In follow mode the reader keeps polling once it reaches the end of the file,
+ * like {@code tail -F}: incomplete trailing messages are held back until they
+ * are complete, and a truncated or replaced (rolled) file is reopened from the
+ * start.
+ */
+public final class FixLogReader {
+
+    /** Receives each message as a view into the current mapped window. */
+    public interface Handler {
+
+        /** {@code window.get(offset, dst, 0, length)} copies the message out; the view dies on return. */
+        void onMessage(MappedByteBuffer window, int offset, int length);
+
+        /** Called while following a file that has no new data. */
+        default void onIdle() {
+        }
+    }
+
+    private static final byte SOH = 0x01;
+    private static final byte PIPE = '|';
+    private static final byte[] HEADER = {'8', '=', 'F', 'I', 'X'};
+    private static final int CHECKSUM_FIELD_LENGTH = 7; // "10=nnn" + delimiter
+    private static final int MAX_BEGIN_STRING = 16;
+
+    private static final int NEED_MORE = 0;
+    private static final int UNFRAMED = -1;
+
+    private final Path path;
+    private final int windowSize;
+    private final boolean follow;
+    private final long pollIntervalMs;
+
+    private volatile boolean stopped;
+    private long emitted;
+
+    public FixLogReader(Path path, int windowSize, boolean follow, long pollIntervalMs) {
+        this.path = Objects.requireNonNull(path);
+        this.windowSize = windowSize;
+        this.follow = follow;
+        this.pollIntervalMs = pollIntervalMs;
+    }
+
+    /** Makes a following reader return after its current window. */
+    public void stop() {
+        stopped = true;
+    }
+
+    /**
+     * Reads until end of file, or until {@link #stop()} in follow mode.
+     *
+     * @return number of messages handed to the handler
+     */
+    public long read(Handler handler) throws IOException, InterruptedException {
+        emitted = 0;
+        while (!stopped) {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                Object fileKey = fileKey(path);
+                long position = 0;
+
+                while (!stopped) {
+                    long size = channel.size();
+                    if (size < position) {
+                        System.out.println("Log file was truncated, restarting from the beginning: " + path);
+                        position = 0;
+                        continue;
+                    }
+
+                    long length = Math.min(size - position, windowSize);
+                    boolean atEof = position + length == size;
+                    if (length > 0) {
+                        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, position, length);
+                        int consumed = scan(window, atEof && !follow, handler);
+                        if (consumed == 0 && !atEof) {
+                            throw new IOException("FIX message at offset " + position
+                                    + " is larger than the " + windowSize + "-byte read window");
+                        }
+                        position += consumed;
+                    }
+
+                    if (!atEof) {
+                        continue;
+                    }
+                    if (!follow) {
+                        return emitted;
+                    }
+                    if (rolled(fileKey, channel, position)) {
+                        break;
+                    }
+                    handler.onIdle();
+                    Thread.sleep(pollIntervalMs);
+                }
+            } catch (NoSuchFileException e) {
+                if (!follow) {
+                    throw e;
+                }
+                // Between rotation and re-creation; wait for the new file.
+                handler.onIdle();
+                Thread.sleep(pollIntervalMs);
+            }
+        }
+        return emitted;
+    }
+
+    /** True once the path points at a different file and the old one is fully read. */
+    private boolean rolled(Object fileKey, FileChannel channel, long position) throws IOException {
+        Object current;
+        try {
+            current = fileKey(path);
+        } catch (NoSuchFileException e) {
+            return false;
+        }
+        if (fileKey != null && !fileKey.equals(current) && position >= channel.size()) {
+            System.out.println("Log file was rolled, reopening: " + path);
+            return true;
+        }
+        return false;
+    }
+
+    private static Object fileKey(Path path) throws IOException {
+        return Files.readAttributes(path, BasicFileAttributes.class).fileKey();
+    }
+
+    /**
+     * Emits every complete message in the window.
+     *
+     * @param last whether the window ends at the end of the input, so a
+     *             trailing message without a following header is complete
+     * @return number of bytes consumed from the start of the window
+     */
+    private int scan(MappedByteBuffer window, boolean last, Handler handler) {
+        final int limit = window.limit();
+        int p = 0;
+
+        while (true) {
+            int start = findHeader(window, p, limit);
+            if (start < 0) {
+                // Keep a few bytes back in case a header straddles the window edge.
+                return last ? limit : Math.max(p, limit - HEADER.length + 1);
+            }
+
+            int end = framedEnd(window, start, limit, windowSize);
+            int next;
+            if (end == NEED_MORE && !last) {
+                // The message continues past this window.
+                return start;
+            }
+            if (end > 0) {
+                next = end;
+            } else {
+                next = findHeader(window, start + HEADER.length, limit);
+                if (next < 0) {
+                    if (!last) {
+                        return start;
+                    }
+                    next = limit;
+                }
+                end = trimEnd(window, start, next);
+            }
+
+            handler.onMessage(window, start, end - start);
+            emitted++;
+            p = next;
+        }
+    }
+
+    /**
+     * Uses BodyLength to find the end of the message starting at {@code start}.
+     *
+     * @return the exclusive end offset, {@link #NEED_MORE} if the message runs
+     *         past what is mapped, or {@link #UNFRAMED} if BodyLength is absent
+     *         or does not line up with a CheckSum field (or could never fit
+     *         in a window of {@code maxLength} bytes)
+     */
+    private static int framedEnd(MappedByteBuffer window, int start, int limit, int maxLength) {
+        int i = start + HEADER.length;
+        int beginStringEnd = Math.min(limit, i + MAX_BEGIN_STRING);
+        while (i < beginStringEnd && !isDelimiter(window.get(i))) {
+            i++;
+        }
+        if (i + 2 >= limit) {
+            return NEED_MORE;
+        }
+        if (i == beginStringEnd) {
+            return UNFRAMED;
+        }
+        i++;
+        if (window.get(i) != '9' || window.get(i + 1) != '=') {
+            return UNFRAMED;
+        }
+        i += 2;
+        int bodyLength = 0;
+        int digits = 0;
+        while (i < limit) {
+            byte b = window.get(i);
+            if (b < '0' || b > '9') {
+                break;
+            }
+            bodyLength = bodyLength * 10 + (b - '0');
+            if (++digits > 9) {
+                return UNFRAMED;
+            }
+            i++;
+        }
+        if (i >= limit) {
+            return NEED_MORE;
+        }
+        if (digits == 0 || !isDelimiter(window.get(i))) {
+            return UNFRAMED;
+        }
+
+        long checksumStart = (long) i + 1 + bodyLength;
+        long end = checksumStart + CHECKSUM_FIELD_LENGTH;
+        if (end - start > maxLength) {
+            return UNFRAMED;
+        }
+        if (end > limit) {
+            return NEED_MORE;
+        }
+        int c = (int) checksumStart;
+        if (window.get(c) != '1' || window.get(c + 1) != '0' || window.get(c + 2) != '='
+                || !isDelimiter(window.get(c + 6))) {
+            return UNFRAMED;
+        }
+        return (int) end;
+    }
+
+    /** Next {@code 8=FIX} that starts a field (i.e. is not the tail of a tag such as 58). */
+    private static int findHeader(MappedByteBuffer window, int from, int limit) {
+        int last = limit - HEADER.length;
+        for (int i = from; i <= last; i++) {
+            if (window.get(i) != '8') {
+                continue;
+            }
+            if (window.get(i + 1) == '=' && window.get(i + 2) == 'F'
+                    && window.get(i + 3) == 'I' && window.get(i + 4) == 'X') {
+                if (i == 0) {
+                    return i;
+                }
+                byte prev = window.get(i - 1);
+                if (prev < '0' || prev > '9') {
+                    return i;
+                }
+            }
+        }
+        return -1;
+    }
+
+    private static int trimEnd(MappedByteBuffer window, int start, int end) {
+        while (end > start) {
+            byte b = window.get(end - 1);
+            if (b != '\n' && b != '\r' && b != ' ' && b != '\t') {
+                break;
+            }
+            end--;
+        }
+        return end;
+    }
+
+    private static boolean isDelimiter(byte b) {
+        return b == SOH || b == PIPE;
+    }
+}
@@ -1,16 +1,19 @@
 package com.example.fixproducer;
 
-import redis.clients.jedis.Jedis;
-import redis.clients.jedis.StreamEntryID;
+import com.example.fixarchive.Segment;
+import com.example.fixarchive.SegmentArchive;
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixTags;
+import com.example.fixflow.FlowControl;
+import redis.clients.jedis.JedisPool;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
 import java.io.IOException;
-import java.util.HashMap;
-import java.util.Map;
+import java.nio.MappedByteBuffer;
+import java.nio.file.Paths;
+import java.util.List;
 
 /**
- * Reads FIX log lines from a file and pushes them to a Redis Stream.
+ * Reads FIX messages from a log file and pushes them to a Redis Stream.
  *
  * Usage (locally):
  *   mvn exec:java -Dexec.mainClass="com.example.fixproducer.FixProducer" \
@@ -18,61 +21,225 @@ import java.util.Map;
  *
  * Usage (inside Docker):
  *   Set REDIS_HOST=redis and REDIS_PORT=6379 via environment variables.
+ *
+ * The log is memory-mapped and split on the 8=FIX header by {@link FixLogReader};
+ * set PRODUCER_FOLLOW=true to keep tailing it as it grows. By default messages
+ * are published with pipelined, batched XADDs; see {@link ProducerConfig} for
+ * the batch size, linger and in-flight settings.
+ *
+ * PRODUCER_REPLAY_SPEED replays the log at the pace of its SendingTimes (1 for
+ * real time, 10 for ten times faster) instead of as fast as possible. With
+ * PRODUCER_SOURCE=synthetic no file is read: {@link SyntheticTraffic} generates
+ * an order and market data flow at PRODUCER_RATE messages per second. With
+ * PRODUCER_SOURCE=archive the argument is a segment archive written by the
+ * API, replayed in archive order, optionally limited to the days between
+ * PRODUCER_ARCHIVE_FROM and PRODUCER_ARCHIVE_TO; SendingTime comes from its
+ * column, so pacing needs no parsing. Paced sending goes through a
+ * {@link Pacer}, and the achieved rate or speed is reported against the target.
+ *
+ * Whatever the source, sending is throttled and then paused while the
+ * consumer group's backlog is above PRODUCER_FLOW_LOW_WATER and
+ * PRODUCER_FLOW_HIGH_WATER (see {@link FlowControl}).
  */
 public class FixProducer {
 
-    private static final String STREAM_NAME = "fix-messages";
-
     public static void main(String[] args) {
-        if (args.length != 1) {
+        // Allow running both locally and inside Docker
+        ProducerConfig config = ProducerConfig.fromEnvironment();
+        boolean synthetic = config.source() == ProducerConfig.Source.SYNTHETIC;
+        boolean archive = config.source() == ProducerConfig.Source.ARCHIVE;
+
+        if (args.length != (synthetic ? 0 : 1)) {
             System.err.println("Usage: mvn exec:java -Dexec.mainClass=\"com.example.fixproducer.FixProducer\" -Dexec.args=\"/path/to/fix.log\"");
+            System.err.println("   or: PRODUCER_SOURCE=synthetic mvn exec:java -Dexec.mainClass=\"com.example.fixproducer.FixProducer\"");
+            System.err.println("   or: PRODUCER_SOURCE=archive mvn exec:java -Dexec.mainClass=\"com.example.fixproducer.FixProducer\" -Dexec.args=\"/path/to/archive\"");
             System.exit(1);
         }
 
-        String filePath = args[0];
-
-        // Allow running both locally and inside Docker
-        String redisHost = System.getenv().getOrDefault("REDIS_HOST", "localhost");
-        int redisPort = Integer.parseInt(System.getenv().getOrDefault("REDIS_PORT", "6379"));
-
-        System.out.println("Reading FIX messages from: " + filePath);
-        System.out.println("Connecting to Redis at " + redisHost + ":" + redisPort);
-
-        try (Jedis jedis = new Jedis(redisHost, redisPort);
-             BufferedReader reader = new BufferedReader(new FileReader(filePath))) {
+        if (synthetic) {
+            System.out.println("Generating synthetic FIX traffic");
+        } else if (archive) {
+            System.out.println("Replaying segment archive: " + args[0]);
+        } else {
+            System.out.println("Reading FIX messages from: " + args[0]);
+        }
+        System.out.println("Connecting to Redis at " + config.redisHost() + ":" + config.redisPort()
+                + " (" + config + ")");
+
+        long startNanos = System.nanoTime();
+
+        FixLogReader reader = synthetic || archive ? null : new FixLogReader(Paths.get(args[0]),
+                config.readWindowBytes(), config.follow(), config.followPollMs());
+        ProducerMetrics metrics = new ProducerMetrics(config.metricsIntervalMs());
+        JedisPool backlogPool = config.flowControl() ? config.newBacklogPool() : null;
+        FlowControl flow = backlogPool == null ? null : config.newFlowControl(backlogPool);
+        StreamPublisher publisher = flow == null
+                ? config.newPublisher(metrics)
+                : new FlowControlledPublisher(config.newPublisher(metrics), flow, backlogPool);
+        if (flow != null) {
+            metrics.flowControl(flow);
+        }
+        Pacer pacer = new Pacer(publisher::idle);
 
-            String line;
-            int count = 0;
+        Thread mainThread = Thread.currentThread();
+        Runtime.getRuntime().addShutdownHook(new Thread(() -> {
+            pacer.stop();
+            if (flow != null) {
+                flow.stop();
+            }
+            if (reader != null) {
+                reader.stop();
+            }
+            try {
+                mainThread.join(5_000);
+            } catch (InterruptedException ignored) {
+            }
+        }));
+
+        try (publisher) {
+            if (synthetic) {
+                generate(config, publisher, metrics, pacer);
+            } else if (archive) {
+                replayArchive(new SegmentArchive(Paths.get(args[0])), config, publisher, metrics, pacer);
+            } else {
+                replay(reader, config, publisher, metrics, pacer);
+            }
+        } catch (IOException e) {
+            System.err.println("Error reading file: " + e.getMessage());
+            e.printStackTrace();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (Exception e) {
+            System.err.println("Redis error: " + e.getMessage());
+            e.printStackTrace();
+        }
 
-            while ((line = reader.readLine()) != null) {
-                // Split by the standard FIX header pattern
-                String[] messages = line.split("8=FIX\\.4\\.4");
-                for (String msg : messages) {
-                    if (msg.isBlank()) continue;
+        // try-with-resources has closed the publisher, so every reply is in.
+        long count = publisher.acknowledged() - publisher.failed();
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        System.out.printf("Done! Total messages sent: %d in %.2f s (%,.0f msgs/s), %d rejected%n",
+                count, seconds, seconds > 0 ? count / seconds : 0.0, publisher.failed());
+        String pacing = metrics.pacingSummary(publisher.acknowledged());
+        if (!pacing.isEmpty()) {
+            System.out.println(pacing);
+        }
+        String flowSummary = metrics.flowSummary();
+        if (!flowSummary.isEmpty()) {
+            System.out.println(flowSummary);
+        }
+        System.out.println("Producer " + metrics.latencySummary());
+    }
 
-                    String fixMessage = "8=FIX.4.4" + msg.trim();
+    /** Publishes the log, paced by SendingTime unless the replay speed is max. */
+    private static void replay(FixLogReader reader, ProducerConfig config, StreamPublisher publisher,
+                               ProducerMetrics metrics, Pacer pacer) throws IOException, InterruptedException {
+        Pacer.Replay schedule = config.replaySpeed() > 0 ? new Pacer.Replay(config.replaySpeed()) : null;
+        if (schedule != null) {
+            metrics.targetSpeed(config.replaySpeed(), schedule::elapsedLogMicros);
+        }
+        FixDecoder decoder = new FixDecoder();
+        pacer.start();
+        reader.read(new FixLogReader.Handler() {
+            private long sent;
+
+            @Override
+            public void onMessage(MappedByteBuffer window, int offset, int length) {
+                if (pacer.stopped()) {
+                    return; // stopping; the rest of the window is dropped
+                }
+                byte[] fixMessage = new byte[length];
+                window.get(offset, fixMessage, 0, length);
+                if (schedule == null) {
+                    publisher.publish(fixMessage);
+                } else {
+                    long scheduled = pacer.await(schedule.offsetNanos(sendingMicros(decoder, fixMessage)));
+                    metrics.sendLag(System.nanoTime() - scheduled);
+                    publisher.publish(fixMessage, scheduled);
+                }
+                metrics.maybeReport(++sent);
+            }
 
-                    Map<String, String> entry = new HashMap<>();
-                    entry.put("fixMessage", fixMessage);
+            @Override
+            public void onIdle() {
+                publisher.idle();
+                metrics.maybeReport(sent);
+            }
+        });
+    }
 
-                    jedis.xadd(STREAM_NAME, StreamEntryID.NEW_ENTRY, entry);
-                    count++;
+    /** Publishes the archived raw messages in archive order, paced like a log file replay. */
+    private static void replayArchive(SegmentArchive archive, ProducerConfig config, StreamPublisher publisher,
+                                      ProducerMetrics metrics, Pacer pacer) throws IOException {
+        long from = config.archiveFrom() == null ? Segment.NULL : SegmentArchive.startOfDay(config.archiveFrom());
+        long to = config.archiveTo() == null ? Segment.NULL : SegmentArchive.startOfDay(config.archiveTo().plusDays(1)) - 1;
+        List<Segment> segments = archive.segments(from, to);
+        System.out.println("Segments to replay: " + segments.size());
+
+        Pacer.Replay schedule = config.replaySpeed() > 0 ? new Pacer.Replay(config.replaySpeed()) : null;
+        if (schedule != null) {
+            metrics.targetSpeed(config.replaySpeed(), schedule::elapsedLogMicros);
+        }
+        long[] sent = new long[1];
+        pacer.start();
+        for (Segment segment : segments) {
+            if (pacer.stopped()) {
+                break;
+            }
+            SegmentArchive.replay(List.of(segment), from, to, row -> {
+                byte[] fixMessage = row.raw();
+                if (fixMessage == null || pacer.stopped()) {
+                    return;
+                }
+                if (schedule == null) {
+                    publisher.publish(fixMessage);
+                } else {
+                    long scheduled = pacer.await(schedule.offsetNanos(row.sendingTime()));
+                    metrics.sendLag(System.nanoTime() - scheduled);
+                    publisher.publish(fixMessage, scheduled);
+                }
+                metrics.maybeReport(++sent[0]);
+            });
+        }
+    }
 
-                    if (count % 1000 == 0) {
-                        System.out.println("Sent " + count + " messages so far...");
-                    }
+    /** Publishes synthetic traffic at the target rate until the duration is up or the producer is stopped. */
+    private static void generate(ProducerConfig config, StreamPublisher publisher, ProducerMetrics metrics,
+                                 Pacer pacer) {
+        SyntheticTraffic traffic = new SyntheticTraffic(config.symbols(), config.sessions(), config.seed());
+        double rate = config.rate();
+        if (rate > 0) {
+            metrics.targetRate(rate);
+        }
+        long durationNanos = config.durationSeconds() * 1_000_000_000L;
+        long startMillis = System.currentTimeMillis();
+        long startNanos = pacer.start();
+        long sent = 0;
+        while (!pacer.stopped()) {
+            long scheduled;
+            if (rate > 0) {
+                long offset = Pacer.rateOffset(sent, rate);
+                if (durationNanos > 0 && offset >= durationNanos) {
+                    break;
+                }
+                scheduled = pacer.await(offset);
+                metrics.sendLag(System.nanoTime() - scheduled);
+            } else {
+                scheduled = System.nanoTime();
+                if (durationNanos > 0 && scheduled - startNanos >= durationNanos) {
+                    break;
                 }
             }
+            // SendingTime is the scheduled time, so the stream's timestamps are as even as the schedule.
+            publisher.publish(traffic.next(startMillis + (scheduled - startNanos) / 1_000_000), scheduled);
+            metrics.maybeReport(++sent);
+        }
+    }
 
-            System.out.println("Done! Total messages sent: " + count);
-
-        } catch (IOException e) {
-            System.err.println("Error reading file: " + e.getMessage());
-            e.printStackTrace();
-        } catch (Exception e) {
-            System.err.println("Redis error: " + e.getMessage());
-            e.printStackTrace();
+    private static long sendingMicros(FixDecoder decoder, byte[] fixMessage) {
+        try {
+            return decoder.wrap(fixMessage).getTimestampMicros(FixTags.SENDING_TIME, Long.MIN_VALUE);
+        } catch (RuntimeException e) {
+            return Long.MIN_VALUE; // unparseable; sent without waiting
         }
     }
 }
-
@@ -0,0 +1,58 @@
+package com.example.fixproducer;
+
+import com.example.fixflow.FlowControl;
+import redis.clients.jedis.JedisPool;
+
+/**
+ * A publisher that asks {@link FlowControl} before every message, so the
+ * log, archive and synthetic sources are all held back the same way. A
+ * paced producer that was held back sends back to back afterwards to catch
+ * up with its schedule, as far as the backlog lets it.
+ */
+final class FlowControlledPublisher implements StreamPublisher {
+
+    private final StreamPublisher delegate;
+    private final FlowControl.Sender flow;
+    private final JedisPool backlogPool;
+
+    FlowControlledPublisher(StreamPublisher delegate, FlowControl flow, JedisPool backlogPool) {
+        this.delegate = delegate;
+        this.flow = flow.sender();
+        this.backlogPool = backlogPool;
+    }
+
+    @Override
+    public void publish(byte[] fixMessage, long sinceNanos) {
+        flow.admit(delegate::idle, Long.MAX_VALUE);
+        delegate.publish(fixMessage, sinceNanos);
+    }
+
+    @Override
+    public void poll() {
+        delegate.poll();
+    }
+
+    @Override
+    public void idle() {
+        delegate.idle();
+    }
+
+    @Override
+    public long acknowledged() {
+        return delegate.acknowledged();
+    }
+
+    @Override
+    public long failed() {
+        return delegate.failed();
+    }
+
+    @Override
+    public void close() {
+        try {
+            delegate.close();
+        } finally {
+            backlogPool.close();
+        }
+    }
+}
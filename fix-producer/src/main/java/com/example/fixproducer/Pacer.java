@@ -0,0 +1,123 @@
+package com.example.fixproducer;
+
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+
+/**
+ * Releases messages at scheduled times with low jitter.
+ *
+ * Every deadline is an absolute offset from {@link #start()}, never "now plus
+ * a period", so a late wake-up does not push the rest of the schedule back:
+ * the error of one wait is not carried into the next, and a producer that
+ * falls behind catches up by sending back to back until it is on schedule
+ * again. Waiting parks the thread while the deadline is more than
+ * {@code spinNanos} away, since a park can overshoot by tens of
+ * microseconds, and spins for the last stretch. Parks are capped at
+ * {@code idleNanos} so the idle callback (a batching publisher's linger
+ * check) still runs during long gaps.
+ */
+final class Pacer {
+
+    static final long DEFAULT_SPIN_NANOS = 100_000;
+    static final long DEFAULT_IDLE_NANOS = 1_000_000;
+
+    private final long spinNanos;
+    private final long idleNanos;
+    private final Runnable idle;
+    private final LongSupplier clock;
+    private final LongConsumer park;
+    private long startNanos;
+    private volatile boolean stopped;
+
+    /** With {@code clock} and {@code park} standing in for {@link System#nanoTime()} and {@link LockSupport#parkNanos(long)}. */
+    Pacer(long spinNanos, long idleNanos, Runnable idle, LongSupplier clock, LongConsumer park) {
+        this.spinNanos = spinNanos;
+        this.idleNanos = idleNanos;
+        this.idle = idle;
+        this.clock = clock;
+        this.park = park;
+        this.startNanos = clock.getAsLong();
+    }
+
+    Pacer(Runnable idle) {
+        this(DEFAULT_SPIN_NANOS, DEFAULT_IDLE_NANOS, idle, System::nanoTime, LockSupport::parkNanos);
+    }
+
+    /** Makes offset 0 the current instant, and returns it. */
+    long start() {
+        startNanos = clock.getAsLong();
+        return startNanos;
+    }
+
+    /** Ends any wait in progress and makes later ones return at once. */
+    void stop() {
+        stopped = true;
+    }
+
+    boolean stopped() {
+        return stopped;
+    }
+
+    /**
+     * Waits until {@code offsetNanos} after {@link #start()}; returns at once
+     * if that has passed or the pacer is stopped.
+     *
+     * @return the scheduled {@link System#nanoTime()}, for lag and latency
+     */
+    long await(long offsetNanos) {
+        long deadline = startNanos + offsetNanos;
+        long remaining = deadline - clock.getAsLong();
+        while (remaining > 0 && !stopped) {
+            if (remaining > spinNanos) {
+                idle.run();
+                park.accept(Math.min(remaining - spinNanos, idleNanos));
+            } else {
+                Thread.onSpinWait();
+            }
+            remaining = deadline - clock.getAsLong();
+        }
+        return deadline;
+    }
+
+    /** Offset of the {@code n}th message (from 0) at {@code ratePerSecond}. */
+    static long rateOffset(long n, double ratePerSecond) {
+        return (long) (n * (1e9 / ratePerSecond));
+    }
+
+    /**
+     * Maps each message's SendingTime to its offset in a replay running
+     * {@code speed} times faster than the log. The first timestamp anchors
+     * the schedule; a message without one, or older than the last, keeps the
+     * offset of the message before it rather than being held back.
+     */
+    static final class Replay {
+
+        private final double speed;
+        private long firstMicros = Long.MIN_VALUE;
+        private long lastMicros = Long.MIN_VALUE;
+        private long lastOffsetNanos;
+
+        Replay(double speed) {
+            this.speed = speed;
+        }
+
+        /** @param sendingMicros SendingTime in epoch micros, or {@code Long.MIN_VALUE} when absent */
+        long offsetNanos(long sendingMicros) {
+            if (sendingMicros == Long.MIN_VALUE || sendingMicros <= lastMicros) {
+                return lastOffsetNanos;
+            }
+            if (firstMicros == Long.MIN_VALUE) {
+                firstMicros = sendingMicros;
+            }
+            lastMicros = sendingMicros;
+            lastOffsetNanos = (long) ((sendingMicros - firstMicros) * 1_000 / speed);
+            return lastOffsetNanos;
+        }
+
+        /** Log time covered so far, in micros. */
+        long elapsedLogMicros() {
+            return firstMicros == Long.MIN_VALUE ? 0 : lastMicros - firstMicros;
+        }
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.fixproducer;
+
+import redis.clients.jedis.CommandArguments;
+import redis.clients.jedis.Connection;
+import redis.clients.jedis.DefaultJedisSocketFactory;
+import redis.clients.jedis.HostAndPort;
+import redis.clients.jedis.Protocol;
+import redis.clients.jedis.exceptions.JedisDataException;
+import redis.clients.jedis.params.XAddParams;
+
+import java.io.IOException;
+import java.net.Socket;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+/**
+ * Pipelined XADD publisher.
+ *
+ * Messages are written to the socket without waiting for replies and grouped
+ * into batches of {@code batchSize}, or fewer once the first message of a
+ * batch has waited {@code lingerMs}. Each completed batch is flushed, and up
+ * to {@code maxInFlight} flushed batches may be awaiting replies at once, so
+ * the cost of a round trip is shared by a whole window of messages instead
+ * of being paid per message.
+ *
+ * Everything goes over a single connection, so stream order matches publish
+ * order, and replies arrive in publish order too: each message's publish time
+ * is kept in a ring until its reply is read, for the latency metric. Jedis'
+ * {@code Pipeline.sync()} can only read every outstanding reply at once,
+ * which is why the window is kept directly on the connection.
+ */
+final class PipelinedPublisher implements StreamPublisher {
+
+    private static final byte[] FIELD_BYTES = FIELD.getBytes(StandardCharsets.US_ASCII);
+
+    private final PipelinedConnection connection;
+    private final byte[] streamKey;
+    private final ProducerConfig config;
+    private XAddParams xaddParams;
+    private final int batchSize;
+    private final long lingerNanos;
+    private final int maxInFlight;
+    private final ProducerMetrics metrics;
+
+    // Ring of flushed batch sizes whose replies have not been read yet.
+    private final int[] inFlight;
+    private int inFlightHead;
+    private int inFlightCount;
+
+    // Publish time of every message not yet acknowledged, indexed by publish count.
+    private final long[] publishedAt;
+    private long published;
+
+    private int pending;
+    private long batchStartNanos;
+
+    private long acknowledged;
+    private long failed;
+    private long batches;
+
+    PipelinedPublisher(ProducerConfig config, ProducerMetrics metrics) {
+        this.connection = new PipelinedConnection(new HostAndPort(config.redisHost(), config.redisPort()));
+        this.streamKey = config.streamKey().getBytes(StandardCharsets.US_ASCII);
+        this.config = config;
+        this.xaddParams = config.xaddParams(System.currentTimeMillis());
+        this.batchSize = config.batchSize();
+        this.lingerNanos = config.lingerMs() * 1_000_000L;
+        this.maxInFlight = config.maxInFlight();
+        this.inFlight = new int[maxInFlight + 1];
+        this.metrics = metrics;
+        // At most maxInFlight + 1 flushed batches plus one pending batch are unacknowledged.
+        this.publishedAt = new long[batchSize * (maxInFlight + 2)];
+    }
+
+    @Override
+    public void publish(byte[] fixMessage, long sinceNanos) {
+        if (pending == 0 && config.streamCapByAge()) {
+            // MINID moves with the clock; once per batch is close enough for an approximate cap.
+            xaddParams = config.xaddParams(System.currentTimeMillis());
+        }
+        CommandArguments xadd = new CommandArguments(Protocol.Command.XADD)
+                .key(streamKey)
+                .addParams(xaddParams)
+                .add(FIELD_BYTES)
+                .add(fixMessage);
+        publishedAt[(int) (published++ % publishedAt.length)] = sinceNanos;
+        connection.sendCommand(xadd);
+
+        if (pending++ == 0) {
+            batchStartNanos = System.nanoTime();
+        }
+        if (pending >= batchSize) {
+            endBatch();
+        } else {
+            poll();
+        }
+    }
+
+    @Override
+    public void poll() {
+        if (pending > 0 && System.nanoTime() - batchStartNanos >= lingerNanos) {
+            endBatch();
+        }
+    }
+
+    @Override
+    public void idle() {
+        poll();
+        while (inFlightCount > 0 && connection.repliesWaiting()) {
+            awaitOldestBatch();
+        }
+    }
+
+    private void endBatch() {
+        connection.flushBatch();
+        inFlight[(inFlightHead + inFlightCount) % inFlight.length] = pending;
+        inFlightCount++;
+        pending = 0;
+        batches++;
+
+        while (inFlightCount > maxInFlight) {
+            awaitOldestBatch();
+        }
+    }
+
+    private void awaitOldestBatch() {
+        int size = inFlight[inFlightHead];
+        inFlightHead = (inFlightHead + 1) % inFlight.length;
+        inFlightCount--;
+
+        List<Object> replies = connection.getMany(size);
+        long now = System.nanoTime();
+        for (int i = 0; i < size; i++) {
+            metrics.published(now - publishedAt[(int) ((acknowledged + i) % publishedAt.length)]);
+        }
+        for (Object reply : replies) {
+            if (reply instanceof JedisDataException e) {
+                if (failed++ == 0) {
+                    System.err.println("XADD rejected: " + e.getMessage());
+                }
+            }
+        }
+        acknowledged += size;
+    }
+
+    @Override
+    public long acknowledged() {
+        return acknowledged;
+    }
+
+    @Override
+    public long failed() {
+        return failed;
+    }
+
+    long batches() {
+        return batches;
+    }
+
+    @Override
+    public void close() {
+        try {
+            if (pending > 0) {
+                endBatch();
+            }
+            while (inFlightCount > 0) {
+                awaitOldestBatch();
+            }
+        } finally {
+            connection.close();
+        }
+    }
+
+    /**
+     * Exposes the buffered-output flush that {@link Connection} keeps
+     * protected, and whether reply bytes are waiting on the socket, which
+     * Connection keeps private; the socket comes from a factory that
+     * remembers it.
+     */
+    private static final class PipelinedConnection extends Connection {
+
+        private final RememberingSocketFactory sockets;
+
+        PipelinedConnection(HostAndPort hostAndPort) {
+            this(new RememberingSocketFactory(hostAndPort));
+        }
+
+        private PipelinedConnection(RememberingSocketFactory sockets) {
+            super(sockets);
+            this.sockets = sockets;
+        }
+
+        void flushBatch() {
+            flush();
+        }
+
+        /** True if the kernel holds unread reply bytes; a blocking read would return without waiting. */
+        boolean repliesWaiting() {
+            Socket socket = sockets.socket;
+            try {
+                return socket != null && socket.getInputStream().available() > 0;
+            } catch (IOException e) {
+                return false;
+            }
+        }
+    }
+
+    private static final class RememberingSocketFactory extends DefaultJedisSocketFactory {
+
+        private Socket socket;
+
+        RememberingSocketFactory(HostAndPort hostAndPort) {
+            super(hostAndPort);
+        }
+
+        @Override
+        public Socket createSocket() {
+            socket = super.createSocket();
+            return socket;
+        }
+    }
+}
@@ -0,0 +1,243 @@
+package com.example.fixproducer;
+
+import com.example.fixflow.FlowControl;
+import com.example.fixflow.RedisBacklog;
+import redis.clients.jedis.JedisPool;
+import redis.clients.jedis.params.XAddParams;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+/**
+ * Producer settings, read from environment variables so the same jar runs
+ * locally and inside Docker.
+ *
+ * <pre>
+ * REDIS_HOST                 Redis host (default localhost)
+ * REDIS_PORT                 Redis port (default 6379)
+ * PRODUCER_MODE              pipelined | sync (default pipelined)
+ * PRODUCER_BATCH_SIZE        XADDs per pipelined batch (default 500)
+ * PRODUCER_LINGER_MS         max time a partial batch waits before it is flushed (default 5)
+ * PRODUCER_MAX_IN_FLIGHT     flushed batches that may await replies at once (default 4)
+ * PRODUCER_FOLLOW            keep tailing the log file after reaching its end (default false)
+ * PRODUCER_FOLLOW_POLL_MS    how often a followed file is checked for new data (default 200)
+ * PRODUCER_READ_WINDOW_MB    size of each memory-mapped read window, 1 to 2047 (default 64)
+ * PRODUCER_METRICS_INTERVAL_MS  how often throughput and publish latency are printed (default 5000)
+ * PRODUCER_STREAM_MAXLEN     cap the stream at about this many entries on every XADD (MAXLEN ~), 0 for no cap (default 0)
+ * PRODUCER_STREAM_MAX_AGE_MS or drop entries older than this on every XADD (MINID ~), 0 for no cap (default 0)
+ * PRODUCER_SOURCE            file | synthetic | archive (default file)
+ * PRODUCER_REPLAY_SPEED      file and archive sources: pace by SendingTime (52) at this multiple of real time,
+ *                            e.g. 1 or 10, or max for as fast as possible (default max)
+ * PRODUCER_ARCHIVE_FROM      archive source: first UTC day to replay, e.g. 2025-10-18 (default the first)
+ * PRODUCER_ARCHIVE_TO        archive source: last UTC day to replay, inclusive (default the last)
+ * PRODUCER_RATE              synthetic source: target messages per second, 0 for unpaced (default 10000)
+ * PRODUCER_DURATION_S        synthetic source: how long to run, 0 until stopped (default 60)
+ * PRODUCER_SYMBOLS           synthetic source: number of symbols (default 500)
+ * PRODUCER_SESSIONS          synthetic source: number of buy-side/sell-side sessions (default 50)
+ * PRODUCER_SEED              synthetic source: random seed (default 20251018)
+ * PRODUCER_FLOW_HIGH_WATER   pause while this many entries await the consumers, 0 for no flow control (default 200000)
+ * PRODUCER_FLOW_LOW_WATER    resume at, and throttle from, this backlog (default half the high-water mark)
+ * PRODUCER_FLOW_POLL_MS      how often the backlog is checked (default 100)
+ * PRODUCER_FLOW_GROUP        consumer group whose backlog counts (default fix-consumers)
+ * </pre>
+ */
+final class ProducerConfig {
+
+    enum Mode { SYNC, PIPELINED }
+
+    enum Source { FILE, SYNTHETIC, ARCHIVE }
+
+    private final String redisHost;
+    private final int redisPort;
+    private final String streamKey;
+    private final Mode mode;
+    private final int batchSize;
+    private final long lingerMs;
+    private final int maxInFlight;
+    private final boolean follow;
+    private final long followPollMs;
+    private final int readWindowBytes;
+    private final long metricsIntervalMs;
+    private final int streamMaxLen;
+    private final long streamMaxAgeMs;
+    private final Source source;
+    private final double replaySpeed;
+    private final int rate;
+    private final int durationSeconds;
+    private final int symbols;
+    private final int sessions;
+    private final long seed;
+    private final LocalDate archiveFrom;
+    private final LocalDate archiveTo;
+    private final int flowHighWater;
+    private final int flowLowWater;
+    private final long flowPollMs;
+    private final String flowGroup;
+
+    private ProducerConfig(Map<String, String> env) {
+        this.redisHost = env.getOrDefault("REDIS_HOST", "localhost");
+        this.redisPort = intValue(env, "REDIS_PORT", 6379);
+        this.streamKey = env.getOrDefault("STREAM_KEY", "fix-messages");
+        this.mode = Mode.valueOf(env.getOrDefault("PRODUCER_MODE", "pipelined").toUpperCase());
+        this.batchSize = intValue(env, "PRODUCER_BATCH_SIZE", 500);
+        this.lingerMs = intValue(env, "PRODUCER_LINGER_MS", 5);
+        this.maxInFlight = intValue(env, "PRODUCER_MAX_IN_FLIGHT", 4);
+        this.follow = Boolean.parseBoolean(env.getOrDefault("PRODUCER_FOLLOW", "false"));
+        this.followPollMs = intValue(env, "PRODUCER_FOLLOW_POLL_MS", 200);
+        long readWindowMb = intValue(env, "PRODUCER_READ_WINDOW_MB", 64);
+        this.metricsIntervalMs = intValue(env, "PRODUCER_METRICS_INTERVAL_MS", 5000);
+        this.streamMaxLen = intValue(env, "PRODUCER_STREAM_MAXLEN", 0);
+        this.streamMaxAgeMs = intValue(env, "PRODUCER_STREAM_MAX_AGE_MS", 0);
+        this.source = Source.valueOf(env.getOrDefault("PRODUCER_SOURCE", "file").toUpperCase());
+        this.replaySpeed = speed(env.getOrDefault("PRODUCER_REPLAY_SPEED", "max"));
+        this.rate = intValue(env, "PRODUCER_RATE", 10_000);
+        this.durationSeconds = intValue(env, "PRODUCER_DURATION_S", 60);
+        this.symbols = intValue(env, "PRODUCER_SYMBOLS", 500);
+        this.sessions = intValue(env, "PRODUCER_SESSIONS", 50);
+        String seedValue = env.get("PRODUCER_SEED");
+        this.seed = seedValue == null || seedValue.isBlank() ? 20251018L : Long.parseLong(seedValue.trim());
+        this.archiveFrom = day(env, "PRODUCER_ARCHIVE_FROM");
+        this.archiveTo = day(env, "PRODUCER_ARCHIVE_TO");
+        this.flowHighWater = intValue(env, "PRODUCER_FLOW_HIGH_WATER", 200_000);
+        this.flowLowWater = intValue(env, "PRODUCER_FLOW_LOW_WATER", flowHighWater / 2);
+        this.flowPollMs = intValue(env, "PRODUCER_FLOW_POLL_MS", 100);
+        this.flowGroup = env.getOrDefault("PRODUCER_FLOW_GROUP", "fix-consumers");
+
+        // A window is one MappedByteBuffer, which holds at most Integer.MAX_VALUE bytes.
+        if (readWindowMb < 1 || readWindowMb * 1024 * 1024 > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("PRODUCER_READ_WINDOW_MB must be between 1 and 2047: " + readWindowMb);
+        }
+        this.readWindowBytes = (int) (readWindowMb * 1024 * 1024);
+        if (batchSize < 1 || maxInFlight < 1 || lingerMs < 0) {
+            throw new IllegalArgumentException(
+                    "PRODUCER_BATCH_SIZE and PRODUCER_MAX_IN_FLIGHT must be >= 1, PRODUCER_LINGER_MS >= 0");
+        }
+        if (streamMaxLen < 0 || streamMaxAgeMs < 0 || (streamMaxLen > 0 && streamMaxAgeMs > 0)) {
+            // XADD takes one trimming strategy, MAXLEN or MINID.
+            throw new IllegalArgumentException(
+                    "Set at most one of PRODUCER_STREAM_MAXLEN and PRODUCER_STREAM_MAX_AGE_MS, >= 0");
+        }
+        if (rate < 0 || durationSeconds < 0 || symbols < 1 || sessions < 1) {
+            throw new IllegalArgumentException(
+                    "PRODUCER_RATE and PRODUCER_DURATION_S must be >= 0, PRODUCER_SYMBOLS and PRODUCER_SESSIONS >= 1");
+        }
+        if (flowHighWater < 0 || (flowHighWater > 0 && (flowLowWater < 0 || flowLowWater >= flowHighWater))
+                || flowPollMs < 1) {
+            throw new IllegalArgumentException("PRODUCER_FLOW_HIGH_WATER must be >= 0 and above PRODUCER_FLOW_LOW_WATER"
+                    + " (>= 0), PRODUCER_FLOW_POLL_MS >= 1");
+        }
+    }
+
+    static ProducerConfig fromEnvironment() {
+        return new ProducerConfig(System.getenv());
+    }
+
+    private static int intValue(Map<String, String> env, String key, int defaultValue) {
+        String value = env.get(key);
+        return value == null || value.isBlank() ? defaultValue : Integer.parseInt(value.trim());
+    }
+
+    private static LocalDate day(Map<String, String> env, String key) {
+        String value = env.get(key);
+        return value == null || value.isBlank() ? null : LocalDate.parse(value.trim());
+    }
+
+    /** A multiplier such as {@code 10} or {@code 10x}; {@code max} (or 0) is unpaced. */
+    private static double speed(String value) {
+        String speed = value.trim().toLowerCase();
+        if (speed.equals("max")) {
+            return 0;
+        }
+        double multiplier = Double.parseDouble(speed.endsWith("x") ? speed.substring(0, speed.length() - 1) : speed);
+        if (multiplier < 0 || Double.isNaN(multiplier) || Double.isInfinite(multiplier)) {
+            throw new IllegalArgumentException("PRODUCER_REPLAY_SPEED must be a positive number or max: " + value);
+        }
+        return multiplier;
+    }
+
+    /** Whether XADD options depend on the time, so they have to be rebuilt rather than reused. */
+    boolean streamCapByAge() {
+        return streamMaxAgeMs > 0;
+    }
+
+    /**
+     * XADD options with the stream cap, if any. Trimming is approximate
+     * ({@code ~}): Redis only drops whole radix tree nodes, which keeps an
+     * XADD cheap but leaves the stream slightly over the cap.
+     */
+    XAddParams xaddParams(long nowMillis) {
+        XAddParams params = XAddParams.xAddParams();
+        if (streamMaxLen > 0) {
+            params.maxLen(streamMaxLen).approximateTrimming();
+        } else if (streamMaxAgeMs > 0) {
+            params.minId(Math.max(0, nowMillis - streamMaxAgeMs) + "-0").approximateTrimming();
+        }
+        return params;
+    }
+
+    StreamPublisher newPublisher(ProducerMetrics metrics) {
+        return mode == Mode.SYNC ? new SyncPublisher(this, metrics) : new PipelinedPublisher(this, metrics);
+    }
+
+    boolean flowControl() {
+        return flowHighWater > 0;
+    }
+
+    /** A connection of its own for the backlog, so reading it never waits behind pipelined XADDs. */
+    JedisPool newBacklogPool() {
+        return new JedisPool(redisHost, redisPort);
+    }
+
+    FlowControl newFlowControl(JedisPool backlogPool) {
+        return new FlowControl("Producer", new RedisBacklog(backlogPool, streamKey, flowGroup),
+                flowHighWater, flowLowWater, flowPollMs * 1_000_000L);
+    }
+
+    String redisHost() { return redisHost; }
+    int redisPort() { return redisPort; }
+    String streamKey() { return streamKey; }
+    Mode mode() { return mode; }
+    int batchSize() { return batchSize; }
+    long lingerMs() { return lingerMs; }
+    int maxInFlight() { return maxInFlight; }
+    boolean follow() { return follow; }
+    long followPollMs() { return followPollMs; }
+    int readWindowBytes() { return readWindowBytes; }
+    long metricsIntervalMs() { return metricsIntervalMs; }
+    Source source() { return source; }
+    /** 0 when unpaced. */
+    double replaySpeed() { return replaySpeed; }
+    /** 0 when unpaced. */
+    int rate() { return rate; }
+    int durationSeconds() { return durationSeconds; }
+    int symbols() { return symbols; }
+    int sessions() { return sessions; }
+    long seed() { return seed; }
+    /** Null for the archive's first day. */
+    LocalDate archiveFrom() { return archiveFrom; }
+    /** Null for the archive's last day. */
+    LocalDate archiveTo() { return archiveTo; }
+
+    @Override
+    public String toString() {
+        String publishing = mode == Mode.SYNC
+                ? "mode=sync"
+                : "mode=pipelined batchSize=" + batchSize + " lingerMs=" + lingerMs + " maxInFlight=" + maxInFlight;
+        if (streamMaxLen > 0) {
+            publishing += " maxLen~" + streamMaxLen;
+        } else if (streamMaxAgeMs > 0) {
+            publishing += " maxAgeMs~" + streamMaxAgeMs;
+        }
+        publishing += flowHighWater > 0
+                ? " flow=" + flowLowWater + ".." + flowHighWater + "@" + flowGroup
+                : " flow=off";
+        return source == Source.SYNTHETIC
+                ? publishing + " source=synthetic rate=" + (rate == 0 ? "max" : rate) + " durationS=" + durationSeconds
+                        + " symbols=" + symbols + " sessions=" + sessions + " seed=" + seed
+                : publishing + (source == Source.ARCHIVE
+                        ? " source=archive from=" + (archiveFrom == null ? "first" : archiveFrom)
+                                + " to=" + (archiveTo == null ? "last" : archiveTo)
+                        : "")
+                        + " replaySpeed=" + (replaySpeed == 0 ? "max" : replaySpeed + "x");
+    }
+}
@@ -0,0 +1,159 @@
+package com.example.fixproducer;
+
+import com.example.fixflow.FlowControl;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Publish latency (message read from the log to its XADD reply) as a
+ * Micrometer timer, whose percentiles come from HdrHistogram over a rolling
+ * two-minute window. The producer is a plain CLI, so instead of an endpoint
+ * it prints one summary line per interval and a final one when done,
+ * replacing the old per-thousand-messages console line.
+ *
+ * When sending is paced, latency runs from each message's scheduled send
+ * time instead, so a stalled producer shows up as latency rather than as
+ * fewer samples, and two more things are reported: send lag (how late each
+ * message left against its schedule) and the achieved rate, or replay
+ * speed, next to the target.
+ *
+ * With flow control on, each line also shows its state (open, throttled or
+ * paused), the consumer backlog it last saw and the time it has held the
+ * producer back; the same values are gauges in the registry.
+ */
+final class ProducerMetrics {
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final Timer publishLatency = Timer.builder("fix.producer.publish")
+            .description("Log read (or scheduled send) to XADD reply")
+            .publishPercentiles(0.5, 0.9, 0.99, 0.999)
+            .percentilePrecision(2)
+            .register(registry);
+    private final Timer sendLag = Timer.builder("fix.producer.send.lag")
+            .description("Paced send time minus scheduled send time")
+            .publishPercentiles(0.5, 0.99, 0.999)
+            .percentilePrecision(2)
+            .register(registry);
+
+    private final long intervalNanos;
+    private final long startNanos = System.nanoTime();
+    private long lastReportNanos = startNanos;
+    private long sentAtLastReport;
+
+    private double targetRate;
+    private double targetSpeed;
+    private LongSupplier logMicros;
+    private long logMicrosAtLastReport;
+    private FlowControl flow;
+
+    ProducerMetrics(long intervalMs) {
+        this.intervalNanos = intervalMs * 1_000_000;
+    }
+
+    /** Reports the achieved rate against {@code perSecond}. */
+    void targetRate(double perSecond) {
+        this.targetRate = perSecond;
+    }
+
+    /** Reports the achieved replay speed, from the log time covered so far, against {@code speed}. */
+    void targetSpeed(double speed, LongSupplier elapsedLogMicros) {
+        this.targetSpeed = speed;
+        this.logMicros = elapsedLogMicros;
+    }
+
+    /** Reports the flow control state on every line. */
+    void flowControl(FlowControl flow) {
+        this.flow = flow;
+        Gauge.builder("fix.producer.flow.state", flow, f -> f.state().ordinal())
+                .description("0 open, 1 throttled, 2 paused").register(registry);
+        Gauge.builder("fix.producer.flow.backlog", flow, FlowControl::backlog)
+                .description("Entries the consumer group has yet to persist, as last seen").register(registry);
+    }
+
+    void published(long nanos) {
+        publishLatency.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void sendLag(long nanos) {
+        sendLag.record(Math.max(0, nanos), TimeUnit.NANOSECONDS);
+    }
+
+    /** Prints a summary if the interval has passed; cheap enough to call per message. */
+    void maybeReport(long sent) {
+        long now = System.nanoTime();
+        if (now - lastReportNanos < intervalNanos) {
+            return;
+        }
+        double seconds = (now - lastReportNanos) / 1e9;
+        StringBuilder line = new StringBuilder(String.format("Producer sent=%d rate=%.0f/s", sent,
+                (sent - sentAtLastReport) / seconds));
+        if (targetRate > 0) {
+            line.append(String.format(" target=%.0f/s", targetRate));
+        }
+        if (logMicros != null) {
+            long log = logMicros.getAsLong();
+            line.append(String.format(" speed=%.2fx target=%sx", (log - logMicrosAtLastReport) / 1e6 / seconds,
+                    trim(targetSpeed)));
+            logMicrosAtLastReport = log;
+        }
+        if (flow != null) {
+            line.append(String.format(" flow=%s backlog=%d held_ms=%d", flow.state().name().toLowerCase(),
+                    flow.backlog(), flow.heldBackNanos() / 1_000_000));
+        }
+        System.out.println(line.append(' ').append(latencySummary()));
+        lastReportNanos = now;
+        sentAtLastReport = sent;
+    }
+
+    /** Achieved against target over the whole run, or an empty string when sending was not paced. */
+    String pacingSummary(long sent) {
+        double seconds = (System.nanoTime() - startNanos) / 1e9;
+        if (targetRate > 0) {
+            return String.format("Achieved %,.0f msgs/s of target %,.0f msgs/s (%.1f%%)",
+                    sent / seconds, targetRate, 100 * sent / seconds / targetRate);
+        }
+        if (logMicros != null) {
+            double logSeconds = logMicros.getAsLong() / 1e6;
+            return String.format("Replayed %.1f s of log time in %.1f s: %.2fx of target %sx",
+                    logSeconds, seconds, logSeconds / seconds, trim(targetSpeed));
+        }
+        return "";
+    }
+
+    /** Time held back by flow control over the whole run, or an empty string when it was off or never engaged. */
+    String flowSummary() {
+        if (flow == null || flow.heldBackNanos() == 0) {
+            return "";
+        }
+        return String.format("Flow control held the producer back for %.1f s (%d pauses), last backlog %d",
+                flow.heldBackNanos() / 1e9, flow.pauses(), flow.backlog());
+    }
+
+    String latencySummary() {
+        StringBuilder line = new StringBuilder();
+        append(line, "publish_latency_ms", publishLatency);
+        if (sendLag.count() > 0) {
+            append(line.append(' '), "send_lag_ms", sendLag);
+        }
+        return line.toString();
+    }
+
+    private static void append(StringBuilder line, String name, Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        line.append(name);
+        for (ValueAtPercentile p : snapshot.percentileValues()) {
+            line.append(String.format(" p%s=%.2f", trim(p.percentile() * 100), p.value(TimeUnit.MILLISECONDS)));
+        }
+        line.append(String.format(" max=%.2f", snapshot.max(TimeUnit.MILLISECONDS)));
+    }
+
+    private static String trim(double value) {
+        return value == Math.rint(value) ? Long.toString((long) value) : Double.toString(value);
+    }
+}
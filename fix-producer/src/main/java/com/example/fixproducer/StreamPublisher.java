@@ -0,0 +1,45 @@
+package com.example.fixproducer;
+
+/**
+ * Appends raw FIX messages to the Redis stream.
+ */
+interface StreamPublisher extends AutoCloseable {
+
+    String FIELD = "fixMessage";
+
+    /** Queues one message; implementations may defer the round trip. */
+    default void publish(byte[] fixMessage) {
+        publish(fixMessage, System.nanoTime());
+    }
+
+    /**
+     * Queues one message whose latency is measured from {@code sinceNanos}
+     * ({@link System#nanoTime()}), e.g. its scheduled send time when paced.
+     */
+    void publish(byte[] fixMessage, long sinceNanos);
+
+    /** Gives a batching publisher the chance to flush a batch whose linger time has expired. */
+    default void poll() {
+    }
+
+    /**
+     * Called when the caller has time to spare, between paced sends or while
+     * following an idle file: flushes like {@link #poll()}, and lets a
+     * pipelining publisher read replies that have already arrived instead of
+     * leaving them until its in-flight window fills, which would show up as
+     * latency.
+     */
+    default void idle() {
+        poll();
+    }
+
+    /** Number of XADD replies received so far, including failed ones. */
+    long acknowledged();
+
+    /** Number of XADD replies that were errors. */
+    long failed();
+
+    /** Flushes anything still buffered and waits for all outstanding replies. */
+    @Override
+    void close();
+}
@@ -0,0 +1,49 @@
+package com.example.fixproducer;
+
+import redis.clients.jedis.Jedis;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+
+/**
+ * One blocking XADD per message: the original behaviour, kept for comparison.
+ */
+final class SyncPublisher implements StreamPublisher {
+
+    private static final byte[] FIELD_BYTES = FIELD.getBytes(StandardCharsets.US_ASCII);
+
+    private final Jedis jedis;
+    private final byte[] streamKey;
+    private final ProducerConfig config;
+    private final ProducerMetrics metrics;
+    private long acknowledged;
+
+    SyncPublisher(ProducerConfig config, ProducerMetrics metrics) {
+        this.jedis = new Jedis(config.redisHost(), config.redisPort());
+        this.streamKey = config.streamKey().getBytes(StandardCharsets.US_ASCII);
+        this.config = config;
+        this.metrics = metrics;
+    }
+
+    @Override
+    public void publish(byte[] fixMessage, long sinceNanos) {
+        jedis.xadd(streamKey, config.xaddParams(System.currentTimeMillis()), Map.of(FIELD_BYTES, fixMessage));
+        metrics.published(System.nanoTime() - sinceNanos);
+        acknowledged++;
+    }
+
+    @Override
+    public long acknowledged() {
+        return acknowledged;
+    }
+
+    @Override
+    public long failed() {
+        return 0;
+    }
+
+    @Override
+    public void close() {
+        jedis.close();
+    }
+}
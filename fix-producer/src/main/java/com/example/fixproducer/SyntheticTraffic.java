@@ -0,0 +1,327 @@
+package com.example.fixproducer;
+
+import java.nio.charset.StandardCharsets;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeFormatter;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.SplittableRandom;
+
+/**
+ * Generates a live order flow for load tests: NewOrderSingle (D),
+ * ExecutionReport (8), cancel (F) and cancel/replace (G) requests, and
+ * market data snapshots (W) and incremental refreshes (X), in the
+ * proportions of the sample log, across any number of symbols and sessions.
+ *
+ * The flow is stateful so that it reads like real traffic: each session
+ * keeps its own sequence numbers in both directions and a book of open
+ * orders, executions and cancels refer to orders sent earlier (ClOrdID 11,
+ * OrigClOrdID 41) and fill them down to zero, and every symbol's prices
+ * random-walk around its own mid. A few symbols get most of the messages.
+ * BodyLength and CheckSum are valid; SendingTime is whatever time the caller
+ * passes in.
+ */
+final class SyntheticTraffic {
+
+    private static final char SOH = '\u0001';
+
+    // Per 10000 of these types in the sample log.
+    private static final char[] TYPES = { 'D', '8', 'X', 'W', 'G', 'F' };
+    private static final int[] WEIGHTS = { 2214, 2212, 1337, 886, 696, 638 };
+    private static final int WEIGHT_TOTAL = 7983;
+
+    private static final String[] COMMON_SYMBOLS = {
+            "EURUSD", "NVDA", "META", "ETHUSD", "GOOG", "MSFT", "AAPL", "BTCUSD", "JPM", "BAC",
+            "NFLX", "ESZ5", "NQZ5", "GCZ5", "USDJPY", "TSLA", "CLX5", "GBPUSD", "SPY", "AMZN" };
+
+    private static final String ID_CHARS = "ABCDEFGHIJKLMNOPQRSTUVWXYZ0123456789";
+    private static final int OPEN_ORDERS_PER_SESSION = 64;
+
+    private static final DateTimeFormatter SECONDS =
+            DateTimeFormatter.ofPattern("yyyyMMdd-HH:mm:ss").withZone(ZoneOffset.UTC);
+
+    private final SplittableRandom random;
+    private final String[] symbols;
+    private final long[] midCents;
+    private final Session[] sessions;
+    private final StringBuilder body = new StringBuilder(256);
+    private final StringBuilder message = new StringBuilder(320);
+
+    private long cachedSecond = Long.MIN_VALUE;
+    private String cachedSecondText;
+
+    SyntheticTraffic(int symbolCount, int sessionCount, long seed) {
+        if (symbolCount < 1 || sessionCount < 1) {
+            throw new IllegalArgumentException("Need at least one symbol and one session");
+        }
+        this.random = new SplittableRandom(seed);
+        this.symbols = symbols(symbolCount);
+        this.midCents = new long[symbolCount];
+        for (int i = 0; i < symbolCount; i++) {
+            midCents[i] = random.nextLong(1_000, 50_000);
+        }
+        this.sessions = new Session[sessionCount];
+        Set<String> names = new HashSet<>();
+        for (int i = 0; i < sessionCount; i++) {
+            String name;
+            do {
+                name = id(4);
+            } while (!names.add(name));
+            sessions[i] = new Session("BUY_SIDE_" + name, "SELL_SIDE_" + name);
+        }
+    }
+
+    int symbolCount() {
+        return symbols.length;
+    }
+
+    int sessionCount() {
+        return sessions.length;
+    }
+
+    /** The next message, SOH-delimited with its trailing SOH, sent at {@code epochMillis}. */
+    byte[] next(long epochMillis) {
+        Session session = sessions[random.nextInt(sessions.length)];
+        char type = pickType();
+        int order = session.randomOpenOrder(random);
+        if (order < 0 && (type == '8' || type == 'G' || type == 'F')) {
+            type = 'D'; // nothing to execute or cancel yet
+        }
+        boolean fromBuySide = type == 'D' || type == 'G' || type == 'F';
+        String time = timestamp(epochMillis);
+
+        body.setLength(0);
+        field(35, type).field(34, fromBuySide ? ++session.buySeq : ++session.sellSeq)
+                .field(49, fromBuySide ? session.buySide : session.sellSide)
+                .field(56, fromBuySide ? session.sellSide : session.buySide)
+                .field(52, time);
+        switch (type) {
+            case 'D' -> newOrder(session, time);
+            case '8' -> execution(session, order, time);
+            case 'G' -> replace(session, order, time);
+            case 'F' -> cancel(session, order, time);
+            case 'W' -> snapshot(pickSymbol());
+            default -> incremental(pickSymbol());
+        }
+
+        message.setLength(0);
+        message.append("8=FIX.4.4").append(SOH).append("9=").append(body.length()).append(SOH).append(body);
+        int sum = 0;
+        for (int i = 0; i < message.length(); i++) {
+            sum += message.charAt(i);
+        }
+        sum &= 0xFF;
+        message.append("10=").append((char) ('0' + sum / 100)).append((char) ('0' + sum / 10 % 10))
+                .append((char) ('0' + sum % 10)).append(SOH);
+        return message.toString().getBytes(StandardCharsets.US_ASCII);
+    }
+
+    private void newOrder(Session session, String time) {
+        int symbol = pickSymbol();
+        char side = random.nextBoolean() ? '1' : '2';
+        int qty = qty();
+        boolean limit = random.nextInt(4) != 0;
+        String clOrdId = id(10);
+        session.open(clOrdId, symbol, side, qty);
+        field(11, clOrdId).field(55, symbols[symbol]).field(54, side).field(38, qty)
+                .field(40, limit ? '2' : '1').field(59, '0').field(60, time);
+        if (limit) {
+            field(44, price(symbol, side == '1' ? -random.nextInt(0, 20) : random.nextInt(0, 20)));
+        }
+    }
+
+    private void execution(Session session, int order, String time) {
+        int symbol = session.symbol[order];
+        int leaves = session.leaves[order];
+        field(11, session.clOrdId[order]).field(55, symbols[symbol]).field(54, session.side[order]);
+        if (!session.acked[order]) {
+            session.acked[order] = true;
+            field(39, '0').field(150, '0').field(14, 0).field(151, leaves)
+                    .field(17, id(12)).field(37, id(10)).field(60, time);
+            return;
+        }
+        int fill = random.nextInt(4) == 0 ? leaves : random.nextInt(1, leaves + 1);
+        int cumQty = session.qty[order] - leaves + fill;
+        char status = fill == leaves ? '2' : '1';
+        field(39, status).field(150, 'F').field(14, cumQty).field(151, leaves - fill)
+                .field(17, id(12)).field(37, id(10)).field(60, time)
+                .field(31, price(symbol, 0)).field(32, fill);
+        if (fill == leaves) {
+            session.close(order);
+        } else {
+            session.leaves[order] = leaves - fill;
+        }
+    }
+
+    private void replace(Session session, int order, String time) {
+        int symbol = session.symbol[order];
+        String clOrdId = id(10);
+        int qty = Math.max(session.qty[order] - session.leaves[order] + 1, qty());
+        field(11, clOrdId).field(41, session.clOrdId[order]).field(55, symbols[symbol])
+                .field(54, session.side[order]).field(38, qty).field(60, time)
+                .field(44, price(symbol, session.side[order] == '1' ? -random.nextInt(0, 10) : random.nextInt(0, 10)));
+        session.leaves[order] += qty - session.qty[order];
+        session.qty[order] = qty;
+        session.clOrdId[order] = clOrdId;
+    }
+
+    private void cancel(Session session, int order, String time) {
+        field(11, id(10)).field(41, session.clOrdId[order]).field(55, symbols[session.symbol[order]])
+                .field(54, session.side[order]).field(38, session.qty[order]).field(60, time);
+        session.close(order);
+    }
+
+    private void snapshot(int symbol) {
+        int levels = random.nextInt(1, 4);
+        field(55, symbols[symbol]).field(268, levels * 2);
+        for (int level = 0; level < levels; level++) {
+            field(269, '0').field(270, price(symbol, -1 - level)).field(271, qty()).field(1023, level + 1);
+            field(269, '1').field(270, price(symbol, 1 + level)).field(271, qty()).field(1023, level + 1);
+        }
+    }
+
+    private void incremental(int symbol) {
+        // One in four refreshes is a trade print, the rest are book updates.
+        if (random.nextInt(4) == 0) {
+            field(268, 1).field(279, '0').field(269, '2').field(55, symbols[symbol])
+                    .field(270, price(symbol, 0)).field(271, qty());
+            return;
+        }
+        char bookSide = random.nextBoolean() ? '0' : '1';
+        field(268, 1).field(279, (char) ('0' + random.nextInt(3))).field(269, bookSide).field(55, symbols[symbol])
+                .field(270, price(symbol, bookSide == '0' ? -1 : 1)).field(271, qty());
+    }
+
+    private char pickType() {
+        int r = random.nextInt(WEIGHT_TOTAL);
+        for (int i = 0; i < TYPES.length; i++) {
+            r -= WEIGHTS[i];
+            if (r < 0) {
+                return TYPES[i];
+            }
+        }
+        return TYPES[0];
+    }
+
+    /** Skewed towards the first symbols, so a handful are busy and most are quiet. */
+    private int pickSymbol() {
+        return random.nextInt(random.nextInt(symbols.length) + 1);
+    }
+
+    /** Moves the symbol's mid by up to two ticks and quotes {@code ticks} away from it. */
+    private String price(int symbol, int ticks) {
+        long mid = Math.max(100, midCents[symbol] + random.nextInt(-2, 3));
+        midCents[symbol] = mid;
+        long cents = Math.max(1, mid + ticks);
+        long fraction = cents % 100;
+        return (cents / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+
+    private int qty() {
+        return random.nextInt(1, 50) * 100;
+    }
+
+    private String id(int length) {
+        char[] id = new char[length];
+        for (int i = 0; i < length; i++) {
+            id[i] = ID_CHARS.charAt(random.nextInt(ID_CHARS.length()));
+        }
+        return new String(id);
+    }
+
+    private String timestamp(long epochMillis) {
+        long second = Math.floorDiv(epochMillis, 1000);
+        if (second != cachedSecond) {
+            cachedSecond = second;
+            cachedSecondText = SECONDS.format(Instant.ofEpochSecond(second));
+        }
+        int millis = (int) Math.floorMod(epochMillis, 1000);
+        return cachedSecondText + (millis < 10 ? ".00" : millis < 100 ? ".0" : ".") + millis;
+    }
+
+    private SyntheticTraffic field(int tag, String value) {
+        body.append(tag).append('=').append(value).append(SOH);
+        return this;
+    }
+
+    private SyntheticTraffic field(int tag, char value) {
+        body.append(tag).append('=').append(value).append(SOH);
+        return this;
+    }
+
+    private SyntheticTraffic field(int tag, int value) {
+        body.append(tag).append('=').append(value).append(SOH);
+        return this;
+    }
+
+    /** The common symbols first, then made-up tickers. */
+    private String[] symbols(int count) {
+        String[] result = new String[count];
+        Set<String> seen = new HashSet<>();
+        for (int i = 0; i < count; i++) {
+            String symbol = i < COMMON_SYMBOLS.length ? COMMON_SYMBOLS[i] : null;
+            while (symbol == null || !seen.add(symbol)) {
+                char[] ticker = new char[random.nextInt(3, 5)];
+                for (int c = 0; c < ticker.length; c++) {
+                    ticker[c] = (char) ('A' + random.nextInt(26));
+                }
+                symbol = new String(ticker);
+            }
+            result[i] = symbol;
+        }
+        return result;
+    }
+
+    /** One buy-side/sell-side pair and the buy side's open orders, in parallel arrays. */
+    private static final class Session {
+
+        final String buySide;
+        final String sellSide;
+        int buySeq;
+        int sellSeq;
+
+        final String[] clOrdId = new String[OPEN_ORDERS_PER_SESSION];
+        final int[] symbol = new int[OPEN_ORDERS_PER_SESSION];
+        final char[] side = new char[OPEN_ORDERS_PER_SESSION];
+        final int[] qty = new int[OPEN_ORDERS_PER_SESSION];
+        final int[] leaves = new int[OPEN_ORDERS_PER_SESSION];
+        final boolean[] acked = new boolean[OPEN_ORDERS_PER_SESSION];
+        int open;
+
+        Session(String buySide, String sellSide) {
+            this.buySide = buySide;
+            this.sellSide = sellSide;
+        }
+
+        int randomOpenOrder(SplittableRandom random) {
+            return open == 0 ? -1 : random.nextInt(open);
+        }
+
+        /** Adds an order; when the book is full the order in the first slot is forgotten. */
+        void open(String id, int symbolIndex, char orderSide, int orderQty) {
+            if (open == OPEN_ORDERS_PER_SESSION) {
+                close(0);
+            }
+            int slot = open++;
+            clOrdId[slot] = id;
+            symbol[slot] = symbolIndex;
+            side[slot] = orderSide;
+            qty[slot] = orderQty;
+            leaves[slot] = orderQty;
+            acked[slot] = false;
+        }
+
+        /** Removes an order by moving the last one into its slot. */
+        void close(int slot) {
+            int last = --open;
+            clOrdId[slot] = clOrdId[last];
+            symbol[slot] = symbol[last];
+            side[slot] = side[last];
+            qty[slot] = qty[last];
+            leaves[slot] = leaves[last];
+            acked[slot] = acked[last];
+            clOrdId[last] = null;
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.example.fixproducer;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FixLogReaderTest {
+
+    @TempDir
+    Path dir;
+
+    private static String framed(String body) {
+        return "8=FIX.4.4\u00019=" + body.length() + "\u0001" + body + "10=123\u0001";
+    }
+
+    private static List<String> readAll(Path file, int windowSize) throws Exception {
+        List<String> messages = new CopyOnWriteArrayList<>();
+        new FixLogReader(file, windowSize, false, 10).read((window, offset, length) -> {
+            byte[] copy = new byte[length];
+            window.get(offset, copy, 0, length);
+            messages.add(new String(copy, StandardCharsets.US_ASCII));
+        });
+        return messages;
+    }
+
+    @Test
+    void splitsOneLongLineUsingBodyLengthAcrossWindows() throws Exception {
+        String a = framed("35=D\u000155=AAPL\u000158=8=FIX inside text\u0001");
+        String b = framed("35=0\u0001");
+        String c = framed("35=W\u000155=JPM\u0001268=1\u0001269=0\u0001270=54.71\u0001");
+        Path file = Files.writeString(dir.resolve("one-line.log"), a + b + c, StandardCharsets.US_ASCII);
+
+        // A window smaller than two messages forces remapping mid-stream.
+        assertEquals(List.of(a, b, c), readAll(file, 80));
+    }
+
+    @Test
+    void fallsBackToHeaderBoundariesWithoutBodyLength() throws Exception {
+        String content = "8=FIX.4.4|35=D|55=MSFT|10=000|\r\n8=FIX.4.4|9=999|35=0|10=000|\n  8=FIX.4.4|35=1|";
+        Path file = Files.writeString(dir.resolve("lines.log"), content, StandardCharsets.US_ASCII);
+
+        assertEquals(List.of(
+                "8=FIX.4.4|35=D|55=MSFT|10=000|",
+                "8=FIX.4.4|9=999|35=0|10=000|",
+                "8=FIX.4.4|35=1|"), readAll(file, 1 << 20));
+    }
+
+    @Test
+    void followsAGrowingFileAndHoldsBackPartialMessages() throws Exception {
+        String a = framed("35=D\u0001");
+        String b = framed("35=8\u0001");
+        Path file = Files.writeString(dir.resolve("live.log"), a + b.substring(0, 10), StandardCharsets.US_ASCII);
+
+        List<String> messages = new CopyOnWriteArrayList<>();
+        FixLogReader reader = new FixLogReader(file, 1 << 20, true, 5);
+        Thread tail = new Thread(() -> {
+            try {
+                reader.read((window, offset, length) -> {
+                    byte[] copy = new byte[length];
+                    window.get(offset, copy, 0, length);
+                    messages.add(new String(copy, StandardCharsets.US_ASCII));
+                });
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
+        tail.start();
+
+        waitFor(() -> messages.size() == 1);
+        Thread.sleep(50);
+        assertEquals(List.of(a), messages);
+
+        Files.writeString(file, b.substring(10), StandardCharsets.US_ASCII, StandardOpenOption.APPEND);
+        waitFor(() -> messages.size() == 2);
+        assertEquals(List.of(a, b), messages);
+
+        reader.stop();
+        tail.join(5_000);
+    }
+
+    private static void waitFor(java.util.function.BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(5);
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.fixproducer;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PacerTest {
+
+    /** Each clock read takes 1 us; each park oversleeps by {@code overshootNanos}. */
+    private static final class FakeTime {
+        final long overshootNanos;
+        final List<Long> parks = new ArrayList<>();
+        long now = 1_000_000_000L;
+
+        FakeTime(long overshootNanos) {
+            this.overshootNanos = overshootNanos;
+        }
+
+        long read() {
+            now += 1_000;
+            return now;
+        }
+
+        void park(long nanos) {
+            parks.add(nanos);
+            now += nanos + overshootNanos;
+        }
+    }
+
+    @Test
+    void neverReleasesEarlyAndKeepsToTheAbsoluteSchedule() {
+        FakeTime time = new FakeTime(0);
+        Pacer pacer = new Pacer(100_000, 1_000_000, () -> { }, time::read, time::park);
+        long start = pacer.start();
+        for (int n = 0; n < 200; n++) {
+            long scheduled = pacer.await(Pacer.rateOffset(n, 20_000));
+            assertEquals(start + n * 50_000L, scheduled);
+            assertTrue(time.now >= scheduled, "released before its deadline");
+            assertTrue(time.now < scheduled + 2_000, "released " + (time.now - scheduled) + " ns late");
+        }
+    }
+
+    @Test
+    void lateWakeUpsAreNotCarriedIntoTheNextWait() {
+        // Every park oversleeps by 300 us, more than the spin window.
+        FakeTime time = new FakeTime(300_000);
+        Pacer pacer = new Pacer(100_000, 1_000_000, () -> { }, time::read, time::park);
+        long start = pacer.start();
+        pacer.await(5_000_000);
+        long late = time.now - (start + 5_000_000);
+        assertTrue(late > 0);
+
+        // The next deadline is still start + 10 ms, not the late release + 5 ms.
+        assertEquals(start + 10_000_000, pacer.await(10_000_000));
+        assertTrue(time.now - (start + 10_000_000) <= late);
+
+        // Already behind schedule: no wait at all.
+        int parks = time.parks.size();
+        pacer.await(time.now - start - 1_000);
+        assertEquals(parks, time.parks.size());
+    }
+
+    @Test
+    void longWaitParksInSlicesAndKeepsTheIdleCallbackRunning() {
+        FakeTime time = new FakeTime(0);
+        int[] idle = new int[1];
+        Pacer pacer = new Pacer(100_000, 1_000_000, () -> idle[0]++, time::read, time::park);
+        pacer.start();
+        pacer.await(10_000_000);
+        assertEquals(10, time.parks.size());
+        assertEquals(time.parks.size(), idle[0], "idle runs before every park");
+        assertTrue(time.parks.stream().allMatch(nanos -> nanos <= 1_000_000), "parks capped at idleNanos");
+    }
+
+    @Test
+    void stoppedPacerDoesNotWait() {
+        Pacer pacer = new Pacer(() -> { });
+        pacer.start();
+        pacer.stop();
+        long before = System.nanoTime();
+        pacer.await(60_000_000_000L);
+        assertTrue(System.nanoTime() - before < 1_000_000_000L);
+    }
+
+    @Test
+    void replayScalesSendingTimeAndNeverGoesBackwards() {
+        Pacer.Replay replay = new Pacer.Replay(10);
+        long t0 = 1_760_739_483_105_000L;
+
+        assertEquals(0, replay.offsetNanos(Long.MIN_VALUE), "nothing anchored yet");
+        assertEquals(0, replay.offsetNanos(t0));
+        assertEquals(5_000_000, replay.offsetNanos(t0 + 50_000));
+        assertEquals(5_000_000, replay.offsetNanos(Long.MIN_VALUE), "no SendingTime: same slot as the previous message");
+        assertEquals(5_000_000, replay.offsetNanos(t0 + 10_000), "out of order: not held back");
+        assertEquals(100_000_000, replay.offsetNanos(t0 + 1_000_000));
+        assertEquals(1_000_000, replay.elapsedLogMicros());
+    }
+}
@@ -0,0 +1,102 @@
+package com.example.fixproducer;
+
+import com.example.fixcodec.FixDecoder;
+import com.example.fixcodec.FixTags;
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SyntheticTrafficTest {
+
+    private static final long T0 = 1_760_739_483_105L;
+
+    @Test
+    void messagesAreFramedAndSequencedPerSessionDirection() {
+        SyntheticTraffic traffic = new SyntheticTraffic(200, 8, 1L);
+        FixDecoder decoder = new FixDecoder();
+        Map<String, Integer> lastSeq = new HashMap<>();
+        Map<Character, Integer> types = new HashMap<>();
+        Set<String> symbols = new HashSet<>();
+
+        for (int i = 0; i < 20_000; i++) {
+            byte[] message = traffic.next(T0 + i);
+            String text = new String(message, StandardCharsets.US_ASCII);
+            int bodyStart = text.indexOf('\u0001', text.indexOf("9=")) + 1;
+            int trailer = text.lastIndexOf("10=");
+            assertEquals(trailer - bodyStart, Integer.parseInt(text.substring(text.indexOf("9=") + 2, bodyStart - 1)));
+            int sum = 0;
+            for (int k = 0; k < trailer; k++) {
+                sum += message[k];
+            }
+            assertEquals(String.format("%03d", sum & 0xFF), text.substring(trailer + 3, trailer + 6));
+
+            decoder.wrap(message);
+            assertEquals((T0 + i) * 1_000, decoder.getTimestampMicros(FixTags.SENDING_TIME, 0));
+            String sender = decoder.getString(FixTags.SENDER_COMP_ID);
+            int seq = decoder.getInt(FixTags.MSG_SEQ_NUM);
+            assertEquals(lastSeq.getOrDefault(sender, 0) + 1, seq, sender);
+            lastSeq.put(sender, seq);
+            types.merge((char) decoder.getByte(FixTags.MSG_TYPE), 1, Integer::sum);
+            if (decoder.has(FixTags.SYMBOL)) {
+                symbols.add(decoder.getString(FixTags.SYMBOL));
+            }
+        }
+
+        assertEquals(16, lastSeq.size());
+        assertEquals(Set.of('D', '8', 'F', 'G', 'W', 'X'), types.keySet());
+        assertTrue(types.get('D') > types.get('W'));
+        assertTrue(symbols.size() > 100, symbols.size() + " symbols");
+    }
+
+    @Test
+    void executionsAndCancelsOnlyReferToLiveOrders() {
+        SyntheticTraffic traffic = new SyntheticTraffic(20, 2, 7L);
+        FixDecoder decoder = new FixDecoder();
+        Set<String> live = new HashSet<>();
+        int fills = 0;
+
+        for (int i = 0; i < 5_000; i++) {
+            decoder.wrap(traffic.next(T0 + i));
+            String clOrdId = decoder.getString(FixTags.CL_ORD_ID);
+            switch ((char) decoder.getByte(FixTags.MSG_TYPE)) {
+                case 'D' -> assertTrue(live.add(clOrdId));
+                case 'G' -> {
+                    assertTrue(live.remove(decoder.getString(FixTags.ORIG_CL_ORD_ID)), "replace of a dead order");
+                    live.add(clOrdId);
+                }
+                case 'F' -> assertTrue(live.remove(decoder.getString(FixTags.ORIG_CL_ORD_ID)), "cancel of a dead order");
+                case '8' -> {
+                    assertTrue(live.contains(clOrdId), "execution of a dead order");
+                    long leaves = decoder.getLong(FixTags.LEAVES_QTY);
+                    if (decoder.has(FixTags.LAST_QTY)) {
+                        assertEquals(leaves == 0 ? '2' : '1', (char) decoder.getByte(FixTags.ORD_STATUS));
+                        if (leaves == 0) {
+                            live.remove(clOrdId);
+                            fills++;
+                        }
+                    }
+                }
+                default -> {
+                }
+            }
+        }
+        assertTrue(fills > 100, fills + " orders filled");
+    }
+
+    @Test
+    void sameSeedGivesTheSameFlow() {
+        SyntheticTraffic a = new SyntheticTraffic(50, 4, 42L);
+        SyntheticTraffic b = new SyntheticTraffic(50, 4, 42L);
+        for (int i = 0; i < 1_000; i++) {
+            assertArrayEquals(a.next(T0 + i), b.next(T0 + i));
+        }
+    }
+}
@@ -1,27 +1,133 @@
 package com.example.fixreport;
 
+import com.example.fixarchive.Segment;
+import com.example.fixarchive.SegmentArchive;
+
 import javax.sql.DataSource;
 import java.io.FileWriter;
+import java.io.IOException;
 import java.io.PrintWriter;
-import java.sql.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.format.DateTimeFormatter;
-
+import java.util.List;
+
+/**
+ * Writes the FIX message analysis report.
+ *
+ * The figures come from a {@link ReportAggregator}. When the application
+ * feeds that aggregator as messages are persisted, a report costs no
+ * database work at all; otherwise the totals are loaded from the message
+ * table once, on the first report.
+ *
+ * The totals can also be computed from a segment archive with no database
+ * in the loop, which is what {@link #main} does:
+ * <pre>
+ *   java -cp fix-report.jar:fix-archive.jar:zstd-jni.jar com.example.fixreport.FixReportApp \
+ *       /data/archive report.txt [fromDay [toDay]]
+ * </pre>
+ * Days are UTC dates such as 2025-10-18, both inclusive.
+ */
 public class FixReportApp {
 
+    private static final int TOP_SYMBOLS = 5;
+    private static final double PRICE_FACTOR = 1e8;
+
     private final DataSource dataSource;
+    private final ReportAggregator aggregator;
+    private final boolean typedSchema;
+    private boolean loaded;
 
     public FixReportApp(DataSource dataSource) {
+        this(dataSource, new ReportAggregator(), false);
+    }
+
+    /**
+     * @param typedSchema read fix_messages_typed rather than the legacy
+     *                    all-text fix_messages table when rebuilding
+     */
+    public FixReportApp(DataSource dataSource, ReportAggregator aggregator, boolean typedSchema) {
         this.dataSource = dataSource;
+        this.aggregator = aggregator;
+        this.typedSchema = typedSchema;
+    }
+
+    public ReportAggregator aggregator() {
+        return aggregator;
+    }
+
+    // -------------------------------------------------------
+    // Rebuild the running totals from Postgres
+    // -------------------------------------------------------
+    public synchronized void rebuildAggregates() throws SQLException {
+        long start = System.currentTimeMillis();
+        try (Connection conn = dataSource.getConnection()) {
+            aggregator.rebuild(conn, typedSchema);
+        }
+        loaded = true;
+        System.out.println("Report totals loaded from " + (typedSchema ? "fix_messages_typed" : "fix_messages") + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    // -------------------------------------------------------
+    // Rebuild the running totals from the segment archive
+    // -------------------------------------------------------
+
+    /**
+     * Replaces the running totals with ones computed from the segments
+     * holding rows with an event time in [{@code fromMicros}, {@code toMicros}]
+     * ({@link Segment#NULL} for an open end), one fork-join task per segment.
+     */
+    public synchronized void rebuildFromSegments(SegmentArchive archive, long fromMicros, long toMicros)
+            throws IOException {
+        long start = System.currentTimeMillis();
+        List<Segment> segments = archive.segments(fromMicros, toMicros);
+        ReportAggregator totals = segments.isEmpty()
+                ? new ReportAggregator()
+                : SegmentArchive.scan(segments, segment -> totals(segment, fromMicros, toMicros), (a, b) -> {
+                    a.merge(b);
+                    return a;
+                });
+        aggregator.rebuild(totals);
+        loaded = true;
+        System.out.println("Report totals loaded from " + segments.size() + " segments in " + archive.dir()
+                + " in " + (System.currentTimeMillis() - start) + " ms");
+    }
+
+    private static ReportAggregator totals(Segment segment, long fromMicros, long toMicros) {
+        ReportAggregator totals = new ReportAggregator();
+        SegmentArchive.replay(List.of(segment), fromMicros, toMicros, row ->
+                totals.add(row.msgType(), row.symbol(), row.side(), row.hasOrderQty() && row.hasPrice(),
+                        row.orderQty(), row.price() / PRICE_FACTOR));
+        return totals;
+    }
+
+    private synchronized void ensureLoaded() throws SQLException {
+        if (!loaded) {
+            rebuildAggregates();
+        }
     }
 
     // -------------------------------------------------------
     // PUBLIC API: Generate a full report
     // -------------------------------------------------------
     public void generateReport(String outputPath) throws Exception {
+        writeReport(snapshot(), outputPath);
+        System.out.println("📄 Report written to: " + outputPath);
+    }
+
+    /** The figures a report is written from; {@link ReportAggregator.Snapshot#version()} identifies the data. */
+    public ReportAggregator.Snapshot snapshot() throws SQLException {
+        ensureLoaded();
+        return aggregator.snapshot(TOP_SYMBOLS);
+    }
+
+    public void writeReport(ReportAggregator.Snapshot snapshot, String outputPath) throws IOException {
 
-        try (Connection conn = dataSource.getConnection();
-             PrintWriter writer = new PrintWriter(new FileWriter(outputPath))) {
+        try (PrintWriter writer = new PrintWriter(new FileWriter(outputPath, StandardCharsets.UTF_8))) {
 
             writer.println("==============================");
             writer.println("FIX Message Analysis Report");
@@ -30,54 +136,34 @@ public class FixReportApp {
             writer.println();
 
             // TOTAL COUNTS
-            long totalMessages = count(conn, "SELECT COUNT(*) FROM fix_messages");
-            writer.println("Total FIX messages: " + totalMessages);
-            writer.println("Unique Symbols: " + count(conn, "SELECT COUNT(DISTINCT symbol) FROM fix_messages"));
+            writer.println("Total FIX messages: " + snapshot.totalMessages());
+            writer.println("Unique Symbols: " + snapshot.uniqueSymbols());
             writer.println();
 
             // TOP SYMBOLS BY VOLUME
-            writeTopSymbols(writer, conn);
+            writeTopSymbols(writer, snapshot);
 
             // BUY/SELL BREAKDOWN
-            writeSideBreakdown(writer, conn, totalMessages);
+            writeSideBreakdown(writer, snapshot);
 
             // MESSAGE TYPES (tag 35)
             writer.println();
             writer.println("Message Types:");
-            summarizeTag(writer, conn, "msg_type");
+            writeMessageTypes(writer, snapshot);
         }
-
-        System.out.println("📄 Report written to: " + outputPath);
     }
 
     // -------------------------------------------------------
     // SECTION: Top Symbols
     // -------------------------------------------------------
-    private void writeTopSymbols(PrintWriter writer, Connection conn) throws SQLException {
+    private void writeTopSymbols(PrintWriter writer, ReportAggregator.Snapshot snapshot) {
 
         writer.println("Top Symbols by Trade Volume:");
 
-        String sql =
-                "SELECT symbol, SUM(order_qty::int) AS volume, AVG(price::numeric) AS avg_price " +
-                "FROM fix_messages " +
-                "WHERE symbol IS NOT NULL AND order_qty IS NOT NULL AND price IS NOT NULL " +
-                "GROUP BY symbol " +
-                "HAVING SUM(order_qty::int) > 0 " +
-                "ORDER BY volume DESC " +
-                "LIMIT 5;";
-
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            int rank = 1;
-            while (rs.next()) {
-                String symbol = rs.getString("symbol");
-                long volume = rs.getLong("volume");
-                double avgPrice = rs.getDouble("avg_price");
-
-                writer.printf("%d. %s — %,d shares — Avg Price: %.2f%n",
-                        rank++, symbol, volume, avgPrice);
-            }
+        int rank = 1;
+        for (ReportAggregator.SymbolStats stats : snapshot.topSymbols()) {
+            writer.printf("%d. %s — %,d shares — Avg Price: %.2f%n",
+                    rank++, stats.symbol(), stats.volume(), stats.avgPrice());
         }
 
         writer.println();
@@ -86,10 +172,11 @@ public class FixReportApp {
     // -------------------------------------------------------
     // SECTION: Side Breakdown
     // -------------------------------------------------------
-    private void writeSideBreakdown(PrintWriter writer, Connection conn, long total) throws SQLException {
+    private void writeSideBreakdown(PrintWriter writer, ReportAggregator.Snapshot snapshot) {
 
-        long buy = count(conn, "SELECT COUNT(*) FROM fix_messages WHERE side='1'");
-        long sell = count(conn, "SELECT COUNT(*) FROM fix_messages WHERE side='2'");
+        long total = snapshot.totalMessages();
+        long buy = snapshot.buy();
+        long sell = snapshot.sell();
         long missing = total - buy - sell;
 
         writer.println("Side Breakdown:");
@@ -100,41 +187,34 @@ public class FixReportApp {
     }
 
     // -------------------------------------------------------
-    // SUMMARY OF ANY TAG (e.g., MsgType = 35)
+    // SECTION: Message Types (tag 35)
     // -------------------------------------------------------
-    private void summarizeTag(PrintWriter writer, Connection conn, String tag) throws SQLException {
-
-        String sql = String.format(
-                "SELECT %s AS tag_value, COUNT(*) AS cnt " +
-                "FROM fix_messages " +
-                "WHERE %s IS NOT NULL " +
-                "GROUP BY %s " +
-                "ORDER BY cnt DESC;",
-                tag, tag, tag
-        );
+    private void writeMessageTypes(PrintWriter writer, ReportAggregator.Snapshot snapshot) {
 
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-
-            while (rs.next()) {
-                writer.printf("- %s : %d%n",
-                        rs.getString("tag_value"),
-                        rs.getLong("cnt"));
-            }
+        for (ReportAggregator.TypeCount type : snapshot.msgTypes()) {
+            writer.printf("- %s : %d%n", type.msgType(), type.count());
         }
     }
 
     // -------------------------------------------------------
-    // HELPERS
+    // Offline report over the segment archive
     // -------------------------------------------------------
-    private long count(Connection conn, String sql) throws SQLException {
-        try (Statement stmt = conn.createStatement();
-             ResultSet rs = stmt.executeQuery(sql)) {
-            rs.next();
-            return rs.getLong(1);
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2 || args.length > 4) {
+            System.err.println("Usage: FixReportApp <archive dir> <report file> [fromDay [toDay]]");
+            System.exit(1);
         }
+        long from = args.length > 2 ? SegmentArchive.startOfDay(LocalDate.parse(args[2])) : Segment.NULL;
+        long to = args.length > 3 ? SegmentArchive.startOfDay(LocalDate.parse(args[3]).plusDays(1)) - 1 : Segment.NULL;
+
+        FixReportApp app = new FixReportApp(null, new ReportAggregator(), true);
+        app.rebuildFromSegments(new SegmentArchive(Paths.get(args[0])), from, to);
+        app.generateReport(args[1]);
     }
 
+    // -------------------------------------------------------
+    // HELPERS
+    // -------------------------------------------------------
     private double percent(long part, long total) {
         if (total == 0) return 0.0;
         return (part * 100.0) / total;
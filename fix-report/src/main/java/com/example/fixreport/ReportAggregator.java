@@ -0,0 +1,305 @@
+package com.example.fixreport;
+
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Running totals behind the FIX report, kept in memory and updated as each
+ * message is persisted so a report never has to rescan fix_messages.
+ *
+ * Symbols and message types are interned to dense int ids; every per-key
+ * figure lives in a primitive array indexed by that id. The state is seeded
+ * once from Postgres with {@link #rebuild(Connection, boolean)}, or from
+ * totals built elsewhere with {@link #rebuild(ReportAggregator)}, and then fed
+ * by {@link #add}. Writers and {@link #snapshot} share one monitor, so a
+ * snapshot always reflects whole batches.
+ *
+ * A rebuild from Postgres may run while batches are being committed. So
+ * that no batch is both read by the rebuild and added afterwards, a writer
+ * holds {@link #commitLock()} from before its database commit until it has
+ * added the batch, and the rebuild holds it exclusively while it reads.
+ */
+public class ReportAggregator {
+
+    public record SymbolStats(String symbol, long volume, double avgPrice) {
+    }
+
+    public record TypeCount(String msgType, long count) {
+    }
+
+    /** {@code version} changes whenever the totals do, so equal versions mean identical reports. */
+    public record Snapshot(long version, long totalMessages, int uniqueSymbols, List<SymbolStats> topSymbols,
+                           long buy, long sell, List<TypeCount> msgTypes) {
+    }
+
+    // Same filter as the report always used: volume and price only count
+    // for rows that have symbol, quantity and price.
+    private static final String PRICED = "FILTER (WHERE symbol IS NOT NULL AND order_qty IS NOT NULL AND price IS NOT NULL)";
+
+    // Groups on the int symbol_id and only joins the few resulting groups to
+    // the dictionary for their names.
+    private static final String PRICED_ID = "FILTER (WHERE symbol_id IS NOT NULL AND order_qty IS NOT NULL AND price IS NOT NULL)";
+
+    private static final String REBUILD_TYPED_SQL =
+            "SELECT g.msg_type, s.symbol, g.side, g.cnt, g.volume, g.price_sum, g.priced FROM (" +
+            "SELECT msg_type, symbol_id, side, COUNT(*) AS cnt, " +
+            "SUM(order_qty) " + PRICED_ID + " AS volume, " +
+            "SUM(price) " + PRICED_ID + " AS price_sum, " +
+            "COUNT(*) " + PRICED_ID + " AS priced " +
+            "FROM fix_messages_typed " +
+            "GROUP BY msg_type, symbol_id, side) g " +
+            "LEFT JOIN fix_symbols s ON s.id = g.symbol_id";
+
+    private static final String REBUILD_LEGACY_SQL =
+            "SELECT msg_type, symbol, side, COUNT(*) AS cnt, " +
+            "SUM(order_qty::bigint) " + PRICED + " AS volume, " +
+            "SUM(price::numeric) " + PRICED + " AS price_sum, " +
+            "COUNT(*) " + PRICED + " AS priced " +
+            "FROM fix_messages " +
+            "GROUP BY msg_type, symbol, side";
+
+    private final Interner symbols = new Interner();
+    private long[] volume = new long[64];
+    private double[] priceSum = new double[64];
+    private long[] priced = new long[64];
+
+    private final Interner msgTypes = new Interner();
+    private long[] typeCounts = new long[16];
+
+    private final ReentrantReadWriteLock commits = new ReentrantReadWriteLock();
+
+    private long version;
+    private long total;
+    private long buy;
+    private long sell;
+
+    /**
+     * Adds one persisted row. {@code side} is {@code '\0'} when absent;
+     * quantity and price are only used when {@code priced}, i.e. the row has both.
+     */
+    public synchronized void add(String msgType, String symbol, char side, boolean priced, long orderQty, double price) {
+        boolean counted = priced && symbol != null;
+        version++;
+        addGroup(msgType, symbol, side, 1, counted ? orderQty : 0, counted ? price : 0, counted ? 1 : 0);
+    }
+
+    private void addGroup(String msgType, String symbol, char side, long count,
+                          long qty, double pxSum, long pricedRows) {
+        total += count;
+
+        if (side == '1') {
+            buy += count;
+        } else if (side == '2') {
+            sell += count;
+        }
+
+        if (msgType != null) {
+            typeCounts[typeId(msgType)] += count;
+        }
+
+        if (symbol != null) {
+            int id = symbolId(symbol);
+            volume[id] += qty;
+            priceSum[id] += pxSum;
+            priced[id] += pricedRows;
+        }
+    }
+
+    private int typeId(String msgType) {
+        int id = msgTypes.intern(msgType);
+        if (id == typeCounts.length) {
+            typeCounts = Arrays.copyOf(typeCounts, id * 2);
+        }
+        return id;
+    }
+
+    private int symbolId(String symbol) {
+        int id = symbols.intern(symbol);
+        if (id == volume.length) {
+            volume = Arrays.copyOf(volume, id * 2);
+            priceSum = Arrays.copyOf(priceSum, id * 2);
+            priced = Arrays.copyOf(priced, id * 2);
+        }
+        return id;
+    }
+
+    /**
+     * Adds another aggregator's totals to these, as if its rows had been
+     * added here; for totals computed in parallel, one aggregator per part.
+     */
+    public synchronized void merge(ReportAggregator other) {
+        synchronized (other) {
+            version += other.version;
+            total += other.total;
+            buy += other.buy;
+            sell += other.sell;
+            for (int i = 0; i < other.msgTypes.size(); i++) {
+                typeCounts[typeId(other.msgTypes.keyAt(i))] += other.typeCounts[i];
+            }
+            for (int i = 0; i < other.symbols.size(); i++) {
+                int id = symbolId(other.symbols.keyAt(i));
+                volume[id] += other.volume[i];
+                priceSum[id] += other.priceSum[i];
+                priced[id] += other.priced[i];
+            }
+        }
+    }
+
+    /**
+     * Held, shared, by a writer from before it commits a batch to the
+     * database until the batch has been {@link #add}ed.
+     */
+    public Lock commitLock() {
+        return commits.readLock();
+    }
+
+    /**
+     * Replaces the current state with totals read in one grouped query from
+     * fix_messages_typed, or from the legacy all-text fix_messages table.
+     * Writers holding {@link #commitLock()} are waited for and held off
+     * until the query has been read.
+     */
+    public void rebuild(Connection conn, boolean typedSchema) throws SQLException {
+        commits.writeLock().lock();
+        try {
+            synchronized (this) {
+                clear();
+                version++;
+                try (Statement stmt = conn.createStatement();
+                     ResultSet rs = stmt.executeQuery(typedSchema ? REBUILD_TYPED_SQL : REBUILD_LEGACY_SQL)) {
+                    while (rs.next()) {
+                        String side = rs.getString("side");
+                        addGroup(rs.getString("msg_type"), rs.getString("symbol"),
+                                side != null && side.length() == 1 ? side.charAt(0) : 0,
+                                rs.getLong("cnt"), rs.getLong("volume"), rs.getDouble("price_sum"),
+                                rs.getLong("priced"));
+                    }
+                }
+            }
+        } finally {
+            commits.writeLock().unlock();
+        }
+    }
+
+    /** Replaces the current state with {@code totals}, e.g. ones computed from the segment archive. */
+    public synchronized void rebuild(ReportAggregator totals) {
+        clear();
+        version++;
+        merge(totals);
+    }
+
+    private void clear() {
+        symbols.clear();
+        msgTypes.clear();
+        Arrays.fill(volume, 0);
+        Arrays.fill(priceSum, 0);
+        Arrays.fill(priced, 0);
+        Arrays.fill(typeCounts, 0);
+        total = 0;
+        buy = 0;
+        sell = 0;
+    }
+
+    /** Rows added plus rebuilds so far; a watermark for the data the totals cover. */
+    public synchronized long version() {
+        return version;
+    }
+
+    /** Copies out what the report needs; cost depends on the number of symbols, not messages. */
+    public synchronized Snapshot snapshot(int topN) {
+        List<SymbolStats> top = new ArrayList<>();
+        for (int id = 0; id < symbols.size(); id++) {
+            if (volume[id] > 0) {
+                top.add(new SymbolStats(symbols.keyAt(id), volume[id], priceSum[id] / priced[id]));
+            }
+        }
+        top.sort(Comparator.comparingLong(SymbolStats::volume).reversed()
+                .thenComparing(SymbolStats::symbol));
+        if (top.size() > topN) {
+            top = new ArrayList<>(top.subList(0, topN));
+        }
+
+        List<TypeCount> types = new ArrayList<>(msgTypes.size());
+        for (int id = 0; id < msgTypes.size(); id++) {
+            if (typeCounts[id] > 0) {
+                types.add(new TypeCount(msgTypes.keyAt(id), typeCounts[id]));
+            }
+        }
+        types.sort(Comparator.comparingLong(TypeCount::count).reversed()
+                .thenComparing(TypeCount::msgType));
+
+        return new Snapshot(version, total, symbols.size(), top, buy, sell, types);
+    }
+
+    /** Open-addressing String to dense-id table. */
+    private static final class Interner {
+        private String[] slots = new String[64];
+        private int[] slotIds = new int[64];
+        private String[] keys = new String[32];
+        private int size;
+
+        int intern(String key) {
+            int mask = slots.length - 1;
+            int slot = mix(key.hashCode()) & mask;
+            while (slots[slot] != null) {
+                if (slots[slot].equals(key)) {
+                    return slotIds[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            int id = size++;
+            if (id == keys.length) {
+                keys = Arrays.copyOf(keys, id * 2);
+            }
+            keys[id] = key;
+            slots[slot] = key;
+            slotIds[slot] = id;
+            if (size * 2 > slots.length) {
+                rehash();
+            }
+            return id;
+        }
+
+        String keyAt(int id) {
+            return keys[id];
+        }
+
+        int size() {
+            return size;
+        }
+
+        void clear() {
+            Arrays.fill(slots, null);
+            Arrays.fill(keys, null);
+            size = 0;
+        }
+
+        private void rehash() {
+            String[] newSlots = new String[slots.length * 2];
+            int[] newIds = new int[newSlots.length];
+            int mask = newSlots.length - 1;
+            for (int id = 0; id < size; id++) {
+                int slot = mix(keys[id].hashCode()) & mask;
+                while (newSlots[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                newSlots[slot] = keys[id];
+                newIds[slot] = id;
+            }
+            slots = newSlots;
+            slotIds = newIds;
+        }
+
+        private static int mix(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.fixreport;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ReportAggregatorTest {
+
+    @Test
+    void matchesTheReportQueries() {
+        ReportAggregator aggregator = new ReportAggregator();
+        aggregator.add("D", "SPY", '1', true, 100, 10.00);
+        aggregator.add("D", "SPY", '2', true, 300, 20.00);
+        aggregator.add("8", "AAPL", '1', true, 50, 150.5);
+        aggregator.add("W", "MSFT", '\0', false, 0, 0);
+        aggregator.add("0", null, '\0', false, 0, 0);
+
+        ReportAggregator.Snapshot snapshot = aggregator.snapshot(5);
+
+        assertEquals(5, snapshot.totalMessages());
+        assertEquals(5, snapshot.version());
+        assertEquals(3, snapshot.uniqueSymbols());
+        assertEquals(2, snapshot.buy());
+        assertEquals(1, snapshot.sell());
+
+        // MSFT has no priced rows, so it is left out like HAVING SUM(...) > 0 did.
+        assertEquals(2, snapshot.topSymbols().size());
+        assertEquals(new ReportAggregator.SymbolStats("SPY", 400, 15.0), snapshot.topSymbols().get(0));
+        assertEquals("AAPL", snapshot.topSymbols().get(1).symbol());
+
+        assertEquals(new ReportAggregator.TypeCount("D", 2), snapshot.msgTypes().get(0));
+        assertEquals(4, snapshot.msgTypes().size());
+    }
+
+    @Test
+    void limitsTopSymbolsAndGrowsPastInitialCapacity() {
+        ReportAggregator aggregator = new ReportAggregator();
+        for (int i = 0; i < 1000; i++) {
+            aggregator.add("D", "SYM" + i, '1', true, i + 1, 1.0);
+        }
+
+        ReportAggregator.Snapshot snapshot = aggregator.snapshot(3);
+
+        assertEquals(1000, snapshot.uniqueSymbols());
+        assertEquals(3, snapshot.topSymbols().size());
+        assertEquals("SYM999", snapshot.topSymbols().get(0).symbol());
+        assertEquals(1000, snapshot.topSymbols().get(0).volume());
+    }
+
+    @Test
+    void mergedPartsMatchOneAggregator() {
+        ReportAggregator whole = new ReportAggregator();
+        ReportAggregator left = new ReportAggregator();
+        ReportAggregator right = new ReportAggregator();
+        for (int i = 0; i < 200; i++) {
+            String symbol = "SYM" + (i % 70);
+            char side = i % 3 == 0 ? '1' : i % 3 == 1 ? '2' : '\0';
+            whole.add(i % 2 == 0 ? "D" : "8", symbol, side, i % 5 != 0, i, 10.0 + i);
+            (i < 120 ? left : right).add(i % 2 == 0 ? "D" : "8", symbol, side, i % 5 != 0, i, 10.0 + i);
+        }
+        left.merge(right);
+
+        ReportAggregator rebuilt = new ReportAggregator();
+        rebuilt.add("X", "OLD", '1', true, 1, 1.0);
+        rebuilt.rebuild(left);
+
+        ReportAggregator.Snapshot expected = whole.snapshot(5);
+        ReportAggregator.Snapshot actual = rebuilt.snapshot(5);
+        assertEquals(expected.totalMessages(), actual.totalMessages());
+        assertEquals(expected.uniqueSymbols(), actual.uniqueSymbols());
+        assertEquals(expected.topSymbols(), actual.topSymbols());
+        assertEquals(expected.buy(), actual.buy());
+        assertEquals(expected.sell(), actual.sell());
+        assertEquals(expected.msgTypes(), actual.msgTypes());
+        assertTrue(actual.version() > 1);
+    }
+}